@@ -0,0 +1,136 @@
+import java.util.Comparator;
+import java.util.Locale;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import glossary.bench.GlossaryAccess;
+
+/**
+ * The glossary entry points the benchmarks measure. This class lives in the
+ * default package, as the glossary does, so it calls the glossary directly
+ * and a change to a signature fails to compile instead of failing when the
+ * benchmarks start.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class BenchAccess implements GlossaryAccess {
+
+    @Override
+    public String nextWordOrSeparator(String text, int position,
+            Set<Character> separators) {
+        return GlossaryFacility.nextWordOrSeparator(text, position,
+                separators);
+    }
+
+    @Override
+    public int nextWordOrSeparatorEnd(CharSequence text, int position,
+            Object separators) {
+        return GlossaryFacility.nextWordOrSeparatorEnd(text, position,
+                (SeparatorSet) separators);
+    }
+
+    @Override
+    public Object separatorSet(CharSequence separators) {
+        return SeparatorSet.of(separators);
+    }
+
+    @Override
+    public boolean contains(Object separators, char c) {
+        return ((SeparatorSet) separators).contains(c);
+    }
+
+    @Override
+    public String removeMin(Queue<String> q, Comparator<String> order) {
+        return GlossaryFacility.removeMin(q, order);
+    }
+
+    @Override
+    public void sortQueue(Queue<String> q, Comparator<String> order,
+            boolean parallel) {
+        GlossaryFacility.sortQueue(q, order, parallel);
+    }
+
+    @Override
+    public Comparator<String> newCollationOrder(Locale locale) {
+        return new CollationOrder(locale);
+    }
+
+    @Override
+    public Object newExternalSort(Comparator<String> order, int runSize) {
+        return new ExternalSort(order, runSize);
+    }
+
+    @Override
+    public void add(Object sort, String key) {
+        ((ExternalSort) sort).add(key);
+    }
+
+    @Override
+    public Object newTermMatcher(Iterable<String> keys, Object separators) {
+        return new TermMatcher(keys, (SeparatorSet) separators);
+    }
+
+    @Override
+    public int[] matches(Object matcher, CharSequence text) {
+        return ((TermMatcher) matcher).matches(text);
+    }
+
+    @Override
+    public void printDescription(SimpleWriter out, String description,
+            Object matcher) {
+        GlossaryFacility.printDescription(out, description,
+                (TermMatcher) matcher);
+    }
+
+    @Override
+    public Map<String, String> generateTermPages(Map<String, String> map,
+            String folderName, Object matcher, int threads) {
+        return GlossaryFacility.generateTermPages(map, folderName,
+                (TermMatcher) matcher, threads);
+    }
+
+    @Override
+    public Object newTermDictionary(int expectedTerms) {
+        return new TermDictionary(expectedTerms);
+    }
+
+    @Override
+    public int addTerm(Object dictionary, CharSequence term,
+            CharSequence description) {
+        return ((TermDictionary) dictionary).add(term, description);
+    }
+
+    @Override
+    public int id(Object dictionary, CharSequence text, int start, int end) {
+        return ((TermDictionary) dictionary).id(text, start, end);
+    }
+
+    @Override
+    public Object newPrefixIndex(Iterable<String> keys) {
+        return PrefixIndex.of(keys);
+    }
+
+    @Override
+    public String[] complete(Object index, CharSequence prefix, int k) {
+        return ((PrefixIndex) index).complete(prefix, k);
+    }
+
+    @Override
+    public Object newInvertedIndex(Object separators) {
+        return new InvertedIndex((SeparatorSet) separators);
+    }
+
+    @Override
+    public int add(Object index, String term, CharSequence description) {
+        return ((InvertedIndex) index).add(term, description);
+    }
+
+    @Override
+    public String[] referencedBy(Object index, String term) {
+        return ((InvertedIndex) index).referencedBy(term);
+    }
+
+}
@@ -0,0 +1,93 @@
+package glossary.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Answering "the first k terms with this prefix" from a
+ * {@code PrefixIndex}, for prefixes of one to three letters of the terms.
+ *
+ * @author Vivian Lu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompleteBenchmark {
+
+    /**
+     * Number of terms in the glossary.
+     */
+    @Param({ "1000", "100000" })
+    public int termCount;
+
+    /**
+     * Number of terms asked for.
+     */
+    @Param({ "10" })
+    public int k;
+
+    /**
+     * The prefix index.
+     */
+    private Object index;
+
+    /**
+     * The prefixes looked up, in turn.
+     */
+    private String[] prefixes;
+
+    /**
+     * Index of the next prefix to look up.
+     */
+    private int next;
+
+    /**
+     * Generates the glossary and the prefixes.
+     */
+    @Setup
+    public void setUp() {
+        final int wordsPerDescription = 1;
+        final int prefixCount = 1024;
+        final int longest = 3;
+        SyntheticGlossary glossary = new SyntheticGlossary(this.termCount,
+                wordsPerDescription, 0);
+        String[] terms = glossary.terms.clone();
+        Arrays.sort(terms);
+        this.index = Glossary.newPrefixIndex(Arrays.asList(terms));
+        this.prefixes = new String[prefixCount];
+        for (int i = 0; i < prefixCount; i++) {
+            String term = glossary.terms[(i * 7919) % this.termCount];
+            this.prefixes[i] = term.substring(0,
+                    Math.min(term.length(), 1 + i % longest));
+        }
+    }
+
+    /**
+     * Looks up the next prefix.
+     *
+     * @return the terms found
+     */
+    @Benchmark
+    public String[] complete() {
+        String prefix = this.prefixes[this.next];
+        this.next = (this.next + 1) % this.prefixes.length;
+        return Glossary.complete(this.index, prefix, this.k);
+    }
+
+}
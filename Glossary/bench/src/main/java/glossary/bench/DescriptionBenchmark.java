@@ -0,0 +1,136 @@
+package glossary.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Linking one description: the automaton scan alone, and the whole
+ * {@code printDescription} into a discarding writer.
+ *
+ * @author Vivian Lu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DescriptionBenchmark {
+
+    /**
+     * Number of terms in the glossary.
+     */
+    @Param({ "1000", "100000" })
+    public int termCount;
+
+    /**
+     * Number of words in each description.
+     */
+    @Param({ "20", "200" })
+    public int wordsPerDescription;
+
+    /**
+     * Fraction of description words that are terms.
+     */
+    @Param({ "0.05", "0.3" })
+    public double linkDensity;
+
+    /**
+     * The glossary.
+     */
+    private SyntheticGlossary glossary;
+
+    /**
+     * The compiled terms.
+     */
+    private Object matcher;
+
+    /**
+     * Writer that discards its output.
+     */
+    private SimpleWriter sink;
+
+    /**
+     * Index of the next description to use.
+     */
+    private int next;
+
+    /**
+     * Generates the glossary and compiles its terms.
+     */
+    @Setup
+    public void setUp() {
+        this.glossary = new SyntheticGlossary(this.termCount,
+                this.wordsPerDescription, this.linkDensity);
+        this.matcher = Glossary.newTermMatcher(this.glossary.keys(),
+                Glossary.separatorSet(SyntheticGlossary.SEPARATORS));
+        this.sink = new SimpleWriter1L(nullDevice());
+    }
+
+    /**
+     * Closes the writer.
+     */
+    @TearDown
+    public void tearDown() {
+        this.sink.close();
+    }
+
+    /**
+     * Returns the name of the null device.
+     *
+     * @return the null device
+     */
+    static String nullDevice() {
+        if (System.getProperty("os.name").startsWith("Windows")) {
+            return "NUL";
+        }
+        return "/dev/null";
+    }
+
+    /**
+     * Returns the next description, cycling through the glossary.
+     *
+     * @return a description
+     */
+    private String nextDescription() {
+        String description = this.glossary.descriptions[this.next];
+        this.next = (this.next + 1) % this.glossary.descriptions.length;
+        return description;
+    }
+
+    /**
+     * Finds the links in a description.
+     *
+     * @return the matches
+     */
+    @Benchmark
+    public int[] matches() {
+        return Glossary.matches(this.matcher, this.nextDescription());
+    }
+
+    /**
+     * Prints a description with its links.
+     */
+    @Benchmark
+    public void printDescription() {
+        Glossary.printDescription(this.sink, this.nextDescription(),
+                this.matcher);
+    }
+
+}
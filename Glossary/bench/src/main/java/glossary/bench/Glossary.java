@@ -0,0 +1,208 @@
+package glossary.bench;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+
+/**
+ * Access to the glossary classes from the benchmarks.
+ *
+ * <p>
+ * The glossary lives in the default package, which cannot be imported from a
+ * named package, and JMH refuses benchmarks in the default package. The
+ * entry points the benchmarks measure are therefore implemented by
+ * {@code BenchAccess}, in the default package, behind the
+ * {@link GlossaryAccess} interface; the one implementation is loaded once
+ * into a {@code static final} field, so the JIT inlines its calls like
+ * direct calls. A compiled {@code TermMatcher} is passed around as an
+ * {@code Object}.
+ *
+ * @author Vivian Lu
+ *
+ */
+final class Glossary {
+
+    /**
+     * The entry points of the glossary.
+     */
+    private static final GlossaryAccess ACCESS = load();
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Glossary() {
+    }
+
+    /**
+     * Loads the implementation of the entry points.
+     *
+     * @return the entry points
+     */
+    private static GlossaryAccess load() {
+        try {
+            return Class.forName("BenchAccess")
+                    .asSubclass(GlossaryAccess.class)
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * See {@code GlossaryFacility#nextWordOrSeparator}.
+     */
+    static String nextWordOrSeparator(String text, int position,
+            Set<Character> separators) {
+        return ACCESS.nextWordOrSeparator(text, position, separators);
+    }
+
+    /**
+     * See {@code SeparatorSet#of(CharSequence)}.
+     */
+    static Object separatorSet(CharSequence separators) {
+        return ACCESS.separatorSet(separators);
+    }
+
+    /**
+     * See {@code SeparatorSet#contains}.
+     */
+    static boolean contains(Object separators, char c) {
+        return ACCESS.contains(separators, c);
+    }
+
+    /**
+     * See {@code GlossaryFacility#nextWordOrSeparatorEnd}.
+     */
+    static int nextWordOrSeparatorEnd(CharSequence text, int position,
+            Object separators) {
+        return ACCESS.nextWordOrSeparatorEnd(text, position, separators);
+    }
+
+    /**
+     * See {@code GlossaryFacility#removeMin}.
+     */
+    static String removeMin(Queue<String> q, Comparator<String> order) {
+        return ACCESS.removeMin(q, order);
+    }
+
+    /**
+     * See {@code GlossaryFacility#sortQueue(Queue, Comparator, boolean)}.
+     */
+    static void sortQueue(Queue<String> q, Comparator<String> order,
+            boolean parallel) {
+        ACCESS.sortQueue(q, order, parallel);
+    }
+
+    /**
+     * See {@code GlossaryFacility#printDescription(SimpleWriter, String, TermMatcher)}.
+     */
+    static void printDescription(SimpleWriter out, String description,
+            Object matcher) {
+        ACCESS.printDescription(out, description, matcher);
+    }
+
+    /**
+     * See {@code GlossaryFacility#generateTermPages(Map, String, TermMatcher, int)}.
+     */
+    static Map<String, String> generateTermPages(Map<String, String> map,
+            String folderName, Object matcher, int threads) {
+        return ACCESS.generateTermPages(map, folderName, matcher, threads);
+    }
+
+    /**
+     * See {@code TermMatcher#TermMatcher(Iterable, SeparatorSet)}.
+     */
+    static Object newTermMatcher(Iterable<String> keys, Object separators) {
+        return ACCESS.newTermMatcher(keys, separators);
+    }
+
+    /**
+     * See {@code TermMatcher#matches}.
+     */
+    static int[] matches(Object matcher, CharSequence text) {
+        return ACCESS.matches(matcher, text);
+    }
+
+    /**
+     * See {@code TermDictionary#TermDictionary(int)}.
+     */
+    static Object newTermDictionary(int expectedTerms) {
+        return ACCESS.newTermDictionary(expectedTerms);
+    }
+
+    /**
+     * See {@code TermDictionary#add}.
+     */
+    static int addTerm(Object dictionary, CharSequence term,
+            CharSequence description) {
+        return ACCESS.addTerm(dictionary, term, description);
+    }
+
+    /**
+     * See {@code TermDictionary#id(CharSequence, int, int)}.
+     */
+    static int id(Object dictionary, CharSequence text, int start, int end) {
+        return ACCESS.id(dictionary, text, start, end);
+    }
+
+    /**
+     * See {@code PrefixIndex#of}.
+     */
+    static Object newPrefixIndex(Iterable<String> keys) {
+        return ACCESS.newPrefixIndex(keys);
+    }
+
+    /**
+     * See {@code PrefixIndex#complete}.
+     */
+    static String[] complete(Object index, CharSequence prefix, int k) {
+        return ACCESS.complete(index, prefix, k);
+    }
+
+    /**
+     * See {@code InvertedIndex#InvertedIndex(SeparatorSet)}.
+     */
+    static Object newInvertedIndex(Object separators) {
+        return ACCESS.newInvertedIndex(separators);
+    }
+
+    /**
+     * See {@code InvertedIndex#add}.
+     */
+    static int add(Object index, String term, CharSequence description) {
+        return ACCESS.add(index, term, description);
+    }
+
+    /**
+     * See {@code InvertedIndex#referencedBy}.
+     */
+    static String[] referencedBy(Object index, String term) {
+        return ACCESS.referencedBy(index, term);
+    }
+
+    /**
+     * See {@code ExternalSort#ExternalSort(Comparator, int)}.
+     */
+    static Object newExternalSort(Comparator<String> order, int runSize) {
+        return ACCESS.newExternalSort(order, runSize);
+    }
+
+    /**
+     * See {@code ExternalSort#add}.
+     */
+    static void add(Object sort, String key) {
+        ACCESS.add(sort, key);
+    }
+
+    /**
+     * See {@code CollationOrder#CollationOrder(Locale)}.
+     */
+    static Comparator<String> newCollationOrder(Locale locale) {
+        return ACCESS.newCollationOrder(locale);
+    }
+
+}
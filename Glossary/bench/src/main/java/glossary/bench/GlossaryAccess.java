@@ -0,0 +1,268 @@
+package glossary.bench;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+
+/**
+ * The glossary entry points the benchmarks measure, implemented in the
+ * default package next to the glossary classes, which it calls directly.
+ * Glossary objects, such as a compiled {@code TermMatcher}, are passed
+ * around as {@code Object}s, since their classes cannot be named here.
+ *
+ * @author Vivian Lu
+ *
+ */
+public interface GlossaryAccess {
+
+    /**
+     * See {@code GlossaryFacility#nextWordOrSeparator}.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            the position to start at
+     * @param separators
+     *            the separators
+     * @return the word or separator at {@code position}
+     */
+    String nextWordOrSeparator(String text, int position,
+            Set<Character> separators);
+
+    /**
+     * See {@code GlossaryFacility#nextWordOrSeparatorEnd}.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            the position to start at
+     * @param separators
+     *            the {@code SeparatorSet}
+     * @return the end of the word or separator at {@code position}
+     */
+    int nextWordOrSeparatorEnd(CharSequence text, int position,
+            Object separators);
+
+    /**
+     * See {@code SeparatorSet#of(CharSequence)}.
+     *
+     * @param separators
+     *            the separator characters
+     * @return the {@code SeparatorSet}
+     */
+    Object separatorSet(CharSequence separators);
+
+    /**
+     * See {@code SeparatorSet#contains}.
+     *
+     * @param separators
+     *            the {@code SeparatorSet}
+     * @param c
+     *            the character
+     * @return whether {@code c} is a separator
+     */
+    boolean contains(Object separators, char c);
+
+    /**
+     * See {@code GlossaryFacility#removeMin}.
+     *
+     * @param q
+     *            the queue
+     * @param order
+     *            the order
+     * @return the smallest key
+     */
+    String removeMin(Queue<String> q, Comparator<String> order);
+
+    /**
+     * See {@code GlossaryFacility#sortQueue(Queue, Comparator, boolean)}.
+     *
+     * @param q
+     *            the queue
+     * @param order
+     *            the order
+     * @param parallel
+     *            whether large queues are sorted in parallel
+     */
+    void sortQueue(Queue<String> q, Comparator<String> order,
+            boolean parallel);
+
+    /**
+     * See {@code CollationOrder#CollationOrder(Locale)}.
+     *
+     * @param locale
+     *            the locale
+     * @return the order
+     */
+    Comparator<String> newCollationOrder(Locale locale);
+
+    /**
+     * See {@code ExternalSort#ExternalSort(Comparator, int)}.
+     *
+     * @param order
+     *            the order
+     * @param runSize
+     *            the most keys sorted in memory
+     * @return the {@code ExternalSort}
+     */
+    Object newExternalSort(Comparator<String> order, int runSize);
+
+    /**
+     * See {@code ExternalSort#add}.
+     *
+     * @param sort
+     *            the {@code ExternalSort}
+     * @param key
+     *            the key
+     */
+    void add(Object sort, String key);
+
+    /**
+     * See {@code TermMatcher#TermMatcher(Iterable, SeparatorSet)}.
+     *
+     * @param keys
+     *            the terms
+     * @param separators
+     *            the {@code SeparatorSet}
+     * @return the {@code TermMatcher}
+     */
+    Object newTermMatcher(Iterable<String> keys, Object separators);
+
+    /**
+     * See {@code TermMatcher#matches}.
+     *
+     * @param matcher
+     *            the {@code TermMatcher}
+     * @param text
+     *            the text
+     * @return the matches
+     */
+    int[] matches(Object matcher, CharSequence text);
+
+    /**
+     * See {@code GlossaryFacility#printDescription}, matcher form.
+     *
+     * @param out
+     *            the output stream
+     * @param description
+     *            the description
+     * @param matcher
+     *            the {@code TermMatcher}
+     */
+    void printDescription(SimpleWriter out, String description,
+            Object matcher);
+
+    /**
+     * See {@code GlossaryFacility#generateTermPages}, map form.
+     *
+     * @param map
+     *            the glossary
+     * @param folderName
+     *            the output folder
+     * @param matcher
+     *            the {@code TermMatcher}
+     * @param threads
+     *            the number of pages to render concurrently
+     * @return the terms whose page could not be written
+     */
+    Map<String, String> generateTermPages(Map<String, String> map,
+            String folderName, Object matcher, int threads);
+
+    /**
+     * See {@code TermDictionary#TermDictionary(int)}.
+     *
+     * @param expectedTerms
+     *            the number of terms expected
+     * @return the {@code TermDictionary}
+     */
+    Object newTermDictionary(int expectedTerms);
+
+    /**
+     * See {@code TermDictionary#add}.
+     *
+     * @param dictionary
+     *            the {@code TermDictionary}
+     * @param term
+     *            the term
+     * @param description
+     *            the description
+     * @return the id of {@code term}
+     */
+    int addTerm(Object dictionary, CharSequence term,
+            CharSequence description);
+
+    /**
+     * See {@code TermDictionary#id(CharSequence, int, int)}.
+     *
+     * @param dictionary
+     *            the {@code TermDictionary}
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the term in {@code text}
+     * @param end
+     *            the end of the term in {@code text}
+     * @return the id of the term
+     */
+    int id(Object dictionary, CharSequence text, int start, int end);
+
+    /**
+     * See {@code PrefixIndex#of}.
+     *
+     * @param keys
+     *            the terms, in {@code String} order
+     * @return the {@code PrefixIndex}
+     */
+    Object newPrefixIndex(Iterable<String> keys);
+
+    /**
+     * See {@code PrefixIndex#complete}.
+     *
+     * @param index
+     *            the {@code PrefixIndex}
+     * @param prefix
+     *            the prefix
+     * @param k
+     *            the most terms
+     * @return the terms starting with {@code prefix}
+     */
+    String[] complete(Object index, CharSequence prefix, int k);
+
+    /**
+     * See {@code InvertedIndex#InvertedIndex(SeparatorSet)}.
+     *
+     * @param separators
+     *            the {@code SeparatorSet}
+     * @return the {@code InvertedIndex}
+     */
+    Object newInvertedIndex(Object separators);
+
+    /**
+     * See {@code InvertedIndex#add}.
+     *
+     * @param index
+     *            the {@code InvertedIndex}
+     * @param term
+     *            the term
+     * @param description
+     *            the description
+     * @return the id of {@code term}
+     */
+    int add(Object index, String term, CharSequence description);
+
+    /**
+     * See {@code InvertedIndex#referencedBy}.
+     *
+     * @param index
+     *            the {@code InvertedIndex}
+     * @param term
+     *            the term
+     * @return the other terms whose description mentions {@code term}
+     */
+    String[] referencedBy(Object index, String term);
+
+}
@@ -0,0 +1,136 @@
+package glossary.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import components.map.Map;
+
+/**
+ * Looking up every word of a description: {@code Map1L.hasKey} on a
+ * substring, and {@code TermDictionary.id} on the span.
+ *
+ * @author Vivian Lu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    /**
+     * Number of terms in the glossary.
+     */
+    @Param({ "1000", "100000" })
+    public int termCount;
+
+    /**
+     * Fraction of description words that are terms.
+     */
+    @Param({ "0.3" })
+    public double linkDensity;
+
+    /**
+     * The description whose words are looked up.
+     */
+    private String description;
+
+    /**
+     * Start and end of every word of {@code description}, in pairs.
+     */
+    private int[] words;
+
+    /**
+     * The glossary, as a map.
+     */
+    private Map<String, String> map;
+
+    /**
+     * The glossary, as a dictionary.
+     */
+    private Object dictionary;
+
+    /**
+     * Generates the glossary.
+     */
+    @Setup
+    public void setUp() {
+        final int wordsPerDescription = 200;
+        SyntheticGlossary glossary = new SyntheticGlossary(this.termCount,
+                wordsPerDescription, this.linkDensity);
+        this.map = glossary.map();
+        this.dictionary = Glossary.newTermDictionary(this.termCount);
+        for (int i = 0; i < this.termCount; i++) {
+            Glossary.addTerm(this.dictionary, glossary.terms[i],
+                    glossary.descriptions[i]);
+        }
+
+        this.description = glossary.descriptions[0];
+        Object separators = Glossary
+                .separatorSet(SyntheticGlossary.SEPARATORS);
+        int[] spans = new int[this.description.length() * 2];
+        int count = 0;
+        int position = 0;
+        while (position < this.description.length()) {
+            int end = Glossary.nextWordOrSeparatorEnd(this.description,
+                    position, separators);
+            if (!Glossary.contains(separators,
+                    this.description.charAt(position))) {
+                spans[count] = position;
+                spans[count + 1] = end;
+                count += 2;
+            }
+            position = end;
+        }
+        this.words = Arrays.copyOf(spans, count);
+    }
+
+    /**
+     * Looks up every word in the map.
+     *
+     * @return the number of words that are terms
+     */
+    @Benchmark
+    public int mapHasKey() {
+        int found = 0;
+        for (int i = 0; i < this.words.length; i += 2) {
+            if (this.map.hasKey(this.description.substring(this.words[i],
+                    this.words[i + 1]))) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks up every word in the dictionary.
+     *
+     * @return the number of words that are terms
+     */
+    @Benchmark
+    public int dictionaryId() {
+        int found = 0;
+        for (int i = 0; i < this.words.length; i += 2) {
+            if (Glossary.id(this.dictionary, this.description, this.words[i],
+                    this.words[i + 1]) >= 0) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,128 @@
+package glossary.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import components.map.Map;
+
+/**
+ * End-to-end generation of every term page into a temporary folder.
+ *
+ * @author Vivian Lu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageGenerationBenchmark {
+
+    /**
+     * Number of terms in the glossary.
+     */
+    @Param({ "1000", "10000" })
+    public int termCount;
+
+    /**
+     * Number of words in each description.
+     */
+    @Param({ "50" })
+    public int wordsPerDescription;
+
+    /**
+     * Fraction of description words that are terms.
+     */
+    @Param({ "0.1" })
+    public double linkDensity;
+
+    /**
+     * Number of pages rendered concurrently; 0 means one per processor.
+     */
+    @Param({ "1", "0" })
+    public int threads;
+
+    /**
+     * The glossary.
+     */
+    private Map<String, String> map;
+
+    /**
+     * The compiled terms.
+     */
+    private Object matcher;
+
+    /**
+     * The output folder.
+     */
+    private Path folder;
+
+    /**
+     * Generates the glossary and compiles its terms.
+     *
+     * @throws IOException
+     *             if the output folder cannot be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(this.termCount,
+                this.wordsPerDescription, this.linkDensity);
+        this.map = glossary.map();
+        this.matcher = Glossary.newTermMatcher(glossary.keys(),
+                Glossary.separatorSet(SyntheticGlossary.SEPARATORS));
+        this.folder = Files.createTempDirectory("glossary-bench");
+        if (this.threads == 0) {
+            this.threads = Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Deletes the output folder.
+     *
+     * @throws IOException
+     *             if the output folder cannot be listed
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes every term page.
+     *
+     * @return the terms whose page could not be written
+     */
+    @Benchmark
+    public Map<String, String> generateTermPages() {
+        return Glossary.generateTermPages(this.map, this.folder.toString(),
+                this.matcher, this.threads);
+    }
+
+}
@@ -0,0 +1,104 @@
+package glossary.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building an {@code InvertedIndex} over every description, and finding the
+ * terms that mention a term, which is what each page of a
+ * {@code --backlinks} build asks for.
+ *
+ * @author Vivian Lu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    /**
+     * Number of terms in the glossary.
+     */
+    @Param({ "1000", "10000" })
+    public int termCount;
+
+    /**
+     * Number of words in each description.
+     */
+    @Param({ "40" })
+    public int wordsPerDescription;
+
+    /**
+     * The glossary.
+     */
+    private SyntheticGlossary glossary;
+
+    /**
+     * The separators.
+     */
+    private Object separators;
+
+    /**
+     * The index of every description.
+     */
+    private Object index;
+
+    /**
+     * Index of the next term to look up.
+     */
+    private int next;
+
+    /**
+     * Generates the glossary and indexes it.
+     */
+    @Setup
+    public void setUp() {
+        final double linkDensity = 0.1;
+        this.glossary = new SyntheticGlossary(this.termCount,
+                this.wordsPerDescription, linkDensity);
+        this.separators = Glossary.separatorSet(SyntheticGlossary.SEPARATORS);
+        this.index = this.build();
+    }
+
+    /**
+     * Indexes every description.
+     *
+     * @return the index
+     */
+    @Benchmark
+    public Object build() {
+        Object res = Glossary.newInvertedIndex(this.separators);
+        for (int i = 0; i < this.glossary.terms.length; i++) {
+            Glossary.add(res, this.glossary.terms[i],
+                    this.glossary.descriptions[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Finds the terms that mention the next term.
+     *
+     * @return the terms found
+     */
+    @Benchmark
+    public String[] referencedBy() {
+        String term = this.glossary.terms[this.next];
+        this.next = (this.next + 1) % this.glossary.terms.length;
+        return Glossary.referencedBy(this.index, term);
+    }
+
+}
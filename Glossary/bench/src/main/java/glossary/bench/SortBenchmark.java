@@ -0,0 +1,201 @@
+package glossary.bench;
+
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import components.queue.Queue;
+
+/**
+ * Ordering the index keys: one {@code removeMin}, a whole {@code sortQueue},
+ * sequential and parallel, an {@code ExternalSort} that spills runs of at
+ * most {@code runSize} keys, streamed once, and a {@code sortQueue} in the
+ * order of a locale, on collation keys and with a plain {@code Collator}.
+ *
+ * @author Vivian Lu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortBenchmark {
+
+    /**
+     * Number of keys.
+     */
+    @Param({ "1000", "10000", "200000" })
+    public int termCount;
+
+    /**
+     * Most keys an external sort holds in memory.
+     */
+    @Param({ "4096" })
+    public int runSize;
+
+    /**
+     * The ordering of the index.
+     */
+    private final Comparator<String> order = Comparator.naturalOrder();
+
+    /**
+     * The order of an English index, on collation keys.
+     */
+    private final Comparator<String> collation = Glossary
+            .newCollationOrder(Locale.ENGLISH);
+
+    /**
+     * The order of an English index, comparing with the collator.
+     */
+    private final Comparator<String> collator = Collator
+            .getInstance(Locale.ENGLISH)::compare;
+
+    /**
+     * The keys, unsorted.
+     */
+    private SyntheticGlossary glossary;
+
+    /**
+     * The queue for {@code removeMin}, which keeps its size.
+     */
+    private Queue<String> keys;
+
+    /**
+     * Generates the keys.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        final int words = 1;
+        this.glossary = new SyntheticGlossary(this.termCount, words, 0);
+        this.keys = this.glossary.keys();
+    }
+
+    /**
+     * A fresh unsorted queue for every invocation, since sorting consumes
+     * its order.
+     */
+    @State(Scope.Thread)
+    public static class Unsorted {
+
+        /**
+         * The queue to sort.
+         */
+        private Queue<String> keys;
+
+        /**
+         * Refills the queue.
+         *
+         * @param bench
+         *            the benchmark state holding the keys
+         */
+        @Setup(Level.Invocation)
+        public void refill(SortBenchmark bench) {
+            this.keys = bench.glossary.keys();
+        }
+    }
+
+    /**
+     * Removes the minimum and puts it back, keeping the queue size fixed.
+     *
+     * @return the minimum
+     */
+    @Benchmark
+    public String removeMin() {
+        String min = Glossary.removeMin(this.keys, this.order);
+        this.keys.enqueue(min);
+        return min;
+    }
+
+    /**
+     * Sorts the keys sequentially.
+     *
+     * @param unsorted
+     *            the keys to sort
+     * @return the sorted keys
+     */
+    @Benchmark
+    public Queue<String> sortQueue(Unsorted unsorted) {
+        Glossary.sortQueue(unsorted.keys, this.order, false);
+        return unsorted.keys;
+    }
+
+    /**
+     * Sorts the keys in parallel.
+     *
+     * @param unsorted
+     *            the keys to sort
+     * @return the sorted keys
+     */
+    @Benchmark
+    public Queue<String> sortQueueParallel(Unsorted unsorted) {
+        Glossary.sortQueue(unsorted.keys, this.order, true);
+        return unsorted.keys;
+    }
+
+    /**
+     * Sorts the keys with an external sort and streams them once.
+     *
+     * @return the last key
+     * @throws Exception
+     *             if the temporary files cannot be deleted
+     */
+    @Benchmark
+    public String externalSort() throws Exception {
+        Object sort = Glossary.newExternalSort(this.order, this.runSize);
+        try (AutoCloseable files = (AutoCloseable) sort) {
+            for (String key : this.glossary.terms) {
+                Glossary.add(sort, key);
+            }
+            String last = null;
+            @SuppressWarnings("unchecked")
+            Iterable<String> sorted = (Iterable<String>) sort;
+            for (String key : sorted) {
+                last = key;
+            }
+            return last;
+        }
+    }
+
+    /**
+     * Sorts the keys in the order of a locale, on collation keys.
+     *
+     * @param unsorted
+     *            the keys to sort
+     * @return the sorted keys
+     */
+    @Benchmark
+    public Queue<String> sortQueueCollated(Unsorted unsorted) {
+        Glossary.sortQueue(unsorted.keys, this.collation, false);
+        return unsorted.keys;
+    }
+
+    /**
+     * Sorts the keys in the order of a locale, comparing with the collator.
+     *
+     * @param unsorted
+     *            the keys to sort
+     * @return the sorted keys
+     */
+    @Benchmark
+    public Queue<String> sortQueueCollator(Unsorted unsorted) {
+        Glossary.sortQueue(unsorted.keys, this.collator, false);
+        return unsorted.keys;
+    }
+
+}
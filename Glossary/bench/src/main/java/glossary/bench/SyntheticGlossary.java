@@ -0,0 +1,170 @@
+package glossary.bench;
+
+import java.util.Random;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Deterministic synthetic glossary for the benchmarks.
+ *
+ * <p>
+ * Terms are distinct lowercase words. Each description is a sequence of words
+ * separated by spaces and the odd comma; a {@code linkDensity} fraction of
+ * those words are glossary terms (and so become links), the rest are filler
+ * words that are never terms.
+ *
+ * @author Vivian Lu
+ *
+ */
+final class SyntheticGlossary {
+
+    /**
+     * Seed, so every run benchmarks the same data.
+     */
+    private static final long SEED = 0x5EED;
+
+    /**
+     * One word in this many is followed by a comma.
+     */
+    private static final int COMMA_EVERY = 9;
+
+    /**
+     * The separators used by the glossary.
+     */
+    static final String SEPARATORS = " \t, ";
+
+    /**
+     * The terms, in generation (unsorted) order.
+     */
+    final String[] terms;
+
+    /**
+     * The descriptions, parallel to {@code terms}.
+     */
+    final String[] descriptions;
+
+    /**
+     * Generates a glossary.
+     *
+     * @param termCount
+     *            the number of terms
+     * @param wordsPerDescription
+     *            the number of words in each description
+     * @param linkDensity
+     *            the fraction of description words that are terms
+     */
+    SyntheticGlossary(int termCount, int wordsPerDescription,
+            double linkDensity) {
+        Random random = new Random(SEED);
+        this.terms = new String[termCount];
+        for (int i = 0; i < termCount; i++) {
+            /*
+             * scramble the order so sorting has real work to do
+             */
+            this.terms[i] = word(mix(i), 'a');
+        }
+        this.descriptions = new String[termCount];
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < termCount; i++) {
+            description.setLength(0);
+            for (int w = 0; w < wordsPerDescription; w++) {
+                if (w > 0) {
+                    if (random.nextInt(COMMA_EVERY) == 0) {
+                        description.append(',');
+                    }
+                    description.append(' ');
+                }
+                if (random.nextDouble() < linkDensity) {
+                    description.append(this.terms[random.nextInt(termCount)]);
+                } else {
+                    /*
+                     * filler words start with 'z', which no term does
+                     */
+                    description.append('z').append(
+                            word(random.nextInt(termCount + 1), 'a'));
+                }
+            }
+            this.descriptions[i] = description.toString();
+        }
+    }
+
+    /**
+     * Returns a bijective scramble of a non-negative int.
+     *
+     * @param i
+     *            the int
+     * @return the scrambled int
+     */
+    private static long mix(int i) {
+        final long multiplier = 0x9E3779B1L;
+        final long mask = 0xFFFFFFFFL;
+        return (i * multiplier) & mask;
+    }
+
+    /**
+     * Spells {@code n} as a word over the letters a..y.
+     *
+     * @param n
+     *            the number
+     * @param first
+     *            the lowest letter
+     * @return the word
+     */
+    private static String word(long n, char first) {
+        final int letters = 25;
+        StringBuilder res = new StringBuilder();
+        long rest = n;
+        do {
+            res.append((char) (first + rest % letters));
+            rest /= letters;
+        } while (rest > 0);
+        return res.toString();
+    }
+
+    /**
+     * Returns the terms as a queue, in generation order.
+     *
+     * @return the terms
+     */
+    Queue<String> keys() {
+        Queue<String> keys = new Queue1L<>();
+        for (String term : this.terms) {
+            keys.enqueue(term);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the glossary as a map.
+     *
+     * @return the glossary
+     */
+    Map<String, String> map() {
+        Map<String, String> map = new Map1L<>();
+        for (int i = 0; i < this.terms.length; i++) {
+            map.add(this.terms[i], this.descriptions[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Returns the separators as a set.
+     *
+     * @return the separators
+     */
+    static Set<Character> separatorSet() {
+        Set<Character> set = new Set1L<>();
+        for (char ch : SEPARATORS.toCharArray()) {
+            if (!set.contains(ch)) {
+                set.add(ch);
+            }
+        }
+        return set;
+    }
+
+}
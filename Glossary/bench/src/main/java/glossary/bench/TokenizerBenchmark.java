@@ -0,0 +1,104 @@
+package glossary.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import components.set.Set;
+
+/**
+ * Tokenizing one description, with the {@code Set<Character>} API and with a
+ * {@code SeparatorSet}.
+ *
+ * @author Vivian Lu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    /**
+     * Number of words in the description.
+     */
+    @Param({ "20", "200", "2000" })
+    public int wordsPerDescription;
+
+    /**
+     * The description to tokenize.
+     */
+    private String description;
+
+    /**
+     * The separators, as a set.
+     */
+    private Set<Character> separators;
+
+    /**
+     * The separators, as a {@code SeparatorSet}.
+     */
+    private Object separatorSet;
+
+    /**
+     * Generates the description.
+     */
+    @Setup
+    public void setUp() {
+        final int terms = 100;
+        final double linkDensity = 0.1;
+        this.description = new SyntheticGlossary(terms,
+                this.wordsPerDescription, linkDensity).descriptions[0];
+        this.separators = SyntheticGlossary.separatorSet();
+        this.separatorSet = Glossary
+                .separatorSet(SyntheticGlossary.SEPARATORS);
+    }
+
+    /**
+     * Tokenizes with {@code nextWordOrSeparator}.
+     *
+     * @param bh
+     *            the black hole
+     */
+    @Benchmark
+    public void nextWordOrSeparator(Blackhole bh) {
+        int position = 0;
+        while (position < this.description.length()) {
+            String token = Glossary.nextWordOrSeparator(this.description,
+                    position, this.separators);
+            bh.consume(token);
+            position += token.length();
+        }
+    }
+
+    /**
+     * Tokenizes with {@code nextWordOrSeparatorEnd} and a
+     * {@code SeparatorSet}.
+     *
+     * @param bh
+     *            the black hole
+     */
+    @Benchmark
+    public void nextWordOrSeparatorEnd(Blackhole bh) {
+        int position = 0;
+        while (position < this.description.length()) {
+            position = Glossary.nextWordOrSeparatorEnd(this.description,
+                    position, this.separatorSet);
+            bh.consume(position);
+        }
+    }
+
+}
@@ -0,0 +1,421 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Record of what was generated in an output folder, used to rewrite only the
+ * pages whose inputs changed since the last build.
+ *
+ * <p>
+ * For every term the manifest keeps a hash of its page content (term and
+ * description) and a hash of the set of terms its description links to; for
+ * the whole build it keeps a hash of the set of terms and the separators,
+ * which decides whether the index must be rewritten, the name of the
+ * {@link PageOutput} the pages went to, and a hash of the
+ * {@link PageTemplate}s they were rendered with. It is stored as a small text
+ * file in the output folder.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class BuildManifest {
+
+    /**
+     * Name of the manifest file in the output folder.
+     */
+    public static final String FILE_NAME = ".glossary-manifest";
+
+    /**
+     * Version of the page format; bumping it forces a full rebuild.
+     */
+    private static final String FORMAT = "glossary-manifest 4";
+
+    /**
+     * FNV-1a 64-bit offset basis.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * FNV-1a 64-bit prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Hashes of each term, as {content hash, links hash}.
+     */
+    private final HashMap<String, long[]> entries = new HashMap<>();
+
+    /**
+     * Hash of the set of terms.
+     */
+    private long keySetHash;
+
+    /**
+     * Name of the {@link PageOutput} of the build.
+     */
+    private String output = "";
+
+    /**
+     * Hash of the templates of the build.
+     */
+    private long templates;
+
+    /**
+     * Creates an empty manifest for a build over the given terms, whose pages
+     * are written as set by {@code options}. Builds with other separators or
+     * in another index order do not have the same keys, so none of their
+     * links hashes are reused and their index is rewritten; builds to
+     * another {@link PageOutput} or with other templates rewrite every page.
+     *
+     * @param keys
+     *            the terms of the build
+     * @param options
+     *            the separators, index order, output and templates of the
+     *            build
+     */
+    public BuildManifest(Iterable<String> keys, PageOptions options) {
+        assert keys != null : "Violation of: keys is not null";
+        assert options != null : "Violation of: options is not null";
+        this.output = options.output().name();
+        this.templates = options.templatesHash();
+        long hash = hash(options.separators().chars());
+        for (String key : keys) {
+            hash += mix(hash(key));
+        }
+        String order = options.orderName();
+        if (!order.isEmpty()) {
+            hash ^= hash(order);
+        }
+        this.keySetHash = hash;
+    }
+
+    /**
+     * Creates an empty manifest, against which every page is out of date.
+     */
+    public BuildManifest() {
+        this.keySetHash = 0;
+    }
+
+    /**
+     * Reads the manifest of a previous build from {@code folderName}. A
+     * missing or unreadable manifest, or one written for another page
+     * format, reads as an empty manifest, so everything is rebuilt.
+     *
+     * @param folderName
+     *            the output folder
+     * @return the manifest of the previous build
+     */
+    public static BuildManifest read(String folderName) {
+        assert folderName != null : "Violation of: folderName is not null";
+
+        BuildManifest manifest = new BuildManifest();
+        Path file = Paths.get(folderName, FILE_NAME);
+        try (BufferedReader in = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            if (!FORMAT.equals(in.readLine())) {
+                return manifest;
+            }
+            manifest.keySetHash = Long.parseUnsignedLong(in.readLine(), 16);
+            manifest.output = in.readLine();
+            if (manifest.output == null) {
+                return new BuildManifest();
+            }
+            manifest.templates = Long.parseUnsignedLong(in.readLine(), 16);
+            String line = in.readLine();
+            while (line != null) {
+                int first = line.indexOf('\t');
+                int second = line.indexOf('\t', first + 1);
+                long content = Long.parseUnsignedLong(line.substring(0, first),
+                        16);
+                long links = Long.parseUnsignedLong(
+                        line.substring(first + 1, second), 16);
+                manifest.entries.put(line.substring(second + 1),
+                        new long[] { content, links });
+                line = in.readLine();
+            }
+        } catch (IOException | RuntimeException e) {
+            return new BuildManifest();
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes this manifest to {@code folderName}, replacing the previous one.
+     *
+     * @param folderName
+     *            the output folder
+     */
+    public void write(String folderName) {
+        assert folderName != null : "Violation of: folderName is not null";
+
+        Path file = Paths.get(folderName, FILE_NAME);
+        Path temp = Paths.get(folderName, FILE_NAME + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp,
+                    StandardCharsets.UTF_8)) {
+                out.write(FORMAT);
+                out.newLine();
+                out.write(Long.toHexString(this.keySetHash));
+                out.newLine();
+                out.write(this.output);
+                out.newLine();
+                out.write(Long.toHexString(this.templates));
+                out.newLine();
+                for (java.util.Map.Entry<String, long[]> e : this.entries
+                        .entrySet()) {
+                    out.write(Long.toHexString(e.getValue()[0]));
+                    out.write('\t');
+                    out.write(Long.toHexString(e.getValue()[1]));
+                    out.write('\t');
+                    out.write(e.getKey());
+                    out.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the hash of the page content of a term.
+     *
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @return the content hash
+     */
+    public static long contentHash(String term, CharSequence description) {
+        return mix(hash(term)) ^ hash(description);
+    }
+
+    /**
+     * Returns the hash of the page content of a term whose page also lists
+     * the terms that mention it.
+     *
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @param referencedBy
+     *            the terms whose description mentions {@code term}, in order
+     * @return the content hash, the same as
+     *         {@link #contentHash(String, CharSequence)} if
+     *         {@code referencedBy} is empty
+     */
+    public static long contentHash(String term, CharSequence description,
+            String[] referencedBy) {
+        return contentHash(term, description, referencedBy, new String[0]);
+    }
+
+    /**
+     * Returns the hash of the page content of a term whose page also lists
+     * the terms that mention it and the terms to see also.
+     *
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @param referencedBy
+     *            the terms whose description mentions {@code term}, in order
+     * @param seeAlso
+     *            the terms to see also, in order
+     * @return the content hash, the same as
+     *         {@link #contentHash(String, CharSequence)} if both lists are
+     *         empty
+     */
+    public static long contentHash(String term, CharSequence description,
+            String[] referencedBy, String[] seeAlso) {
+        long hash = contentHash(term, description);
+        for (String other : referencedBy) {
+            hash = mix(hash ^ hash(other));
+        }
+        for (String other : seeAlso) {
+            hash = mix(hash ^ ~hash(other));
+        }
+        return hash;
+    }
+
+    /**
+     * Returns an order-independent hash of the links marked in
+     * {@code matches}, as returned by {@link TermMatcher#matches}. The
+     * separators of {@code matcher} are part of the hash, since they decide
+     * where the links are.
+     *
+     * @param matches
+     *            the matches in a description
+     * @param matcher
+     *            the matcher that produced {@code matches}
+     * @return the links hash
+     */
+    public static long linksHash(int[] matches, TermMatcher matcher) {
+        long hash = hash(matcher.separators().chars());
+        for (int match : matches) {
+            if (match != 0) {
+                hash += mix(hash(matcher.term(match - 1)));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the name of the {@link PageOutput} the pages of this build go
+     * to.
+     *
+     * @return the name of the output
+     */
+    public String output() {
+        return this.output;
+    }
+
+    /**
+     * Returns the hash of the templates the pages of this build are rendered
+     * with.
+     *
+     * @return the hash of the templates
+     */
+    public long templates() {
+        return this.templates;
+    }
+
+    /**
+     * Returns whether this manifest was written for the same set of terms as
+     * {@code other}.
+     *
+     * @param other
+     *            the other manifest
+     * @return true if both builds have the same terms
+     */
+    public boolean sameKeys(BuildManifest other) {
+        return this.keySetHash == other.keySetHash;
+    }
+
+    /**
+     * Returns whether {@code term} is recorded with the given content hash.
+     *
+     * @param term
+     *            the term
+     * @param contentHash
+     *            the content hash
+     * @return true if the recorded content is the same
+     */
+    public boolean sameContent(String term, long contentHash) {
+        long[] entry = this.entries.get(term);
+        return entry != null && entry[0] == contentHash;
+    }
+
+    /**
+     * Returns the recorded links hash of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return the links hash
+     * @requires term is recorded in this manifest
+     */
+    public long linksHash(String term) {
+        long[] entry = this.entries.get(term);
+        assert entry != null : "Violation of: term is recorded";
+        return entry[1];
+    }
+
+    /**
+     * Returns whether {@code term} is recorded with the given hashes.
+     *
+     * @param term
+     *            the term
+     * @param contentHash
+     *            the content hash
+     * @param linksHash
+     *            the links hash
+     * @return true if the page of {@code term} is up to date
+     */
+    public boolean isCurrent(String term, long contentHash, long linksHash) {
+        long[] entry = this.entries.get(term);
+        return entry != null && entry[0] == contentHash
+                && entry[1] == linksHash;
+    }
+
+    /**
+     * Records the hashes of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @param contentHash
+     *            the content hash
+     * @param linksHash
+     *            the links hash
+     */
+    public void record(String term, long contentHash, long linksHash) {
+        this.entries.put(term, new long[] { contentHash, linksHash });
+    }
+
+    /**
+     * Forgets {@code term}, so its page is rewritten on the next build.
+     *
+     * @param term
+     *            the term
+     */
+    public void forget(String term) {
+        this.entries.remove(term);
+    }
+
+    /**
+     * Returns the terms recorded in this manifest but not in {@code current},
+     * whose pages are left over from an earlier build.
+     *
+     * @param current
+     *            the manifest of the current build
+     * @return the stale terms
+     */
+    public Queue<String> staleTerms(BuildManifest current) {
+        Queue<String> stale = new Queue1L<>();
+        for (String term : this.entries.keySet()) {
+            if (!current.entries.containsKey(term)) {
+                stale.enqueue(term);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Returns the FNV-1a hash of the chars of {@code text}.
+     *
+     * @param text
+     *            the text
+     * @return the hash
+     */
+    private static long hash(CharSequence text) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Scrambles a hash so that sums of hashes stay well distributed.
+     *
+     * @param hash
+     *            the hash
+     * @return the scrambled hash
+     */
+    private static long mix(long hash) {
+        long h = hash;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb93fe63bd4b9L;
+        return h ^ (h >>> 33);
+    }
+
+}
@@ -0,0 +1,432 @@
+import java.nio.file.Paths;
+import java.util.IllformedLocaleException;
+import java.util.Locale;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Immutable options of a build from the command line: the input file and
+ * output folder, what is built besides the pages, such as the prefix index
+ * or a compiled glossary, where the pages go, and the {@link PageOptions} of
+ * the pages themselves.
+ *
+ * <p>
+ * Options are parsed once by {@link #parse}, which rejects unknown options,
+ * switches given a value, options missing their value and malformed values,
+ * so that a mistyped option is reported instead of silently ignored.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class BuildOptions {
+
+    /**
+     * Options that take no value.
+     */
+    private static final String[] SWITCHES = { "--incremental",
+            "--index-by-letter", "--stats", "--autocomplete", "--backlinks",
+            "--link-graph", "--gzip", "--watch" };
+
+    /**
+     * Options given as {@code name=value}.
+     */
+    private static final String[] VALUED = { "--input", "--output",
+            "--compile", "--serve", "--index-page-size", "--separators",
+            "--sort-memory", "--locale", "--archive", "--template",
+            "--index-template", "--duplicates" };
+
+    /**
+     * Options that only a build from a glossary text file honours.
+     */
+    private static final String[] TEXT_ONLY = { "--incremental", "--compile",
+            "--backlinks", "--link-graph" };
+
+    /**
+     * Largest port number.
+     */
+    private static final int MAX_PORT = 0xffff;
+
+    /**
+     * The options given, each with its value, or "" for a switch.
+     */
+    private final Map<String, String> given;
+
+    /**
+     * The options of the pages.
+     */
+    private final PageOptions pages;
+
+    /**
+     * The port to serve the pages on, or -1.
+     */
+    private final int port;
+
+    /**
+     * The most terms to sort in memory, or 0 for no limit.
+     */
+    private final int sortRun;
+
+    /**
+     * What to do with a term defined more than once in a folder or glob.
+     */
+    private final GlossaryMerge.Duplicates duplicates;
+
+    /**
+     * Creates the options with the given values.
+     *
+     * @param given
+     *            the options given, each with its value, or "" for a switch
+     * @param pages
+     *            the options of the pages
+     * @param port
+     *            the port to serve the pages on, or -1
+     * @param sortRun
+     *            the most terms to sort in memory, or 0 for no limit
+     * @param duplicates
+     *            what to do with a term defined more than once
+     */
+    private BuildOptions(Map<String, String> given, PageOptions pages,
+            int port, int sortRun, GlossaryMerge.Duplicates duplicates) {
+        this.given = given;
+        this.pages = pages;
+        this.port = port;
+        this.sortRun = sortRun;
+        this.duplicates = duplicates;
+    }
+
+    /**
+     * Parses the command line arguments {@code args}. Templates given with
+     * {@code --template} and {@code --index-template} are read.
+     *
+     * @param args
+     *            the command line arguments
+     * @return the options
+     * @throws IllegalArgumentException
+     *             if an argument is not an option, is given more than once,
+     *             or has a missing or malformed value, or a template is
+     *             malformed
+     */
+    public static BuildOptions parse(String[] args) {
+        assert args != null : "Violation of: args is not null";
+
+        Map<String, String> given = new Map1L<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = arg;
+            String value = "";
+            if (equals >= 0) {
+                name = arg.substring(0, equals);
+                value = arg.substring(equals + 1);
+            }
+            if (contains(SWITCHES, name)) {
+                if (equals >= 0) {
+                    throw new IllegalArgumentException(
+                            name + " takes no value");
+                }
+            } else if (contains(VALUED, name)) {
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException(
+                            name + " needs a value, as in " + name + "=...");
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+            if (given.hasKey(name)) {
+                throw new IllegalArgumentException(
+                        name + " is given more than once");
+            }
+            given.add(name, value);
+        }
+
+        PageOptions pages = PageOptions.DEFAULT;
+        if (given.hasKey("--separators")) {
+            pages = pages.withSeparators(
+                    SeparatorSet.DEFAULT.with(given.value("--separators")));
+        }
+        if (given.hasKey("--locale")) {
+            pages = pages.withCollation(
+                    new CollationOrder(locale(given.value("--locale"))));
+        }
+        PageTemplate termTemplate = PageTemplate.TERM_PAGE;
+        if (given.hasKey("--template")) {
+            termTemplate = PageTemplate
+                    .read(Paths.get(given.value("--template")), true);
+        }
+        PageTemplate indexTemplate = PageTemplate.INDEX_PAGE;
+        if (given.hasKey("--index-template")) {
+            indexTemplate = PageTemplate
+                    .read(Paths.get(given.value("--index-template")), false);
+        }
+        pages = pages.withTemplates(termTemplate, indexTemplate)
+                .withIndexShards(given.hasKey("--index-by-letter"),
+                        number(given, "--index-page-size", 0,
+                                Integer.MAX_VALUE));
+        GlossaryMerge.Duplicates duplicates = GlossaryMerge.Duplicates.FIRST;
+        if (given.hasKey("--duplicates")) {
+            duplicates = GlossaryMerge.Duplicates
+                    .of(given.value("--duplicates"));
+        }
+        int port = -1;
+        if (given.hasKey("--serve")) {
+            port = number(given, "--serve", 0, MAX_PORT);
+        }
+        return new BuildOptions(given, pages, port,
+                number(given, "--sort-memory", 0, Integer.MAX_VALUE),
+                duplicates);
+    }
+
+    /**
+     * Returns whether {@code names} contains {@code name}.
+     *
+     * @param names
+     *            the names
+     * @param name
+     *            the name
+     * @return true if {@code name} is one of {@code names}
+     */
+    private static boolean contains(String[] names, String name) {
+        for (String n : names) {
+            if (n.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value of the number option {@code name}.
+     *
+     * @param given
+     *            the options given
+     * @param name
+     *            the option
+     * @param min
+     *            the smallest value allowed
+     * @param max
+     *            the largest value allowed
+     * @return the value, or 0 if the option is not given
+     * @throws IllegalArgumentException
+     *             if the value is not a number in {@code [min, max]}
+     */
+    private static int number(Map<String, String> given, String name,
+            int min, int max) {
+        if (!given.hasKey(name)) {
+            return 0;
+        }
+        String value = given.value(name);
+        try {
+            int res = Integer.parseInt(value);
+            if (min <= res && res <= max) {
+                return res;
+            }
+        } catch (NumberFormatException e) {
+            /*
+             * reported below, like a number out of range
+             */
+        }
+        throw new IllegalArgumentException(name + "=" + value
+                + " is not a number from " + min + " to " + max);
+    }
+
+    /**
+     * Returns the locale of the IETF language tag {@code tag}.
+     *
+     * @param tag
+     *            the language tag
+     * @return the locale
+     * @throws IllegalArgumentException
+     *             if {@code tag} is not a well-formed language tag
+     */
+    private static Locale locale(String tag) {
+        try {
+            return new Locale.Builder().setLanguageTag(tag).build();
+        } catch (IllformedLocaleException e) {
+            throw new IllegalArgumentException(
+                    "--locale=" + tag + " is not a language tag", e);
+        }
+    }
+
+    /**
+     * Returns the value of the option {@code name}.
+     *
+     * @param name
+     *            the option
+     * @return the value, or null if the option is not given
+     */
+    private String value(String name) {
+        if (!this.given.hasKey(name)) {
+            return null;
+        }
+        return this.given.value(name);
+    }
+
+    /**
+     * Returns the input file, a glossary text file, a compiled glossary, a
+     * folder or a glob.
+     *
+     * @return the input file, or null if it is not given
+     */
+    public String input() {
+        return this.value("--input");
+    }
+
+    /**
+     * Returns the output folder.
+     *
+     * @return the output folder, or null if it is not given
+     */
+    public String output() {
+        return this.value("--output");
+    }
+
+    /**
+     * Returns the port to serve the pages on, instead of writing them.
+     *
+     * @return the port, or -1 if the pages are written
+     */
+    public int port() {
+        return this.port;
+    }
+
+    /**
+     * Returns whether the pages are rebuilt every time the input changes.
+     *
+     * @return whether to watch the input
+     */
+    public boolean watch() {
+        return this.given.hasKey("--watch");
+    }
+
+    /**
+     * Returns whether only the pages that changed since the last build are
+     * written, as they always are when watching the input.
+     *
+     * @return whether the build is incremental
+     */
+    public boolean incremental() {
+        return this.given.hasKey("--incremental") || this.watch();
+    }
+
+    /**
+     * Returns the file to also compile the glossary into.
+     *
+     * @return the file, or null
+     */
+    public String compileTo() {
+        return this.value("--compile");
+    }
+
+    /**
+     * Returns whether the prefix index is written.
+     *
+     * @return whether to write the prefix index
+     */
+    public boolean autocomplete() {
+        return this.given.hasKey("--autocomplete");
+    }
+
+    /**
+     * Returns whether each page lists the terms that link to its term.
+     *
+     * @return whether to write "referenced by" sections
+     */
+    public boolean backlinks() {
+        return this.given.hasKey("--backlinks");
+    }
+
+    /**
+     * Returns whether the graph of the links between terms is reported, and
+     * each page ends with the terms to see also.
+     *
+     * @return whether to build the link graph
+     */
+    public boolean linkGraph() {
+        return this.given.hasKey("--link-graph");
+    }
+
+    /**
+     * Returns the most terms to sort in memory.
+     *
+     * @return the most terms, or 0 for no limit
+     */
+    public int sortRun() {
+        return this.sortRun;
+    }
+
+    /**
+     * Returns whether every page also gets a gzip sibling.
+     *
+     * @return whether to write gzip siblings
+     */
+    public boolean gzip() {
+        return this.given.hasKey("--gzip");
+    }
+
+    /**
+     * Returns the archive to write the pages into instead of the output
+     * folder.
+     *
+     * @return the archive, or null
+     */
+    public String archive() {
+        return this.value("--archive");
+    }
+
+    /**
+     * Returns whether the statistics of every build are reported.
+     *
+     * @return whether to report the statistics
+     */
+    public boolean printStats() {
+        return this.given.hasKey("--stats");
+    }
+
+    /**
+     * Returns what to do with a term defined more than once in the files of
+     * a folder or glob.
+     *
+     * @return the rule
+     */
+    public GlossaryMerge.Duplicates duplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * Returns the separators given with {@code --separators}.
+     *
+     * @return the separators, or null if they are not given
+     */
+    public SeparatorSet separators() {
+        if (!this.given.hasKey("--separators")) {
+            return null;
+        }
+        return this.pages.separators();
+    }
+
+    /**
+     * Returns the first of the options given that only a build from a
+     * glossary text file honours.
+     *
+     * @return the option, or null if none is given
+     */
+    public String textOnlyOption() {
+        for (String option : TEXT_ONLY) {
+            if (this.given.hasKey(option)) {
+                return option;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the options of the pages: their templates and separators, and
+     * the order and the sharding of the index.
+     *
+     * @return the options of the pages
+     */
+    public PageOptions pages() {
+        return this.pages;
+    }
+
+}
@@ -0,0 +1,537 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Timings and counters of glossary builds. The builds of the command line
+ * record into one instance per process, {@link #current}, which is
+ * registered as the MBean {@value #OBJECT_NAME}; every stage and every build
+ * is also committed as a JFR event, so a flight recording shows where build
+ * time goes. The statistics of a build are passed down to where pages are
+ * rendered and written through its {@link PageOutput}; pages rendered
+ * outside of a build, such as those of a {@link GlossaryServer}, record into
+ * {@link #NONE}, which records nothing.
+ *
+ * <p>
+ * Counters are {@link LongAdder}s, so the threads rendering pages can update
+ * them without contending. {@link #startBuild} resets them, and
+ * {@link #endBuild} completes the build; the values read in between, and
+ * after, are those of the build in progress or the last build.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class BuildStats implements BuildStatsMXBean {
+
+    /**
+     * Object name of the MBean.
+     */
+    public static final String OBJECT_NAME = "glossary:type=BuildStats";
+
+    /**
+     * Stages of a build.
+     */
+    public enum Stage {
+        /**
+         * Merging the glossary text files of a folder or a glob into one.
+         */
+        MERGE("merge"),
+        /**
+         * Reading the terms or opening a compiled glossary.
+         */
+        PARSE("parse"),
+        /**
+         * Sorting the terms.
+         */
+        SORT("sort"),
+        /**
+         * Compiling the terms into a matcher.
+         */
+        COMPILE("compile"),
+        /**
+         * Building and reporting the graph of the links between terms.
+         */
+        GRAPH("graph"),
+        /**
+         * Linking the descriptions and writing the term pages.
+         */
+        PAGES("pages"),
+        /**
+         * Writing the index.
+         */
+        INDEX("index"),
+        /**
+         * Writing the manifest, deleting stale pages and compiling the
+         * glossary.
+         */
+        FINISH("finish");
+
+        /**
+         * Name of the stage in reports.
+         */
+        private final String label;
+
+        /**
+         * Constructor.
+         *
+         * @param label
+         *            the name of the stage in reports
+         */
+        Stage(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the name of the stage in reports.
+         *
+         * @return the name
+         */
+        public String label() {
+            return this.label;
+        }
+    }
+
+    /**
+     * JFR event of one stage of a build.
+     */
+    @Name("glossary.BuildStage")
+    @Label("Glossary Build Stage")
+    @Category("Glossary")
+    static final class StageEvent extends Event {
+
+        /**
+         * The stage.
+         */
+        @Label("Stage")
+        String stage;
+    }
+
+    /**
+     * JFR event of a whole build.
+     */
+    @Name("glossary.Build")
+    @Label("Glossary Build")
+    @Category("Glossary")
+    static final class BuildEvent extends Event {
+
+        /**
+         * Number of terms.
+         */
+        @Label("Terms")
+        long terms;
+
+        /**
+         * Number of description characters scanned.
+         */
+        @Label("Description Characters")
+        long descriptionChars;
+
+        /**
+         * Number of links emitted.
+         */
+        @Label("Links")
+        long links;
+
+        /**
+         * Number of files written.
+         */
+        @Label("Files Written")
+        long filesWritten;
+
+        /**
+         * Number of bytes written.
+         */
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+    }
+
+    /**
+     * Times one stage, from its creation until it is closed.
+     */
+    public final class Timer implements AutoCloseable {
+
+        /**
+         * The stage.
+         */
+        private final Stage stage;
+
+        /**
+         * Start of the stage.
+         */
+        private final long start = System.nanoTime();
+
+        /**
+         * The JFR event of the stage.
+         */
+        private final StageEvent event = new StageEvent();
+
+        /**
+         * Constructor.
+         *
+         * @param stage
+         *            the stage
+         */
+        Timer(Stage stage) {
+            this.stage = stage;
+            this.event.begin();
+        }
+
+        /**
+         * Ends the stage.
+         */
+        @Override
+        public void close() {
+            if (!BuildStats.this.recording) {
+                return;
+            }
+            BuildStats.this.stageNanos[this.stage.ordinal()]
+                    .add(System.nanoTime() - this.start);
+            this.event.end();
+            if (this.event.shouldCommit()) {
+                this.event.stage = this.stage.label();
+                this.event.commit();
+            }
+        }
+    }
+
+    /**
+     * Statistics that record nothing, for pages rendered outside of a build.
+     */
+    public static final BuildStats NONE = new BuildStats(false);
+
+    /**
+     * The instance of this process.
+     */
+    private static final BuildStats CURRENT = new BuildStats();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(CURRENT,
+                    new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            /*
+             * the statistics are still recorded and reported without JMX
+             */
+        }
+    }
+
+    /**
+     * Whether anything is recorded.
+     */
+    private final boolean recording;
+
+    /**
+     * Wall time of each stage.
+     */
+    private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+
+    /**
+     * Time spent rendering pages, summed over threads.
+     */
+    private final LongAdder renderNanos = new LongAdder();
+
+    /**
+     * Time spent writing files, summed over threads.
+     */
+    private final LongAdder writeNanos = new LongAdder();
+
+    /**
+     * Number of description characters scanned.
+     */
+    private final LongAdder descriptionChars = new LongAdder();
+
+    /**
+     * Number of links emitted.
+     */
+    private final LongAdder links = new LongAdder();
+
+    /**
+     * Number of files written.
+     */
+    private final LongAdder filesWritten = new LongAdder();
+
+    /**
+     * Number of bytes written.
+     */
+    private final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * Number of terms.
+     */
+    private volatile long terms;
+
+    /**
+     * Number of builds finished.
+     */
+    private volatile long builds;
+
+    /**
+     * Start of the build in progress.
+     */
+    private volatile long buildStart = System.nanoTime();
+
+    /**
+     * Wall time of the last build.
+     */
+    private volatile long buildNanos;
+
+    /**
+     * The JFR event of the build in progress.
+     */
+    private BuildEvent buildEvent = new BuildEvent();
+
+    /**
+     * Creates statistics that are not registered, for a build of their own;
+     * the builds of the command line use {@link #current}.
+     */
+    public BuildStats() {
+        this(true);
+    }
+
+    /**
+     * Creates statistics that are not registered.
+     *
+     * @param recording
+     *            whether anything is recorded
+     */
+    private BuildStats(boolean recording) {
+        this.recording = recording;
+        for (int i = 0; i < this.stageNanos.length; i++) {
+            this.stageNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the statistics of this process.
+     *
+     * @return the statistics
+     */
+    public static BuildStats current() {
+        return CURRENT;
+    }
+
+    /**
+     * Starts a build, resetting every timing and counter.
+     */
+    public synchronized void startBuild() {
+        if (!this.recording) {
+            return;
+        }
+        for (LongAdder stage : this.stageNanos) {
+            stage.reset();
+        }
+        this.renderNanos.reset();
+        this.writeNanos.reset();
+        this.descriptionChars.reset();
+        this.links.reset();
+        this.filesWritten.reset();
+        this.bytesWritten.reset();
+        this.terms = 0;
+        this.buildNanos = 0;
+        this.buildEvent = new BuildEvent();
+        this.buildEvent.begin();
+        this.buildStart = System.nanoTime();
+    }
+
+    /**
+     * Ends the build started last.
+     */
+    public synchronized void endBuild() {
+        if (!this.recording) {
+            return;
+        }
+        this.buildNanos = System.nanoTime() - this.buildStart;
+        this.builds++;
+        BuildEvent event = this.buildEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.terms = this.terms;
+            event.descriptionChars = this.descriptionChars.sum();
+            event.links = this.links.sum();
+            event.filesWritten = this.filesWritten.sum();
+            event.bytesWritten = this.bytesWritten.sum();
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing {@code stage}; the time is recorded when the returned
+     * timer is closed, and added to earlier times of the same stage.
+     *
+     * @param stage
+     *            the stage
+     * @return the timer
+     */
+    public Timer time(Stage stage) {
+        return new Timer(stage);
+    }
+
+    /**
+     * Records the number of terms.
+     *
+     * @param count
+     *            the number of terms
+     */
+    public void setTerms(long count) {
+        if (!this.recording) {
+            return;
+        }
+        this.terms = count;
+    }
+
+    /**
+     * Records that a description was rendered.
+     *
+     * @param chars
+     *            the number of characters scanned for terms
+     * @param linkCount
+     *            the number of links emitted
+     */
+    public void addDescription(int chars, int linkCount) {
+        if (!this.recording) {
+            return;
+        }
+        this.descriptionChars.add(chars);
+        this.links.add(linkCount);
+    }
+
+    /**
+     * Records the time spent rendering a page.
+     *
+     * @param nanos
+     *            the time, in nanoseconds
+     */
+    public void addRenderNanos(long nanos) {
+        if (!this.recording) {
+            return;
+        }
+        this.renderNanos.add(nanos);
+    }
+
+    /**
+     * Records that a file was written.
+     *
+     * @param bytes
+     *            the number of bytes written
+     * @param nanos
+     *            the time spent opening, writing and closing it, in
+     *            nanoseconds
+     */
+    public void addFile(long bytes, long nanos) {
+        if (!this.recording) {
+            return;
+        }
+        this.filesWritten.increment();
+        this.bytesWritten.add(bytes);
+        this.writeNanos.add(nanos);
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos
+     *            the time, in nanoseconds
+     * @return the time, in milliseconds
+     */
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Override
+    public long getBuilds() {
+        return this.builds;
+    }
+
+    @Override
+    public long getBuildMillis() {
+        return millis(this.buildNanos);
+    }
+
+    @Override
+    public Map<String, Long> getStageMillis() {
+        Map<String, Long> res = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            res.put(stage.label(),
+                    millis(this.stageNanos[stage.ordinal()].sum()));
+        }
+        return res;
+    }
+
+    @Override
+    public long getRenderMillis() {
+        return millis(this.renderNanos.sum());
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return millis(this.writeNanos.sum());
+    }
+
+    @Override
+    public long getTerms() {
+        return this.terms;
+    }
+
+    @Override
+    public long getDescriptionChars() {
+        return this.descriptionChars.sum();
+    }
+
+    @Override
+    public long getLinks() {
+        return this.links.sum();
+    }
+
+    @Override
+    public long getFilesWritten() {
+        return this.filesWritten.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return this.bytesWritten.sum();
+    }
+
+    /**
+     * Returns a report of the last build, one line per figure.
+     *
+     * @return the report
+     */
+    public String summary() {
+        String line = System.lineSeparator();
+        StringBuilder res = new StringBuilder();
+        res.append("Build time:      ").append(this.getBuildMillis())
+                .append(" ms").append(line);
+        for (Map.Entry<String, Long> stage : this.getStageMillis()
+                .entrySet()) {
+            res.append(String.format("  %-14s %d ms", stage.getKey() + ":",
+                    stage.getValue())).append(line);
+        }
+        res.append("Render time:     ").append(this.getRenderMillis())
+                .append(" ms (all threads)").append(line);
+        res.append("Write time:      ").append(this.getWriteMillis())
+                .append(" ms (all threads)").append(line);
+        res.append("Terms:           ").append(this.getTerms()).append(line);
+        res.append("Chars scanned:   ").append(this.getDescriptionChars())
+                .append(line);
+        res.append("Links:           ").append(this.getLinks()).append(line);
+        res.append("Files written:   ").append(this.getFilesWritten())
+                .append(line);
+        res.append("Bytes written:   ").append(this.getBytesWritten())
+                .append(line);
+        return res.toString();
+    }
+
+}
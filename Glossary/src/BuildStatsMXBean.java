@@ -0,0 +1,84 @@
+import java.util.Map;
+
+/**
+ * Management interface of {@link BuildStats}: the timings and counters of the
+ * last glossary build, as seen over JMX.
+ *
+ * @author Vivian Lu
+ *
+ */
+public interface BuildStatsMXBean {
+
+    /**
+     * Returns the number of builds finished.
+     *
+     * @return the number of builds
+     */
+    long getBuilds();
+
+    /**
+     * Returns the wall time of the last build.
+     *
+     * @return the time, in milliseconds
+     */
+    long getBuildMillis();
+
+    /**
+     * Returns the wall time of each stage of the last build, by stage name.
+     *
+     * @return the times, in milliseconds
+     */
+    Map<String, Long> getStageMillis();
+
+    /**
+     * Returns the time spent rendering pages in the last build, summed over
+     * the threads that rendered them.
+     *
+     * @return the time, in milliseconds
+     */
+    long getRenderMillis();
+
+    /**
+     * Returns the time spent writing files in the last build, summed over the
+     * threads that wrote them.
+     *
+     * @return the time, in milliseconds
+     */
+    long getWriteMillis();
+
+    /**
+     * Returns the number of terms in the glossary of the last build.
+     *
+     * @return the number of terms
+     */
+    long getTerms();
+
+    /**
+     * Returns the number of description characters scanned for terms.
+     *
+     * @return the number of characters
+     */
+    long getDescriptionChars();
+
+    /**
+     * Returns the number of links emitted in descriptions.
+     *
+     * @return the number of links
+     */
+    long getLinks();
+
+    /**
+     * Returns the number of files written.
+     *
+     * @return the number of files
+     */
+    long getFilesWritten();
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes
+     */
+    long getBytesWritten();
+
+}
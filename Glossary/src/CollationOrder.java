@@ -0,0 +1,196 @@
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Order of the index by the rules of a locale, so that "apple" sorts before
+ * "Zebra" and accented terms sort next to their unaccented letters. Terms the
+ * locale ranks equal are ordered by {@code String.compareTo}, so the order
+ * is total.
+ *
+ * <p>
+ * Comparing two strings with a {@link Collator} is much slower than
+ * {@code String.compareTo}, because it works out the collation elements of
+ * both every time. {@link #sort} instead computes the {@link CollationKey} of
+ * every term once and sorts on the keys, which compare as fast as byte
+ * arrays; {@link GlossaryFacility#sortQueue} and {@link ExternalSort} sort
+ * that way when given a {@code CollationOrder}.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class CollationOrder implements Comparator<String> {
+
+    /**
+     * Order of the collation keys, then of their terms.
+     */
+    private static final Comparator<CollationKey> KEY_ORDER = (a, b) -> {
+        int c = a.compareTo(b);
+        if (c == 0) {
+            c = a.getSourceString().compareTo(b.getSourceString());
+        }
+        return c;
+    };
+
+    /**
+     * The locale.
+     */
+    private final Locale locale;
+
+    /**
+     * The collator of the locale.
+     */
+    private final Collator collator;
+
+    /**
+     * Creates the order of the given locale.
+     *
+     * @param locale
+     *            the locale
+     */
+    public CollationOrder(Locale locale) {
+        assert locale != null : "Violation of: locale is not null";
+
+        this.locale = locale;
+        this.collator = Collator.getInstance(locale);
+    }
+
+    /**
+     * Returns the locale of this order.
+     *
+     * @return the locale
+     */
+    public Locale locale() {
+        return this.locale;
+    }
+
+    @Override
+    public int compare(String a, String b) {
+        int c = this.collator.compare(a, b);
+        if (c == 0) {
+            c = a.compareTo(b);
+        }
+        return c;
+    }
+
+    /**
+     * Returns the collation keys of {@code entries[from, to)}, sorted in this
+     * order.
+     *
+     * @param entries
+     *            the entries
+     * @param from
+     *            the first entry
+     * @param to
+     *            the end of the entries
+     * @param parallel
+     *            whether to sort the keys in parallel
+     * @return the sorted keys
+     */
+    private CollationKey[] sortedKeys(String[] entries, int from, int to,
+            boolean parallel) {
+        CollationKey[] keys = new CollationKey[to - from];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = this.collator.getCollationKey(entries[from + i]);
+        }
+        if (parallel) {
+            Arrays.parallelSort(keys, KEY_ORDER);
+        } else {
+            Arrays.sort(keys, KEY_ORDER);
+        }
+        return keys;
+    }
+
+    /**
+     * Sorts {@code entries[from, to)} in this order, comparing the collation
+     * key of every entry, computed once, instead of the entries themselves.
+     *
+     * @param entries
+     *            the entries
+     * @param from
+     *            the first entry to sort
+     * @param to
+     *            the end of the entries to sort
+     * @param parallel
+     *            whether to sort the keys in parallel
+     * @updates entries
+     * @requires 0 <= from <= to <= |entries|
+     * @ensures entries[from, to) = [#entries[from, to) in this order]
+     */
+    public void sort(String[] entries, int from, int to, boolean parallel) {
+        assert entries != null : "Violation of: entries is not null";
+        assert 0 <= from && from <= to
+                && to <= entries.length : "Violation of: valid range";
+
+        CollationKey[] keys = this.sortedKeys(entries, from, to, parallel);
+        for (int i = 0; i < keys.length; i++) {
+            entries[from + i] = keys[i].getSourceString();
+        }
+    }
+
+    /**
+     * Sorts {@code entries[from, to)} in this order, as {@link #sort} does,
+     * and keeps the collation key of every entry, as bytes, in
+     * {@code keys[from, to)}, so the entries can be compared again with
+     * {@link #compareKeys} without being collated again.
+     *
+     * @param entries
+     *            the entries
+     * @param keys
+     *            the collation keys of the sorted entries
+     * @param from
+     *            the first entry to sort
+     * @param to
+     *            the end of the entries to sort
+     * @updates entries, keys
+     * @requires 0 <= from <= to <= |entries| and |keys| >= to
+     * @ensures entries[from, to) = [#entries[from, to) in this order] and
+     *          keys[i] is the collation key of entries[i] for i in [from, to)
+     */
+    public void sort(String[] entries, byte[][] keys, int from, int to) {
+        assert entries != null : "Violation of: entries is not null";
+        assert keys != null : "Violation of: keys is not null";
+        assert 0 <= from && from <= to && to <= entries.length
+                && to <= keys.length : "Violation of: valid range";
+
+        CollationKey[] sorted = this.sortedKeys(entries, from, to, false);
+        for (int i = 0; i < sorted.length; i++) {
+            entries[from + i] = sorted[i].getSourceString();
+            keys[from + i] = sorted[i].toByteArray();
+        }
+    }
+
+    /**
+     * Compares two entries of this order by their collation keys, as kept by
+     * {@link #sort(String[], byte[][], int, int)}, and by
+     * {@code String.compareTo} if the keys are equal: the result has the sign
+     * of {@code compare(a, b)}, with no collation.
+     *
+     * @param keyA
+     *            the collation key of {@code a}
+     * @param a
+     *            the first entry
+     * @param keyB
+     *            the collation key of {@code b}
+     * @param b
+     *            the second entry
+     * @return a negative number, zero or a positive number as {@code a} is
+     *         before, equal to or after {@code b}
+     */
+    public static int compareKeys(byte[] keyA, String a, byte[] keyB,
+            String b) {
+        int c = Arrays.compareUnsigned(keyA, keyB);
+        if (c == 0) {
+            c = a.compareTo(b);
+        }
+        return c;
+    }
+
+    @Override
+    public String toString() {
+        return this.locale.toLanguageTag();
+    }
+
+}
@@ -0,0 +1,591 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Read-only glossary in a compiled binary file, mapped into memory with
+ * {@link FileChannel#map}. Opening one costs a few header reads whatever its
+ * size, the data stays in the page cache rather than on the heap, and several
+ * processes on one machine share the same pages.
+ *
+ * <p>
+ * The file holds, after a header, the terms sorted in {@code String} order,
+ * the descriptions, and the link spans of every description precomputed by a
+ * {@link TermMatcher}, each section as an offset table followed by its data:
+ *
+ * <pre>
+ * header       magic, version, term count, separator count,
+ *              6 section offsets (ints)
+ * separators   UTF-16 chars, the separators the links were found with
+ * term index   count + 1 ints, char offsets into term chars
+ * term chars   UTF-16 chars
+ * desc index   count + 1 ints, char offsets into desc chars
+ * desc chars   UTF-16 chars
+ * link index   count + 1 ints, link offsets into links
+ * links        (start, length, target index) int triples
+ * </pre>
+ *
+ * Entries are addressed by their index in sorted order. The whole file must
+ * stay below 2 GB, the limit of a single mapping. A compiled glossary can be
+ * read from several threads at once.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class CompiledGlossary {
+
+    /**
+     * First int of every compiled glossary ("GLSY").
+     */
+    private static final int MAGIC = 0x474C5359;
+
+    /**
+     * Version of the format.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Number of ints in the header.
+     */
+    private static final int HEADER_INTS = 10;
+
+    /**
+     * Number of ints per link.
+     */
+    private static final int LINK_INTS = 3;
+
+    /**
+     * Position of the term count in the header.
+     */
+    private static final int COUNT_AT = 8;
+
+    /**
+     * Position of the separators, right after the header.
+     */
+    private static final int SEPARATORS_AT = HEADER_INTS * Integer.BYTES;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Number of entries.
+     */
+    private final int size;
+
+    /**
+     * The separators the links were found with.
+     */
+    private final SeparatorSet separators;
+
+    /**
+     * Byte offset of the term index.
+     */
+    private final int termIndex;
+
+    /**
+     * Byte offset of the term chars.
+     */
+    private final int termChars;
+
+    /**
+     * Byte offset of the description index.
+     */
+    private final int descriptionIndex;
+
+    /**
+     * Byte offset of the description chars.
+     */
+    private final int descriptionChars;
+
+    /**
+     * Byte offset of the link index.
+     */
+    private final int linkIndex;
+
+    /**
+     * Byte offset of the links.
+     */
+    private final int links;
+
+    /**
+     * Constructor.
+     *
+     * @param data
+     *            the mapped file
+     */
+    private CompiledGlossary(ByteBuffer data) {
+        this.data = data;
+        int at = COUNT_AT;
+        this.size = data.getInt(at);
+        at += Integer.BYTES;
+        char[] chars = new char[data.getInt(at)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = data.getChar(SEPARATORS_AT + i * 2);
+        }
+        this.separators = SeparatorSet.of(new String(chars));
+        at += Integer.BYTES;
+        this.termIndex = data.getInt(at);
+        at += Integer.BYTES;
+        this.termChars = data.getInt(at);
+        at += Integer.BYTES;
+        this.descriptionIndex = data.getInt(at);
+        at += Integer.BYTES;
+        this.descriptionChars = data.getInt(at);
+        at += Integer.BYTES;
+        this.linkIndex = data.getInt(at);
+        at += Integer.BYTES;
+        this.links = data.getInt(at);
+    }
+
+    /**
+     * Returns whether {@code file} starts like a compiled glossary, of any
+     * version.
+     *
+     * @param file
+     *            the file
+     * @return true if {@code file} is a compiled glossary
+     */
+    public static boolean isCompiled(Path file) {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                continue;
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Maps the compiled glossary in {@code file}.
+     *
+     * @param file
+     *            the file
+     * @return the compiled glossary
+     * @throws IllegalArgumentException
+     *             if {@code file} is not a compiled glossary of this version
+     */
+    public static CompiledGlossary open(Path file) {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            if (data.limit() < SEPARATORS_AT || data.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException(
+                        file + " is not a compiled glossary");
+            }
+            if (data.getInt(Integer.BYTES) != VERSION) {
+                throw new IllegalArgumentException(file
+                        + " was compiled by another version; compile it"
+                        + " again with --compile");
+            }
+            return new CompiledGlossary(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compiles {@code dictionary} into {@code file}, linking its descriptions
+     * with the given separators.
+     *
+     * @param dictionary
+     *            the glossary
+     * @param separators
+     *            the separators
+     * @param file
+     *            the file to write
+     * @throws IllegalArgumentException
+     *             if the compiled glossary would not fit in 2 GB, in which
+     *             case {@code file} is left untouched
+     */
+    public static void write(TermDictionary dictionary,
+            SeparatorSet separators, Path file) {
+        assert dictionary != null : "Violation of: dictionary is not null";
+        assert separators != null : "Violation of: separators is not null";
+        assert file != null : "Violation of: file is not null";
+
+        int count = dictionary.size();
+        TermMatcher matcher = new TermMatcher(dictionary, separators);
+        String[] terms = new String[count];
+        Integer[] order = new Integer[count];
+        for (int id = 0; id < count; id++) {
+            terms[id] = dictionary.term(id);
+            order[id] = id;
+        }
+        Arrays.sort(order, Comparator.comparing(id -> terms[id]));
+        int[] rank = new int[count];
+        for (int i = 0; i < count; i++) {
+            rank[order[i]] = i;
+        }
+
+        /*
+         * first pass: section sizes
+         */
+        long termLength = 0;
+        long descriptionLength = 0;
+        long linkCount = 0;
+        int[][] matches = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int id = order[i];
+            String description = dictionary.description(id);
+            termLength += terms[id].length();
+            descriptionLength += description.length();
+            matches[i] = compact(matcher.matches(description));
+            linkCount += matches[i].length / 2;
+        }
+        String separatorChars = separators.chars();
+        long indexBytes = (count + 1L) * Integer.BYTES;
+        long termIndexAt = align(SEPARATORS_AT + separatorChars.length() * 2);
+        long termCharsAt = termIndexAt + indexBytes;
+        long descriptionIndexAt = align(termCharsAt + termLength * 2);
+        long descriptionCharsAt = descriptionIndexAt + indexBytes;
+        long linkIndexAt = align(descriptionCharsAt + descriptionLength * 2);
+        long linksAt = linkIndexAt + indexBytes;
+        long total = linksAt + linkCount * LINK_INTS * Integer.BYTES;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("the compiled glossary would"
+                    + " take " + total + " bytes, more than the 2 GB of a"
+                    + " single mapping");
+        }
+
+        /*
+         * second pass: contents, written straight into the mapped file
+         */
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE,
+                    0, total);
+            out.putInt(MAGIC).putInt(VERSION).putInt(count)
+                    .putInt(separatorChars.length()).putInt((int) termIndexAt)
+                    .putInt((int) termCharsAt)
+                    .putInt((int) descriptionIndexAt)
+                    .putInt((int) descriptionCharsAt).putInt((int) linkIndexAt)
+                    .putInt((int) linksAt);
+            putChars(out, SEPARATORS_AT, separatorChars);
+            int termOffset = 0;
+            int descriptionOffset = 0;
+            int linkOffset = 0;
+            for (int i = 0; i < count; i++) {
+                int id = order[i];
+                out.putInt((int) termIndexAt + i * Integer.BYTES, termOffset);
+                putChars(out, (int) termCharsAt + termOffset * 2, terms[id]);
+                termOffset += terms[id].length();
+
+                String description = dictionary.description(id);
+                out.putInt((int) descriptionIndexAt + i * Integer.BYTES,
+                        descriptionOffset);
+                putChars(out, (int) descriptionCharsAt + descriptionOffset * 2,
+                        description);
+                descriptionOffset += description.length();
+
+                out.putInt((int) linkIndexAt + i * Integer.BYTES, linkOffset);
+                int[] spans = matches[i];
+                for (int k = 0; k < spans.length; k += 2) {
+                    int start = spans[k];
+                    int target = spans[k + 1];
+                    int at = (int) linksAt
+                            + linkOffset * LINK_INTS * Integer.BYTES;
+                    out.putInt(at, start);
+                    out.putInt(at + Integer.BYTES, terms[target].length());
+                    out.putInt(at + 2 * Integer.BYTES, rank[target]);
+                    linkOffset++;
+                }
+            }
+            out.putInt((int) termIndexAt + count * Integer.BYTES, termOffset);
+            out.putInt((int) descriptionIndexAt + count * Integer.BYTES,
+                    descriptionOffset);
+            out.putInt((int) linkIndexAt + count * Integer.BYTES, linkOffset);
+
+            out.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the matches in {@code matches} as (start, term id) pairs.
+     *
+     * @param matches
+     *            the matches, as returned by {@link TermMatcher#matches}
+     * @return the pairs, in increasing order of start
+     */
+    private static int[] compact(int[] matches) {
+        int count = 0;
+        for (int match : matches) {
+            if (match != 0) {
+                count++;
+            }
+        }
+        int[] res = new int[count * 2];
+        int k = 0;
+        for (int i = 0; i < matches.length; i++) {
+            if (matches[i] != 0) {
+                res[k] = i;
+                res[k + 1] = matches[i] - 1;
+                k += 2;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Rounds {@code offset} up to a multiple of 4.
+     *
+     * @param offset
+     *            the offset
+     * @return the aligned offset
+     */
+    private static long align(long offset) {
+        final long mask = Integer.BYTES - 1;
+        return (offset + mask) & ~mask;
+    }
+
+    /**
+     * Writes the chars of {@code text} at byte {@code at}.
+     *
+     * @param out
+     *            the buffer
+     * @param at
+     *            the byte offset
+     * @param text
+     *            the text
+     */
+    private static void putChars(ByteBuffer out, int at, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            out.putChar(at + i * 2, text.charAt(i));
+        }
+    }
+
+    /**
+     * Returns the int at index {@code i} of the table at byte {@code table}.
+     *
+     * @param table
+     *            the byte offset of the table
+     * @param i
+     *            the index
+     * @return the int
+     */
+    private int intAt(int table, int i) {
+        return this.data.getInt(table + i * Integer.BYTES);
+    }
+
+    /**
+     * Reads chars {@code [from, to)} of the section at byte {@code chars}.
+     *
+     * @param chars
+     *            the byte offset of the section
+     * @param from
+     *            the first char
+     * @param to
+     *            the end char
+     * @return the chars, as a {@code String}
+     */
+    private String string(int chars, int from, int to) {
+        char[] res = new char[to - from];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = this.data.getChar(chars + (from + i) * 2);
+        }
+        return new String(res);
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the separators the links of the descriptions were found with.
+     *
+     * @return the separators
+     */
+    public SeparatorSet separators() {
+        return this.separators;
+    }
+
+    /**
+     * Returns the term of entry {@code index}.
+     *
+     * @param index
+     *            the index, in sorted order
+     * @return the term
+     * @requires 0 <= index < size
+     */
+    public String term(int index) {
+        assert 0 <= index && index < this.size : "Violation of: valid index";
+        return this.string(this.termChars, this.intAt(this.termIndex, index),
+                this.intAt(this.termIndex, index + 1));
+    }
+
+    /**
+     * Returns the description of entry {@code index}.
+     *
+     * @param index
+     *            the index, in sorted order
+     * @return the description
+     * @requires 0 <= index < size
+     */
+    public String description(int index) {
+        assert 0 <= index && index < this.size : "Violation of: valid index";
+        return this.string(this.descriptionChars,
+                this.intAt(this.descriptionIndex, index),
+                this.intAt(this.descriptionIndex, index + 1));
+    }
+
+    /**
+     * Returns the index of {@code term}, found by binary search over the
+     * mapped terms without building any {@code String}.
+     *
+     * @param term
+     *            the term
+     * @return the index, or -1 if {@code term} is not a term
+     */
+    public int find(CharSequence term) {
+        assert term != null : "Violation of: term is not null";
+
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = this.compareTerm(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the term of entry {@code index} with {@code term}, in
+     * {@code String} order.
+     *
+     * @param index
+     *            the index
+     * @param term
+     *            the term
+     * @return negative, zero or positive as the entry is less than, equal to
+     *         or greater than {@code term}
+     */
+    private int compareTerm(int index, CharSequence term) {
+        int from = this.intAt(this.termIndex, index);
+        int length = this.intAt(this.termIndex, index + 1) - from;
+        int n = Math.min(length, term.length());
+        for (int i = 0; i < n; i++) {
+            char c = this.data.getChar(this.termChars + (from + i) * 2);
+            if (c != term.charAt(i)) {
+                return c - term.charAt(i);
+            }
+        }
+        return length - term.length();
+    }
+
+    /**
+     * Returns the number of links in the description of entry {@code index}.
+     *
+     * @param index
+     *            the index
+     * @return the number of links
+     */
+    public int linkCount(int index) {
+        return this.intAt(this.linkIndex, index + 1)
+                - this.intAt(this.linkIndex, index);
+    }
+
+    /**
+     * Returns an int of link {@code k} of entry {@code index}.
+     *
+     * @param index
+     *            the index
+     * @param k
+     *            the link
+     * @param field
+     *            0 for the start, 1 for the length, 2 for the target
+     * @return the int
+     */
+    private int link(int index, int k, int field) {
+        int link = this.intAt(this.linkIndex, index) + k;
+        return this.data.getInt(
+                this.links + (link * LINK_INTS + field) * Integer.BYTES);
+    }
+
+    /**
+     * Returns where link {@code k} of entry {@code index} starts in its
+     * description.
+     *
+     * @param index
+     *            the index
+     * @param k
+     *            the link, in order of position
+     * @return the start of the link
+     * @requires 0 <= k < linkCount(index)
+     */
+    public int linkStart(int index, int k) {
+        return this.link(index, k, 0);
+    }
+
+    /**
+     * Returns the length of link {@code k} of entry {@code index}.
+     *
+     * @param index
+     *            the index
+     * @param k
+     *            the link, in order of position
+     * @return the length of the link
+     * @requires 0 <= k < linkCount(index)
+     */
+    public int linkLength(int index, int k) {
+        return this.link(index, k, 1);
+    }
+
+    /**
+     * Returns the index of the entry link {@code k} of entry {@code index}
+     * points to.
+     *
+     * @param index
+     *            the index
+     * @param k
+     *            the link, in order of position
+     * @return the index of the linked entry
+     * @requires 0 <= k < linkCount(index)
+     */
+    public int linkTarget(int index, int k) {
+        return this.link(index, k, 2);
+    }
+
+    /**
+     * Returns the terms, in sorted order.
+     *
+     * @return the terms
+     */
+    public Queue<String> keys() {
+        Queue<String> keys = new Queue1L<>();
+        for (int i = 0; i < this.size; i++) {
+            keys.enqueue(this.term(i));
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,547 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sort of a stream of keys that holds at most a fixed number of them in
+ * memory. Keys are added one at a time; every time the buffer is full it is
+ * sorted and spilled to a temporary file as a run, and iterating merges the
+ * runs and the keys still in the buffer with a heap, one key of each run in
+ * memory at a time. Runs are merged by level, like a log-structured merge:
+ * spilled runs are on level 0, and every {@link #FAN_IN} runs of a level are
+ * merged into one run of the next level, so every key is rewritten once per
+ * level, a logarithmic number of times, and no merge has more than
+ * {@link #FAN_IN} inputs but the last one.
+ *
+ * <p>
+ * The sort is stable, like {@link GlossaryFacility#sortQueue}: keys the order
+ * ranks equal come out in the order they were added. If the order is a
+ * {@link CollationOrder}, every key is collated once, when the buffer it is
+ * in is sorted, and its collation key is spilled with it, so merges compare
+ * bytes instead of collating keys again. Every iteration merges the runs
+ * again, so the keys can be streamed more than once; the temporary files are
+ * deleted by {@link #close}.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class ExternalSort implements Iterable<String>, AutoCloseable {
+
+    /**
+     * Most runs of a level, merged at once into a run of the next level.
+     */
+    public static final int FAN_IN = 64;
+
+    /**
+     * Size of the buffer of every run file.
+     */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * The order of the keys.
+     */
+    private final Comparator<String> order;
+
+    /**
+     * The order of the keys if it is a collation, or null.
+     */
+    private final CollationOrder collation;
+
+    /**
+     * The keys not spilled yet, in the order they were added.
+     */
+    private final String[] buffer;
+
+    /**
+     * The collation keys of the keys in {@code buffer} once it is sorted, or
+     * null if the order is not a collation.
+     */
+    private final byte[][] sortKeys;
+
+    /**
+     * Number of keys in {@code buffer}.
+     */
+    private int buffered;
+
+    /**
+     * The run files of every level, each level in the order its runs were
+     * written.
+     */
+    private final List<List<Path>> levels = new ArrayList<>();
+
+    /**
+     * Folder of the run files, or null before the first spill.
+     */
+    private Path folder;
+
+    /**
+     * Number of keys added.
+     */
+    private long size;
+
+    /**
+     * Whether the keys in {@code buffer} are sorted.
+     */
+    private boolean sorted;
+
+    /**
+     * The run files opened by iterators and not read to the end yet, closed
+     * by {@link #close}.
+     */
+    private final List<DataInputStream> open = new ArrayList<>();
+
+    /**
+     * Creates an empty sort.
+     *
+     * @param order
+     *            the order of the keys
+     * @param runSize
+     *            the most keys held in memory
+     * @requires runSize > 0
+     */
+    public ExternalSort(Comparator<String> order, int runSize) {
+        assert order != null : "Violation of: order is not null";
+        assert runSize > 0 : "Violation of: runSize > 0";
+
+        this.order = order;
+        this.buffer = new String[runSize];
+        if (order instanceof CollationOrder) {
+            this.collation = (CollationOrder) order;
+            this.sortKeys = new byte[runSize][];
+        } else {
+            this.collation = null;
+            this.sortKeys = null;
+        }
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key
+     *            the key
+     */
+    public void add(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        if (this.buffered == this.buffer.length) {
+            this.spill();
+        }
+        this.buffer[this.buffered] = key;
+        this.buffered++;
+        this.size++;
+        this.sorted = false;
+    }
+
+    /**
+     * Returns the number of keys added.
+     *
+     * @return the number of keys
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of runs in temporary files, on all levels.
+     *
+     * @return the number of runs
+     */
+    public int runCount() {
+        int count = 0;
+        for (List<Path> runs : this.levels) {
+            count += runs.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the runs of all levels in the order of the keys they hold: a
+     * run of a higher level holds keys added before those of every run of a
+     * lower level, and the runs of a level are in the order they were
+     * written.
+     *
+     * @return the runs
+     */
+    private List<Path> runs() {
+        List<Path> res = new ArrayList<>();
+        for (int level = this.levels.size() - 1; level >= 0; level--) {
+            res.addAll(this.levels.get(level));
+        }
+        return res;
+    }
+
+    /**
+     * Returns a new run file.
+     *
+     * @return the path of the run file
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    private Path newRun() throws IOException {
+        if (this.folder == null) {
+            this.folder = Files.createTempDirectory("glossary-sort");
+        }
+        return Files.createTempFile(this.folder, "run", ".bin");
+    }
+
+    /**
+     * Opens {@code run} for writing.
+     *
+     * @param run
+     *            the run file
+     * @return the stream of the run
+     * @throws IOException
+     *             if the run cannot be opened
+     */
+    private static DataOutputStream write(Path run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(run), BUFFER_SIZE));
+    }
+
+    /**
+     * Writes a key to a run, after its collation key if the order is a
+     * collation.
+     *
+     * @param out
+     *            the run
+     * @param key
+     *            the key
+     * @param sortKey
+     *            the collation key of {@code key}, or null if the order is
+     *            not a collation
+     * @throws IOException
+     *             if the run cannot be written
+     */
+    private static void writeKey(DataOutputStream out, String key,
+            byte[] sortKey) throws IOException {
+        if (sortKey != null) {
+            out.writeInt(sortKey.length);
+            out.write(sortKey);
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Sorts the keys in the buffer, on their collation keys if the order is a
+     * {@link CollationOrder}.
+     */
+    private void sortBuffer() {
+        if (this.collation != null) {
+            this.collation.sort(this.buffer, this.sortKeys, 0, this.buffered);
+        } else {
+            Arrays.sort(this.buffer, 0, this.buffered, this.order);
+        }
+    }
+
+    /**
+     * Sorts the buffer and writes it to a new run of level 0.
+     */
+    private void spill() {
+        this.sortBuffer();
+        try {
+            Path run = this.newRun();
+            try (DataOutputStream out = write(run)) {
+                for (int i = 0; i < this.buffered; i++) {
+                    writeKey(out, this.buffer[i],
+                            this.sortKeys == null ? null : this.sortKeys[i]);
+                }
+            }
+            this.addRun(0, run);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Arrays.fill(this.buffer, 0, this.buffered, null);
+        if (this.sortKeys != null) {
+            Arrays.fill(this.sortKeys, 0, this.buffered, null);
+        }
+        this.buffered = 0;
+    }
+
+    /**
+     * Adds {@code run} to {@code level}, and merges the runs of the level
+     * into one run of the next level once there are {@link #FAN_IN} of them.
+     *
+     * @param level
+     *            the level
+     * @param run
+     *            the run file
+     * @throws IOException
+     *             if the runs cannot be merged
+     */
+    private void addRun(int level, Path run) throws IOException {
+        if (level == this.levels.size()) {
+            this.levels.add(new ArrayList<>());
+        }
+        List<Path> runs = this.levels.get(level);
+        runs.add(run);
+        if (runs.size() == FAN_IN) {
+            Path merged = this.newRun();
+            try (DataOutputStream out = write(merged)) {
+                Merge keys = new Merge(runs, 0);
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    writeKey(out, key, keys.sortKey);
+                }
+            }
+            for (Path file : runs) {
+                Files.delete(file);
+            }
+            runs.clear();
+            this.addRun(level + 1, merged);
+        }
+    }
+
+    /**
+     * Head of one input of a merge.
+     */
+    private static final class Cursor {
+
+        /**
+         * The current key of the input.
+         */
+        private String key;
+
+        /**
+         * The collation key of {@code key}, or null if the order is not a
+         * collation.
+         */
+        private byte[] sortKey;
+
+        /**
+         * The rank of the input, which breaks ties so the merge is stable.
+         */
+        private final int rank;
+
+        /**
+         * The run file, or null for the buffer.
+         */
+        private final DataInputStream in;
+
+        /**
+         * Position of the next key in the buffer.
+         */
+        private int next;
+
+        /**
+         * Constructor.
+         *
+         * @param rank
+         *            the rank of the input
+         * @param in
+         *            the run file, or null for the buffer
+         */
+        Cursor(int rank, DataInputStream in) {
+            this.rank = rank;
+            this.in = in;
+        }
+
+    }
+
+    /**
+     * Merge of runs and of the first keys of the buffer, which must be
+     * sorted, in order.
+     */
+    private final class Merge implements Iterator<String> {
+
+        /**
+         * The inputs that have keys left, by their current key.
+         */
+        private final PriorityQueue<Cursor> heap;
+
+        /**
+         * The number of keys of the buffer to merge.
+         */
+        private final int inMemory;
+
+        /**
+         * The collation key of the key last returned by {@link #next}, or
+         * null if the order is not a collation.
+         */
+        private byte[] sortKey;
+
+        /**
+         * Opens the runs {@code files} and starts merging them with the first
+         * {@code inMemory} keys of the buffer.
+         *
+         * @param files
+         *            the runs, in the order of the keys they hold
+         * @param inMemory
+         *            the number of keys of the buffer to merge
+         * @throws IOException
+         *             if a run cannot be opened
+         */
+        Merge(List<Path> files, int inMemory) throws IOException {
+            this.inMemory = inMemory;
+            this.heap = new PriorityQueue<>(files.size() + 1,
+                    ExternalSort.this::compare);
+            for (int i = 0; i < files.size(); i++) {
+                DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(
+                                Files.newInputStream(files.get(i)),
+                                BUFFER_SIZE));
+                ExternalSort.this.open.add(in);
+                Cursor cursor = new Cursor(i, in);
+                if (this.advance(cursor)) {
+                    this.heap.add(cursor);
+                }
+            }
+            Cursor cursor = new Cursor(files.size(), null);
+            if (this.advance(cursor)) {
+                this.heap.add(cursor);
+            }
+        }
+
+        /**
+         * Moves {@code cursor} to the next key of its input, and closes its
+         * run file, if any, at the end of the input.
+         *
+         * @param cursor
+         *            the input
+         * @return whether the input had a key left
+         * @throws IOException
+         *             if the run cannot be read
+         */
+        private boolean advance(Cursor cursor) throws IOException {
+            if (cursor.in == null) {
+                if (cursor.next == this.inMemory) {
+                    return false;
+                }
+                cursor.key = ExternalSort.this.buffer[cursor.next];
+                if (ExternalSort.this.sortKeys != null) {
+                    cursor.sortKey = ExternalSort.this.sortKeys[cursor.next];
+                }
+                cursor.next++;
+                return true;
+            }
+            int length;
+            try {
+                length = cursor.in.readInt();
+            } catch (EOFException e) {
+                cursor.in.close();
+                ExternalSort.this.open.remove(cursor.in);
+                return false;
+            }
+            if (ExternalSort.this.collation != null) {
+                cursor.sortKey = new byte[length];
+                cursor.in.readFully(cursor.sortKey);
+                length = cursor.in.readInt();
+            }
+            byte[] bytes = new byte[length];
+            cursor.in.readFully(bytes);
+            cursor.key = new String(bytes, StandardCharsets.UTF_8);
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.heap.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            Cursor cursor = this.heap.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            String key = cursor.key;
+            this.sortKey = cursor.sortKey;
+            try {
+                if (this.advance(cursor)) {
+                    this.heap.add(cursor);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return key;
+        }
+
+    }
+
+    /**
+     * Compares the current keys of two inputs of a merge, on their collation
+     * keys if the order is a collation, and by rank if the order ranks them
+     * equal.
+     *
+     * @param a
+     *            the first input
+     * @param b
+     *            the second input
+     * @return a negative number, zero or a positive number as the key of
+     *         {@code a} comes before, with or after that of {@code b}
+     */
+    private int compare(Cursor a, Cursor b) {
+        int c;
+        if (this.collation != null) {
+            c = CollationOrder.compareKeys(a.sortKey, a.key, b.sortKey, b.key);
+        } else {
+            c = this.order.compare(a.key, b.key);
+        }
+        if (c == 0) {
+            c = Integer.compare(a.rank, b.rank);
+        }
+        return c;
+    }
+
+    /**
+     * Returns the keys added so far, in order. Keys must not be added while
+     * the iterator is in use.
+     *
+     * @return the sorted keys
+     */
+    @Override
+    public Iterator<String> iterator() {
+        if (!this.sorted) {
+            this.sortBuffer();
+            this.sorted = true;
+        }
+        try {
+            return new Merge(this.runs(), this.buffered);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the run files still open and deletes the temporary files.
+     */
+    @Override
+    public void close() {
+        try {
+            for (DataInputStream in : this.open) {
+                in.close();
+            }
+            this.open.clear();
+            if (this.folder != null) {
+                try (DirectoryStream<Path> files = Files
+                        .newDirectoryStream(this.folder)) {
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(this.folder);
+                this.folder = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.levels.clear();
+    }
+
+}
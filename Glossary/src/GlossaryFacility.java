@@ -1,351 +1,1993 @@
-import java.util.Comparator;
-
-import components.map.Map;
-import components.map.Map.Pair;
-import components.map.Map1L;
-import components.queue.Queue;
-import components.queue.Queue1L;
-import components.set.Set;
-import components.set.Set1L;
-import components.simplereader.SimpleReader;
-import components.simplereader.SimpleReader1L;
-import components.simplewriter.SimpleWriter;
-import components.simplewriter.SimpleWriter1L;
-
-/**
- * easy-to-maintain glossary facility.
- *
- * @author Vivian Lu
- *
- */
-public final class GlossaryFacility {
-
-    /**
-     * Private constructor so this utility class cannot be instantiated.
-     */
-    private GlossaryFacility() {
-
-    }
-
-    /**
-     * Generates the set of characters in the given {@code String} into the
-     * given {@code Set}.
-     *
-     * @param str
-     *            the given {@code String}
-     * @param charSet
-     *            the {@code Set} to be replaced
-     * @replaces charSet
-     * @ensures charSet = entries(str)
-     */
-    public static void generateElements(String str, Set<Character> charSet) {
-        assert str != null : "Violation of: str is not null";
-        assert charSet != null : "Violation of: charSet is not null";
-
-        for (char ch : str.toCharArray()) {
-            if (!charSet.contains(ch)) {
-                charSet.add(ch);
-            }
-        }
-    }
-
-    /**
-     * Returns the first "word" (maximal length string of characters not in
-     * {@code separators}) or "separator string" (maximal length string of
-     * characters in {@code separators}) in the given {@code text} starting at
-     * the given {@code position}.
-     *
-     * @param text
-     *            the {@code String} from which to get the word or separator
-     *            string
-     * @param position
-     *            the starting index
-     * @param separators
-     *            the {@code Set} of separator characters
-     * @return the first word or separator string found in {@code text} starting
-     *         at index {@code position}
-     * @requires 0 <= position < |text|
-     * @ensures <pre>
-     * nextWordOrSeparator =
-     *   text[position, position + |nextWordOrSeparator|)  and
-     * if entries(text[position, position + 1)) intersection separators = {}
-     * then
-     *   entries(nextWordOrSeparator) intersection separators = {}  and
-     *   (position + |nextWordOrSeparator| = |text|  or
-     *    entries(text[position, position + |nextWordOrSeparator| + 1))
-     *      intersection separators /= {})
-     * else
-     *   entries(nextWordOrSeparator) is subset of separators  and
-     *   (position + |nextWordOrSeparator| = |text|  or
-     *    entries(text[position, position + |nextWordOrSeparator| + 1))
-     *      is not subset of separators)
-     * </pre>
-     */
-    public static String nextWordOrSeparator(String text, int position,
-            Set<Character> separators) {
-        assert text != null : "Violation of: text is not null";
-        assert separators != null : "Violation of: separators is not null";
-        assert 0 <= position : "Violation of: 0 <= position";
-        assert position < text.length() : "Violation of: position < |text|";
-
-        String res = "";
-        boolean isWord = !separators.contains(text.charAt(position));
-        int i = position;
-        if (isWord) {
-            while (i < text.length() && !separators.contains(text.charAt(i))) {
-                res = res + text.charAt(i);
-                i++;
-            }
-        } else {
-            while (i < text.length() && separators.contains(text.charAt(i))) {
-                res += text.charAt(i);
-                i++;
-            }
-        }
-        return res;
-    }
-
-    /**
-     * Override the compare method in Comparator so that {@code String}s can be
-     * sorted in non-decreasing lexicographic order.
-     *
-     * @author Vivian
-     *
-     */
-    private static class StringLT implements Comparator<String> {
-        @Override
-        public int compare(String o1, String o2) {
-            return o1.compareTo(o2);
-        }
-    }
-
-    /**
-     * Removes and returns the minimum value from {@code q} according to the
-     * ordering provided by the {@code compare} method from {@code order}.
-     *
-     * @param q
-     *            the queue
-     * @param order
-     *            ordering by which to compare entries
-     * @return the minimum value from {@code q}
-     * @updates q
-     * @requires <pre>
-     * q /= empty_string  and
-     *  [the relation computed by order.compare is a total preorder]
-     * </pre>
-     * @ensures <pre>
-     * (q * <removeMin>) is permutation of #q  and
-     *  for all x: string of character
-     *      where (x is in entries (q))
-     *    ([relation computed by order.compare method](removeMin, x))
-     * </pre>
-     */
-    public static String removeMin(Queue<String> q, Comparator<String> order) {
-        assert q != null : "Violation of: q is not null";
-        assert order != null : "Violation of: order is not null";
-
-        String min = q.dequeue();
-        q.enqueue(min);
-        //first find and update the minimum
-        for (String s : q) {
-            if (order.compare(min, s) > 0) {
-                min = s;
-            }
-        }
-
-        Queue<String> temp = new Queue1L<>();
-        for (String element : q) {
-            if (element != min) {
-                temp.enqueue(element);
-            }
-        }
-        q.transferFrom(temp);
-
-        return min;
-    }
-
-    /**
-     * Sort this queue into non-decreasing lexicographic order.
-     *
-     * @param q
-     * @param order
-     */
-
-    public static void sortQueue(Queue<String> q, Comparator<String> order) {
-        assert order != null : "Violation of: order is not null";
-
-        Queue<String> temp = new Queue1L<>();
-
-        while (q.length() > 0) {
-
-            String min = removeMin(q, order);
-            //first find and update the minimum
-
-            temp.enqueue(min);
-            //so that every time this temp add element from the smallest to biggest
-        }
-        q.transferFrom(temp);
-    }
-
-    /**
-     * Generate the header of index page.
-     *
-     * @param out
-     */
-    private static void indexPageHeader(SimpleWriter out) {
-        out.println("<html><head><title>  Glossary </title>");
-        out.println("</head><body>");
-        out.println("<h1> Glossary Page</h1>");
-        out.println("<hr>");
-        out.println("<h2>Index</h2>");
-        out.println("<ul>");
-    }
-
-    /**
-     * the body and tail of index page.
-     *
-     * @param out
-     * @param keys
-     */
-    private static void indexPageBodyAndTail(SimpleWriter out,
-            Queue<String> keys) {
-
-        for (String key : keys) {
-            out.println(
-                    "<li><a href = \"" + key + ".html\">" + key + "</a></li>");
-        }
-        out.println("    </ul>");
-        out.println("</body>");
-        out.println("</html>");
-    }
-
-    /**
-     * a term page's header.
-     *
-     * @param out
-     * @param term
-     */
-
-    private static void generateSingleTermPageHeader(SimpleWriter out,
-            String term) {
-        out.println("<html> <head> <title>" + term + "</title><body>");
-        out.println("<h2><b><i><font color =\"red\">" + term
-                + "</font></i></b></h2>");
-    }
-
-    /**
-     * a term page's tail.
-     *
-     * @param out
-     *
-     */
-    private static void generateSingleTermPageTail(SimpleWriter out) {
-        out.println("<hr>");
-        out.println("<p>Return to <a href = \" index.html \">index</a>.</p>");
-        out.println("</body></html>");
-    }
-
-    /**
-     * if there is any other term inside this description,there also should have
-     * a link print out of this inside term's link.
-     *
-     * @param separators
-     * @param description
-     * @param map
-     * @param out
-     */
-    public static void printDescription(SimpleWriter out, String description,
-            Set<Character> separators, Map<String, String> map) {
-        int position = 0;
-        out.println("<blockquote>");
-        while (position < description.length()) {
-            String token = nextWordOrSeparator(description, position,
-                    separators);
-            if (!separators.contains(token.charAt(0)) && map.hasKey(token)) {
-                out.print("<a href=\"" + token + ".html\">" + token + "</a>");
-            } else {
-                out.print(token);
-            }
-
-            position += token.length();
-        }
-        out.println("</blockquote>");
-    }
-
-    /**
-     * Main method.
-     *
-     * @param args
-     *            the command line arguments
-     */
-    public static void main(String[] args) {
-        SimpleReader in = new SimpleReader1L();
-        SimpleWriter out = new SimpleWriter1L();
-        Map<String, String> map = new Map1L<>();
-
-        out.print("Please input the file's name: ");
-        String fileName = in.nextLine();
-        SimpleReader fileReader = new SimpleReader1L(fileName);
-
-        out.print("Please input the name of the folder "
-                + "where all the output files will be saved: ");
-        String folderName = in.nextLine();
-
-        //then read and process the info in this file to a map:
-        while (!fileReader.atEOS()) {
-            String item = fileReader.nextLine();
-            String description = "";
-            String line = fileReader.nextLine();
-
-            if (fileReader.atEOS() && !line.isEmpty()) {
-                description += line;
-            }
-            while (!fileReader.atEOS() && !line.isEmpty()) {
-                description += line;
-                line = fileReader.nextLine();
-            }
-            map.add(item, description);
-        }
-
-        /*
-         * take all keys in the map and put them in a queue and sorted the queue
-         * in non-decreasing lexicographic order
-         */
-        Queue<String> keys = new Queue1L<>();
-        for (Pair<String, String> pair : map) {
-            String word = pair.key();
-            keys.enqueue(word);
-        }
-        /*
-         * sort this queue in alphabetically order
-         */
-        Comparator<String> cs = new StringLT();
-        sortQueue(keys, cs);
-
-        final String separatorStr = " \t, ";
-        Set<Character> separatorSet = new Set1L<>();
-        generateElements(separatorStr, separatorSet);
-
-        for (Pair<String, String> p : map) {
-            String description = p.value();
-            String term = p.key();
-            SimpleWriter singleTerm = new SimpleWriter1L(
-                    folderName + "/" + term + ".html");
-            generateSingleTermPageHeader(singleTerm, term);
-            printDescription(singleTerm, description, separatorSet, map);
-            generateSingleTermPageTail(singleTerm);
-        }
-
-        /*
-         * construct indexPage:
-         */
-        SimpleWriter indexPage = new SimpleWriter1L(folderName + "/index.html");
-        indexPageHeader(indexPage);
-        indexPageBodyAndTail(indexPage, keys);
-
-        indexPage.close();
-        fileReader.close();
-        in.close();
-        out.close();
-    }
-}
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * easy-to-maintain glossary facility.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class GlossaryFacility {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private GlossaryFacility() {
+
+    }
+
+    /**
+     * Minimum number of entries for which {@code sortQueue} splits the sort
+     * across processors when asked to.
+     */
+    public static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * Line separator of the pages, the one {@code SimpleWriter.println} uses.
+     */
+    private static final String LINE = System.lineSeparator();
+
+    /**
+     * Characters that separate the words of a description.
+     */
+    public static final String SEPARATORS = " \t, ";
+
+    /**
+     * Folder, within the output folder, of the shards of a sharded index.
+     */
+    public static final String INDEX_SHARD_FOLDER = "index";
+
+    /**
+     * No terms, for pages that list none.
+     */
+    private static final String[] NO_TERMS = {};
+
+    /**
+     * Generates the set of characters in the given {@code String} into the
+     * given {@code Set}.
+     *
+     * @param str
+     *            the given {@code String}
+     * @param charSet
+     *            the {@code Set} to be replaced
+     * @replaces charSet
+     * @ensures charSet = entries(str)
+     */
+    public static void generateElements(String str, Set<Character> charSet) {
+        assert str != null : "Violation of: str is not null";
+        assert charSet != null : "Violation of: charSet is not null";
+
+        for (char ch : str.toCharArray()) {
+            if (!charSet.contains(ch)) {
+                charSet.add(ch);
+            }
+        }
+    }
+
+    /**
+     * Returns the first "word" (maximal length string of characters not in
+     * {@code separators}) or "separator string" (maximal length string of
+     * characters in {@code separators}) in the given {@code text} starting at
+     * the given {@code position}.
+     *
+     * @param text
+     *            the {@code String} from which to get the word or separator
+     *            string
+     * @param position
+     *            the starting index
+     * @param separators
+     *            the {@code Set} of separator characters
+     * @return the first word or separator string found in {@code text} starting
+     *         at index {@code position}
+     * @requires 0 <= position < |text|
+     * @ensures <pre>
+     * nextWordOrSeparator =
+     *   text[position, position + |nextWordOrSeparator|)  and
+     * if entries(text[position, position + 1)) intersection separators = {}
+     * then
+     *   entries(nextWordOrSeparator) intersection separators = {}  and
+     *   (position + |nextWordOrSeparator| = |text|  or
+     *    entries(text[position, position + |nextWordOrSeparator| + 1))
+     *      intersection separators /= {})
+     * else
+     *   entries(nextWordOrSeparator) is subset of separators  and
+     *   (position + |nextWordOrSeparator| = |text|  or
+     *    entries(text[position, position + |nextWordOrSeparator| + 1))
+     *      is not subset of separators)
+     * </pre>
+     */
+    public static String nextWordOrSeparator(String text, int position,
+            Set<Character> separators) {
+        assert text != null : "Violation of: text is not null";
+        assert separators != null : "Violation of: separators is not null";
+        assert 0 <= position : "Violation of: 0 <= position";
+        assert position < text.length() : "Violation of: position < |text|";
+
+        boolean isSeparator = separators.contains(text.charAt(position));
+        int i = position + 1;
+        while (i < text.length()
+                && separators.contains(text.charAt(i)) == isSeparator) {
+            i++;
+        }
+        return text.substring(position, i);
+    }
+
+    /**
+     * Returns the index just past the first "word" or "separator string" in
+     * the given {@code text} starting at the given {@code position}. This is
+     * the allocation-free form of {@link #nextWordOrSeparator}: the token is
+     * {@code text[position, nextWordOrSeparatorEnd)}.
+     *
+     * @param text
+     *            the text from which to get the word or separator string
+     * @param position
+     *            the starting index
+     * @param separators
+     *            the separators
+     * @return the end index of the first word or separator string found in
+     *         {@code text} starting at index {@code position}
+     * @requires 0 <= position < |text|
+     * @ensures <pre>
+     * text[position, nextWordOrSeparatorEnd) =
+     *   [the first word or separator string in text starting at position]
+     * </pre>
+     */
+    public static int nextWordOrSeparatorEnd(CharSequence text, int position,
+            SeparatorSet separators) {
+        assert text != null : "Violation of: text is not null";
+        assert separators != null : "Violation of: separators is not null";
+        assert 0 <= position : "Violation of: 0 <= position";
+        assert position < text.length() : "Violation of: position < |text|";
+
+        int length = text.length();
+        boolean separator = separators.contains(text.charAt(position));
+        int i = position + 1;
+        while (i < length && separators.contains(text.charAt(i)) == separator) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Override the compare method in Comparator so that {@code String}s can be
+     * sorted in non-decreasing lexicographic order.
+     *
+     * @author Vivian
+     *
+     */
+    private static class StringLT implements Comparator<String> {
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Removes and returns the minimum value from {@code q} according to the
+     * ordering provided by the {@code compare} method from {@code order}.
+     *
+     * @param q
+     *            the queue
+     * @param order
+     *            ordering by which to compare entries
+     * @return the minimum value from {@code q}
+     * @updates q
+     * @requires <pre>
+     * q /= empty_string  and
+     *  [the relation computed by order.compare is a total preorder]
+     * </pre>
+     * @ensures <pre>
+     * (q * <removeMin>) is permutation of #q  and
+     *  for all x: string of character
+     *      where (x is in entries (q))
+     *    ([relation computed by order.compare method](removeMin, x))
+     * </pre>
+     */
+    public static String removeMin(Queue<String> q, Comparator<String> order) {
+        assert q != null : "Violation of: q is not null";
+        assert order != null : "Violation of: order is not null";
+
+        String min = q.dequeue();
+        q.enqueue(min);
+        //first find and update the minimum
+        for (String s : q) {
+            if (order.compare(min, s) > 0) {
+                min = s;
+            }
+        }
+
+        Queue<String> temp = new Queue1L<>();
+        for (String element : q) {
+            if (element != min) {
+                temp.enqueue(element);
+            }
+        }
+        q.transferFrom(temp);
+
+        return min;
+    }
+
+    /**
+     * Sorts {@code q} according to the ordering provided by the
+     * {@code compare} method from {@code order}.
+     *
+     * @param q
+     *            the queue
+     * @param order
+     *            ordering by which to sort
+     * @updates q
+     * @requires [the relation computed by order.compare is a total preorder]
+     * @ensures q = [#q ordered by the relation computed by order.compare]
+     */
+    public static void sortQueue(Queue<String> q, Comparator<String> order) {
+        sortQueue(q, order, false);
+    }
+
+    /**
+     * Sorts {@code q} according to the ordering provided by the
+     * {@code compare} method from {@code order}, optionally splitting the work
+     * across all available processors.
+     *
+     * <p>
+     * The entries are drained into an array once and sorted with a stable
+     * merge sort, so the cost is O(n log n) comparisons instead of the n
+     * passes over {@code q} that repeated {@link #removeMin} calls would take.
+     * The parallel mode only pays off for large queues; below
+     * {@link #PARALLEL_SORT_THRESHOLD} entries it sorts sequentially. A
+     * {@link CollationOrder} sorts on the collation key of every entry,
+     * computed once.
+     *
+     * @param q
+     *            the queue
+     * @param order
+     *            ordering by which to sort
+     * @param parallel
+     *            whether large queues may be sorted in parallel
+     * @updates q
+     * @requires [the relation computed by order.compare is a total preorder]
+     * @ensures q = [#q ordered by the relation computed by order.compare]
+     */
+    public static void sortQueue(Queue<String> q, Comparator<String> order,
+            boolean parallel) {
+        assert q != null : "Violation of: q is not null";
+        assert order != null : "Violation of: order is not null";
+
+        String[] entries = new String[q.length()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = q.dequeue();
+        }
+
+        boolean inParallel = parallel
+                && entries.length >= PARALLEL_SORT_THRESHOLD;
+        if (order instanceof CollationOrder) {
+            ((CollationOrder) order).sort(entries, 0, entries.length,
+                    inParallel);
+        } else if (inParallel) {
+            Arrays.parallelSort(entries, order);
+        } else {
+            Arrays.sort(entries, order);
+        }
+
+        for (String entry : entries) {
+            q.enqueue(entry);
+        }
+    }
+
+    /**
+     * if there is any other term inside this description,there also should have
+     * a link print out of this inside term's link.
+     *
+     * <p>
+     * The terms of {@code map} are compiled into a new {@link TermMatcher} on
+     * each call; to link many descriptions, compile them once and use
+     * {@link #printDescription(SimpleWriter, String, TermMatcher)}.
+     *
+     * @param separators
+     * @param description
+     * @param map
+     * @param out
+     */
+    public static void printDescription(SimpleWriter out, String description,
+            Set<Character> separators, Map<String, String> map) {
+        Queue<String> keys = new Queue1L<>();
+        for (Pair<String, String> pair : map) {
+            keys.enqueue(pair.key());
+        }
+        printDescription(out, description,
+                new TermMatcher(keys, SeparatorSet.of(separators)));
+    }
+
+    /**
+     * Same as {@link #printDescription(SimpleWriter, String, Set, Map)}, with
+     * the glossary terms compiled once into {@code matcher}. The description
+     * is scanned in a single pass and every leftmost-longest whole-word
+     * occurrence of a term, including multi-word terms, is linked. The
+     * blockquote body is assembled in one buffer straight from index ranges
+     * of {@code description}.
+     *
+     * @param out
+     *            the output stream
+     * @param description
+     *            the description to print
+     * @param matcher
+     *            the compiled glossary terms
+     */
+    public static void printDescription(SimpleWriter out, String description,
+            TermMatcher matcher) {
+        StringBuilder page = new StringBuilder(description.length());
+        appendDescription(page, description, matcher);
+        out.print(page.toString());
+    }
+
+    /**
+     * Appends the blockquote that
+     * {@link #printDescription(SimpleWriter, String, TermMatcher)} prints to
+     * {@code page}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param description
+     *            the description to print
+     * @param matcher
+     *            the compiled glossary terms
+     * @updates page
+     */
+    public static void appendDescription(StringBuilder page,
+            String description, TermMatcher matcher) {
+        appendDescription(page, description, matcher, BuildStats.NONE);
+    }
+
+    /**
+     * Same as {@link #appendDescription(StringBuilder, String, TermMatcher)},
+     * recording the description in {@code stats}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param description
+     *            the description to print
+     * @param matcher
+     *            the compiled glossary terms
+     * @param stats
+     *            the statistics of the build
+     * @updates page
+     */
+    private static void appendDescription(StringBuilder page,
+            String description, TermMatcher matcher, BuildStats stats) {
+        int[] matches = matcher.matches(description);
+        page.append("<blockquote>").append(LINE);
+        int links = 0;
+        int position = 0;
+        while (position < description.length()) {
+            int next = position;
+            while (next < matches.length && matches[next] == 0) {
+                next++;
+            }
+            Html.appendEscaped(page, description, position, next);
+            if (next < matches.length) {
+                String term = matcher.term(matches[next] - 1);
+                appendLink(page, term, term, 0, term.length());
+                next += term.length();
+                links++;
+            }
+            position = next;
+        }
+        page.append("</blockquote>").append(LINE);
+        stats.addDescription(description.length(), links);
+    }
+
+    /**
+     * Appends the "referenced by" section of a term page to {@code page}: a
+     * paragraph linking to every term whose description mentions the term of
+     * the page. Nothing is appended if there are none.
+     *
+     * @param page
+     *            the page being rendered
+     * @param referencedBy
+     *            the terms that mention the term of the page, in order
+     * @updates page
+     */
+    public static void appendReferencedBy(StringBuilder page,
+            String[] referencedBy) {
+        assert page != null : "Violation of: page is not null";
+        assert referencedBy != null : "Violation of: referencedBy is not null";
+
+        appendTermList(page, "Referenced by", referencedBy);
+    }
+
+    /**
+     * Appends the "see also" section of a term page to {@code page}: a
+     * paragraph linking to related terms. Nothing is appended if there are
+     * none.
+     *
+     * @param page
+     *            the page being rendered
+     * @param seeAlso
+     *            the terms to see also, in order
+     * @updates page
+     */
+    public static void appendSeeAlso(StringBuilder page, String[] seeAlso) {
+        assert page != null : "Violation of: page is not null";
+        assert seeAlso != null : "Violation of: seeAlso is not null";
+
+        appendTermList(page, "See also", seeAlso);
+    }
+
+    /**
+     * Appends a paragraph of links to {@code terms}, after {@code label}, to
+     * {@code page}. Nothing is appended if there are no terms.
+     *
+     * @param page
+     *            the page being rendered
+     * @param label
+     *            the label of the list
+     * @param terms
+     *            the terms, in order
+     * @updates page
+     */
+    private static void appendTermList(StringBuilder page, String label,
+            String[] terms) {
+        if (terms.length == 0) {
+            return;
+        }
+        page.append("<p>").append(label).append(": ");
+        for (int i = 0; i < terms.length; i++) {
+            if (i > 0) {
+                page.append(", ");
+            }
+            appendLink(page, terms[i], terms[i], 0, terms[i].length());
+        }
+        page.append("</p>").append(LINE);
+    }
+
+    /**
+     * Appends a link to the page of {@code term} to {@code page}, whose text
+     * is {@code text[start, end)}, escaped.
+     *
+     * @param page
+     *            the page being rendered
+     * @param term
+     *            the term to link to
+     * @param text
+     *            the text of the link
+     * @param start
+     *            the start of the text of the link
+     * @param end
+     *            the end of the text of the link
+     * @updates page
+     */
+    private static void appendLink(StringBuilder page, String term,
+            CharSequence text, int start, int end) {
+        page.append("<a href=\"");
+        PageName.append(page, term);
+        page.append(".html\">");
+        Html.appendEscaped(page, text, start, end);
+        page.append("</a>");
+    }
+
+    /**
+     * Same as {@link #printDescription(SimpleWriter, String, TermMatcher)}, for
+     * entry {@code index} of a compiled glossary, whose links were found when
+     * it was compiled.
+     *
+     * @param out
+     *            the output stream
+     * @param glossary
+     *            the compiled glossary
+     * @param index
+     *            the entry whose description to print
+     * @requires 0 <= index < glossary.size
+     */
+    public static void printDescription(SimpleWriter out,
+            CompiledGlossary glossary, int index) {
+        StringBuilder page = new StringBuilder();
+        appendDescription(page, glossary, index);
+        out.print(page.toString());
+    }
+
+    /**
+     * Appends the blockquote that
+     * {@link #printDescription(SimpleWriter, CompiledGlossary, int)} prints to
+     * {@code page}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param glossary
+     *            the compiled glossary
+     * @param index
+     *            the entry whose description to print
+     * @updates page
+     * @requires 0 <= index < glossary.size
+     */
+    public static void appendDescription(StringBuilder page,
+            CompiledGlossary glossary, int index) {
+        appendDescription(page, glossary, index, BuildStats.NONE);
+    }
+
+    /**
+     * Same as
+     * {@link #appendDescription(StringBuilder, CompiledGlossary, int)},
+     * recording the description in {@code stats}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param glossary
+     *            the compiled glossary
+     * @param index
+     *            the entry whose description to print
+     * @param stats
+     *            the statistics of the build
+     * @updates page
+     * @requires 0 <= index < glossary.size
+     */
+    private static void appendDescription(StringBuilder page,
+            CompiledGlossary glossary, int index, BuildStats stats) {
+        String description = glossary.description(index);
+        page.append("<blockquote>").append(LINE);
+        int position = 0;
+        for (int k = 0; k < glossary.linkCount(index); k++) {
+            int start = glossary.linkStart(index, k);
+            int end = start + glossary.linkLength(index, k);
+            String term = glossary.term(glossary.linkTarget(index, k));
+            Html.appendEscaped(page, description, position, start);
+            appendLink(page, term, description, start, end);
+            position = end;
+        }
+        Html.appendEscaped(page, description, position,
+                description.length());
+        page.append("</blockquote>").append(LINE);
+        stats.addDescription(description.length(),
+                glossary.linkCount(index));
+    }
+
+    /**
+     * Appends the whole page of a single term to {@code page}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @param matcher
+     *            the compiled glossary terms
+     * @updates page
+     */
+    public static void appendTermPage(StringBuilder page, String term,
+            String description, TermMatcher matcher) {
+        appendTermPage(page, term, description, matcher,
+                PageTemplate.TERM_PAGE);
+    }
+
+    /**
+     * Appends the whole page of a single term, rendered with
+     * {@code template}, to {@code page}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @param matcher
+     *            the compiled glossary terms
+     * @param template
+     *            the template of term pages
+     * @updates page
+     */
+    public static void appendTermPage(StringBuilder page, String term,
+            String description, TermMatcher matcher, PageTemplate template) {
+        template.render(page, (p, slot) -> {
+            if (slot == PageTemplate.Slot.DESCRIPTION) {
+                appendDescription(p, description, matcher);
+            } else {
+                appendTermSlot(p, slot, term, NO_TERMS, NO_TERMS);
+            }
+        });
+    }
+
+    /**
+     * Appends the content of {@code slot} of the page of {@code term} to
+     * {@code page}, for every slot of a term page but its description.
+     *
+     * @param page
+     *            the page being rendered
+     * @param slot
+     *            the slot
+     * @param term
+     *            the term
+     * @param referencedBy
+     *            the terms whose description mentions {@code term}, in order
+     * @param seeAlso
+     *            the terms to see also, in order
+     * @updates page
+     */
+    private static void appendTermSlot(StringBuilder page,
+            PageTemplate.Slot slot, String term, String[] referencedBy,
+            String[] seeAlso) {
+        if (slot == PageTemplate.Slot.TERM) {
+            Html.appendEscaped(page, term);
+        } else if (slot == PageTemplate.Slot.REFERENCED_BY) {
+            appendReferencedBy(page, referencedBy);
+        } else if (slot == PageTemplate.Slot.SEE_ALSO) {
+            appendSeeAlso(page, seeAlso);
+        } else if (slot == PageTemplate.Slot.HOME) {
+            page.append("index.html");
+        }
+    }
+
+    /**
+     * Appends the whole index page of {@code keys} to {@code page}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param keys
+     *            the terms, in index order
+     * @updates page
+     */
+    public static void appendIndexPage(StringBuilder page,
+            Iterable<String> keys) {
+        appendIndexPage(page, keys, PageTemplate.INDEX_PAGE);
+    }
+
+    /**
+     * Appends the whole index page of {@code keys}, rendered with
+     * {@code template}, to {@code page}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param keys
+     *            the terms, in index order
+     * @param template
+     *            the template of index pages
+     * @updates page
+     */
+    public static void appendIndexPage(StringBuilder page,
+            Iterable<String> keys, PageTemplate template) {
+        appendIndexPage(page, template, "", "", "", keys);
+    }
+
+    /**
+     * Appends a page of the index, rendered with {@code template}, to
+     * {@code page}: a list item linking to each of {@code keys}, or just
+     * {@code items} if there are none.
+     *
+     * @param page
+     *            the page being rendered
+     * @param template
+     *            the template of the page
+     * @param label
+     *            the label of the page
+     * @param base
+     *            the output folder, relative to the page, ending in "/"
+     *            unless it is the folder of the page
+     * @param items
+     *            the list items already rendered
+     * @param keys
+     *            the terms, in index order
+     * @updates page
+     */
+    private static void appendIndexPage(StringBuilder page,
+            PageTemplate template, String label, String base,
+            CharSequence items, Iterable<String> keys) {
+        template.render(page, (p, slot) -> {
+            if (slot == PageTemplate.Slot.LABEL) {
+                Html.appendEscaped(p, label);
+            } else if (slot == PageTemplate.Slot.HOME) {
+                p.append(base).append("index.html");
+            } else if (slot == PageTemplate.Slot.TERMS) {
+                p.append(items);
+                for (String key : keys) {
+                    p.append("<li><a href = \"").append(base);
+                    PageName.append(p, key);
+                    p.append(".html\">");
+                    Html.appendEscaped(p, key);
+                    p.append("</a></li>").append(LINE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the path of the page of {@code term} in {@code folderName}.
+     *
+     * @param folderName
+     *            the output folder
+     * @param term
+     *            the term
+     * @return the path of the page
+     */
+    private static String termPagePath(String folderName, String term) {
+        return folderName + "/" + termPageName(term);
+    }
+
+    /**
+     * Returns the file name of the page of {@code term}, relative to the
+     * output folder: the {@link PageName} of the term, which the links to the
+     * page use too.
+     *
+     * @param term
+     *            the term
+     * @return the file name
+     */
+    public static String termPageName(String term) {
+        return PageName.of(term) + ".html";
+    }
+
+    /**
+     * Queues the page of a single term, without "referenced by" or "see also"
+     * sections, to be written to {@code folderName/term.html}.
+     *
+     * @param pipeline
+     *            the pages being written
+     * @param folderName
+     *            the output folder
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @param matcher
+     *            the compiled glossary terms
+     */
+    private static void submitTermPage(PagePipeline pipeline,
+            String folderName, String term, String description,
+            TermMatcher matcher) {
+        submitTermPage(pipeline, folderName, PageTemplate.TERM_PAGE, term,
+                description, matcher, NO_TERMS, NO_TERMS);
+    }
+
+    /**
+     * Queues the page of a single term, rendered with {@code template}, to be
+     * written to {@code folderName/term.html}. The page is rendered on a
+     * renderer of {@code pipeline} up to the tail of the template, and
+     * written with one gathering write of the page and the shared tail.
+     *
+     * @param pipeline
+     *            the pages being written
+     * @param folderName
+     *            the output folder
+     * @param template
+     *            the template of term pages
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @param matcher
+     *            the compiled glossary terms
+     * @param referencedBy
+     *            the terms whose description mentions {@code term}, in order
+     * @param seeAlso
+     *            the terms to see also, in order
+     */
+    private static void submitTermPage(PagePipeline pipeline,
+            String folderName, PageTemplate template, String term,
+            String description, TermMatcher matcher, String[] referencedBy,
+            String[] seeAlso) {
+        BuildStats stats = pipeline.stats();
+        pipeline.submit(term, Paths.get(termPagePath(folderName, term)),
+                page -> template.renderHead(page, (p, slot) -> {
+                    if (slot == PageTemplate.Slot.DESCRIPTION) {
+                        appendDescription(p, description, matcher, stats);
+                    } else {
+                        appendTermSlot(p, slot, term, referencedBy, seeAlso);
+                    }
+                }), template.tail());
+    }
+
+    /**
+     * Writes the page of every term in {@code map} to {@code folderName},
+     * rendering up to {@code threads} pages at a time while the pages already
+     * rendered are written, as a {@link PagePipeline}. Every page writer is
+     * closed whether or not its page could be written, and a failure on one
+     * term does not stop the others.
+     *
+     * @param map
+     *            the glossary
+     * @param folderName
+     *            the output folder
+     * @param matcher
+     *            the compiled glossary terms
+     * @param threads
+     *            the number of pages to render concurrently
+     * @return the terms whose page could not be written, each with the reason
+     * @requires threads > 0
+     * @ensures <pre>
+     * [the page of every term in DOMAIN(map) that is not in
+     *  DOMAIN(generateTermPages) is written to folderName]
+     * </pre>
+     */
+    public static Map<String, String> generateTermPages(
+            Map<String, String> map, String folderName, TermMatcher matcher,
+            int threads) {
+        assert map != null : "Violation of: map is not null";
+        assert folderName != null : "Violation of: folderName is not null";
+        assert matcher != null : "Violation of: matcher is not null";
+        assert threads > 0 : "Violation of: threads > 0";
+
+        try (PagePipeline pipeline = new PagePipeline(threads)) {
+            for (Pair<String, String> p : map) {
+                submitTermPage(pipeline, folderName, p.key(), p.value(),
+                        matcher);
+            }
+            return pipeline.finish();
+        }
+    }
+
+    /**
+     * Writes the page of every entry of a compiled glossary to
+     * {@code folderName}, as set by {@code options}: the pages go to its
+     * output, rendered with its term template, up to its number of threads at
+     * a time.
+     *
+     * @param glossary
+     *            the compiled glossary
+     * @param folderName
+     *            the output folder
+     * @param options
+     *            how the pages are written
+     * @return the terms whose page could not be written, each with the reason
+     */
+    public static Map<String, String> generateTermPages(
+            CompiledGlossary glossary, String folderName,
+            PageOptions options) {
+        assert glossary != null : "Violation of: glossary is not null";
+        assert folderName != null : "Violation of: folderName is not null";
+        assert options != null : "Violation of: options is not null";
+
+        PageTemplate template = options.termTemplate();
+        try (PagePipeline pipeline = new PagePipeline(options.threads(),
+                options.output())) {
+            BuildStats stats = pipeline.stats();
+            for (int i = 0; i < glossary.size(); i++) {
+                int index = i;
+                String term = glossary.term(index);
+                pipeline.submit(term,
+                        Paths.get(termPagePath(folderName, term)),
+                        page -> template.renderHead(page, (p, slot) -> {
+                            if (slot == PageTemplate.Slot.DESCRIPTION) {
+                                appendDescription(p, glossary, index,
+                                        stats);
+                            } else {
+                                appendTermSlot(p, slot, term, NO_TERMS,
+                                        NO_TERMS);
+                            }
+                        }), template.tail());
+            }
+            return pipeline.finish();
+        }
+    }
+
+    /**
+     * Reads every record of {@code records} into a new dictionary. When a term
+     * appears more than once, its first description is kept.
+     *
+     * @param records
+     *            the glossary records
+     * @return the glossary
+     * @updates records
+     * @ensures records is exhausted
+     */
+    public static TermDictionary readGlossary(TermReader records) {
+        assert records != null : "Violation of: records is not null";
+
+        TermDictionary dictionary = new TermDictionary();
+        while (records.next()) {
+            String term = records.term();
+            if (!dictionary.hasKey(term)) {
+                dictionary.add(term, records.descriptionSequence());
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the keys of {@code sorted} without the repeats of a key, which
+     * are next to it in a sorted sequence. The keys are filtered every time
+     * they are streamed, so nothing is copied.
+     *
+     * @param sorted
+     *            the keys, sorted
+     * @return the distinct keys, in order
+     */
+    private static Iterable<String> distinct(Iterable<String> sorted) {
+        return () -> new Iterator<String>() {
+
+            /**
+             * The keys.
+             */
+            private final Iterator<String> keys = sorted.iterator();
+
+            /**
+             * The next distinct key, or null at the end.
+             */
+            private String next = this.keys.hasNext() ? this.keys.next()
+                    : null;
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public String next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+                String key = this.next;
+                this.next = null;
+                while (this.next == null && this.keys.hasNext()) {
+                    String following = this.keys.next();
+                    if (!following.equals(key)) {
+                        this.next = following;
+                    }
+                }
+                return key;
+            }
+
+        };
+    }
+
+    /**
+     * Writes the pages of the terms streamed from {@code records} to
+     * {@code folderName}, as {@link #generateTermPages(Map, String,
+     * TermMatcher, int)} does for a map; only a few pages per thread are in
+     * flight at a time, so memory use does not grow with the size of the
+     * input. Only the pages that are out of date with respect to the
+     * manifest {@code previous} of the last build are written: pages whose
+     * term or description changed, pages whose links changed because terms
+     * were added or removed, and pages that are missing. Every term read is
+     * recorded in {@code current}, except those whose page could not be
+     * written. A term read more than once keeps its first description, as in
+     * {@link #readGlossary}.
+     *
+     * <p>
+     * The pages go to the output of {@code options}, where a page counts as
+     * missing unless the output finds it, rendered with its term template, up
+     * to its number of threads at a time. Each page also lists the terms whose
+     * description links to its term if {@code options} has a graph for the
+     * "referenced by" sections, and the terms to see also if it has a link
+     * graph. Pages written with
+     * another template are not out of date for it, so {@code previous} must
+     * be empty if the template changed since the last build.
+     *
+     * @param records
+     *            the glossary records
+     * @param folderName
+     *            the output folder
+     * @param matcher
+     *            the compiled glossary terms
+     * @param options
+     *            how the pages are written
+     * @param previous
+     *            the manifest of the last build
+     * @param current
+     *            the manifest of this build
+     * @return the terms whose page could not be written, each with the reason
+     * @updates records, current
+     */
+    public static Map<String, String> generateChangedTermPages(
+            TermReader records, String folderName, TermMatcher matcher,
+            PageOptions options, BuildManifest previous,
+            BuildManifest current) {
+        assert records != null : "Violation of: records is not null";
+        assert folderName != null : "Violation of: folderName is not null";
+        assert matcher != null : "Violation of: matcher is not null";
+        assert options != null : "Violation of: options is not null";
+        assert previous != null : "Violation of: previous is not null";
+        assert current != null : "Violation of: current is not null";
+
+        PageOutput output = options.output();
+        PageTemplate template = options.termTemplate();
+        LinkGraph backlinks = options.backlinks();
+        LinkGraph graph = options.graph();
+        boolean sameKeys = previous.sameKeys(current);
+        boolean[] seen = new boolean[matcher.size()];
+        Map<String, String> failures;
+        try (PagePipeline pipeline = new PagePipeline(options.threads(),
+                output)) {
+            while (records.next()) {
+                String term = records.term();
+                int id = matcher.id(term);
+                if (id >= 0) {
+                    if (seen[id]) {
+                        continue;
+                    }
+                    seen[id] = true;
+                }
+                String description = records.description();
+                String[] referencedBy = NO_TERMS;
+                if (backlinks != null) {
+                    referencedBy = backlinks.referencedBy(term);
+                }
+                String[] seeAlso = NO_TERMS;
+                if (graph != null) {
+                    seeAlso = graph.seeAlso(term);
+                }
+                long content = BuildManifest.contentHash(term, description,
+                        referencedBy, seeAlso);
+                long links;
+                if (sameKeys && previous.sameContent(term, content)) {
+                    links = previous.linksHash(term);
+                } else {
+                    links = BuildManifest.linksHash(
+                            matcher.matches(description), matcher);
+                }
+                current.record(term, content, links);
+                if (!previous.isCurrent(term, content, links) || !output
+                        .exists(Paths.get(termPagePath(folderName, term)))) {
+                    submitTermPage(pipeline, folderName, template, term,
+                            description, matcher, referencedBy, seeAlso);
+                }
+            }
+            failures = pipeline.finish();
+        }
+        for (Pair<String, String> failure : failures) {
+            current.forget(failure.key());
+        }
+        return failures;
+    }
+
+    /**
+     * Deletes the pages of the terms that were in the previous build but are
+     * not in the current one.
+     *
+     * @param folderName
+     *            the output folder
+     * @param previous
+     *            the manifest of the last build
+     * @param current
+     *            the manifest of this build
+     */
+    private static void deleteStalePages(String folderName,
+            BuildManifest previous, BuildManifest current) {
+        for (String term : previous.staleTerms(current)) {
+            PageOutput.delete(Paths.get(termPagePath(folderName, term)));
+        }
+    }
+
+    /**
+     * Deletes the gzip siblings of the pages of {@code keys}, of the index,
+     * of the prefix index and of the shards of both, left in
+     * {@code folderName} by a build with {@link PageOutput#gzip}.
+     *
+     * @param folderName
+     *            the output folder
+     * @param keys
+     *            the terms
+     */
+    private static void deleteGzipSiblings(String folderName,
+            Iterable<String> keys) {
+        try {
+            for (String key : keys) {
+                Files.deleteIfExists(PageOutput.gzipSibling(
+                        Paths.get(termPagePath(folderName, key))));
+            }
+            Files.deleteIfExists(PageOutput
+                    .gzipSibling(Paths.get(folderName, "index.html")));
+            Files.deleteIfExists(PageOutput.gzipSibling(
+                    Paths.get(folderName, PrefixIndex.FILE_NAME)));
+            Files.deleteIfExists(PageOutput.gzipSibling(
+                    Paths.get(folderName, LinkGraph.REPORT_NAME)));
+            for (String shardFolder : new String[] { INDEX_SHARD_FOLDER,
+                    PrefixIndex.SHARD_FOLDER }) {
+                Path shards = Paths.get(folderName, shardFolder);
+                if (Files.isDirectory(shards)) {
+                    try (DirectoryStream<Path> files = Files
+                            .newDirectoryStream(shards, "*.{html,json}.gz")) {
+                        for (Path file : files) {
+                            Files.delete(file);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the index page of {@code keys} to {@code folderName}.
+     *
+     * @param folderName
+     *            the output folder
+     * @param keys
+     *            the terms, in index order
+     * @param output
+     *            where the page goes
+     * @param template
+     *            the template of index pages
+     */
+    private static void writeIndexPage(String folderName,
+            Iterable<String> keys, PageOutput output, PageTemplate template) {
+        PageWriter writer = PageWriter.forThread();
+        appendIndexPage(writer.begin(), keys, template);
+        output.write(writer, Paths.get(folderName, "index.html"));
+        deleteStaleIndexShards(folderName, new Set1L<>(), output);
+    }
+
+    /**
+     * Returns the file name, within {@link #INDEX_SHARD_FOLDER}, of the index
+     * shard of the terms starting with {@code letter}: the {@link PageName}
+     * of the letter, as for the page of a term.
+     *
+     * @param letter
+     *            the leading code point of the terms, or -1 for the empty
+     *            term
+     * @return the base name of the shard
+     */
+    private static String letterShardName(int letter) {
+        if (letter < 0) {
+            return PageName.of("");
+        }
+        return PageName.of(new String(Character.toChars(letter)));
+    }
+
+    /**
+     * Returns the leading letter of {@code key}, by which the index is
+     * sharded: its first code point, or, if {@code fold}, the base letter of
+     * its first code point in lowercase, so that the terms a collation puts
+     * together, such as "apple", "Apple" and "\u00e0 la carte", share a
+     * shard.
+     *
+     * @param key
+     *            the term
+     * @param fold
+     *            whether to fold case and accents
+     * @return the leading letter, or -1 if {@code key} is empty
+     */
+    private static int leadingLetter(String key, boolean fold) {
+        if (key.isEmpty()) {
+            return -1;
+        }
+        int first = key.codePointAt(0);
+        if (!fold) {
+            return first;
+        }
+        String base = Normalizer.normalize(
+                key.substring(0, Character.charCount(first)),
+                Normalizer.Form.NFD);
+        return Character.toLowerCase(base.codePointAt(0));
+    }
+
+    /**
+     * Writes the index of {@code keys} to {@code folderName} as a top-level
+     * {@code index.html} that links to shards in
+     * {@code folderName/}{@link #INDEX_SHARD_FOLDER}, so that no index page
+     * grows with the whole glossary. The keys are cut into shards by leading
+     * letter, into shards of at most the index page size of {@code options},
+     * or both, as they are streamed, and up to its number of threads shards
+     * are written at a time, to its output. If {@code options} has a
+     * collation, the leading letter of a key ignores its case and accents, as
+     * the collation does. The top-level index is rendered with its index
+     * template, and the shards with its shard template.
+     * Shards of an earlier build that are no longer part of the index are
+     * deleted.
+     *
+     * @param keys
+     *            the terms, in index order
+     * @param folderName
+     *            the output folder
+     * @param options
+     *            how the index is sharded and written
+     * @return the shards that could not be written, by file name relative to
+     *         {@code folderName}, each with the reason
+     */
+    public static Map<String, String> writeIndexShards(
+            Iterable<String> keys, String folderName, PageOptions options) {
+        assert keys != null : "Violation of: keys is not null";
+        assert folderName != null : "Violation of: folderName is not null";
+        assert options != null : "Violation of: options is not null";
+
+        PageOutput output = options.output();
+        boolean byLetter = options.indexByLetter();
+        int pageSize = options.indexPageSize();
+        if (!output.isArchive()) {
+            try {
+                Files.createDirectories(
+                        Paths.get(folderName, INDEX_SHARD_FOLDER));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        PageTemplate shardTemplate = options.shardTemplate();
+        StringBuilder items = new StringBuilder();
+        Set<String> written = new Set1L<>();
+        List<String> shard = new ArrayList<>();
+        boolean fold = options.collation() != null;
+        /*
+         * the number of shards of each letter so far, so a letter that comes
+         * back after another one, which a collation may allow, numbers its
+         * shards on instead of writing over the first ones
+         */
+        Map<Integer, Integer> shardsOfLetter = new Map1L<>();
+        int letter = -1;
+        int part = 0;
+        Map<String, String> failures;
+        try (PagePipeline pipeline = new PagePipeline(options.threads(),
+                output)) {
+            for (String key : keys) {
+                int leading = leadingLetter(key, fold);
+                boolean newLetter = byLetter && leading != letter;
+                if (!shard.isEmpty()
+                        && (newLetter || shard.size() == pageSize)) {
+                    submitIndexShard(pipeline, folderName, shardTemplate,
+                            items, written, byLetter, letter, pageSize, part,
+                            shard);
+                    shard.clear();
+                    part++;
+                    if (byLetter) {
+                        if (shardsOfLetter.hasKey(letter)) {
+                            shardsOfLetter.remove(letter);
+                        }
+                        shardsOfLetter.add(letter, part);
+                    }
+                }
+                if (newLetter) {
+                    letter = leading;
+                    part = 0;
+                    if (shardsOfLetter.hasKey(letter)) {
+                        part = shardsOfLetter.value(letter);
+                    }
+                }
+                shard.add(key);
+            }
+            if (!shard.isEmpty()) {
+                submitIndexShard(pipeline, folderName, shardTemplate, items,
+                        written, byLetter, letter, pageSize, part, shard);
+            }
+            failures = pipeline.finish();
+        }
+        PageWriter writer = PageWriter.forThread();
+        appendIndexPage(writer.begin(), options.indexTemplate(), "", "",
+                items, new Queue1L<>());
+        output.write(writer, Paths.get(folderName, "index.html"));
+        deleteStaleIndexShards(folderName, written, output);
+        return failures;
+    }
+
+    /**
+     * Lists one shard of the index in the list items {@code items} of the
+     * top-level index and queues it for writing.
+     *
+     * @param pipeline
+     *            the shards being written
+     * @param folderName
+     *            the output folder
+     * @param template
+     *            the template of the shards
+     * @param items
+     *            the list items of the top-level index
+     * @param written
+     *            the file names of the shards written so far
+     * @param byLetter
+     *            whether shards are cut by leading letter
+     * @param letter
+     *            the leading code point of the keys of the shard
+     * @param pageSize
+     *            the most keys in a shard, or 0 for no limit
+     * @param part
+     *            the number of shards before this one with the same letter,
+     *            or before it at all if shards are not cut by letter; a
+     *            letter with more than one shard numbers them, so no name is
+     *            used twice
+     * @param keys
+     *            the keys of the shard, in index order
+     * @updates items, written
+     */
+    private static void submitIndexShard(PagePipeline pipeline,
+            String folderName, PageTemplate template, StringBuilder items,
+            Set<String> written, boolean byLetter, int letter, int pageSize,
+            int part, List<String> keys) {
+        String first = keys.get(0);
+        String last = keys.get(keys.size() - 1);
+        String name;
+        String label;
+        if (byLetter) {
+            name = letterShardName(letter);
+            label = letter < 0 ? "" : new String(Character.toChars(letter));
+            if (pageSize > 0 || part > 0) {
+                name += "-" + (part + 1);
+                label += ": " + first + " - " + last;
+            }
+        } else {
+            name = Integer.toString(part + 1);
+            label = first + " - " + last;
+        }
+        name += ".html";
+        written.add(name);
+        items.append("<li><a href = \"").append(INDEX_SHARD_FOLDER).append('/')
+                .append(name).append("\">");
+        Html.appendEscaped(items, label);
+        items.append("</a> (").append(keys.size()).append(")</li>")
+                .append(LINE);
+        List<String> shard = new ArrayList<>(keys);
+        String shardLabel = label;
+        String file = INDEX_SHARD_FOLDER + "/" + name;
+        pipeline.submit(file, Paths.get(folderName, file),
+                page -> appendIndexPage(page, template, shardLabel, "../", "",
+                        shard));
+    }
+
+    /**
+     * Deletes the index shards in {@code folderName} that are not in
+     * {@code kept}, and the gzip siblings {@code output} does not keep.
+     *
+     * @param folderName
+     *            the output folder
+     * @param kept
+     *            the file names of the shards to keep
+     * @param output
+     *            where the shards went
+     */
+    private static void deleteStaleIndexShards(String folderName,
+            Set<String> kept, PageOutput output) {
+        Path shards = Paths.get(folderName, INDEX_SHARD_FOLDER);
+        if (!Files.isDirectory(shards)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shards,
+                "*.{html,html.gz}")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!output.keeps(name,
+                        kept.contains(PageOutput.pageName(name)))) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the index of {@code keys} to {@code folderName}, as one page or
+     * sharded, and reports the shards that could not be written.
+     *
+     * @param folderName
+     *            the output folder
+     * @param keys
+     *            the terms, in index order
+     * @param options
+     *            how the index is sharded and written
+     * @param out
+     *            the output stream for reports
+     */
+    private static void writeIndex(String folderName, Iterable<String> keys,
+            PageOptions options, SimpleWriter out) {
+        if (options.isIndexSharded()) {
+            reportFailures(out, writeIndexShards(keys, folderName, options));
+        } else {
+            writeIndexPage(folderName, keys, options.output(),
+                    options.indexTemplate());
+        }
+    }
+
+    /**
+     * Writes the prefix index of {@code keys} to {@code folderName}, both as
+     * the file {@value PrefixIndex#FILE_NAME} and as JSON shards in the
+     * folder {@value PrefixIndex#SHARD_FOLDER}, through the output of
+     * {@code options}.
+     *
+     * @param folderName
+     *            the output folder
+     * @param keys
+     *            the terms, in the index order of {@code options}
+     * @param options
+     *            the order of {@code keys} and where the index goes
+     */
+    private static void writePrefixIndex(String folderName,
+            Iterable<String> keys, PageOptions options) {
+        Iterable<String> ordered = keys;
+        if (options.collation() != null) {
+            /*
+             * the prefix index needs the terms that share a prefix next to
+             * each other, which only String order guarantees
+             */
+            List<String> copy = new ArrayList<>();
+            for (String key : keys) {
+                copy.add(key);
+            }
+            Collections.sort(copy);
+            ordered = copy;
+        }
+        PrefixIndex index = PrefixIndex.of(ordered);
+        index.write(Paths.get(folderName, PrefixIndex.FILE_NAME),
+                options.output());
+        index.writeShards(folderName, PrefixIndex.DEFAULT_DEPTH,
+                PrefixIndex.DEFAULT_SUGGESTIONS, options.output());
+    }
+
+    /**
+     * Reports the terms whose page could not be written.
+     *
+     * @param out
+     *            the output stream
+     * @param failures
+     *            the terms whose page could not be written, each with the
+     *            reason
+     */
+    private static void reportFailures(SimpleWriter out,
+            Map<String, String> failures) {
+        for (Pair<String, String> failure : failures) {
+            out.println("Could not write the page for \"" + failure.key()
+                    + "\": " + failure.value());
+        }
+    }
+
+    /**
+     * Returns where the pages of a build go.
+     *
+     * @param folderName
+     *            the output folder
+     * @param gzip
+     *            whether every page also gets a gzip sibling
+     * @param archive
+     *            the archive to write the pages into instead of the output
+     *            folder, or null
+     * @param stats
+     *            the statistics of the build
+     * @return the output of the pages, to be closed at the end of the build
+     */
+    private static PageOutput openOutput(String folderName, boolean gzip,
+            String archive, BuildStats stats) {
+        if (archive != null) {
+            return PageOutput.archive(Paths.get(archive),
+                    Paths.get(folderName), stats);
+        }
+        if (gzip) {
+            return PageOutput.gzip(stats);
+        }
+        return PageOutput.files(stats);
+    }
+
+    /**
+     * Builds the glossary pages from a compiled glossary.
+     *
+     * @param fileName
+     *            the compiled glossary
+     * @param folderName
+     *            the output folder
+     * @param build
+     *            the options of the build
+     * @param out
+     *            the output stream for reports
+     * @requires build.textOnlyOption() = null
+     */
+    private static void buildFromCompiled(String fileName, String folderName,
+            BuildOptions build, SimpleWriter out) {
+        BuildStats stats = BuildStats.current();
+        BuildStats.Timer parse = stats.time(BuildStats.Stage.PARSE);
+        CompiledGlossary glossary;
+        try {
+            glossary = CompiledGlossary.open(Paths.get(fileName));
+        } finally {
+            parse.close();
+        }
+        /*
+         * the links were found when the glossary was compiled
+         */
+        SeparatorSet separators = build.separators();
+        if (separators != null
+                && !separators.equals(glossary.separators())) {
+            out.println(fileName + " was compiled with the separators \""
+                    + glossary.separators().chars()
+                    + "\"; compile it again with --separators.");
+            return;
+        }
+        stats.setTerms(glossary.size());
+        try (PageOutput output = openOutput(folderName, build.gzip(),
+                build.archive(), stats)) {
+            PageOptions options = build.pages().withOutput(output);
+            BuildStats.Timer pages = stats.time(BuildStats.Stage.PAGES);
+            try {
+                reportFailures(out,
+                        generateTermPages(glossary, folderName, options));
+            } finally {
+                pages.close();
+            }
+            /*
+             * the entries of a compiled glossary are already in String order
+             */
+            Queue<String> keys = glossary.keys();
+            if (options.collation() != null) {
+                BuildStats.Timer sort = stats.time(BuildStats.Stage.SORT);
+                try {
+                    sortQueue(keys, options.collation(), true);
+                } finally {
+                    sort.close();
+                }
+            }
+            BuildStats.Timer index = stats.time(BuildStats.Stage.INDEX);
+            try {
+                writeIndex(folderName, keys, options, out);
+                if (build.autocomplete()) {
+                    writePrefixIndex(folderName, keys, options);
+                }
+            } finally {
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * Builds the glossary pages from a glossary text file, or from the
+     * glossary merged from the files of a folder or glob.
+     *
+     * @param glossary
+     *            opens a new reader of the glossary every time a pass of the
+     *            build needs its records
+     * @param folderName
+     *            the output folder
+     * @param build
+     *            the options of the build; with a positive
+     *            {@code build.sortRun()}, at most that many terms are sorted
+     *            in memory, and sorted runs of them spill to temporary files
+     * @param out
+     *            the output stream for reports
+     */
+    private static void buildFromText(Supplier<TermReader> glossary,
+            String folderName, BuildOptions build, SimpleWriter out) {
+        /*
+         * first pass: only the terms are kept, since every page needs the
+         * whole set of terms to link to
+         */
+        BuildStats stats = BuildStats.current();
+        PageOptions settings = build.pages();
+        SeparatorSet separators = settings.separators();
+        Comparator<String> cs = settings.collation();
+        if (cs == null) {
+            cs = new StringLT();
+        }
+        Queue<String> queue = new Queue1L<>();
+        try (PageOutput output = openOutput(folderName, build.gzip(),
+                build.archive(), stats);
+                ExternalSort spilled = build.sortRun() > 0
+                        ? new ExternalSort(cs, build.sortRun())
+                        : null) {
+            BuildStats.Timer parse = stats.time(BuildStats.Stage.PARSE);
+            try (TermReader terms = glossary.get()) {
+                while (terms.next()) {
+                    if (spilled != null) {
+                        spilled.add(terms.term());
+                    } else {
+                        queue.enqueue(terms.term());
+                    }
+                }
+            } finally {
+                parse.close();
+            }
+            /*
+             * sort this queue in alphabetically order; spilled keys were
+             * sorted into runs as they were read, and the runs are merged
+             * every time the keys are streamed; a term defined more than
+             * once is a single key either way
+             */
+            Iterable<String> keys = distinct(queue);
+            if (spilled != null) {
+                keys = distinct(spilled);
+            } else {
+                BuildStats.Timer sort = stats.time(BuildStats.Stage.SORT);
+                try {
+                    sortQueue(queue, cs, true);
+                } finally {
+                    sort.close();
+                }
+            }
+
+            BuildStats.Timer compile = stats.time(BuildStats.Stage.COMPILE);
+            TermMatcher matcher;
+            try {
+                matcher = new TermMatcher(keys, separators);
+            } finally {
+                compile.close();
+            }
+            stats.setTerms(matcher.size());
+
+            /*
+             * the "referenced by" sections list the same links the matcher
+             * puts in the pages, so they come from the link graph too
+             */
+            LinkGraph graph = null;
+            if (build.linkGraph() || build.backlinks()) {
+                BuildStats.Timer graphing = stats.time(BuildStats.Stage.GRAPH);
+                try (TermReader records = glossary.get()) {
+                    graph = LinkGraph.of(records, matcher);
+                    if (build.linkGraph()) {
+                        graph.writeReport(
+                                Paths.get(folderName, LinkGraph.REPORT_NAME),
+                                output);
+                    }
+                } finally {
+                    graphing.close();
+                }
+            }
+
+            /*
+             * second pass: the descriptions are streamed straight to the pages;
+             * in incremental mode only the pages that changed since the last
+             * build are written, unless the last build wrote them to another
+             * output or with other templates, and an archive is always written
+             * whole
+             */
+            PageOptions options = settings.withOutput(output);
+            if (build.backlinks()) {
+                options = options.withBacklinks(graph);
+            }
+            if (build.linkGraph()) {
+                options = options.withGraph(graph);
+            }
+            BuildManifest previous = new BuildManifest();
+            boolean dropGzip = false;
+            boolean incremental = build.incremental();
+            if (incremental) {
+                BuildManifest last = BuildManifest.read(folderName);
+                if (last.output().equals(output.name())
+                        && last.templates() == options.templatesHash()
+                        && !output.isArchive()) {
+                    previous = last;
+                }
+                String gzipName = PageOutput.gzip().name();
+                dropGzip = last.output().equals(gzipName)
+                        && !output.name().equals(gzipName)
+                        && !output.isArchive();
+            }
+            BuildManifest current = new BuildManifest(keys, options);
+            BuildStats.Timer pages = stats.time(BuildStats.Stage.PAGES);
+            try (TermReader records = glossary.get()) {
+                reportFailures(out,
+                        generateChangedTermPages(records, folderName,
+                                matcher, options, previous, current));
+            } finally {
+                pages.close();
+            }
+
+            boolean keysChanged = !incremental || !previous.sameKeys(current);
+            BuildStats.Timer indexing = stats.time(BuildStats.Stage.INDEX);
+            try {
+                if (keysChanged || !output
+                        .exists(Paths.get(folderName, "index.html"))) {
+                    writeIndex(folderName, keys, options, out);
+                }
+                if (build.autocomplete() && (keysChanged || !output.exists(
+                        Paths.get(folderName, PrefixIndex.FILE_NAME)))) {
+                    writePrefixIndex(folderName, keys, options);
+                }
+            } finally {
+                indexing.close();
+            }
+
+            BuildStats.Timer finish = stats.time(BuildStats.Stage.FINISH);
+            try {
+                if (!output.isArchive()) {
+                    deleteStalePages(folderName, previous, current);
+                }
+                if (dropGzip) {
+                    deleteGzipSiblings(folderName, keys);
+                }
+                /*
+                 * the manifest describes the pages of the output folder,
+                 * which an archive leaves as they were
+                 */
+                if (!output.isArchive()) {
+                    current.write(folderName);
+                }
+                if (build.compileTo() != null) {
+                    try (TermReader records = glossary.get()) {
+                        CompiledGlossary.write(readGlossary(records),
+                                separators, Paths.get(build.compileTo()));
+                    }
+                }
+            } finally {
+                finish.close();
+            }
+        }
+    }
+
+    /**
+     * Merges the glossary text files of the folder or glob {@code input},
+     * reporting the terms defined more than once if {@code rule} says so.
+     *
+     * @param input
+     *            a folder or a glob
+     * @param rule
+     *            what to do with a term defined more than once
+     * @param out
+     *            the output stream for reports
+     * @return the merged glossary, or null if there is nothing to build
+     * @requires GlossaryMerge.isBatch(input)
+     */
+    private static GlossaryMerge mergeSources(String input,
+            GlossaryMerge.Duplicates rule, SimpleWriter out) {
+        BuildStats.Timer merging = BuildStats.current()
+                .time(BuildStats.Stage.MERGE);
+        try {
+            List<Path> files = GlossaryMerge.sources(input);
+            if (files.isEmpty()) {
+                out.println("No glossary text files match " + input + ".");
+                return null;
+            }
+            GlossaryMerge merge = GlossaryMerge.of(files, rule,
+                    Runtime.getRuntime().availableProcessors());
+            Map<String, String> duplicates = merge.duplicates();
+            if (duplicates.size() > 0) {
+                for (Pair<String, String> duplicate : duplicates) {
+                    out.println("Duplicate term " + duplicate.key() + " in "
+                            + duplicate.value());
+                }
+                return null;
+            }
+            return merge;
+        } finally {
+            merging.close();
+        }
+    }
+
+    /**
+     * Serves the glossary pages of a glossary text file over HTTP until a
+     * line is read from {@code in}.
+     *
+     * @param fileName
+     *            the glossary text file
+     * @param port
+     *            the port to listen on, on the loopback interface
+     * @param pages
+     *            the templates and separators of the pages, and the order of
+     *            the index
+     * @param in
+     *            the input stream
+     * @param out
+     *            the output stream for reports
+     */
+    private static void serve(String fileName, int port, PageOptions pages,
+            SimpleReader in, SimpleWriter out) {
+        if (GlossaryMerge.isBatch(fileName)
+                || CompiledGlossary.isCompiled(Paths.get(fileName))) {
+            out.println("--serve needs a glossary text file.");
+            return;
+        }
+        try (GlossaryServer server = new GlossaryServer(Paths.get(fileName),
+                pages,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                Runtime.getRuntime().availableProcessors(),
+                GlossaryServer.DEFAULT_CACHE_BYTES)) {
+            out.println("Serving http://localhost:" + server.port()
+                    + "/index.html; press Enter to stop.");
+            if (!in.atEOS()) {
+                in.nextLine();
+            }
+        }
+    }
+
+    /**
+     * Builds the glossary pages from a glossary text file, then rebuilds them
+     * incrementally every time the file changes, until the process is
+     * stopped. Each rebuild reads the file again but writes only the pages of
+     * the terms whose page changed, and the index only if the terms changed.
+     *
+     * @param fileName
+     *            the glossary text file
+     * @param folderName
+     *            the output folder
+     * @param build
+     *            the options of every build
+     * @param out
+     *            the output stream for reports
+     * @requires build.incremental()
+     */
+    private static void watch(String fileName, String folderName,
+            BuildOptions build, SimpleWriter out) {
+        if (GlossaryMerge.isBatch(fileName)
+                || CompiledGlossary.isCompiled(Paths.get(fileName))) {
+            out.println("--watch needs a glossary text file.");
+            return;
+        }
+        try (GlossaryWatcher watcher = new GlossaryWatcher(
+                Paths.get(fileName), GlossaryWatcher.DEFAULT_DEBOUNCE_MILLIS)) {
+            BuildStats stats = BuildStats.current();
+            boolean changed = true;
+            while (changed) {
+                stats.startBuild();
+                try {
+                    buildFromText(() -> new TermReader(fileName), folderName,
+                            build, out);
+                    stats.endBuild();
+                    if (build.printStats()) {
+                        out.print(stats.summary());
+                    }
+                    out.println("Built " + folderName + " in "
+                            + stats.getBuildMillis() + " ms; watching "
+                            + fileName + " for changes.");
+                } catch (RuntimeException e) {
+                    /*
+                     * the file may be missing or half-written in the middle of
+                     * a save; the next change will bring it back
+                     */
+                    out.println("Could not build " + folderName + ": " + e);
+                }
+                changed = watcher.awaitChange(Long.MAX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Main method. The input file may be a glossary text file, or a glossary
+     * compiled with {@code --compile}, which keeps the separators it was
+     * compiled with and cannot be built with {@code --incremental},
+     * {@code --compile}, {@code --backlinks} or {@code --link-graph}. It may
+     * also be a folder, or a glob such as {@code terms/*.txt}, whose glossary
+     * text files are parsed in parallel and merged in the order of their
+     * paths into the glossary that is built. A term defined more than once
+     * keeps its first description, unless the files of a folder or glob are
+     * merged with another {@code --duplicates} rule.
+     *
+     * <p>
+     * Options, as parsed by {@link BuildOptions#parse}:
+     *
+     * <ul>
+     * <li>{@code --input=<file>} and {@code --output=<folder>} give the file
+     * and folder names instead of prompting for them;</li>
+     * <li>{@code --incremental} writes only the pages that changed since the
+     * last build into the same folder;</li>
+     * <li>{@code --watch} builds the pages and then rebuilds the changed pages
+     * every time the glossary text file changes;</li>
+     * <li>{@code --compile=<file>} also compiles the glossary text file into
+     * {@code <file>};</li>
+     * <li>{@code --serve=<port>} writes no pages, but serves them over HTTP on
+     * {@code <port>} of the loopback interface until Enter is pressed, with
+     * the templates, separators and locale given, and loads the glossary
+     * text file again whenever it changes;</li>
+     * <li>{@code --index-by-letter} and {@code --index-page-size=<n>} split
+     * the index into shards by leading letter, regardless of case and accents
+     * with {@code --locale}, and into shards of at most {@code <n>} terms,
+     * linked from a top-level index;</li>
+     * <li>{@code --locale=<tag>} lists the terms of the index in the order of
+     * the locale with the IETF language tag {@code <tag>}, as in
+     * {@code --locale=fr}, instead of the order of
+     * {@code String.compareTo};</li>
+     * <li>{@code --separators=<chars>} adds {@code <chars>} to the separators
+     * that words end at, as in {@code --separators=.;:()} to link terms
+     * followed by punctuation;</li>
+     * <li>{@code --autocomplete} also writes a prefix index of the terms, as
+     * {@value PrefixIndex#FILE_NAME} and as JSON shards in
+     * {@value PrefixIndex#SHARD_FOLDER}, for search as you type;</li>
+     * <li>{@code --backlinks} ends the page of every term with the terms whose
+     * description links to it, the same links as in their pages, in a
+     * glossary text file;</li>
+     * <li>{@code --link-graph} builds the graph of the links between the terms
+     * of a glossary text file, writes its orphan terms, its undefined terms,
+     * which are linked to but have no description, and its cycles to
+     * {@value LinkGraph#REPORT_NAME}, and ends the page of every term on a
+     * cycle with the other terms of the cycle that link to it;</li>
+     * <li>{@code --sort-memory=<n>} sorts the terms of a glossary text file
+     * holding at most {@code <n>} of them in memory, spilling sorted runs to
+     * temporary files that are merged as the terms are streamed to the index
+     * writers;</li>
+     * <li>{@code --gzip} also writes every page, and every JSON shard of the
+     * prefix index, compressed next to it as {@code <file>.gz}, for servers
+     * that send pre-compressed files;</li>
+     * <li>{@code --archive=<file>} writes them, and the report of
+     * {@code --link-graph}, into the zip archive {@code <file>} instead of the
+     * output folder, with the path of each relative to the output folder as
+     * its entry name;</li>
+     * <li>{@code --template=<file>} and {@code --index-template=<file>} render
+     * the term pages and the pages of the index with the templates in the
+     * UTF-8 files {@code <file>}, in which {@code {{term}}},
+     * {@code {{description}}}, {@code {{referencedBy}}}, {@code {{seeAlso}}},
+     * {@code {{label}}}, {@code {{terms}}} and {@code {{home}}} stand for the
+     * parts of each page, as in {@link PageTemplate};</li>
+     * <li>{@code --duplicates=<rule>} merges the files of a folder or glob
+     * keeping the first description of a term defined more than once with
+     * {@code first}, the default, its last one with {@code last}, or joining
+     * its descriptions with {@code concatenate}, and with {@code error}
+     * reports the duplicate terms and builds nothing;</li>
+     * <li>{@code --stats} prints the timings and counters of the build, which
+     * are also published as the MBean {@value BuildStats#OBJECT_NAME} and as
+     * JFR events.</li>
+     * </ul>
+     *
+     * An unknown option, or an option with a missing or malformed value, is
+     * reported and nothing is built.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+
+        BuildOptions build;
+        try {
+            build = BuildOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            out.println(e.getMessage());
+            in.close();
+            out.close();
+            return;
+        }
+
+        String fileName = build.input();
+        if (fileName == null) {
+            out.print("Please input the file's name: ");
+            fileName = in.nextLine();
+        }
+
+        if (build.port() >= 0) {
+            serve(fileName, build.port(), build.pages(), in, out);
+            in.close();
+            out.close();
+            return;
+        }
+
+        String folderName = build.output();
+        if (folderName == null) {
+            out.print("Please input the name of the folder "
+                    + "where all the output files will be saved: ");
+            folderName = in.nextLine();
+        }
+        try {
+            Files.createDirectories(Paths.get(folderName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (build.watch()) {
+            watch(fileName, folderName, build, out);
+        } else {
+            BuildStats stats = BuildStats.current();
+            stats.startBuild();
+            if (GlossaryMerge.isBatch(fileName)) {
+                GlossaryMerge merge = mergeSources(fileName,
+                        build.duplicates(), out);
+                if (merge == null) {
+                    out.println("Nothing was built.");
+                } else {
+                    buildFromText(merge::records, folderName, build, out);
+                }
+            } else if (CompiledGlossary.isCompiled(Paths.get(fileName))) {
+                String option = build.textOnlyOption();
+                if (option != null) {
+                    out.println(option + " needs a glossary text file.");
+                } else {
+                    buildFromCompiled(fileName, folderName, build, out);
+                }
+            } else {
+                String source = fileName;
+                buildFromText(() -> new TermReader(source), folderName,
+                        build, out);
+            }
+            stats.endBuild();
+            if (build.printStats()) {
+                out.print(stats.summary());
+            }
+        }
+
+        in.close();
+        out.close();
+    }
+}
@@ -0,0 +1,633 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Glossary merged from many glossary text files, the files of a folder or
+ * those a glob matches. The files are parsed in parallel, each thread reading
+ * a run of consecutive files into its own partial glossary, split into
+ * partitions by the hash of the terms; the partitions are then merged in
+ * parallel, each taking the partials in file order. Both phases use as many
+ * threads as asked for, however many files there are, and the merged
+ * glossary does not depend on the number of threads: its terms are read
+ * in the order they were first defined, and a duplicate term is reported
+ * with the first two files that define it.
+ *
+ * <p>
+ * The files are taken in the order of their paths, and a term defined more
+ * than once keeps its first or its last description, gets all of its
+ * descriptions in file order, or is reported, as {@link Duplicates} says.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class GlossaryMerge {
+
+    /**
+     * What a merge does with a term defined more than once.
+     */
+    public enum Duplicates {
+
+        /**
+         * The first description of the term wins, as when a single glossary
+         * text file is built.
+         */
+        FIRST("first"),
+
+        /**
+         * The last description of the term wins.
+         */
+        LAST("last"),
+
+        /**
+         * The term is reported as a duplicate; its first description is
+         * kept.
+         */
+        ERROR("error"),
+
+        /**
+         * The descriptions of the term are joined, separated by a space.
+         */
+        CONCATENATE("concatenate");
+
+        /**
+         * The name of the rule in options.
+         */
+        private final String name;
+
+        /**
+         * Constructor.
+         *
+         * @param name
+         *            the name of the rule in options
+         */
+        Duplicates(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the rule named {@code name}.
+         *
+         * @param name
+         *            the name of the rule in options
+         * @return the rule
+         * @throws IllegalArgumentException
+         *             if there is no such rule
+         */
+        public static Duplicates of(String name) {
+            for (Duplicates rule : values()) {
+                if (rule.name.equals(name)) {
+                    return rule;
+                }
+            }
+            throw new IllegalArgumentException("Unknown duplicates rule "
+                    + name + "; expected first, last, error or concatenate");
+        }
+
+    }
+
+    /**
+     * The characters that make an input a glob.
+     */
+    private static final String GLOB = "*?[{";
+
+    /**
+     * A term of a partial glossary: its description, where it was first
+     * defined and the last file that defined it.
+     */
+    private static final class Entry {
+
+        /**
+         * The description.
+         */
+        private String description;
+
+        /**
+         * Where the term was first defined: the index of the file in the high
+         * half, and the number of the term in that file in the low half.
+         */
+        private final long first;
+
+        /**
+         * The index of the last file that defined the term.
+         */
+        private int file;
+
+        /**
+         * Constructor.
+         *
+         * @param description
+         *            the description
+         * @param file
+         *            the index of the file that defined the term
+         * @param record
+         *            the number of the term in that file
+         */
+        Entry(String description, int file, int record) {
+            this.description = description;
+            this.first = ((long) file << Integer.SIZE) | record;
+            this.file = file;
+        }
+
+    }
+
+    /**
+     * A term reported as a duplicate, with the indexes of two files that
+     * define it.
+     */
+    private static final class Conflict {
+
+        /**
+         * The term.
+         */
+        private final String term;
+
+        /**
+         * The index of the earlier file that defines the term.
+         */
+        private final int first;
+
+        /**
+         * The index of the later file that defines the term.
+         */
+        private final int second;
+
+        /**
+         * Constructor.
+         *
+         * @param term
+         *            the term
+         * @param first
+         *            the index of the earlier file that defines the term
+         * @param second
+         *            the index of the later file that defines the term
+         */
+        Conflict(String term, int first, int second) {
+            this.term = term;
+            this.first = first;
+            this.second = second;
+        }
+
+    }
+
+    /**
+     * The merged files, in order.
+     */
+    private final List<Path> files;
+
+    /**
+     * The partitions of the merged glossary, each in the order the terms
+     * were first defined.
+     */
+    private final List<LinkedHashMap<String, Entry>> partitions;
+
+    /**
+     * The duplicate terms, each with the first two files that define it.
+     */
+    private final Map<String, String> duplicates;
+
+    /**
+     * Constructor.
+     *
+     * @param files
+     *            the merged files, in order
+     * @param partitions
+     *            the partitions of the merged glossary
+     * @param duplicates
+     *            the duplicate terms, each with the first two files that
+     *            define it
+     */
+    private GlossaryMerge(List<Path> files,
+            List<LinkedHashMap<String, Entry>> partitions,
+            Map<String, String> duplicates) {
+        this.files = files;
+        this.partitions = partitions;
+        this.duplicates = duplicates;
+    }
+
+    /**
+     * Returns whether {@code input} names many glossary text files rather
+     * than one: a folder, or a glob that is not the name of a file.
+     *
+     * @param input
+     *            the input named on the command line
+     * @return true if {@code input} is a folder or a glob
+     */
+    public static boolean isBatch(String input) {
+        assert input != null : "Violation of: input is not null";
+
+        if (globStart(input) >= 0) {
+            return !Files.isRegularFile(Paths.get(input));
+        }
+        return Files.isDirectory(Paths.get(input));
+    }
+
+    /**
+     * Returns the position of the first glob character of {@code input}.
+     *
+     * @param input
+     *            the input
+     * @return the position, or -1 if {@code input} is not a glob
+     */
+    private static int globStart(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (GLOB.indexOf(input.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the glossary text files {@code input} names, sorted by path:
+     * the regular files of a folder that are not hidden, or the regular
+     * files a glob, as in {@code terms/*.txt} or {@code terms/**.txt},
+     * matches.
+     *
+     * @param input
+     *            a folder or a glob
+     * @return the files
+     * @requires isBatch(input)
+     */
+    public static List<Path> sources(String input) {
+        assert input != null : "Violation of: input is not null";
+
+        List<Path> files = new ArrayList<>();
+        try {
+            int glob = globStart(input);
+            if (glob < 0) {
+                try (DirectoryStream<Path> folder = Files
+                        .newDirectoryStream(Paths.get(input))) {
+                    for (Path file : folder) {
+                        if (Files.isRegularFile(file)
+                                && !Files.isHidden(file)) {
+                            files.add(file);
+                        }
+                    }
+                }
+            } else {
+                /*
+                 * walk from the folder before the first glob character, so
+                 * the paths walked start like the glob
+                 */
+                int separator = input.lastIndexOf('/', glob);
+                separator = Math.max(separator,
+                        input.lastIndexOf(java.io.File.separatorChar, glob));
+                Path root = Paths.get("");
+                if (separator >= 0) {
+                    root = Paths.get(input.substring(0, separator + 1));
+                }
+                PathMatcher matcher = FileSystems.getDefault()
+                        .getPathMatcher("glob:" + input);
+                try (Stream<Path> walk = Files.walk(root)) {
+                    walk.filter(file -> matcher.matches(file)
+                            && Files.isRegularFile(file))
+                            .forEach(files::add);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Merges the glossary text files {@code files}, in order, using
+     * {@code threads} threads.
+     *
+     * @param files
+     *            the glossary text files
+     * @param rule
+     *            what to do with a term defined more than once
+     * @param threads
+     *            the number of threads
+     * @return the merged glossary
+     * @requires threads > 0
+     */
+    public static GlossaryMerge of(List<Path> files, Duplicates rule,
+            int threads) {
+        assert files != null : "Violation of: files is not null";
+        assert rule != null : "Violation of: rule is not null";
+        assert threads > 0 : "Violation of: threads > 0";
+
+        int readers = Math.max(1, Math.min(threads, files.size()));
+        List<List<LinkedHashMap<String, Entry>>> partials = new ArrayList<>();
+        List<List<Conflict>> conflicts = new ArrayList<>();
+        List<LinkedHashMap<String, Entry>> partitions = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<LinkedHashMap<String, Entry>>>> parsed =
+                    new ArrayList<>();
+            for (int t = 0; t < readers; t++) {
+                int lo = (int) ((long) files.size() * t / readers);
+                int hi = (int) ((long) files.size() * (t + 1) / readers);
+                List<Conflict> found = new ArrayList<>();
+                conflicts.add(found);
+                parsed.add(pool.submit(
+                        () -> parse(files, lo, hi, rule, threads, found)));
+            }
+            for (Future<List<LinkedHashMap<String, Entry>>> partial : parsed) {
+                partials.add(partial.get());
+            }
+            List<Future<LinkedHashMap<String, Entry>>> merged =
+                    new ArrayList<>();
+            for (int p = 0; p < threads; p++) {
+                int partition = p;
+                List<Conflict> found = new ArrayList<>();
+                conflicts.add(found);
+                merged.add(pool.submit(
+                        () -> merge(partials, partition, rule, found)));
+            }
+            for (Future<LinkedHashMap<String, Entry>> partition : merged) {
+                partitions.add(partition.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        /*
+         * which phase finds a conflict depends on how the files were split
+         * between the threads, so the first two files of a term are its
+         * conflict with the earliest files
+         */
+        List<Conflict> all = new ArrayList<>();
+        for (List<Conflict> found : conflicts) {
+            all.addAll(found);
+        }
+        all.sort(Comparator.comparingInt((Conflict c) -> c.first)
+                .thenComparingInt(c -> c.second));
+        Map<String, String> duplicates = new Map1L<>();
+        for (Conflict conflict : all) {
+            if (!duplicates.hasKey(conflict.term)) {
+                duplicates.add(conflict.term, files.get(conflict.first) + ", "
+                        + files.get(conflict.second));
+            }
+        }
+        return new GlossaryMerge(files, partitions, duplicates);
+    }
+
+    /**
+     * Returns the partition of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @param partitions
+     *            the number of partitions
+     * @return the partition, in [0, partitions)
+     */
+    private static int partition(String term, int partitions) {
+        int h = term.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), partitions);
+    }
+
+    /**
+     * Reads {@code files[lo, hi)} into a partial glossary.
+     *
+     * @param files
+     *            the glossary text files
+     * @param lo
+     *            the first file to read
+     * @param hi
+     *            the end of the files to read
+     * @param rule
+     *            what to do with a term defined more than once
+     * @param partitions
+     *            the number of partitions
+     * @param conflicts
+     *            the duplicate terms found
+     * @return the partitions of the partial glossary
+     * @updates conflicts
+     */
+    private static List<LinkedHashMap<String, Entry>> parse(List<Path> files,
+            int lo, int hi, Duplicates rule, int partitions,
+            List<Conflict> conflicts) {
+        List<LinkedHashMap<String, Entry>> partial = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            partial.add(new LinkedHashMap<>());
+        }
+        for (int f = lo; f < hi; f++) {
+            try (TermReader records = new TermReader(
+                    files.get(f).toString())) {
+                int record = 0;
+                while (records.next()) {
+                    String term = records.term();
+                    LinkedHashMap<String, Entry> terms = partial
+                            .get(partition(term, partitions));
+                    Entry entry = terms.get(term);
+                    if (entry == null) {
+                        terms.put(term,
+                                new Entry(records.description(), f, record));
+                    } else {
+                        resolve(term, entry, records.description(), f, rule,
+                                conflicts);
+                    }
+                    record++;
+                }
+            }
+        }
+        return partial;
+    }
+
+    /**
+     * Merges partition {@code partition} of {@code partials}, in order.
+     *
+     * @param partials
+     *            the partial glossaries, in file order
+     * @param partition
+     *            the partition
+     * @param rule
+     *            what to do with a term defined more than once
+     * @param conflicts
+     *            the duplicate terms found
+     * @return the merged partition
+     * @updates conflicts
+     */
+    private static LinkedHashMap<String, Entry> merge(
+            List<List<LinkedHashMap<String, Entry>>> partials, int partition,
+            Duplicates rule, List<Conflict> conflicts) {
+        LinkedHashMap<String, Entry> terms = partials.get(0).get(partition);
+        for (int t = 1; t < partials.size(); t++) {
+            for (java.util.Map.Entry<String, Entry> next : partials.get(t)
+                    .get(partition).entrySet()) {
+                Entry entry = terms.get(next.getKey());
+                if (entry == null) {
+                    terms.put(next.getKey(), next.getValue());
+                } else {
+                    resolve(next.getKey(), entry, next.getValue().description,
+                            next.getValue().file, rule, conflicts);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Applies {@code rule} to {@code term}, defined by {@code entry} and then
+     * again with {@code description} by file {@code file}.
+     *
+     * @param term
+     *            the term
+     * @param entry
+     *            the earlier definition of the term
+     * @param description
+     *            the later description of the term
+     * @param file
+     *            the index of the later file that defines the term
+     * @param rule
+     *            what to do with a term defined more than once
+     * @param conflicts
+     *            the duplicate terms found
+     * @updates entry, conflicts
+     */
+    private static void resolve(String term, Entry entry, String description,
+            int file, Duplicates rule, List<Conflict> conflicts) {
+        if (rule == Duplicates.LAST) {
+            entry.description = description;
+            entry.file = file;
+        } else if (rule == Duplicates.CONCATENATE) {
+            entry.description = entry.description + " " + description;
+            entry.file = file;
+        } else if (rule == Duplicates.ERROR) {
+            conflicts.add(new Conflict(term, entry.file, file));
+        }
+    }
+
+    /**
+     * Returns the number of distinct terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        int size = 0;
+        for (LinkedHashMap<String, Entry> terms : this.partitions) {
+            size += terms.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of merged files.
+     *
+     * @return the number of files
+     */
+    public int fileCount() {
+        return this.files.size();
+    }
+
+    /**
+     * Returns the description of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return the description, or null if {@code term} is not defined
+     */
+    public String description(String term) {
+        assert term != null : "Violation of: term is not null";
+
+        Entry entry = this.partitions
+                .get(partition(term, this.partitions.size())).get(term);
+        if (entry == null) {
+            return null;
+        }
+        return entry.description;
+    }
+
+    /**
+     * Returns the terms defined more than once, each with the first two
+     * files that define it, when duplicates are reported rather than merged.
+     *
+     * @return the duplicate terms
+     */
+    public Map<String, String> duplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * Returns a reader of the merged glossary, a record for each term with
+     * its description, in the order the terms were first defined. The terms
+     * are taken straight from the partitions, so the merged glossary is
+     * built without being written to a glossary text file and parsed again,
+     * and it can be read as many times as a build needs.
+     *
+     * @return the records of the merged glossary
+     */
+    public TermReader records() {
+        /*
+         * each partition is already in the order the terms were first
+         * defined, so the partitions are merged by their next term
+         */
+        List<Iterator<java.util.Map.Entry<String, Entry>>> cursors =
+                new ArrayList<>();
+        List<java.util.Map.Entry<String, Entry>> heads = new ArrayList<>();
+        PriorityQueue<Integer> next = new PriorityQueue<>(
+                Math.max(1, this.partitions.size()), Comparator
+                        .comparingLong(p -> heads.get(p).getValue().first));
+        for (LinkedHashMap<String, Entry> terms : this.partitions) {
+            Iterator<java.util.Map.Entry<String, Entry>> cursor = terms
+                    .entrySet().iterator();
+            cursors.add(cursor);
+            heads.add(null);
+            if (cursor.hasNext()) {
+                heads.set(cursors.size() - 1, cursor.next());
+                next.add(cursors.size() - 1);
+            }
+        }
+        return new TermReader(
+                new Iterator<java.util.Map.Entry<String, String>>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return !next.isEmpty();
+                    }
+
+                    @Override
+                    public java.util.Map.Entry<String, String> next() {
+                        if (next.isEmpty()) {
+                            throw new NoSuchElementException();
+                        }
+                        int p = next.poll();
+                        java.util.Map.Entry<String, Entry> term = heads
+                                .get(p);
+                        if (cursors.get(p).hasNext()) {
+                            heads.set(p, cursors.get(p).next());
+                            next.add(p);
+                        }
+                        return new AbstractMap.SimpleImmutableEntry<>(
+                                term.getKey(), term.getValue().description);
+                    }
+
+                });
+    }
+
+}
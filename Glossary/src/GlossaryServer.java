@@ -0,0 +1,559 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Serves the glossary pages over HTTP instead of writing them all to disk.
+ * The glossary text file is loaded once; {@code /index.html} (or {@code /})
+ * and {@code /<name>.html}, where {@code <name>} is the {@link PageName} of a
+ * term, are rendered on demand with the same markup as the written pages,
+ * and the most recently used term pages are kept in a cache bounded by its
+ * total size in bytes. The pages are rendered with the templates and
+ * separators of the {@link PageOptions} given, and the index lists the terms
+ * in their order. {@code /complete?prefix=<p>&k=<k>} answers the first
+ * {@code k} terms starting with {@code p} from a {@link PrefixIndex}, as JSON
+ * in the format of its shards.
+ *
+ * <p>
+ * The glossary file is watched with a {@link GlossaryWatcher}, and once a
+ * change has settled the glossary is loaded again on a thread of its own,
+ * then served with a new cache, so no request waits for a load. If the new
+ * glossary cannot be loaded for any reason, the last glossary loaded keeps
+ * being served until the next change.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class GlossaryServer implements AutoCloseable {
+
+    /**
+     * Default bound of the page cache, in bytes.
+     */
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+    /**
+     * Body of the "not found" response.
+     */
+    private static final byte[] NOT_FOUND = "Not found"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Most terms answered by {@code /complete}.
+     */
+    private static final int MAX_SUGGESTIONS = 100;
+
+    /**
+     * Body of the "method not allowed" response.
+     */
+    private static final byte[] NOT_ALLOWED = "Method not allowed"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Pages cached, most recently used last, and their total size in bytes.
+     */
+    private static final class PageCache {
+
+        /**
+         * The cached pages, by term, in access order.
+         */
+        private final LinkedHashMap<String, byte[]> pages = new LinkedHashMap<>(
+                16, 0.75f, true);
+
+        /**
+         * Bound of the total size, in bytes.
+         */
+        private final long capacity;
+
+        /**
+         * Total size of the cached pages, in bytes.
+         */
+        private long size;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity
+         *            bound of the total size, in bytes
+         */
+        PageCache(long capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the cached page of {@code term} and marks it most recently
+         * used.
+         *
+         * @param term
+         *            the term
+         * @return the page, or null if it is not cached
+         */
+        synchronized byte[] get(String term) {
+            return this.pages.get(term);
+        }
+
+        /**
+         * Caches the page of {@code term}, evicting the least recently used
+         * pages until the cache fits its bound. A page larger than the whole
+         * bound is not cached.
+         *
+         * @param term
+         *            the term
+         * @param page
+         *            the page
+         */
+        synchronized void put(String term, byte[] page) {
+            if (page.length > this.capacity) {
+                return;
+            }
+            byte[] old = this.pages.put(term, page);
+            if (old != null) {
+                this.size -= old.length;
+            }
+            this.size += page.length;
+            Iterator<byte[]> eldest = this.pages.values().iterator();
+            while (this.size > this.capacity) {
+                this.size -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+
+        /**
+         * Returns the total size of the cached pages.
+         *
+         * @return the size, in bytes
+         */
+        synchronized long size() {
+            return this.size;
+        }
+    }
+
+    /**
+     * One loaded version of the glossary, with its own page cache.
+     */
+    private static final class Snapshot {
+
+        /**
+         * The glossary.
+         */
+        final TermDictionary dictionary;
+
+        /**
+         * The compiled glossary terms.
+         */
+        final TermMatcher matcher;
+
+        /**
+         * The template of term pages.
+         */
+        final PageTemplate termTemplate;
+
+        /**
+         * The index page, rendered when the glossary is loaded.
+         */
+        final byte[] index;
+
+        /**
+         * The term pages rendered so far.
+         */
+        final PageCache cache;
+
+        /**
+         * The prefix index of the terms.
+         */
+        final PrefixIndex prefixes;
+
+        /**
+         * The terms whose page name ends with a hash, by page name.
+         */
+        final HashMap<String, String> hashedNames = new HashMap<>();
+
+        /**
+         * Loads the glossary file {@code source}.
+         *
+         * @param source
+         *            the glossary text file
+         * @param pages
+         *            the templates and separators of the pages, and the
+         *            order of the index
+         * @param cacheBytes
+         *            bound of the page cache, in bytes
+         */
+        Snapshot(Path source, PageOptions pages, long cacheBytes) {
+            try (TermReader records = new TermReader(source.toString())) {
+                this.dictionary = GlossaryFacility.readGlossary(records);
+            }
+            this.matcher = new TermMatcher(this.dictionary,
+                    pages.separators());
+            this.termTemplate = pages.termTemplate();
+            Queue<String> keys = new Queue1L<>();
+            for (String term : this.dictionary) {
+                keys.enqueue(term);
+                String name = PageName.of(term);
+                if (PageName.isHashed(name)) {
+                    this.hashedNames.put(name, term);
+                }
+            }
+            GlossaryFacility.sortQueue(keys, Comparator.naturalOrder(), true);
+            this.prefixes = PrefixIndex.of(keys);
+            Iterable<String> ordered = keys;
+            if (pages.collation() != null) {
+                /*
+                 * the prefix index needs String order, the index page the
+                 * order of the pages
+                 */
+                List<String> copy = new ArrayList<>();
+                for (String key : keys) {
+                    copy.add(key);
+                }
+                Collections.sort(copy, pages.collation());
+                ordered = copy;
+            }
+            PageWriter writer = PageWriter.forThread();
+            GlossaryFacility.appendIndexPage(writer.begin(), ordered,
+                    pages.indexTemplate());
+            this.index = bytes(writer.encode());
+            this.cache = new PageCache(cacheBytes);
+        }
+
+        /**
+         * Returns the page named {@code name}, rendering and caching it if it
+         * is not cached.
+         *
+         * @param name
+         *            the {@link PageName} of the term
+         * @return the page, or null if no term of the glossary has a page
+         *         named {@code name}
+         */
+        byte[] page(String name) {
+            String term = PageName.term(name);
+            if (term == null) {
+                term = this.hashedNames.get(name);
+                if (term == null) {
+                    return null;
+                }
+            }
+            byte[] page = this.cache.get(term);
+            if (page == null) {
+                int id = this.dictionary.id(term);
+                if (id == TermDictionary.NO_ID) {
+                    return null;
+                }
+                PageWriter writer = PageWriter.forThread();
+                GlossaryFacility.appendTermPage(writer.begin(), term,
+                        this.dictionary.description(id), this.matcher,
+                        this.termTemplate);
+                page = bytes(writer.encode());
+                this.cache.put(term, page);
+            }
+            return page;
+        }
+    }
+
+    /**
+     * The glossary text file.
+     */
+    private final Path source;
+
+    /**
+     * The templates and separators of the pages, and the order of the
+     * index.
+     */
+    private final PageOptions pages;
+
+    /**
+     * Bound of the page cache, in bytes.
+     */
+    private final long cacheBytes;
+
+    /**
+     * The watcher of the glossary text file.
+     */
+    private final GlossaryWatcher watcher;
+
+    /**
+     * The thread loading the glossary again when it changes.
+     */
+    private final ExecutorService reloader;
+
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The threads answering requests.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * The glossary being served.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Loads the glossary text file {@code source} and starts serving it on
+     * {@code address}, and loading it again every time it changes.
+     *
+     * @param source
+     *            the glossary text file
+     * @param pages
+     *            the templates and separators of the pages, and the order of
+     *            the index
+     * @param address
+     *            the address to listen on; port 0 picks a free port
+     * @param threads
+     *            the number of requests to answer concurrently
+     * @param cacheBytes
+     *            bound of the page cache, in bytes
+     * @requires threads > 0 and cacheBytes >= 0
+     */
+    public GlossaryServer(Path source, PageOptions pages,
+            InetSocketAddress address, int threads, long cacheBytes) {
+        assert source != null : "Violation of: source is not null";
+        assert pages != null : "Violation of: pages is not null";
+        assert address != null : "Violation of: address is not null";
+        assert threads > 0 : "Violation of: threads > 0";
+        assert cacheBytes >= 0 : "Violation of: cacheBytes >= 0";
+
+        this.source = source;
+        this.pages = pages;
+        this.cacheBytes = cacheBytes;
+        /*
+         * the file is watched before it is loaded, so a change made while it
+         * loads is not missed
+         */
+        this.watcher = new GlossaryWatcher(source,
+                GlossaryWatcher.DEFAULT_DEBOUNCE_MILLIS);
+        try {
+            this.snapshot = new Snapshot(source, pages, cacheBytes);
+            this.server = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            this.watcher.close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            this.watcher.close();
+            throw e;
+        }
+        this.reloader = Executors.newSingleThreadExecutor();
+        this.reloader.execute(this::reload);
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.server.setExecutor(this.workers);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Returns the remaining bytes of {@code buffer} as an array.
+     *
+     * @param buffer
+     *            the buffer
+     * @return the bytes
+     */
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] res = new byte[buffer.remaining()];
+        buffer.get(res);
+        return res;
+    }
+
+    /**
+     * Loads the glossary again every time its file changes, until the
+     * watcher is closed.
+     */
+    private void reload() {
+        while (this.watcher.awaitChange(Long.MAX_VALUE)) {
+            try {
+                this.snapshot = new Snapshot(this.source, this.pages,
+                        this.cacheBytes);
+            } catch (RuntimeException e) {
+                /*
+                 * the file may be missing or half-written in the middle of a
+                 * save; keep serving the last glossary loaded until the next
+                 * change
+                 */
+            }
+        }
+    }
+
+    /**
+     * Answers one request.
+     *
+     * @param exchange
+     *            the request and its response
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                send(exchange, 405, NOT_ALLOWED, false);
+                return;
+            }
+            Snapshot glossary = this.snapshot;
+            String path = exchange.getRequestURI().getPath();
+            final String suffix = ".html";
+            String type = "text/html; charset=utf-8";
+            byte[] page = null;
+            if (path.equals("/") || path.equals("/index" + suffix)) {
+                page = glossary.index;
+            } else if (path.equals("/complete")) {
+                type = "application/json; charset=utf-8";
+                page = complete(glossary.prefixes,
+                        exchange.getRequestURI().getRawQuery());
+            } else if (path.endsWith(suffix)
+                    && path.length() > 1 + suffix.length()) {
+                page = glossary.page(
+                        path.substring(1, path.length() - suffix.length()));
+            }
+            if (page == null) {
+                send(exchange, 404, NOT_FOUND, head);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", type);
+                send(exchange, 200, page, head);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the value of parameter {@code name} in a URL query.
+     *
+     * @param query
+     *            the raw query, or null if there is none
+     * @param name
+     *            the name of the parameter
+     * @return the decoded value, or null if the parameter is not in the query
+     */
+    private static String parameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1),
+                        StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Answers a {@code /complete} request.
+     *
+     * @param prefixes
+     *            the prefix index
+     * @param query
+     *            the raw query, or null if there is none
+     * @return the JSON answer
+     */
+    private static byte[] complete(PrefixIndex prefixes, String query) {
+        String prefix = parameter(query, "prefix");
+        if (prefix == null) {
+            prefix = "";
+        }
+        int k = PrefixIndex.DEFAULT_SUGGESTIONS;
+        String count = parameter(query, "k");
+        if (count != null) {
+            try {
+                k = Math.max(0, Math.min(Integer.parseInt(count),
+                        MAX_SUGGESTIONS));
+            } catch (NumberFormatException e) {
+                k = PrefixIndex.DEFAULT_SUGGESTIONS;
+            }
+        }
+        /*
+         * one more term than asked tells whether there are more
+         */
+        String[] terms = prefixes.complete(prefix, k + 1);
+        boolean all = terms.length <= k;
+        if (!all) {
+            terms = Arrays.copyOf(terms, k);
+        }
+        return PrefixIndex.toJson(prefix, terms, all)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends a response.
+     *
+     * @param exchange
+     *            the request and its response
+     * @param status
+     *            the status code
+     * @param body
+     *            the body
+     * @param head
+     *            whether to send the headers only
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body,
+            boolean head) throws IOException {
+        if (head) {
+            exchange.getResponseHeaders().set("Content-Length",
+                    Integer.toString(body.length));
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the total size of the term pages cached.
+     *
+     * @return the size, in bytes
+     */
+    public long cachedBytes() {
+        return this.snapshot.cache.size();
+    }
+
+    /**
+     * Stops serving, watching the glossary file and the threads answering
+     * requests.
+     */
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.workers.shutdownNow();
+        this.watcher.close();
+        this.reloader.shutdownNow();
+    }
+
+}
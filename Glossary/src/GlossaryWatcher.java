@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for changes to a glossary text file with a {@link WatchService}.
+ * Since a watch service watches folders, the folder of the file is watched
+ * and only events about the file itself count, including it being deleted
+ * and created again, as editors do when they save by renaming a new copy
+ * over the old one. A burst of events, such as the several writes of one
+ * save, is reported as one change once no event has arrived for the
+ * debounce delay.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class GlossaryWatcher implements AutoCloseable {
+
+    /**
+     * Default debounce delay, in milliseconds.
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 150;
+
+    /**
+     * Name of the watched file within its folder.
+     */
+    private final Path fileName;
+
+    /**
+     * Debounce delay, in milliseconds.
+     */
+    private final long debounceMillis;
+
+    /**
+     * The watch service.
+     */
+    private final WatchService service;
+
+    /**
+     * Starts watching {@code source}.
+     *
+     * @param source
+     *            the file to watch
+     * @param debounceMillis
+     *            how long no event must arrive before a change is reported,
+     *            in milliseconds
+     * @requires debounceMillis >= 0
+     */
+    public GlossaryWatcher(Path source, long debounceMillis) {
+        assert source != null : "Violation of: source is not null";
+        assert debounceMillis >= 0 : "Violation of: debounceMillis >= 0";
+
+        Path absolute = source.toAbsolutePath();
+        this.fileName = absolute.getFileName();
+        this.debounceMillis = debounceMillis;
+        try {
+            this.service = FileSystems.getDefault().newWatchService();
+            absolute.getParent().register(this.service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Takes the pending events of {@code key} and re-arms it.
+     *
+     * @param key
+     *            the signalled key
+     * @return whether any of the events is about the watched file, or may
+     *         have hidden one
+     */
+    private boolean drain(WatchKey key) {
+        boolean res = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || this.fileName.equals(event.context())) {
+                res = true;
+            }
+        }
+        key.reset();
+        return res;
+    }
+
+    /**
+     * Waits for the watched file to change and settle.
+     *
+     * @param timeoutMillis
+     *            the longest time to wait for the first event about the
+     *            file, in milliseconds
+     * @return true if the file changed, false if it did not change in
+     *         {@code timeoutMillis} or this watcher was closed
+     */
+    public boolean awaitChange(long timeoutMillis) {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long start = System.nanoTime();
+        try {
+            boolean changed = false;
+            while (!changed) {
+                long left = timeout - (System.nanoTime() - start);
+                if (left <= 0) {
+                    return false;
+                }
+                WatchKey key = this.service.poll(left, TimeUnit.NANOSECONDS);
+                if (key == null) {
+                    return false;
+                }
+                changed = this.drain(key);
+            }
+            /*
+             * debounce: wait until no event about the file has arrived for
+             * the debounce delay; events about other files do not extend it
+             */
+            long debounce = TimeUnit.MILLISECONDS.toNanos(this.debounceMillis);
+            long lastEvent = System.nanoTime();
+            long left = debounce;
+            while (left > 0) {
+                WatchKey key = this.service.poll(left, TimeUnit.NANOSECONDS);
+                if (key == null) {
+                    break;
+                }
+                if (this.drain(key)) {
+                    lastEvent = System.nanoTime();
+                }
+                left = debounce - (System.nanoTime() - lastEvent);
+            }
+            return true;
+        } catch (ClosedWatchServiceException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stops watching.
+     */
+    @Override
+    public void close() {
+        try {
+            this.service.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Escaping of text written into the pages. The characters that are markup in
+ * HTML text or attribute values, {@code & < > " '}, are replaced by their
+ * character references in a single pass over the text; runs of other
+ * characters are appended straight from the text, so clean text is appended
+ * without allocating anything.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class Html {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Html() {
+
+    }
+
+    /**
+     * Bit {@code c} is set for every character {@code c} below 64 that must
+     * be escaped; no character from 64 up needs to be.
+     */
+    private static final long ESCAPED = (1L << '&') | (1L << '<')
+            | (1L << '>') | (1L << '"') | (1L << '\'');
+
+    /**
+     * Returns whether {@code c} must be escaped.
+     *
+     * @param c
+     *            the character
+     * @return true if {@code c} is markup in HTML
+     */
+    private static boolean isEscaped(char c) {
+        return c < Long.SIZE && (ESCAPED & (1L << c)) != 0;
+    }
+
+    /**
+     * Appends {@code text[start, end)} to {@code page}, escaped.
+     *
+     * @param page
+     *            the page being rendered
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the text to append
+     * @param end
+     *            the end of the text to append
+     * @updates page
+     * @requires 0 <= start <= end <= |text|
+     * @ensures page = #page * [text[start, end) with every character of
+     *          "&<>\"'" replaced by its character reference]
+     */
+    public static void appendEscaped(StringBuilder page, CharSequence text,
+            int start, int end) {
+        assert page != null : "Violation of: page is not null";
+        assert text != null : "Violation of: text is not null";
+        assert 0 <= start && start <= end
+                && end <= text.length() : "Violation of: "
+                        + "0 <= start <= end <= |text|";
+
+        int run = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isEscaped(c)) {
+                page.append(text, run, i);
+                if (c == '&') {
+                    page.append("&amp;");
+                } else if (c == '<') {
+                    page.append("&lt;");
+                } else if (c == '>') {
+                    page.append("&gt;");
+                } else if (c == '"') {
+                    page.append("&quot;");
+                } else {
+                    page.append("&#39;");
+                }
+                run = i + 1;
+            }
+        }
+        page.append(text, run, end);
+    }
+
+    /**
+     * Appends {@code text} to {@code page}, escaped.
+     *
+     * @param page
+     *            the page being rendered
+     * @param text
+     *            the text
+     * @updates page
+     * @ensures page = #page * [text with every character of "&<>\"'"
+     *          replaced by its character reference]
+     */
+    public static void appendEscaped(StringBuilder page, CharSequence text) {
+        appendEscaped(page, text, 0, text.length());
+    }
+
+}
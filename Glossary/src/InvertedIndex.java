@@ -0,0 +1,478 @@
+import java.util.Arrays;
+
+/**
+ * Full-text index of the glossary descriptions: for every word, the terms
+ * whose description contains it and where. Descriptions are added one at a
+ * time, in the pass that reads them, and split into words at the separators;
+ * a term is identified by the number of descriptions added before its own.
+ *
+ * <p>
+ * The words are kept in a {@link TermDictionary}, so a word is looked up
+ * without copying it out of its description. The posting list of a word is a
+ * byte array of varints, one pair per occurrence: the distance from the term
+ * of the previous occurrence and the position of the word in the description
+ * if the term changes, or 0 and the distance from the previous position if
+ * not. Positions count words, not characters, so a query of several words
+ * matches descriptions that have them next to each other.
+ *
+ * <p>
+ * Once every description is added an index can be queried from several
+ * threads at once.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class InvertedIndex {
+
+    /**
+     * Initial capacity of the tables.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Bits of a varint byte that hold the value.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Bit of a varint byte set if more bytes follow.
+     */
+    private static final int MORE = 0x80;
+
+    /**
+     * An empty result.
+     */
+    private static final int[] NONE = {};
+
+    /**
+     * The separators between words.
+     */
+    private final SeparatorSet separators;
+
+    /**
+     * The words seen so far, with empty descriptions.
+     */
+    private final TermDictionary words = new TermDictionary();
+
+    /**
+     * Posting list of each word, by word id.
+     */
+    private byte[][] postings = new byte[INITIAL_CAPACITY][];
+
+    /**
+     * Number of bytes used in each posting list.
+     */
+    private int[] postingLength = new int[INITIAL_CAPACITY];
+
+    /**
+     * Term of the last occurrence of each word.
+     */
+    private int[] lastTerm = new int[INITIAL_CAPACITY];
+
+    /**
+     * Position of the last occurrence of each word.
+     */
+    private int[] lastPosition = new int[INITIAL_CAPACITY];
+
+    /**
+     * The terms, by id.
+     */
+    private String[] terms = new String[INITIAL_CAPACITY];
+
+    /**
+     * Number of terms.
+     */
+    private int size;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param separators
+     *            the separators between words
+     */
+    public InvertedIndex(SeparatorSet separators) {
+        assert separators != null : "Violation of: separators is not null";
+
+        this.separators = separators;
+    }
+
+    /**
+     * Appends {@code value} to the posting list of {@code word} as a varint.
+     *
+     * @param word
+     *            the word id
+     * @param value
+     *            the value
+     * @requires value >= 0
+     */
+    private void append(int word, int value) {
+        byte[] posting = this.postings[word];
+        int length = this.postingLength[word];
+        if (length + Integer.BYTES + 1 > posting.length) {
+            posting = Arrays.copyOf(posting, posting.length * 2);
+            this.postings[word] = posting;
+        }
+        int rest = value;
+        while (rest >= MORE) {
+            posting[length] = (byte) (rest | MORE);
+            length++;
+            rest >>>= VARINT_BITS;
+        }
+        posting[length] = (byte) rest;
+        this.postingLength[word] = length + 1;
+    }
+
+    /**
+     * Returns the id of the word {@code text[start, end)}, adding it if it
+     * is new.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the word
+     * @param end
+     *            the end of the word
+     * @return the word id
+     */
+    private int wordId(CharSequence text, int start, int end) {
+        int word = this.words.id(text, start, end);
+        if (word == TermDictionary.NO_ID) {
+            word = this.words.add(text.subSequence(start, end), "");
+            if (word == this.postings.length) {
+                int capacity = word * 2;
+                this.postings = Arrays.copyOf(this.postings, capacity);
+                this.postingLength = Arrays.copyOf(this.postingLength,
+                        capacity);
+                this.lastTerm = Arrays.copyOf(this.lastTerm, capacity);
+                this.lastPosition = Arrays.copyOf(this.lastPosition,
+                        capacity);
+            }
+            this.postings[word] = new byte[INITIAL_CAPACITY];
+            this.lastTerm[word] = -1;
+        }
+        return word;
+    }
+
+    /**
+     * Adds the description of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @return the id of {@code term}, which is the number of descriptions
+     *         added before it
+     */
+    public int add(String term, CharSequence description) {
+        assert term != null : "Violation of: term is not null";
+        assert description != null : "Violation of: description is not null";
+
+        int id = this.size;
+        if (id == this.terms.length) {
+            this.terms = Arrays.copyOf(this.terms, id * 2);
+        }
+        this.terms[id] = term;
+        this.size++;
+
+        int length = description.length();
+        int position = 0;
+        int start = 0;
+        while (start < length) {
+            int end = GlossaryFacility.nextWordOrSeparatorEnd(description,
+                    start, this.separators);
+            if (!this.separators.contains(description.charAt(start))) {
+                int word = this.wordId(description, start, end);
+                if (this.lastTerm[word] != id) {
+                    this.append(word, id - this.lastTerm[word]);
+                    this.append(word, position);
+                } else {
+                    this.append(word, 0);
+                    this.append(word, position - this.lastPosition[word]);
+                }
+                this.lastTerm[word] = id;
+                this.lastPosition[word] = position;
+                position++;
+            }
+            start = end;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the term with the given id.
+     *
+     * @param id
+     *            the term id
+     * @return the term
+     * @requires 0 <= id < size
+     */
+    public String term(int id) {
+        assert 0 <= id && id < this.size : "Violation of: valid id";
+        return this.terms[id];
+    }
+
+    /**
+     * Returns the number of distinct words in the descriptions.
+     *
+     * @return the number of words
+     */
+    public int wordCount() {
+        return this.words.size();
+    }
+
+    /**
+     * Returns every occurrence of {@code word}, as term id and position
+     * packed into a {@code long}, in increasing order.
+     *
+     * @param word
+     *            the word id
+     * @return the occurrences
+     */
+    private long[] occurrences(int word) {
+        byte[] posting = this.postings[word];
+        int length = this.postingLength[word];
+        long[] res = new long[length / 2];
+        int count = 0;
+        int term = -1;
+        int position = 0;
+        int at = 0;
+        int[] value = new int[2];
+        while (at < length) {
+            for (int k = 0; k < 2; k++) {
+                int shift = 0;
+                int v = 0;
+                byte b;
+                do {
+                    b = posting[at];
+                    at++;
+                    v |= (b & (MORE - 1)) << shift;
+                    shift += VARINT_BITS;
+                } while ((b & MORE) != 0);
+                value[k] = v;
+            }
+            if (value[0] > 0) {
+                term += value[0];
+                position = value[1];
+            } else {
+                position += value[1];
+            }
+            res[count] = ((long) term << Integer.SIZE) | position;
+            count++;
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    /**
+     * Returns the terms whose description contains the words of
+     * {@code text}, next to each other and in the same order.
+     *
+     * @param text
+     *            the word or words to look for
+     * @return the ids of the terms, in increasing order; none if {@code text}
+     *         has no words
+     */
+    public int[] mentions(CharSequence text) {
+        assert text != null : "Violation of: text is not null";
+
+        int length = text.length();
+        long[][] occurrences = new long[length][];
+        int count = 0;
+        int start = 0;
+        while (start < length) {
+            int end = GlossaryFacility.nextWordOrSeparatorEnd(text, start,
+                    this.separators);
+            if (!this.separators.contains(text.charAt(start))) {
+                int word = this.words.id(text, start, end);
+                if (word == TermDictionary.NO_ID) {
+                    return NONE;
+                }
+                occurrences[count] = this.occurrences(word);
+                count++;
+            }
+            start = end;
+        }
+        if (count == 0) {
+            return NONE;
+        }
+
+        long[] first = occurrences[0];
+        int[] res = new int[first.length];
+        int found = 0;
+        for (long occurrence : first) {
+            int term = (int) (occurrence >>> Integer.SIZE);
+            if (found > 0 && res[found - 1] == term) {
+                continue;
+            }
+            boolean phrase = true;
+            for (int k = 1; k < count && phrase; k++) {
+                phrase = Arrays.binarySearch(occurrences[k],
+                        occurrence + k) >= 0;
+            }
+            if (phrase) {
+                res[found] = term;
+                found++;
+            }
+        }
+        return Arrays.copyOf(res, found);
+    }
+
+    /**
+     * Returns the terms whose description mentions every one of
+     * {@code texts}, each as {@link #mentions} finds it.
+     *
+     * @param texts
+     *            the words or groups of words to look for
+     * @return the ids of the terms, in increasing order
+     */
+    public int[] mentionsAll(CharSequence... texts) {
+        assert texts != null : "Violation of: texts is not null";
+
+        if (texts.length == 0) {
+            return NONE;
+        }
+        int[] res = this.mentions(texts[0]);
+        for (int i = 1; i < texts.length && res.length > 0; i++) {
+            res = and(res, this.mentions(texts[i]));
+        }
+        return res;
+    }
+
+    /**
+     * Returns the terms whose description mentions any of {@code texts},
+     * each as {@link #mentions} finds it.
+     *
+     * @param texts
+     *            the words or groups of words to look for
+     * @return the ids of the terms, in increasing order
+     */
+    public int[] mentionsAny(CharSequence... texts) {
+        assert texts != null : "Violation of: texts is not null";
+
+        int[] res = NONE;
+        for (CharSequence text : texts) {
+            res = or(res, this.mentions(text));
+        }
+        return res;
+    }
+
+    /**
+     * Returns the ids in both {@code a} and {@code b}.
+     *
+     * @param a
+     *            ids in increasing order
+     * @param b
+     *            ids in increasing order
+     * @return the common ids, in increasing order
+     */
+    private static int[] and(int[] a, int[] b) {
+        int[] res = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                res[count] = a[i];
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    /**
+     * Returns the ids in {@code a} or {@code b}.
+     *
+     * @param a
+     *            ids in increasing order
+     * @param b
+     *            ids in increasing order
+     * @return the ids of either, in increasing order
+     */
+    private static int[] or(int[] a, int[] b) {
+        int[] res = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i];
+                i++;
+            } else {
+                if (i < a.length && a[i] == b[j]) {
+                    i++;
+                }
+                next = b[j];
+                j++;
+            }
+            res[count] = next;
+            count++;
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    /**
+     * Returns the terms with the given ids, without duplicates, in
+     * {@code String} order.
+     *
+     * @param ids
+     *            the term ids
+     * @return the terms
+     */
+    public String[] terms(int[] ids) {
+        assert ids != null : "Violation of: ids is not null";
+
+        String[] res = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            res[i] = this.term(ids[i]);
+        }
+        Arrays.sort(res);
+        int count = 0;
+        for (int i = 0; i < res.length; i++) {
+            if (count == 0 || !res[i].equals(res[count - 1])) {
+                res[count] = res[i];
+                count++;
+            }
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    /**
+     * Returns the other terms whose description mentions {@code term} as a
+     * phrase. Unlike the "referenced by" list of its page, which has the
+     * terms that link to it, a term mentioned only inside a longer term is
+     * listed too.
+     *
+     * @param term
+     *            the term
+     * @return the terms, in {@code String} order
+     */
+    public String[] referencedBy(String term) {
+        assert term != null : "Violation of: term is not null";
+
+        int[] ids = this.mentions(term);
+        int count = 0;
+        for (int id : ids) {
+            if (!this.terms[id].equals(term)) {
+                ids[count] = id;
+                count++;
+            }
+        }
+        return this.terms(Arrays.copyOf(ids, count));
+    }
+
+}
@@ -0,0 +1,584 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Graph of the links between the terms of a glossary: an edge from a term to
+ * every other term its description links to. The graph is built in one pass
+ * over the records and kept in compressed sparse row form, as the edges of
+ * each term in one shared array, in both directions; the terms that no term
+ * links to, the terms that are linked to but have no description, and the
+ * cycles of terms that link to each other (the strongly connected components
+ * of the graph) are all found in time linear in the number of terms and
+ * links.
+ *
+ * <p>
+ * A description links only to terms, so a word that is not a term is never
+ * part of the graph: "undefined" terms are the terms that have a record but
+ * no description, or only a blank one, and that other terms link to.
+ *
+ * <p>
+ * Terms are identified by their id in the matcher the graph was built with.
+ * Once built a graph is immutable and can be shared between threads.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class LinkGraph {
+
+    /**
+     * Name of the report file in the output folder.
+     */
+    public static final String REPORT_NAME = "link-report.txt";
+
+    /**
+     * Initial capacity of the edge list.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * No terms.
+     */
+    private static final String[] NONE = {};
+
+    /**
+     * The terms.
+     */
+    private final TermMatcher matcher;
+
+    /**
+     * Start of the links of each term in {@code targets}, plus the number of
+     * links at the end.
+     */
+    private final int[] targetStart;
+
+    /**
+     * The terms each term links to, in the order of the description.
+     */
+    private final int[] targets;
+
+    /**
+     * Start of the links to each term in {@code sources}, plus the number of
+     * links at the end.
+     */
+    private final int[] sourceStart;
+
+    /**
+     * The terms that link to each term, in increasing order.
+     */
+    private final int[] sources;
+
+    /**
+     * Whether each term has a description that is not blank.
+     */
+    private final boolean[] defined;
+
+    /**
+     * Strongly connected component of each term.
+     */
+    private final int[] component;
+
+    /**
+     * Start of the terms of each component in {@code members}, plus the
+     * number of terms at the end.
+     */
+    private final int[] memberStart;
+
+    /**
+     * The terms of each component, in increasing order.
+     */
+    private final int[] members;
+
+    /**
+     * Builds the graph of the links found by {@code matcher} in the
+     * descriptions of {@code records}.
+     *
+     * @param matcher
+     *            the terms
+     * @param from
+     *            the term of each link
+     * @param to
+     *            the term linked to, parallel to {@code from}
+     * @param linkCount
+     *            the number of links
+     * @param defined
+     *            whether each term has a description that is not blank
+     */
+    private LinkGraph(TermMatcher matcher, int[] from, int[] to,
+            int linkCount, boolean[] defined) {
+        int n = matcher.size();
+        this.matcher = matcher;
+        this.defined = defined;
+        this.targetStart = new int[n + 1];
+        this.targets = new int[linkCount];
+        group(from, to, linkCount, this.targetStart, this.targets);
+        /*
+         * the links are in the order of the records, not of the ids, so the
+         * sources are grouped from the rows of the targets, which are in id
+         * order, for the sources of every term to come out in increasing
+         * order
+         */
+        int[] rows = new int[linkCount];
+        for (int id = 0; id < n; id++) {
+            Arrays.fill(rows, this.targetStart[id], this.targetStart[id + 1],
+                    id);
+        }
+        this.sourceStart = new int[n + 1];
+        this.sources = new int[linkCount];
+        group(this.targets, rows, linkCount, this.sourceStart, this.sources);
+
+        this.component = new int[n];
+        int components = this.findComponents();
+        int[] ids = new int[n];
+        for (int id = 0; id < n; id++) {
+            ids[id] = id;
+        }
+        this.memberStart = new int[components + 1];
+        this.members = new int[n];
+        group(this.component, ids, n, this.memberStart, this.members);
+    }
+
+    /**
+     * Groups the pairs {@code (key[i], value[i])} by key, with a counting
+     * sort: the values of key {@code k} end up in
+     * {@code values[start[k], start[k + 1])}, in their order in
+     * {@code value}.
+     *
+     * @param key
+     *            the keys
+     * @param value
+     *            the values, parallel to {@code key}
+     * @param count
+     *            the number of pairs
+     * @param start
+     *            the start of each key in {@code values}
+     * @param values
+     *            the grouped values
+     * @replaces start, values
+     * @requires 0 <= key[i] < |start| - 1
+     */
+    private static void group(int[] key, int[] value, int count, int[] start,
+            int[] values) {
+        for (int i = 0; i < count; i++) {
+            start[key[i] + 1]++;
+        }
+        for (int k = 1; k < start.length; k++) {
+            start[k] += start[k - 1];
+        }
+        int[] next = Arrays.copyOf(start, start.length - 1);
+        for (int i = 0; i < count; i++) {
+            values[next[key[i]]] = value[i];
+            next[key[i]]++;
+        }
+    }
+
+    /**
+     * Finds the strongly connected components of the graph with Tarjan's
+     * algorithm, using explicit stacks so deep chains of links cannot
+     * overflow the call stack.
+     *
+     * @return the number of components
+     * @ensures component[id] is the component of term id
+     */
+    private int findComponents() {
+        int n = this.component.length;
+        int[] order = new int[n];
+        Arrays.fill(order, -1);
+        int[] low = new int[n];
+        int[] nextLink = new int[n];
+        int[] path = new int[n];
+        int pathSize = 0;
+        int[] open = new int[n];
+        int openSize = 0;
+        boolean[] onPath = new boolean[n];
+        int visited = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] >= 0) {
+                continue;
+            }
+            order[root] = visited;
+            low[root] = visited;
+            visited++;
+            nextLink[root] = this.targetStart[root];
+            path[pathSize] = root;
+            pathSize++;
+            onPath[root] = true;
+            open[openSize] = root;
+            openSize++;
+            while (openSize > 0) {
+                int term = open[openSize - 1];
+                if (nextLink[term] < this.targetStart[term + 1]) {
+                    int target = this.targets[nextLink[term]];
+                    nextLink[term]++;
+                    if (order[target] < 0) {
+                        order[target] = visited;
+                        low[target] = visited;
+                        visited++;
+                        nextLink[target] = this.targetStart[target];
+                        path[pathSize] = target;
+                        pathSize++;
+                        onPath[target] = true;
+                        open[openSize] = target;
+                        openSize++;
+                    } else if (onPath[target]) {
+                        low[term] = Math.min(low[term], order[target]);
+                    }
+                } else {
+                    openSize--;
+                    if (low[term] == order[term]) {
+                        int member;
+                        do {
+                            pathSize--;
+                            member = path[pathSize];
+                            onPath[member] = false;
+                            this.component[member] = components;
+                        } while (member != term);
+                        components++;
+                    }
+                    if (openSize > 0) {
+                        int parent = open[openSize - 1];
+                        low[parent] = Math.min(low[parent], low[term]);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Returns whether {@code text} has only whitespace.
+     *
+     * @param text
+     *            the text
+     * @return true if {@code text} is blank
+     */
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the graph of the links that {@code matcher} finds in the
+     * descriptions of {@code records}. A term links to another term at most
+     * once, and never to itself; a term that appears more than once keeps its
+     * first description, as in {@link GlossaryFacility#readGlossary}.
+     *
+     * @param records
+     *            the glossary records
+     * @param matcher
+     *            the terms of the glossary
+     * @return the graph
+     * @updates records
+     * @ensures records is exhausted
+     */
+    public static LinkGraph of(TermReader records, TermMatcher matcher) {
+        assert records != null : "Violation of: records is not null";
+        assert matcher != null : "Violation of: matcher is not null";
+
+        int n = matcher.size();
+        boolean[] defined = new boolean[n];
+        boolean[] seen = new boolean[n];
+        /*
+         * the term each term was last linked from, so a term links to another
+         * at most once: every term links only from its first record, and a
+         * description that mentions a term twice links to it once
+         */
+        int[] linkedFrom = new int[n];
+        Arrays.fill(linkedFrom, -1);
+        int[] from = new int[INITIAL_CAPACITY];
+        int[] to = new int[INITIAL_CAPACITY];
+        int count = 0;
+        while (records.next()) {
+            int source = matcher.id(records.term());
+            CharSequence description = records.descriptionSequence();
+            if (source >= 0 && !seen[source] && !isBlank(description)) {
+                defined[source] = true;
+                int[] matches = matcher.matches(description);
+                for (int i = 0; i < matches.length; i++) {
+                    int target = matches[i] - 1;
+                    if (target >= 0 && target != source
+                            && linkedFrom[target] != source) {
+                        linkedFrom[target] = source;
+                        if (count == from.length) {
+                            from = Arrays.copyOf(from, count * 2);
+                            to = Arrays.copyOf(to, count * 2);
+                        }
+                        from[count] = source;
+                        to[count] = target;
+                        count++;
+                    }
+                }
+            }
+            if (source >= 0) {
+                seen[source] = true;
+            }
+        }
+        return new LinkGraph(matcher, from, to, count, defined);
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.component.length;
+    }
+
+    /**
+     * Returns the number of links between terms.
+     *
+     * @return the number of links
+     */
+    public int linkCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * Returns the terms with the ids in {@code ids[start, end)}.
+     *
+     * @param ids
+     *            the term ids
+     * @param start
+     *            the first id
+     * @param end
+     *            the end of the ids
+     * @return the terms
+     */
+    private String[] terms(int[] ids, int start, int end) {
+        String[] res = new String[end - start];
+        for (int i = start; i < end; i++) {
+            res[i - start] = this.matcher.term(ids[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the terms the description of {@code term} links to.
+     *
+     * @param term
+     *            the term
+     * @return the terms, in the order of the description; none if
+     *         {@code term} is not a term of the graph
+     */
+    public String[] linksFrom(String term) {
+        assert term != null : "Violation of: term is not null";
+
+        int id = this.matcher.id(term);
+        if (id < 0) {
+            return NONE;
+        }
+        return this.terms(this.targets, this.targetStart[id],
+                this.targetStart[id + 1]);
+    }
+
+    /**
+     * Returns the other terms whose description links to {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return the terms, in the order of their ids; none if {@code term} is
+     *         not a term of the graph
+     */
+    public String[] referencedBy(String term) {
+        assert term != null : "Violation of: term is not null";
+
+        int id = this.matcher.id(term);
+        if (id < 0) {
+            return NONE;
+        }
+        return this.terms(this.sources, this.sourceStart[id],
+                this.sourceStart[id + 1]);
+    }
+
+    /**
+     * Returns the "see also" list of the page of {@code term}: the other
+     * terms that link to {@code term} and are on a cycle of links with it,
+     * that is, in its strongly connected component, but that its description
+     * does not already link to. Terms that only link to {@code term}, without
+     * a way back, are left to its "referenced by" list, so the list is empty
+     * for a term on no cycle. The lists of all the pages together are no
+     * longer than the number of links.
+     *
+     * @param term
+     *            the term
+     * @return the terms, in the order of their ids; none if {@code term} is
+     *         not a term of the graph
+     */
+    public String[] seeAlso(String term) {
+        assert term != null : "Violation of: term is not null";
+
+        int id = this.matcher.id(term);
+        if (id < 0) {
+            return NONE;
+        }
+        int c = this.component[id];
+        if (this.memberStart[c + 1] - this.memberStart[c] == 1) {
+            return NONE;
+        }
+        int[] direct = Arrays.copyOfRange(this.targets, this.targetStart[id],
+                this.targetStart[id + 1]);
+        Arrays.sort(direct);
+        int[] ids = new int[this.sourceStart[id + 1] - this.sourceStart[id]];
+        int count = 0;
+        int d = 0;
+        for (int i = this.sourceStart[id]; i < this.sourceStart[id
+                + 1]; i++) {
+            int source = this.sources[i];
+            while (d < direct.length && direct[d] < source) {
+                d++;
+            }
+            if (this.component[source] == c
+                    && (d == direct.length || direct[d] != source)) {
+                ids[count] = source;
+                count++;
+            }
+        }
+        return this.terms(ids, 0, count);
+    }
+
+    /**
+     * Returns the terms that no other term links to.
+     *
+     * @return the terms, in the order of their ids
+     */
+    public String[] orphans() {
+        int[] ids = new int[this.size()];
+        int count = 0;
+        for (int id = 0; id < ids.length; id++) {
+            if (this.sourceStart[id] == this.sourceStart[id + 1]) {
+                ids[count] = id;
+                count++;
+            }
+        }
+        return this.terms(ids, 0, count);
+    }
+
+    /**
+     * Returns the terms that other terms link to but that have no
+     * description, or only a blank one. Words that are not terms are never
+     * linked to, so they are not among them.
+     *
+     * @return the terms, in the order of their ids
+     */
+    public String[] undefined() {
+        int[] ids = new int[this.size()];
+        int count = 0;
+        for (int id = 0; id < ids.length; id++) {
+            if (!this.defined[id]
+                    && this.sourceStart[id] < this.sourceStart[id + 1]) {
+                ids[count] = id;
+                count++;
+            }
+        }
+        return this.terms(ids, 0, count);
+    }
+
+    /**
+     * Returns the cycles of links: the strongly connected components of more
+     * than one term.
+     *
+     * @return the terms of each cycle, in the order of their ids, and the
+     *         cycles in the order of their first term
+     */
+    public String[][] cycles() {
+        int components = this.memberStart.length - 1;
+        int[] first = new int[components];
+        int count = 0;
+        for (int c = 0; c < components; c++) {
+            if (this.memberStart[c + 1] - this.memberStart[c] > 1) {
+                first[count] = this.members[this.memberStart[c]];
+                count++;
+            }
+        }
+        Arrays.sort(first, 0, count);
+        String[][] res = new String[count][];
+        for (int i = 0; i < count; i++) {
+            int c = this.component[first[i]];
+            res[i] = this.terms(this.members, this.memberStart[c],
+                    this.memberStart[c + 1]);
+        }
+        return res;
+    }
+
+    /**
+     * Writes a list of terms to the report, one per line after a heading
+     * with their number.
+     *
+     * @param out
+     *            the report
+     * @param heading
+     *            the heading
+     * @param terms
+     *            the terms
+     * @throws IOException
+     *             if the report cannot be written
+     */
+    private static void writeSection(BufferedWriter out, String heading,
+            String[] terms) throws IOException {
+        out.write(heading + ": " + terms.length);
+        out.newLine();
+        for (String term : terms) {
+            out.write("  " + term);
+            out.newLine();
+        }
+    }
+
+    /**
+     * Writes the report of the graph to {@code file}: the number of terms and
+     * links, then the orphan terms, the undefined terms, as in
+     * {@link #undefined}, and the cycles.
+     *
+     * @param file
+     *            the report file
+     */
+    public void writeReport(Path file) {
+        this.writeReport(file, PageOutput.files());
+    }
+
+    /**
+     * Same as {@link #writeReport(Path)}, with the report written to
+     * {@code output}, like the pages of a build.
+     *
+     * @param file
+     *            the report file
+     * @param output
+     *            where the report goes
+     */
+    public void writeReport(Path file, PageOutput output) {
+        assert file != null : "Violation of: file is not null";
+        assert output != null : "Violation of: output is not null";
+
+        String[][] cycles = this.cycles();
+        StringWriter report = new StringWriter();
+        try (BufferedWriter out = new BufferedWriter(report)) {
+            out.write("terms: " + this.size());
+            out.newLine();
+            out.write("links: " + this.linkCount());
+            out.newLine();
+            writeSection(out, "orphans", this.orphans());
+            writeSection(out, "undefined", this.undefined());
+            out.write("cycles: " + cycles.length);
+            out.newLine();
+            for (String[] cycle : cycles) {
+                out.write("  " + String.join(", ", cycle));
+                out.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        output.write(ByteBuffer.wrap(
+                report.toString().getBytes(StandardCharsets.UTF_8)), file);
+    }
+
+}
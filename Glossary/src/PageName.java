@@ -0,0 +1,347 @@
+/**
+ * Encoding of terms into the base names of their pages, the same in file
+ * names and in links. A name is made of lowercase ASCII letters, digits,
+ * {@code .}, {@code _}, {@code -} and {@code ~} only, so it needs no escaping
+ * in a URL or an HTML attribute and is a valid file name on every common
+ * file system, case-insensitive ones included:
+ *
+ * <ul>
+ * <li>lowercase ASCII letters and digits, and {@code .} past the first
+ * character, stand for themselves;</li>
+ * <li>an uppercase ASCII letter is {@code _} followed by the letter in
+ * lowercase;</li>
+ * <li>every other character is {@code -} followed by two lowercase hex digits
+ * for each byte of its UTF-8 encoding;</li>
+ * <li>the empty term is {@code -};</li>
+ * <li>a name whose part before its first {@code .} is a device name Windows
+ * reserves, such as {@code con}, {@code nul} or {@code com1}, has the last
+ * character of that part written as {@code -} and two hex digits.</li>
+ * </ul>
+ *
+ * Distinct terms have distinct names, and a name decodes back to its term.
+ * The one exception is a name longer than {@link #MAX_LENGTH}, which is cut
+ * at a character and ends with {@code ~} and a 64-bit hash of the whole
+ * term, so that the file name stays within the limits of file systems; such
+ * names cannot be decoded.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class PageName {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private PageName() {
+
+    }
+
+    /**
+     * Longest name, well within the 255 bytes most file systems allow for a
+     * file name with the {@code .html.gz} suffix.
+     */
+    public static final int MAX_LENGTH = 200;
+
+    /**
+     * Marks the hash at the end of a name that was cut.
+     */
+    private static final char HASHED = '~';
+
+    /**
+     * Length of the hash at the end of a name that was cut, in hex digits.
+     */
+    private static final int HASH_DIGITS = 16;
+
+    /**
+     * Lowercase hex digits.
+     */
+    private static final String HEX = "0123456789abcdef";
+
+    /**
+     * Device names Windows reserves, whatever their extension.
+     */
+    private static final String[] RESERVED = { "con", "prn", "aux", "nul" };
+
+    /**
+     * Device names Windows reserves when followed by a digit, whatever their
+     * extension.
+     */
+    private static final String[] RESERVED_NUMBERED = { "com", "lpt" };
+
+    /**
+     * Appends the name of the page of {@code term} to {@code page}. Terms of
+     * lowercase letters and digits are appended as they are, without
+     * allocating anything.
+     *
+     * @param page
+     *            the page being rendered
+     * @param term
+     *            the term
+     * @updates page
+     * @ensures page = #page * [the name of the page of term]
+     */
+    public static void append(StringBuilder page, CharSequence term) {
+        assert page != null : "Violation of: page is not null";
+        assert term != null : "Violation of: term is not null";
+
+        if (term.length() == 0) {
+            page.append('-');
+            return;
+        }
+        int start = page.length();
+        int cut = start;
+        int i = 0;
+        while (i < term.length()) {
+            char c = term.charAt(i);
+            if (('a' <= c && c <= 'z') || ('0' <= c && c <= '9')
+                    || (c == '.' && i > 0)) {
+                page.append(c);
+                i++;
+            } else if ('A' <= c && c <= 'Z') {
+                page.append('_').append((char) (c - 'A' + 'a'));
+                i++;
+            } else {
+                int codePoint = c;
+                if (Character.isHighSurrogate(c) && i + 1 < term.length()
+                        && Character.isLowSurrogate(term.charAt(i + 1))) {
+                    codePoint = Character.toCodePoint(c, term.charAt(i + 1));
+                }
+                appendUtf8(page, codePoint);
+                i += Character.charCount(codePoint);
+            }
+            if (page.length() - start <= MAX_LENGTH - 1 - HASH_DIGITS) {
+                cut = page.length();
+            }
+        }
+        if (page.length() - start > MAX_LENGTH) {
+            page.setLength(cut);
+            page.append(HASHED);
+            long hash = hash(term);
+            for (int shift = Long.SIZE - 4; shift >= 0; shift -= 4) {
+                page.append(HEX.charAt((int) (hash >>> shift) & 0xf));
+            }
+        }
+        int end = page.indexOf(".", start);
+        if (end < 0) {
+            end = page.length();
+        }
+        if (isReserved(page, start, end)) {
+            char last = page.charAt(end - 1);
+            page.setCharAt(end - 1, '-');
+            page.insert(end, HEX.charAt(last >>> 4)).insert(end + 1,
+                    HEX.charAt(last & 0xf));
+        }
+    }
+
+    /**
+     * Returns whether {@code page[start, end)} is a device name Windows
+     * reserves.
+     *
+     * @param page
+     *            the page being rendered
+     * @param start
+     *            the start of the name
+     * @param end
+     *            the end of the part of the name before its first {@code .}
+     * @return true if the part is reserved
+     */
+    private static boolean isReserved(StringBuilder page, int start,
+            int end) {
+        int length = end - start;
+        String[] names = RESERVED;
+        if (length == RESERVED[0].length() + 1) {
+            char digit = page.charAt(end - 1);
+            if (digit < '0' || '9' < digit) {
+                return false;
+            }
+            names = RESERVED_NUMBERED;
+            length--;
+        }
+        if (length != RESERVED[0].length()) {
+            return false;
+        }
+        CharSequence part = page.subSequence(start, start + length);
+        for (String name : names) {
+            if (name.contentEquals(part)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends {@code codePoint} as {@code -} and two hex digits for each
+     * byte of its UTF-8 encoding. Unpaired surrogates are encoded like any
+     * other code point below 0x10000.
+     *
+     * @param page
+     *            the page being rendered
+     * @param codePoint
+     *            the code point
+     * @updates page
+     */
+    private static void appendUtf8(StringBuilder page, int codePoint) {
+        if (codePoint < 0x80) {
+            appendByte(page, codePoint);
+        } else if (codePoint < 0x800) {
+            appendByte(page, 0xc0 | (codePoint >>> 6));
+            appendByte(page, 0x80 | (codePoint & 0x3f));
+        } else if (codePoint < 0x10000) {
+            appendByte(page, 0xe0 | (codePoint >>> 12));
+            appendByte(page, 0x80 | ((codePoint >>> 6) & 0x3f));
+            appendByte(page, 0x80 | (codePoint & 0x3f));
+        } else {
+            appendByte(page, 0xf0 | (codePoint >>> 18));
+            appendByte(page, 0x80 | ((codePoint >>> 12) & 0x3f));
+            appendByte(page, 0x80 | ((codePoint >>> 6) & 0x3f));
+            appendByte(page, 0x80 | (codePoint & 0x3f));
+        }
+    }
+
+    /**
+     * Appends {@code b} as {@code -} and two hex digits.
+     *
+     * @param page
+     *            the page being rendered
+     * @param b
+     *            the byte
+     * @updates page
+     */
+    private static void appendByte(StringBuilder page, int b) {
+        page.append('-').append(HEX.charAt(b >>> 4))
+                .append(HEX.charAt(b & 0xf));
+    }
+
+    /**
+     * Returns the name of the page of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return the name
+     */
+    public static String of(String term) {
+        StringBuilder name = new StringBuilder(term.length());
+        append(name, term);
+        return name.toString();
+    }
+
+    /**
+     * Returns whether {@code name} was cut and ends with a hash of its term,
+     * so it cannot be decoded.
+     *
+     * @param name
+     *            the name
+     * @return true if {@code name} ends with a hash
+     */
+    public static boolean isHashed(String name) {
+        return name.indexOf(HASHED) >= 0;
+    }
+
+    /**
+     * Returns the term whose page is named {@code name}.
+     *
+     * @param name
+     *            the name
+     * @return the term, or null if {@code name} is not the name of a page or
+     *         ends with a hash
+     */
+    public static String term(String name) {
+        assert name != null : "Violation of: name is not null";
+
+        StringBuilder term = new StringBuilder(name.length());
+        int i = 0;
+        while (i < name.length()) {
+            char c = name.charAt(i);
+            if (c == '_' && i + 1 < name.length()) {
+                term.append((char) (name.charAt(i + 1) - 'a' + 'A'));
+                i += 2;
+            } else if (c == '-') {
+                int end = i;
+                while (end + 2 < name.length() && name.charAt(end) == '-') {
+                    end += 3;
+                }
+                if (end == i) {
+                    i++;
+                } else {
+                    i = decodeUtf8(name, i, end, term);
+                }
+            } else {
+                term.append(c);
+                i++;
+            }
+        }
+        String decoded = term.toString();
+        if (!of(decoded).equals(name)) {
+            return null;
+        }
+        return decoded;
+    }
+
+    /**
+     * Decodes the UTF-8 bytes written as {@code -} and two hex digits each in
+     * {@code name[start, end)} and appends their characters to {@code term}.
+     * Malformed bytes decode to characters whose name differs from
+     * {@code name}, which {@link #term} then rejects.
+     *
+     * @param name
+     *            the name
+     * @param start
+     *            the start of the bytes
+     * @param end
+     *            the end of the bytes
+     * @param term
+     *            the term being decoded
+     * @return {@code end}
+     * @updates term
+     */
+    private static int decodeUtf8(String name, int start, int end,
+            StringBuilder term) {
+        int i = start;
+        while (i < end) {
+            int b = Character.digit(name.charAt(i + 1), 16) << 4
+                    | Character.digit(name.charAt(i + 2), 16);
+            int continuation;
+            int codePoint;
+            if (b < 0x80) {
+                continuation = 0;
+                codePoint = b;
+            } else if (b >= 0xf0) {
+                continuation = 3;
+                codePoint = b & 0x07;
+            } else if (b >= 0xe0) {
+                continuation = 2;
+                codePoint = b & 0x0f;
+            } else {
+                continuation = 1;
+                codePoint = b & 0x1f;
+            }
+            i += 3;
+            for (int k = 0; k < continuation && i < end; k++) {
+                int next = Character.digit(name.charAt(i + 1), 16) << 4
+                        | Character.digit(name.charAt(i + 2), 16);
+                codePoint = (codePoint << 6) | (next & 0x3f);
+                i += 3;
+            }
+            if (Character.isValidCodePoint(codePoint)) {
+                term.appendCodePoint(codePoint);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns the FNV-1a hash of the chars of {@code text}.
+     *
+     * @param text
+     *            the text
+     * @return the hash
+     */
+    private static long hash(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+}
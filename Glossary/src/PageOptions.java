@@ -0,0 +1,398 @@
+/**
+ * Immutable settings of how the pages of a glossary are written: where they
+ * go, the templates they are rendered with, the separators and order of the
+ * terms, the optional "referenced by" and "see also" sections, how the index
+ * is sharded and how many pages are rendered at a time.
+ *
+ * <p>
+ * Settings start from {@link #DEFAULT} and are changed one at a time with
+ * the {@code with} methods, each of which returns new settings, so that the
+ * page writers need one form each instead of one per combination of
+ * settings.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class PageOptions {
+
+    /**
+     * The settings of a plain build: pages written to their files with the
+     * default templates and separators, in the order of
+     * {@code String.compareTo}, without "referenced by" or "see also"
+     * sections, one index page, and one page rendered per processor at a
+     * time.
+     */
+    public static final PageOptions DEFAULT = new PageOptions(
+            PageOutput.files(), PageTemplate.TERM_PAGE,
+            PageTemplate.INDEX_PAGE, SeparatorSet.DEFAULT, null, null, null,
+            false, 0, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Where the pages go.
+     */
+    private final PageOutput output;
+
+    /**
+     * The template of term pages.
+     */
+    private final PageTemplate termTemplate;
+
+    /**
+     * The template of index pages.
+     */
+    private final PageTemplate indexTemplate;
+
+    /**
+     * The separators the descriptions are linked with.
+     */
+    private final SeparatorSet separators;
+
+    /**
+     * The order of the index, or null for the order of
+     * {@code String.compareTo}.
+     */
+    private final CollationOrder collation;
+
+    /**
+     * The graph of the links between terms to list the "referenced by"
+     * sections from, or null.
+     */
+    private final LinkGraph backlinks;
+
+    /**
+     * The graph of the links between terms, or null.
+     */
+    private final LinkGraph graph;
+
+    /**
+     * Whether the index is sharded by leading letter.
+     */
+    private final boolean indexByLetter;
+
+    /**
+     * The most keys in an index shard, or 0 for no limit.
+     */
+    private final int indexPageSize;
+
+    /**
+     * The number of pages to render concurrently.
+     */
+    private final int threads;
+
+    /**
+     * Creates the settings with the given values.
+     *
+     * @param output
+     *            where the pages go
+     * @param termTemplate
+     *            the template of term pages
+     * @param indexTemplate
+     *            the template of index pages
+     * @param separators
+     *            the separators the descriptions are linked with
+     * @param collation
+     *            the order of the index, or null
+     * @param backlinks
+     *            the graph to list the "referenced by" sections from, or null
+     * @param graph
+     *            the graph of the links between terms, or null
+     * @param indexByLetter
+     *            whether the index is sharded by leading letter
+     * @param indexPageSize
+     *            the most keys in an index shard, or 0 for no limit
+     * @param threads
+     *            the number of pages to render concurrently
+     */
+    private PageOptions(PageOutput output, PageTemplate termTemplate,
+            PageTemplate indexTemplate, SeparatorSet separators,
+            CollationOrder collation, LinkGraph backlinks, LinkGraph graph,
+            boolean indexByLetter, int indexPageSize, int threads) {
+        this.output = output;
+        this.termTemplate = termTemplate;
+        this.indexTemplate = indexTemplate;
+        this.separators = separators;
+        this.collation = collation;
+        this.backlinks = backlinks;
+        this.graph = graph;
+        this.indexByLetter = indexByLetter;
+        this.indexPageSize = indexPageSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Returns these settings with the pages written to {@code output}.
+     *
+     * @param output
+     *            where the pages go
+     * @return the settings
+     */
+    public PageOptions withOutput(PageOutput output) {
+        assert output != null : "Violation of: output is not null";
+
+        return new PageOptions(output, this.termTemplate, this.indexTemplate,
+                this.separators, this.collation, this.backlinks, this.graph,
+                this.indexByLetter, this.indexPageSize, this.threads);
+    }
+
+    /**
+     * Returns these settings with the pages rendered with the given
+     * templates. The shards of the index are rendered with
+     * {@link PageTemplate#INDEX_SHARD} if {@code indexTemplate} is
+     * {@link PageTemplate#INDEX_PAGE}, and with {@code indexTemplate}
+     * otherwise.
+     *
+     * @param termTemplate
+     *            the template of term pages
+     * @param indexTemplate
+     *            the template of index pages
+     * @return the settings
+     */
+    public PageOptions withTemplates(PageTemplate termTemplate,
+            PageTemplate indexTemplate) {
+        assert termTemplate != null : "Violation of: termTemplate is not null";
+        assert indexTemplate != null
+                : "Violation of: indexTemplate is not null";
+
+        return new PageOptions(this.output, termTemplate, indexTemplate,
+                this.separators, this.collation, this.backlinks, this.graph,
+                this.indexByLetter, this.indexPageSize, this.threads);
+    }
+
+    /**
+     * Returns these settings with the descriptions linked with
+     * {@code separators}.
+     *
+     * @param separators
+     *            the separators
+     * @return the settings
+     */
+    public PageOptions withSeparators(SeparatorSet separators) {
+        assert separators != null : "Violation of: separators is not null";
+
+        return new PageOptions(this.output, this.termTemplate,
+                this.indexTemplate, separators, this.collation, this.backlinks,
+                this.graph, this.indexByLetter, this.indexPageSize,
+                this.threads);
+    }
+
+    /**
+     * Returns these settings with the index in the order of
+     * {@code collation}.
+     *
+     * @param collation
+     *            the order of the index, or null for the order of
+     *            {@code String.compareTo}
+     * @return the settings
+     */
+    public PageOptions withCollation(CollationOrder collation) {
+        return new PageOptions(this.output, this.termTemplate,
+                this.indexTemplate, this.separators, collation, this.backlinks,
+                this.graph, this.indexByLetter, this.indexPageSize,
+                this.threads);
+    }
+
+    /**
+     * Returns these settings with each term page listing the other terms
+     * whose description links to its term, as found in {@code backlinks}.
+     *
+     * @param backlinks
+     *            the graph of the links between terms, or null for pages
+     *            without a "referenced by" section
+     * @return the settings
+     */
+    public PageOptions withBacklinks(LinkGraph backlinks) {
+        return new PageOptions(this.output, this.termTemplate,
+                this.indexTemplate, this.separators, this.collation,
+                backlinks, this.graph, this.indexByLetter, this.indexPageSize,
+                this.threads);
+    }
+
+    /**
+     * Returns these settings with each term page listing the terms to see
+     * also, as found in {@code graph}.
+     *
+     * @param graph
+     *            the graph of the links between terms, or null for pages
+     *            without a "see also" section
+     * @return the settings
+     */
+    public PageOptions withGraph(LinkGraph graph) {
+        return new PageOptions(this.output, this.termTemplate,
+                this.indexTemplate, this.separators, this.collation,
+                this.backlinks, graph, this.indexByLetter, this.indexPageSize,
+                this.threads);
+    }
+
+    /**
+     * Returns these settings with the index cut into shards by leading
+     * letter, into shards of at most {@code pageSize} keys, or both.
+     *
+     * @param byLetter
+     *            whether to start a shard at every new leading letter
+     * @param pageSize
+     *            the most keys in a shard, or 0 for no limit
+     * @return the settings
+     * @requires pageSize >= 0
+     */
+    public PageOptions withIndexShards(boolean byLetter, int pageSize) {
+        assert pageSize >= 0 : "Violation of: pageSize >= 0";
+
+        return new PageOptions(this.output, this.termTemplate,
+                this.indexTemplate, this.separators, this.collation,
+                this.backlinks, this.graph, byLetter, pageSize, this.threads);
+    }
+
+    /**
+     * Returns these settings with up to {@code threads} pages rendered at a
+     * time.
+     *
+     * @param threads
+     *            the number of pages to render concurrently
+     * @return the settings
+     * @requires threads > 0
+     */
+    public PageOptions withThreads(int threads) {
+        assert threads > 0 : "Violation of: threads > 0";
+
+        return new PageOptions(this.output, this.termTemplate,
+                this.indexTemplate, this.separators, this.collation,
+                this.backlinks, this.graph, this.indexByLetter,
+                this.indexPageSize, threads);
+    }
+
+    /**
+     * Returns where the pages go.
+     *
+     * @return the output
+     */
+    public PageOutput output() {
+        return this.output;
+    }
+
+    /**
+     * Returns the template of term pages.
+     *
+     * @return the template
+     */
+    public PageTemplate termTemplate() {
+        return this.termTemplate;
+    }
+
+    /**
+     * Returns the template of index pages.
+     *
+     * @return the template
+     */
+    public PageTemplate indexTemplate() {
+        return this.indexTemplate;
+    }
+
+    /**
+     * Returns the template of the shards of the index.
+     *
+     * @return {@link PageTemplate#INDEX_SHARD} if the template of index pages
+     *         is {@link PageTemplate#INDEX_PAGE}, and the template of index
+     *         pages otherwise
+     */
+    public PageTemplate shardTemplate() {
+        if (this.indexTemplate == PageTemplate.INDEX_PAGE) {
+            return PageTemplate.INDEX_SHARD;
+        }
+        return this.indexTemplate;
+    }
+
+    /**
+     * Returns the hash of the templates, as recorded in a
+     * {@link BuildManifest}.
+     *
+     * @return the hash of the term and index templates
+     */
+    public long templatesHash() {
+        return PageTemplate.hash(this.termTemplate, this.indexTemplate);
+    }
+
+    /**
+     * Returns the separators the descriptions are linked with.
+     *
+     * @return the separators
+     */
+    public SeparatorSet separators() {
+        return this.separators;
+    }
+
+    /**
+     * Returns the order of the index.
+     *
+     * @return the order, or null for the order of {@code String.compareTo}
+     */
+    public CollationOrder collation() {
+        return this.collation;
+    }
+
+    /**
+     * Returns the name of the order of the index.
+     *
+     * @return the name, or "" for the order of {@code String.compareTo}
+     */
+    public String orderName() {
+        if (this.collation == null) {
+            return "";
+        }
+        return this.collation.toString();
+    }
+
+    /**
+     * Returns the graph the "referenced by" sections are listed from.
+     *
+     * @return the graph, or null for pages without a "referenced by" section
+     */
+    public LinkGraph backlinks() {
+        return this.backlinks;
+    }
+
+    /**
+     * Returns the graph of the links between terms.
+     *
+     * @return the graph, or null for pages without a "see also" section
+     */
+    public LinkGraph graph() {
+        return this.graph;
+    }
+
+    /**
+     * Returns whether the index is sharded by leading letter.
+     *
+     * @return whether a shard starts at every new leading letter
+     */
+    public boolean indexByLetter() {
+        return this.indexByLetter;
+    }
+
+    /**
+     * Returns the most keys in an index shard.
+     *
+     * @return the most keys, or 0 for no limit
+     */
+    public int indexPageSize() {
+        return this.indexPageSize;
+    }
+
+    /**
+     * Returns whether the index is written as shards.
+     *
+     * @return whether the index is sharded by letter or by page size
+     */
+    public boolean isIndexSharded() {
+        return this.indexByLetter || this.indexPageSize > 0;
+    }
+
+    /**
+     * Returns the number of pages to render concurrently.
+     *
+     * @return the number of threads
+     */
+    public int threads() {
+        return this.threads;
+    }
+
+}
@@ -0,0 +1,746 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Where the pages of a build go: to their files, to their files each with a
+ * pre-compressed {@code .gz} sibling for servers that send gzip files as
+ * they are, or into a single zip archive instead of the output folder, which
+ * saves a file per page on disk and on upload.
+ *
+ * <p>
+ * Writing a page takes two steps, so that a {@link PagePipeline} can compress
+ * pages on its renderers and only write them on its writer: {@link #encode}
+ * encodes the page of a {@link PageWriter}, and compresses it if this output
+ * needs it, then {@link #write} writes it. The compressed data of gzip files
+ * and zip entries is the same raw DEFLATE data, made by the reusable
+ * compressor of the page writer. Other files of a build, such as reports,
+ * are written from bytes with {@link #write(ByteBuffer, Path)}.
+ *
+ * <p>
+ * The archive is a zip file whose entries are named after the path of their
+ * page relative to the output folder; its central directory, written by
+ * {@link #close}, indexes the pages. It switches to the zip64 format past
+ * 65,535 pages or 4 GB. Pages can be written to an archive from any thread,
+ * one at a time.
+ *
+ * <p>
+ * Every file written, and every page rendered by a {@link PagePipeline} into
+ * this output, is recorded in the {@link BuildStats} of the output, which are
+ * {@link BuildStats#NONE} unless the output is created for a build.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class PageOutput implements AutoCloseable {
+
+    /**
+     * Suffix of the gzip sibling of a page.
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    /**
+     * Pages written to their files.
+     */
+    private static final PageOutput FILES = new PageOutput("", false,
+            BuildStats.NONE);
+
+    /**
+     * Pages written to their files and their gzip siblings.
+     */
+    private static final PageOutput GZIP = new PageOutput("gzip", true,
+            BuildStats.NONE);
+
+    /**
+     * No bytes, the trailer of pages without one.
+     */
+    private static final ByteBuffer NO_TRAILER = ByteBuffer.allocate(0)
+            .asReadOnlyBuffer();
+
+    /**
+     * Header of every gzip file: deflated data, no name, no time, unknown
+     * system.
+     */
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0,
+            0, 0, 0, 0, (byte) 0xff };
+
+    /**
+     * Largest value of a two-byte zip field.
+     */
+    private static final int MAX_SHORT = 0xffff;
+
+    /**
+     * Largest value of a four-byte zip field.
+     */
+    private static final long MAX_INT = 0xffffffffL;
+
+    /**
+     * Signature of a zip local file header.
+     */
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    /**
+     * Signature of a zip central directory header.
+     */
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    /**
+     * Signature of the zip64 end of central directory record.
+     */
+    private static final int ZIP64_END = 0x06064b50;
+
+    /**
+     * Signature of the zip64 end of central directory locator.
+     */
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+
+    /**
+     * Signature of the end of central directory record.
+     */
+    private static final int END = 0x06054b50;
+
+    /**
+     * Zip version needed for deflated entries.
+     */
+    private static final short VERSION = 20;
+
+    /**
+     * Zip version needed for zip64 records.
+     */
+    private static final short VERSION_ZIP64 = 45;
+
+    /**
+     * Zip flag of entry names encoded as UTF-8.
+     */
+    private static final short UTF8_NAMES = 0x0800;
+
+    /**
+     * Zip method of deflated entries.
+     */
+    private static final short DEFLATED = 8;
+
+    /**
+     * Zip tag of the zip64 extra field.
+     */
+    private static final short ZIP64_EXTRA = 1;
+
+    /**
+     * Length of a zip local file header, without the name.
+     */
+    private static final int LOCAL_HEADER_LENGTH = 30;
+
+    /**
+     * Length of a zip central directory header, without the name and extra
+     * field.
+     */
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+
+    /**
+     * Length of the zip64 extra field with an offset.
+     */
+    private static final int ZIP64_EXTRA_LENGTH = 12;
+
+    /**
+     * Length of the zip64 end of central directory record, the locator and
+     * the end of central directory record.
+     */
+    private static final int END_LENGTH = 56 + 20 + 22;
+
+    /**
+     * Name of this output, as recorded in the manifest of a build.
+     */
+    private final String name;
+
+    /**
+     * Whether every page also gets a gzip sibling.
+     */
+    private final boolean gzip;
+
+    /**
+     * The output folder the entries of the archive are named relative to, or
+     * null if this output writes to files.
+     */
+    private final Path folder;
+
+    /**
+     * The archive, or null if this output writes to files.
+     */
+    private final FileChannel archive;
+
+    /**
+     * The central directory of the archive, written by {@link #close}.
+     */
+    private ByteBuffer directory;
+
+    /**
+     * Where the files written are recorded.
+     */
+    private final BuildStats stats;
+
+    /**
+     * Number of entries in the archive.
+     */
+    private long entries;
+
+    /**
+     * Time of the entries of the archive, in MS-DOS format.
+     */
+    private final short dosTime;
+
+    /**
+     * Date of the entries of the archive, in MS-DOS format.
+     */
+    private final short dosDate;
+
+    /**
+     * Creates an output to files.
+     *
+     * @param name
+     *            the name of the output
+     * @param gzip
+     *            whether every page also gets a gzip sibling
+     * @param stats
+     *            where the files written are recorded
+     */
+    private PageOutput(String name, boolean gzip, BuildStats stats) {
+        this.name = name;
+        this.gzip = gzip;
+        this.stats = stats;
+        this.folder = null;
+        this.archive = null;
+        this.dosTime = 0;
+        this.dosDate = 0;
+    }
+
+    /**
+     * Creates an output to a new archive.
+     *
+     * @param file
+     *            the archive
+     * @param folder
+     *            the output folder the entries are named relative to
+     * @param stats
+     *            where the files written are recorded
+     * @throws IOException
+     *             if the archive cannot be created
+     */
+    private PageOutput(Path file, Path folder, BuildStats stats)
+            throws IOException {
+        this.name = "archive";
+        this.gzip = false;
+        this.stats = stats;
+        this.folder = folder;
+        this.archive = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.directory = ByteBuffer.allocate(1 << 16)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (short) (now.getHour() << 11 | now.getMinute() << 5
+                | now.getSecond() / 2);
+        this.dosDate = (short) ((now.getYear() - 1980) << 9
+                | now.getMonthValue() << 5 | now.getDayOfMonth());
+    }
+
+    /**
+     * Returns the output that writes every page to its file.
+     *
+     * @return the output
+     */
+    public static PageOutput files() {
+        return FILES;
+    }
+
+    /**
+     * Same as {@link #files()}, with the files written recorded in
+     * {@code stats}.
+     *
+     * @param stats
+     *            where the files written are recorded
+     * @return the output
+     */
+    public static PageOutput files(BuildStats stats) {
+        assert stats != null : "Violation of: stats is not null";
+
+        return new PageOutput(FILES.name, false, stats);
+    }
+
+    /**
+     * Returns the output that writes every page to its file and to a gzip
+     * sibling, {@code <file>.gz}.
+     *
+     * @return the output
+     */
+    public static PageOutput gzip() {
+        return GZIP;
+    }
+
+    /**
+     * Same as {@link #gzip()}, with the files written recorded in
+     * {@code stats}.
+     *
+     * @param stats
+     *            where the files written are recorded
+     * @return the output
+     */
+    public static PageOutput gzip(BuildStats stats) {
+        assert stats != null : "Violation of: stats is not null";
+
+        return new PageOutput(GZIP.name, true, stats);
+    }
+
+    /**
+     * Creates the archive {@code file}, replacing any file of that name, and
+     * returns the output that writes every page into it, as an entry named
+     * after the path of the page relative to {@code folder}.
+     *
+     * @param file
+     *            the archive
+     * @param folder
+     *            the output folder
+     * @return the output
+     */
+    public static PageOutput archive(Path file, Path folder) {
+        return archive(file, folder, BuildStats.NONE);
+    }
+
+    /**
+     * Same as {@link #archive(Path, Path)}, with the entries written recorded
+     * in {@code stats}.
+     *
+     * @param file
+     *            the archive
+     * @param folder
+     *            the output folder
+     * @param stats
+     *            where the entries written are recorded
+     * @return the output
+     */
+    public static PageOutput archive(Path file, Path folder,
+            BuildStats stats) {
+        assert file != null : "Violation of: file is not null";
+        assert folder != null : "Violation of: folder is not null";
+        assert stats != null : "Violation of: stats is not null";
+
+        try {
+            return new PageOutput(file, folder, stats);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns where the files written by this output are recorded.
+     *
+     * @return the statistics
+     */
+    public BuildStats stats() {
+        return this.stats;
+    }
+
+    /**
+     * Returns the name of this output, which is "" for the output to files.
+     *
+     * @return the name
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * Returns whether this output writes into an archive instead of the
+     * output folder.
+     *
+     * @return whether this output is an archive
+     */
+    public boolean isArchive() {
+        return this.archive != null;
+    }
+
+    /**
+     * Returns whether the page {@code file} was written by a build with this
+     * output, that is whether it exists with its gzip sibling, if any. Pages
+     * of an archive never exist, since the archive is written anew.
+     *
+     * @param file
+     *            the page
+     * @return whether the page exists
+     */
+    public boolean exists(Path file) {
+        return this.archive == null && Files.exists(file)
+                && (!this.gzip || Files.exists(gzipSibling(file)));
+    }
+
+    /**
+     * Returns whether a file of the output folder should be kept, given
+     * whether its page was written by this build. The gzip sibling of a page
+     * is kept with its page if this output writes gzip siblings. Nothing is
+     * removed from the output folder of an archive.
+     *
+     * @param fileName
+     *            the name of the file, a page or the gzip sibling of one
+     * @param pageKept
+     *            whether the page of the file was written by this build
+     * @return whether to keep the file
+     */
+    public boolean keeps(String fileName, boolean pageKept) {
+        if (this.archive != null) {
+            return true;
+        }
+        if (fileName.endsWith(GZIP_SUFFIX)) {
+            return pageKept && this.gzip;
+        }
+        return pageKept;
+    }
+
+    /**
+     * Returns the name of the page of a file of the output folder: the name
+     * itself for a page, without the suffix for a gzip sibling.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return the name of its page
+     */
+    public static String pageName(String fileName) {
+        if (fileName.endsWith(GZIP_SUFFIX)) {
+            return fileName.substring(0,
+                    fileName.length() - GZIP_SUFFIX.length());
+        }
+        return fileName;
+    }
+
+    /**
+     * Returns the gzip sibling of a page.
+     *
+     * @param file
+     *            the page
+     * @return the gzip sibling
+     */
+    public static Path gzipSibling(Path file) {
+        return file.resolveSibling(file.getFileName() + GZIP_SUFFIX);
+    }
+
+    /**
+     * Deletes a page and its gzip sibling, if they exist.
+     *
+     * @param file
+     *            the page
+     */
+    public static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(gzipSibling(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes the page rendered in {@code page}, and compresses it followed
+     * by {@code trailer} if this output writes compressed pages.
+     *
+     * @param page
+     *            the page writer holding the page
+     * @param trailer
+     *            the bytes to write after the page, from its position to its
+     *            limit; not modified
+     */
+    public void encode(PageWriter page, ByteBuffer trailer) {
+        assert page != null : "Violation of: page is not null";
+        assert trailer != null : "Violation of: trailer is not null";
+
+        page.encode();
+        if (this.gzip || this.archive != null) {
+            page.deflate(trailer);
+        }
+    }
+
+    /**
+     * Writes the page last encoded by {@link #encode}, followed by the bytes
+     * of {@code trailer}, as {@code file}.
+     *
+     * @param page
+     *            the page writer holding the encoded page
+     * @param file
+     *            the page
+     * @param trailer
+     *            the same trailer the page was encoded with
+     */
+    public void write(PageWriter page, Path file, ByteBuffer trailer) {
+        assert page != null : "Violation of: page is not null";
+        assert file != null : "Violation of: file is not null";
+        assert trailer != null : "Violation of: trailer is not null";
+
+        if (this.archive != null) {
+            this.writeEntry(page.deflated(), page.inflatedCrc(),
+                    page.inflatedLength(), file);
+            return;
+        }
+        long start = System.nanoTime();
+        long bytes = page.writeEncodedTo(file, trailer);
+        this.stats.addFile(bytes, System.nanoTime() - start);
+        if (this.gzip) {
+            this.writeGzipSibling(file, page.deflated(), page.inflatedCrc(),
+                    page.inflatedLength());
+        }
+    }
+
+    /**
+     * Writes the bytes of {@code bytes}, from its position to its limit, as
+     * {@code file}: to the file, with its gzip sibling if this output writes
+     * them, or into the archive.
+     *
+     * @param bytes
+     *            the contents of the file; not modified
+     * @param file
+     *            the file
+     */
+    public void write(ByteBuffer bytes, Path file) {
+        assert bytes != null : "Violation of: bytes is not null";
+        assert file != null : "Violation of: file is not null";
+
+        if (this.archive == null) {
+            long start = System.nanoTime();
+            ByteBuffer[] buffers = { bytes.duplicate() };
+            long length = writeFully(file, buffers);
+            this.stats.addFile(length, System.nanoTime() - start);
+            if (!this.gzip) {
+                return;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteBuffer deflated;
+        try {
+            deflater.setInput(bytes.duplicate());
+            deflater.finish();
+            byte[] data = new byte[Math.max(bytes.remaining() / 2, 1 << 6)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                length += deflater.deflate(data, length, data.length - length);
+            }
+            deflated = ByteBuffer.wrap(data, 0, length);
+        } finally {
+            deflater.end();
+        }
+        int inflatedCrc = (int) crc.getValue();
+        if (this.archive != null) {
+            this.writeEntry(deflated, inflatedCrc, bytes.remaining(), file);
+        } else {
+            this.writeGzipSibling(file, deflated, inflatedCrc,
+                    bytes.remaining());
+        }
+    }
+
+    /**
+     * Writes the gzip sibling of {@code file}.
+     *
+     * @param file
+     *            the page
+     * @param deflated
+     *            the raw DEFLATE data of the page
+     * @param inflatedCrc
+     *            the CRC-32 of the page
+     * @param inflatedLength
+     *            the length of the page
+     */
+    private void writeGzipSibling(Path file, ByteBuffer deflated,
+            int inflatedCrc, long inflatedLength) {
+        long start = System.nanoTime();
+        ByteBuffer footer = ByteBuffer.allocate(2 * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        footer.putInt(inflatedCrc).putInt((int) inflatedLength).flip();
+        ByteBuffer[] buffers = { ByteBuffer.wrap(GZIP_HEADER), deflated,
+                footer };
+        long bytes = writeFully(gzipSibling(file), buffers);
+        this.stats.addFile(bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Encodes the page rendered in {@code page} and writes it as
+     * {@code file}.
+     *
+     * @param page
+     *            the page writer holding the page
+     * @param file
+     *            the page
+     */
+    public void write(PageWriter page, Path file) {
+        this.encode(page, NO_TRAILER);
+        this.write(page, file, NO_TRAILER);
+    }
+
+    /**
+     * Writes {@code buffers} to {@code file}, replacing its contents.
+     *
+     * @param file
+     *            the file
+     * @param buffers
+     *            the bytes to write, from the position to the limit of each
+     * @return the number of bytes written
+     */
+    private static long writeFully(Path file, ByteBuffer[] buffers) {
+        long bytes = 0;
+        for (ByteBuffer buffer : buffers) {
+            bytes += buffer.remaining();
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = 0;
+            while (written < bytes) {
+                written += channel.write(buffers);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    /**
+     * Makes room for {@code length} more bytes in the central directory.
+     *
+     * @param length
+     *            the number of bytes
+     */
+    private void reserve(int length) {
+        if (this.directory.remaining() < length) {
+            ByteBuffer larger = ByteBuffer
+                    .allocate(Math.max(this.directory.capacity() * 2,
+                            this.directory.position() + length))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.directory.flip();
+            larger.put(this.directory);
+            this.directory = larger;
+        }
+    }
+
+    /**
+     * Appends a compressed page to the archive, as the entry of {@code file},
+     * and lists it in the central directory.
+     *
+     * @param data
+     *            the raw DEFLATE data of the page
+     * @param crc
+     *            the CRC-32 of the page
+     * @param inflatedLength
+     *            the length of the page
+     * @param file
+     *            the page
+     */
+    private synchronized void writeEntry(ByteBuffer data, int crc,
+            long inflatedLength, Path file) {
+        long start = System.nanoTime();
+        byte[] entryName = this.folder.relativize(file).toString()
+                .replace(File.separatorChar, '/')
+                .getBytes(StandardCharsets.UTF_8);
+        int size = (int) inflatedLength;
+        int compressed = data.remaining();
+
+        ByteBuffer header = ByteBuffer
+                .allocate(LOCAL_HEADER_LENGTH + entryName.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LOCAL_HEADER).putShort(VERSION).putShort(UTF8_NAMES)
+                .putShort(DEFLATED).putShort(this.dosTime)
+                .putShort(this.dosDate).putInt(crc).putInt(compressed)
+                .putInt(size).putShort((short) entryName.length)
+                .putShort((short) 0).put(entryName).flip();
+        ByteBuffer[] buffers = { header, data };
+        long bytes = header.remaining() + data.remaining();
+        long offset;
+        try {
+            /*
+             * the entry starts where the archive ends, even if an entry
+             * before it could only be written in part
+             */
+            offset = this.archive.position();
+            long written = 0;
+            while (written < bytes) {
+                written += this.archive.write(buffers);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        boolean farOffset = offset >= MAX_INT;
+        this.reserve(CENTRAL_HEADER_LENGTH + entryName.length
+                + ZIP64_EXTRA_LENGTH);
+        this.directory.putInt(CENTRAL_HEADER).putShort(VERSION_ZIP64)
+                .putShort(farOffset ? VERSION_ZIP64 : VERSION)
+                .putShort(UTF8_NAMES).putShort(DEFLATED)
+                .putShort(this.dosTime).putShort(this.dosDate).putInt(crc)
+                .putInt(compressed).putInt(size)
+                .putShort((short) entryName.length)
+                .putShort((short) (farOffset ? ZIP64_EXTRA_LENGTH : 0))
+                .putShort((short) 0).putShort((short) 0).putShort((short) 0)
+                .putInt(0).putInt((int) Math.min(offset, MAX_INT))
+                .put(entryName);
+        if (farOffset) {
+            this.directory.putShort(ZIP64_EXTRA)
+                    .putShort((short) Long.BYTES).putLong(offset);
+        }
+        this.entries++;
+        this.stats.addFile(bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Writes the central directory of the archive and closes it; does
+     * nothing for an output to files.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.archive == null || !this.archive.isOpen()) {
+            return;
+        }
+        long directoryStart;
+        try {
+            directoryStart = this.archive.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long directoryLength = this.directory.position();
+        boolean zip64 = this.entries >= MAX_SHORT
+                || directoryStart >= MAX_INT || directoryLength >= MAX_INT;
+        this.reserve(END_LENGTH);
+        if (zip64) {
+            long recordStart = directoryStart + directoryLength;
+            this.directory.putInt(ZIP64_END).putLong(44)
+                    .putShort(VERSION_ZIP64).putShort(VERSION_ZIP64)
+                    .putInt(0).putInt(0).putLong(this.entries)
+                    .putLong(this.entries).putLong(directoryLength)
+                    .putLong(directoryStart);
+            this.directory.putInt(ZIP64_LOCATOR).putInt(0)
+                    .putLong(recordStart).putInt(1);
+        }
+        short count = (short) Math.min(this.entries, MAX_SHORT);
+        this.directory.putInt(END).putShort((short) 0).putShort((short) 0)
+                .putShort(count).putShort(count)
+                .putInt((int) Math.min(directoryLength, MAX_INT))
+                .putInt((int) Math.min(directoryStart, MAX_INT))
+                .putShort((short) 0);
+        this.directory.flip();
+        try (FileChannel channel = this.archive) {
+            while (this.directory.hasRemaining()) {
+                channel.write(this.directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,401 @@
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Writes pages in three overlapping stages joined by bounded queues: the
+ * thread that reads the input and {@link #submit}s pages, a pool of
+ * renderers that render and encode each page, and a single writer that
+ * writes the encoded pages to their {@link PageOutput}. While the writer
+ * waits on the disk the renderers and the reader keep going, and the other
+ * way around.
+ *
+ * <p>
+ * Pages are rendered into a fixed pool of {@link PageWriter}s, handed from a
+ * renderer to the writer with the page and back to the pool once the page is
+ * written. When the writer falls behind the renderers wait for a free page
+ * writer, and when the renderers fall behind {@link #submit} waits for room
+ * in their queue, so the number of pages in memory is bounded however large
+ * the input is. A page that cannot be rendered or written is recorded as a
+ * failure and does not stop the others. Closing the pipeline closes its page
+ * writers.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class PagePipeline implements AutoCloseable {
+
+    /**
+     * Number of pages that may wait to be rendered, and of page writers, per
+     * renderer.
+     */
+    public static final int PAGES_PER_RENDERER = 4;
+
+    /**
+     * A page going through the pipeline.
+     */
+    private static final class Page {
+
+        /**
+         * The name the page is reported under if it fails.
+         */
+        private final String name;
+
+        /**
+         * The file of the page.
+         */
+        private final Path file;
+
+        /**
+         * Renders the page.
+         */
+        private final Consumer<StringBuilder> render;
+
+        /**
+         * The bytes to write after the page.
+         */
+        private final ByteBuffer trailer;
+
+        /**
+         * The page writer holding the encoded page, once rendered.
+         */
+        private PageWriter writer;
+
+        /**
+         * Constructor.
+         *
+         * @param name
+         *            the name the page is reported under
+         * @param file
+         *            the file of the page
+         * @param render
+         *            renders the page
+         * @param trailer
+         *            the bytes to write after the page
+         */
+        Page(String name, Path file, Consumer<StringBuilder> render,
+                ByteBuffer trailer) {
+            this.name = name;
+            this.file = file;
+            this.render = render;
+            this.trailer = trailer;
+        }
+
+    }
+
+    /**
+     * Marks the end of the pages in a queue.
+     */
+    private static final Page END = new Page(null, null, null, null);
+
+    /**
+     * No bytes, the trailer of pages without one.
+     */
+    private static final ByteBuffer NO_TRAILER = ByteBuffer.allocate(0)
+            .asReadOnlyBuffer();
+
+    /**
+     * The pages waiting to be rendered.
+     */
+    private final BlockingQueue<Page> unrendered;
+
+    /**
+     * The page writers not holding a page.
+     */
+    private final BlockingQueue<PageWriter> free;
+
+    /**
+     * All the page writers.
+     */
+    private final List<PageWriter> pageWriters = new ArrayList<>();
+
+    /**
+     * The rendered pages waiting to be written.
+     */
+    private final BlockingQueue<Page> unwritten;
+
+    /**
+     * The threads of the renderers and of the writer.
+     */
+    private final ExecutorService threads;
+
+    /**
+     * The renderers.
+     */
+    private final List<Future<?>> renderers = new ArrayList<>();
+
+    /**
+     * The writer.
+     */
+    private final Future<?> writer;
+
+    /**
+     * Pages that could not be written, each with the reason; guarded by
+     * itself.
+     */
+    private final Map<String, String> failures = new Map1L<>();
+
+    /**
+     * Where the pages go.
+     */
+    private final PageOutput output;
+
+    /**
+     * Starts the renderers and the writer, writing the pages to their files.
+     *
+     * @param renderers
+     *            the number of pages to render concurrently
+     * @requires renderers > 0
+     */
+    public PagePipeline(int renderers) {
+        this(renderers, PageOutput.files());
+    }
+
+    /**
+     * Starts the renderers and the writer. The renderers also compress the
+     * pages if {@code output} needs them compressed.
+     *
+     * @param renderers
+     *            the number of pages to render concurrently
+     * @param output
+     *            where the pages go
+     * @requires renderers > 0
+     */
+    public PagePipeline(int renderers, PageOutput output) {
+        assert renderers > 0 : "Violation of: renderers > 0";
+        assert output != null : "Violation of: output is not null";
+
+        this.output = output;
+
+        int depth = renderers * PAGES_PER_RENDERER;
+        this.unrendered = new ArrayBlockingQueue<>(depth);
+        this.free = new ArrayBlockingQueue<>(depth);
+        this.unwritten = new ArrayBlockingQueue<>(depth + 1);
+        for (int i = 0; i < depth; i++) {
+            this.pageWriters.add(new PageWriter());
+        }
+        this.free.addAll(this.pageWriters);
+        this.threads = Executors.newFixedThreadPool(renderers + 1);
+        for (int i = 0; i < renderers; i++) {
+            this.renderers.add(this.threads.submit(() -> {
+                this.render();
+                return null;
+            }));
+        }
+        this.writer = this.threads.submit(() -> {
+            this.write();
+            return null;
+        });
+    }
+
+    /**
+     * Queues a page for rendering, first waiting for room if the renderers
+     * are behind.
+     *
+     * @param name
+     *            the name the page is reported under if it fails
+     * @param file
+     *            the file of the page
+     * @param render
+     *            renders the page into the empty buffer it is given; called
+     *            on a renderer thread
+     */
+    public void submit(String name, Path file, Consumer<StringBuilder> render) {
+        this.submit(name, file, render, NO_TRAILER);
+    }
+
+    /**
+     * Queues a page for rendering, first waiting for room if the renderers
+     * are behind. The page is written followed by the bytes of
+     * {@code trailer}, which is not modified and may be shared between pages.
+     *
+     * @param name
+     *            the name the page is reported under if it fails
+     * @param file
+     *            the file of the page
+     * @param render
+     *            renders the page into the empty buffer it is given; called
+     *            on a renderer thread
+     * @param trailer
+     *            the bytes to write after the page, from its position to its
+     *            limit
+     */
+    public void submit(String name, Path file, Consumer<StringBuilder> render,
+            ByteBuffer trailer) {
+        assert name != null : "Violation of: name is not null";
+        assert file != null : "Violation of: file is not null";
+        assert render != null : "Violation of: render is not null";
+        assert trailer != null : "Violation of: trailer is not null";
+
+        try {
+            this.unrendered.put(new Page(name, file, render, trailer));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.fail(name, e);
+        }
+    }
+
+    /**
+     * Returns where the pages of this pipeline are recorded: the statistics
+     * of its output.
+     *
+     * @return the statistics
+     */
+    public BuildStats stats() {
+        return this.output.stats();
+    }
+
+    /**
+     * Records the failure of a page, keeping the first reason of each name.
+     *
+     * @param name
+     *            the name of the page
+     * @param reason
+     *            why it failed
+     */
+    private void fail(String name, Throwable reason) {
+        synchronized (this.failures) {
+            if (!this.failures.hasKey(name)) {
+                this.failures.add(name, String.valueOf(reason));
+            }
+        }
+    }
+
+    /**
+     * Renders and encodes the queued pages until the end of the pages, and
+     * hands them to the writer.
+     *
+     * @throws InterruptedException
+     *             if the pipeline is closed while waiting
+     */
+    private void render() throws InterruptedException {
+        Page page = this.unrendered.take();
+        while (page != END) {
+            PageWriter pageWriter = this.free.take();
+            long start = System.nanoTime();
+            try {
+                page.render.accept(pageWriter.begin());
+                this.output.encode(pageWriter, page.trailer);
+                page.writer = pageWriter;
+            } catch (RuntimeException | Error e) {
+                this.fail(page.name, e);
+                this.free.put(pageWriter);
+            }
+            this.output.stats().addRenderNanos(System.nanoTime() - start);
+            if (page.writer != null) {
+                this.unwritten.put(page);
+            }
+            page = this.unrendered.take();
+        }
+    }
+
+    /**
+     * Writes the rendered pages until the end of the pages, taking all the
+     * pages ready at once so a writer that falls behind catches up in
+     * batches.
+     *
+     * @throws InterruptedException
+     *             if the pipeline is closed while waiting
+     */
+    private void write() throws InterruptedException {
+        List<Page> batch = new ArrayList<>();
+        boolean ended = false;
+        while (!ended) {
+            batch.add(this.unwritten.take());
+            this.unwritten.drainTo(batch);
+            for (Page page : batch) {
+                if (page == END) {
+                    ended = true;
+                } else {
+                    try {
+                        this.output.write(page.writer, page.file,
+                                page.trailer);
+                    } catch (RuntimeException | Error e) {
+                        this.fail(page.name, e);
+                    }
+                    this.free.put(page.writer);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits for a stage to end, recording why if it did not end normally.
+     *
+     * @param stage
+     *            the stage
+     */
+    private void await(Future<?> stage) {
+        try {
+            stage.get();
+        } catch (ExecutionException e) {
+            this.fail("", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.fail("", e);
+        }
+    }
+
+    /**
+     * Waits for every queued page to be written. No page may be submitted
+     * afterwards.
+     *
+     * @return the pages that could not be written, by name, each with the
+     *         reason
+     */
+    public Map<String, String> finish() {
+        try {
+            for (int i = 0; i < this.renderers.size(); i++) {
+                this.unrendered.put(END);
+            }
+            for (Future<?> renderer : this.renderers) {
+                this.await(renderer);
+            }
+            this.unwritten.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.fail("", e);
+        }
+        this.await(this.writer);
+        return this.failures;
+    }
+
+    /**
+     * Stops the renderers and the writer, abandoning the pages not written
+     * yet, and closes the page writers once they have stopped.
+     */
+    @Override
+    public void close() {
+        this.threads.shutdownNow();
+        try {
+            this.threads.awaitTermination(Long.MAX_VALUE,
+                    TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            /*
+             * a page writer may still be in use; its compressor is freed
+             * when it is collected
+             */
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (PageWriter pageWriter : this.pageWriters) {
+            pageWriter.close();
+        }
+        this.free.clear();
+        this.unwritten.clear();
+    }
+
+}
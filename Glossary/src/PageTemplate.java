@@ -0,0 +1,355 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable, precompiled template of a page. The text of the template is
+ * parsed once into the static segments between its slots, written
+ * {@code {{name}}}, so rendering a page only appends each segment in turn
+ * and fills each slot; the segment after the last slot, the same for every
+ * page, is also encoded once as the tail written after each page.
+ *
+ * <p>
+ * A term page may have the slots {@code {{term}}}, {@code {{description}}},
+ * {@code {{referencedBy}}}, {@code {{seeAlso}}} and {@code {{home}}}; a page
+ * of the index the slots {@code {{label}}}, {@code {{terms}}} and
+ * {@code {{home}}}. Templates can be shared between threads.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class PageTemplate {
+
+    /**
+     * A slot of a template, filled when a page is rendered.
+     */
+    public enum Slot {
+
+        /**
+         * The term of a term page.
+         */
+        TERM("term", true),
+
+        /**
+         * The description of the term, with its links, as a blockquote.
+         */
+        DESCRIPTION("description", true),
+
+        /**
+         * The paragraph of the terms that mention the term, if any.
+         */
+        REFERENCED_BY("referencedBy", true),
+
+        /**
+         * The paragraph of the terms to see also, if any.
+         */
+        SEE_ALSO("seeAlso", true),
+
+        /**
+         * The label of a shard of the index, empty on the index itself.
+         */
+        LABEL("label", false),
+
+        /**
+         * The list items of the terms, or of the shards, of the index.
+         */
+        TERMS("terms", false),
+
+        /**
+         * The link to the index, relative to the page.
+         */
+        HOME("home", null);
+
+        /**
+         * The name of the slot in a template.
+         */
+        private final String name;
+
+        /**
+         * Whether the slot is of term pages, of index pages, or null for
+         * both.
+         */
+        private final Boolean termPage;
+
+        /**
+         * Constructor.
+         *
+         * @param name
+         *            the name of the slot in a template
+         * @param termPage
+         *            whether the slot is of term pages, of index pages, or
+         *            null for both
+         */
+        Slot(String name, Boolean termPage) {
+            this.name = name;
+            this.termPage = termPage;
+        }
+
+    }
+
+    /**
+     * Line separator of the pages, the one {@code SimpleWriter.println} uses.
+     */
+    private static final String LINE = System.lineSeparator();
+
+    /**
+     * Start of a slot.
+     */
+    private static final String OPEN = "{{";
+
+    /**
+     * End of a slot.
+     */
+    private static final String CLOSE = "}}";
+
+    /**
+     * The term page the glossary has always written.
+     */
+    public static final PageTemplate TERM_PAGE = termPage(
+            "<html> <head> <title>{{term}}</title><body>" + LINE
+                    + "<h2><b><i><font color =\"red\">{{term}}</font></i></b>"
+                    + "</h2>" + LINE
+                    + "{{description}}{{referencedBy}}{{seeAlso}}<hr>" + LINE
+                    + "<p>Return to <a href = \" index.html \">index</a>.</p>"
+                    + LINE + "</body></html>" + LINE);
+
+    /**
+     * The index page the glossary has always written, also the top-level
+     * index of a sharded index.
+     */
+    public static final PageTemplate INDEX_PAGE = indexPage(
+            "<html><head><title>  Glossary </title>" + LINE + "</head><body>"
+                    + LINE + "<h1> Glossary Page</h1>" + LINE + "<hr>" + LINE
+                    + "<h2>Index</h2>" + LINE + "<ul>" + LINE
+                    + "{{terms}}    </ul>" + LINE + "</body>" + LINE
+                    + "</html>" + LINE);
+
+    /**
+     * The shard of a sharded index the glossary has always written.
+     */
+    public static final PageTemplate INDEX_SHARD = indexPage(
+            "<html><head><title>  Glossary: {{label}} </title>" + LINE
+                    + "</head><body>" + LINE + "<h1> Glossary Page</h1>"
+                    + LINE + "<hr>" + LINE + "<h2>Index: {{label}}</h2>"
+                    + LINE + "<ul>" + LINE + "{{terms}}    </ul>" + LINE
+                    + "<p>Return to <a href = \"{{home}}\">index</a>.</p>"
+                    + LINE + "</body>" + LINE + "</html>" + LINE);
+
+    /**
+     * The static segments of the template; segment {@code i} comes before
+     * slot {@code i}, and the last one after the last slot.
+     */
+    private final String[] segments;
+
+    /**
+     * The slots of the template, in order.
+     */
+    private final Slot[] slots;
+
+    /**
+     * The last segment, encoded as UTF-8.
+     */
+    private final ByteBuffer tail;
+
+    /**
+     * FNV-1a hash of the text of the template.
+     */
+    private final long hash;
+
+    /**
+     * Compiles {@code text}.
+     *
+     * @param text
+     *            the text of the template
+     * @param termPage
+     *            whether the template is of a term page or of an index page
+     * @throws IllegalArgumentException
+     *             if a slot of {@code text} is not closed, or is not a slot
+     *             of the kind of page
+     */
+    private PageTemplate(String text, boolean termPage) {
+        List<String> segments = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int position = 0;
+        int open = text.indexOf(OPEN);
+        while (open >= 0) {
+            int close = text.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException(
+                        "Slot not closed at " + open + " of the template");
+            }
+            segments.add(text.substring(position, open));
+            slots.add(slot(text.substring(open + OPEN.length(), close).trim(),
+                    termPage));
+            position = close + CLOSE.length();
+            open = text.indexOf(OPEN, position);
+        }
+        segments.add(text.substring(position));
+        this.segments = segments.toArray(new String[0]);
+        this.slots = slots.toArray(new Slot[0]);
+        this.tail = ByteBuffer
+                .wrap(this.segments[this.slots.length]
+                        .getBytes(StandardCharsets.UTF_8))
+                .asReadOnlyBuffer();
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h = (h ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Returns the slot named {@code name}.
+     *
+     * @param name
+     *            the name of the slot
+     * @param termPage
+     *            whether the template is of a term page or of an index page
+     * @return the slot
+     * @throws IllegalArgumentException
+     *             if there is no such slot on the kind of page
+     */
+    private static Slot slot(String name, boolean termPage) {
+        for (Slot slot : Slot.values()) {
+            if (slot.name.equals(name) && (slot.termPage == null
+                    || slot.termPage.booleanValue() == termPage)) {
+                return slot;
+            }
+        }
+        throw new IllegalArgumentException("Unknown slot {{" + name + "}} in "
+                + (termPage ? "a term page" : "an index page") + " template");
+    }
+
+    /**
+     * Compiles the template of a term page.
+     *
+     * @param text
+     *            the text of the template
+     * @return the template
+     * @throws IllegalArgumentException
+     *             if a slot of {@code text} is not closed, or is not a slot
+     *             of a term page
+     */
+    public static PageTemplate termPage(String text) {
+        assert text != null : "Violation of: text is not null";
+        return new PageTemplate(text, true);
+    }
+
+    /**
+     * Compiles the template of a page of the index.
+     *
+     * @param text
+     *            the text of the template
+     * @return the template
+     * @throws IllegalArgumentException
+     *             if a slot of {@code text} is not closed, or is not a slot
+     *             of an index page
+     */
+    public static PageTemplate indexPage(String text) {
+        assert text != null : "Violation of: text is not null";
+        return new PageTemplate(text, false);
+    }
+
+    /**
+     * Reads and compiles the template in the UTF-8 file {@code file}.
+     *
+     * @param file
+     *            the template file
+     * @param termPage
+     *            whether the template is of a term page or of an index page
+     * @return the template
+     * @throws IllegalArgumentException
+     *             if a slot of the template is not closed, or is not a slot
+     *             of the kind of page
+     */
+    public static PageTemplate read(Path file, boolean termPage) {
+        assert file != null : "Violation of: file is not null";
+        try {
+            return new PageTemplate(
+                    new String(Files.readAllBytes(file),
+                            StandardCharsets.UTF_8),
+                    termPage);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the page, up to its tail, to {@code page}: every segment but
+     * the last, each followed by its slot, filled by {@code fill}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param fill
+     *            appends the content of a slot to the page
+     * @updates page
+     */
+    public void renderHead(StringBuilder page,
+            BiConsumer<StringBuilder, Slot> fill) {
+        for (int i = 0; i < this.slots.length; i++) {
+            page.append(this.segments[i]);
+            fill.accept(page, this.slots[i]);
+        }
+    }
+
+    /**
+     * Appends the whole page to {@code page}, filling every slot with
+     * {@code fill}.
+     *
+     * @param page
+     *            the page being rendered
+     * @param fill
+     *            appends the content of a slot to the page
+     * @updates page
+     */
+    public void render(StringBuilder page,
+            BiConsumer<StringBuilder, Slot> fill) {
+        this.renderHead(page, fill);
+        page.append(this.segments[this.slots.length]);
+    }
+
+    /**
+     * Returns the tail of every page, the segment after the last slot, as
+     * UTF-8 bytes to write after what {@link #renderHead} appends. The buffer
+     * is read-only and shared between pages, so it is read through a
+     * duplicate.
+     *
+     * @return the tail
+     */
+    public ByteBuffer tail() {
+        return this.tail;
+    }
+
+    /**
+     * Returns a hash of the text of this template, which tells the pages of
+     * two templates apart.
+     *
+     * @return the hash
+     */
+    public long hash() {
+        return this.hash;
+    }
+
+    /**
+     * Returns a hash of the texts of {@code templates}, in order, which tells
+     * the pages of two sets of templates apart.
+     *
+     * @param templates
+     *            the templates
+     * @return the hash
+     */
+    public static long hash(PageTemplate... templates) {
+        long h = 0;
+        for (PageTemplate template : templates) {
+            h = Long.rotateLeft(h, 31) ^ template.hash;
+        }
+        return h;
+    }
+
+}
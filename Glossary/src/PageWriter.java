@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Reusable buffer that a whole page is rendered into and then written to its
+ * file as UTF-8 with a single {@link FileChannel} write, instead of one
+ * {@code print} per fragment.
+ *
+ * <p>
+ * A page writer is not thread-safe; each thread gets its own from
+ * {@link #forThread}, and keeps reusing the same text buffer, encoder and
+ * direct byte buffer for every page it writes. A page writer that compressed
+ * pages holds a native compressor until it is closed.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class PageWriter implements AutoCloseable {
+
+    /**
+     * Initial capacity of the buffers.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 13;
+
+    /**
+     * Page writer of each thread.
+     */
+    private static final ThreadLocal<PageWriter> WRITERS = ThreadLocal
+            .withInitial(PageWriter::new);
+
+    /**
+     * The page being rendered.
+     */
+    private final StringBuilder page = new StringBuilder(INITIAL_CAPACITY);
+
+    /**
+     * The UTF-8 encoder.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * The encoded page.
+     */
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+
+    /**
+     * The compressor of the pages, or null before the first page is
+     * compressed.
+     */
+    private Deflater deflater;
+
+    /**
+     * The CRC-32 of the compressed pages.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The compressed page.
+     */
+    private byte[] deflated = new byte[0];
+
+    /**
+     * Number of bytes of the compressed page in {@code deflated}.
+     */
+    private int deflatedLength;
+
+    /**
+     * Number of bytes of the page that was compressed.
+     */
+    private long inflatedLength;
+
+    /**
+     * Creates a page writer; use {@link #forThread} to share them.
+     */
+    public PageWriter() {
+    }
+
+    /**
+     * Returns the page writer of the current thread.
+     *
+     * @return the page writer
+     */
+    public static PageWriter forThread() {
+        return WRITERS.get();
+    }
+
+    /**
+     * Starts a new page and returns the buffer to render it into.
+     *
+     * @return the empty page buffer
+     */
+    public StringBuilder begin() {
+        this.page.setLength(0);
+        return this.page;
+    }
+
+    /**
+     * Encodes the page and writes it to {@code file}, replacing its contents.
+     *
+     * @param file
+     *            the file
+     */
+    public void writeTo(Path file) {
+        this.writeTo(file, ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Encodes the page and writes it to {@code file}, followed by the bytes
+     * of {@code trailer}, replacing its contents. Both are written with one
+     * gathering write, so a trailer shared by many pages is encoded only
+     * once; {@code trailer} itself is not modified and may be shared between
+     * threads.
+     *
+     * @param file
+     *            the file
+     * @param trailer
+     *            the bytes to write after the page, from its position to its
+     *            limit
+     */
+    public void writeTo(Path file, ByteBuffer trailer) {
+        assert file != null : "Violation of: file is not null";
+        assert trailer != null : "Violation of: trailer is not null";
+
+        this.encode();
+        this.writeEncodedTo(file, trailer);
+    }
+
+    /**
+     * Writes the page last encoded by {@link #encode} to {@code file},
+     * followed by the bytes of {@code trailer}, replacing its contents. The
+     * page can be encoded on one thread and written on another, as long as
+     * the page writer is handed over safely in between.
+     *
+     * @param file
+     *            the file
+     * @param trailer
+     *            the bytes to write after the page, from its position to its
+     *            limit
+     * @return the number of bytes written
+     */
+    public long writeEncodedTo(Path file, ByteBuffer trailer) {
+        assert file != null : "Violation of: file is not null";
+        assert trailer != null : "Violation of: trailer is not null";
+
+        ByteBuffer[] buffers = { this.bytes.duplicate(), trailer.duplicate() };
+        long bytes = buffers[0].remaining() + buffers[1].remaining();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes the page as UTF-8.
+     *
+     * @return the encoded page, ready to be read; valid until the next call
+     */
+    public ByteBuffer encode() {
+        long needed = (long) this.page.length()
+                * (long) this.encoder.maxBytesPerChar();
+        if (needed > this.bytes.capacity()) {
+            int capacity = (int) Math.min(
+                    Math.max(needed, this.bytes.capacity() * 2L),
+                    Integer.MAX_VALUE - 8);
+            this.bytes = ByteBuffer.allocateDirect(capacity);
+        }
+        this.bytes.clear();
+        this.encoder.reset();
+        CoderResult result = this.encoder.encode(CharBuffer.wrap(this.page),
+                this.bytes, true);
+        if (!result.isUnderflow()) {
+            throw new IllegalStateException(result.toString());
+        }
+        this.encoder.flush(this.bytes);
+        this.bytes.flip();
+        return this.bytes;
+    }
+
+    /**
+     * Compresses the page last encoded by {@link #encode}, followed by the
+     * bytes of {@code trailer}, into raw DEFLATE data, the data of both gzip
+     * files and zip entries. The page writer keeps one compressor and reuses
+     * it for every page.
+     *
+     * @param trailer
+     *            the bytes to compress after the page, from its position to
+     *            its limit; not modified
+     */
+    public void deflate(ByteBuffer trailer) {
+        assert trailer != null : "Violation of: trailer is not null";
+
+        if (this.deflater == null) {
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            this.deflated = new byte[INITIAL_CAPACITY];
+        }
+        ByteBuffer page = this.bytes.duplicate();
+        ByteBuffer tail = trailer.duplicate();
+        this.inflatedLength = page.remaining() + tail.remaining();
+        this.crc.reset();
+        this.crc.update(page.duplicate());
+        this.crc.update(tail.duplicate());
+        this.deflater.reset();
+        this.deflatedLength = 0;
+        this.deflater.setInput(page);
+        while (!this.deflater.needsInput()) {
+            this.deflateMore();
+        }
+        this.deflater.setInput(tail);
+        this.deflater.finish();
+        while (!this.deflater.finished()) {
+            this.deflateMore();
+        }
+    }
+
+    /**
+     * Compresses more of the input, first growing {@code deflated} if it is
+     * full.
+     */
+    private void deflateMore() {
+        if (this.deflatedLength == this.deflated.length) {
+            this.deflated = Arrays.copyOf(this.deflated,
+                    this.deflated.length * 2);
+        }
+        this.deflatedLength += this.deflater.deflate(this.deflated,
+                this.deflatedLength,
+                this.deflated.length - this.deflatedLength);
+    }
+
+    /**
+     * Returns the page last compressed by {@link #deflate}.
+     *
+     * @return the raw DEFLATE data, ready to be read; valid until the next
+     *         call to {@code deflate}
+     */
+    public ByteBuffer deflated() {
+        return ByteBuffer.wrap(this.deflated, 0, this.deflatedLength)
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the CRC-32 of the page last compressed by {@link #deflate},
+     * before compression.
+     *
+     * @return the CRC-32
+     */
+    public int inflatedCrc() {
+        return (int) this.crc.getValue();
+    }
+
+    /**
+     * Returns the length of the page last compressed by {@link #deflate},
+     * before compression.
+     *
+     * @return the number of bytes
+     */
+    public long inflatedLength() {
+        return this.inflatedLength;
+    }
+
+    /**
+     * Frees the compressor of this page writer. The page writer can still be
+     * used, and gets a new compressor if it compresses another page.
+     */
+    @Override
+    public void close() {
+        if (this.deflater != null) {
+            this.deflater.end();
+            this.deflater = null;
+        }
+    }
+
+}
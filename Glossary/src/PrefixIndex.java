@@ -0,0 +1,603 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Prefix index over the glossary terms, for search as you type. The terms
+ * are kept in {@code String} order, front-coded in blocks of
+ * {@value #BLOCK} terms: the first term of a block is stored whole, and each
+ * following term as the length of the prefix it shares with the term before
+ * it and the rest of its characters. Looking up a prefix is a binary search
+ * over the first terms of the blocks followed by a scan of the blocks holding
+ * the terms found, and allocates little beyond those terms.
+ *
+ * <p>
+ * An index can be written to a file next to the pages and read back, and can
+ * also be written as static JSON shards, one per prefix, for autocomplete in
+ * a browser without a server. A prefix index can be read from several
+ * threads at once.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class PrefixIndex {
+
+    /**
+     * Name of the index file in the output folder.
+     */
+    public static final String FILE_NAME = "prefix-index.bin";
+
+    /**
+     * Name of the folder, in the output folder, of the JSON shards.
+     */
+    public static final String SHARD_FOLDER = "complete";
+
+    /**
+     * Default length of the longest prefixes with a JSON shard.
+     */
+    public static final int DEFAULT_DEPTH = 2;
+
+    /**
+     * Default number of terms in the JSON shard of a shorter prefix.
+     */
+    public static final int DEFAULT_SUGGESTIONS = 10;
+
+    /**
+     * First int of every index file ("GLPX").
+     */
+    private static final int MAGIC = 0x474C5058;
+
+    /**
+     * Version of the format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of ints in the header: magic, version, term count, block count,
+     * data length.
+     */
+    private static final int HEADER_INTS = 5;
+
+    /**
+     * Number of terms per block.
+     */
+    private static final int BLOCK = 16;
+
+    /**
+     * Number of terms.
+     */
+    private final int size;
+
+    /**
+     * Offset in {@code data} of each block.
+     */
+    private final int[] blocks;
+
+    /**
+     * The front-coded terms: for each term, the length of the prefix shared
+     * with the term before it in the block, the length of the rest, and the
+     * rest.
+     */
+    private final char[] data;
+
+    /**
+     * Length of the longest term.
+     */
+    private final int longest;
+
+    /**
+     * Constructor.
+     *
+     * @param size
+     *            the number of terms
+     * @param blocks
+     *            the offset of each block
+     * @param data
+     *            the front-coded terms
+     */
+    private PrefixIndex(int size, int[] blocks, char[] data) {
+        this.size = size;
+        this.blocks = blocks;
+        this.data = data;
+        int max = 0;
+        int at = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, data[at] + data[at + 1]);
+            at += 2 + data[at + 1];
+        }
+        this.longest = max;
+    }
+
+    /**
+     * Builds the index of the given terms.
+     *
+     * @param keys
+     *            the terms, in {@code String} order
+     * @return the index
+     * @requires <pre>
+     * keys is in non-decreasing String order  and
+     * for all key in keys (|key| < 65536)
+     * </pre>
+     */
+    public static PrefixIndex of(Iterable<String> keys) {
+        assert keys != null : "Violation of: keys is not null";
+
+        StringBuilder data = new StringBuilder();
+        int[] blocks = new int[BLOCK];
+        int count = 0;
+        String previous = "";
+        for (String key : keys) {
+            assert key.length() <= Character.MAX_VALUE : "Violation of: "
+                    + "|key| < 65536";
+            assert previous.compareTo(key) <= 0 : "Violation of: "
+                    + "keys is in String order";
+            if (count > 0 && key.equals(previous)) {
+                continue;
+            }
+            int shared = 0;
+            if (count % BLOCK == 0) {
+                if (count / BLOCK == blocks.length) {
+                    blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                }
+                blocks[count / BLOCK] = data.length();
+            } else {
+                int limit = Math.min(previous.length(), key.length());
+                while (shared < limit
+                        && previous.charAt(shared) == key.charAt(shared)) {
+                    shared++;
+                }
+            }
+            data.append((char) shared).append((char) (key.length() - shared))
+                    .append(key, shared, key.length());
+            previous = key;
+            count++;
+        }
+        char[] chars = new char[data.length()];
+        data.getChars(0, chars.length, chars, 0);
+        return new PrefixIndex(count,
+                Arrays.copyOf(blocks, (count + BLOCK - 1) / BLOCK), chars);
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Compares the first term of {@code block} with {@code prefix}, as
+     * {@link String#compareTo} would.
+     *
+     * @param block
+     *            the block
+     * @param prefix
+     *            the prefix
+     * @return a negative number, zero, or a positive number as the term is
+     *         less than, equal to, or greater than {@code prefix}
+     */
+    private int compareFirst(int block, CharSequence prefix) {
+        int at = this.blocks[block];
+        int length = this.data[at + 1];
+        at += 2;
+        int limit = Math.min(length, prefix.length());
+        for (int i = 0; i < limit; i++) {
+            char ch = this.data[at + i];
+            if (ch != prefix.charAt(i)) {
+                return ch - prefix.charAt(i);
+            }
+        }
+        return length - prefix.length();
+    }
+
+    /**
+     * Returns the first {@code k} terms, in {@code String} order, that start
+     * with {@code prefix}.
+     *
+     * @param prefix
+     *            the prefix
+     * @param k
+     *            the most terms to return
+     * @return the terms, fewer than {@code k} if fewer start with
+     *         {@code prefix}
+     * @requires k >= 0
+     */
+    public String[] complete(CharSequence prefix, int k) {
+        assert prefix != null : "Violation of: prefix is not null";
+        assert k >= 0 : "Violation of: k >= 0";
+
+        String[] found = new String[Math.min(k, this.size)];
+        if (found.length == 0) {
+            return found;
+        }
+        /*
+         * the terms with the prefix start in the last block whose first term
+         * is less than the prefix, or in the first block
+         */
+        int low = 0;
+        int high = this.blocks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.compareFirst(middle, prefix) < 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        char[] term = new char[this.longest];
+        int prefixLength = prefix.length();
+        int count = 0;
+        int index = low * BLOCK;
+        int at = this.blocks[low];
+        while (index < this.size && count < found.length) {
+            int shared = this.data[at];
+            int rest = this.data[at + 1];
+            System.arraycopy(this.data, at + 2, term, shared, rest);
+            at += 2 + rest;
+            index++;
+            int length = shared + rest;
+            int i = 0;
+            int limit = Math.min(length, prefixLength);
+            while (i < limit && term[i] == prefix.charAt(i)) {
+                i++;
+            }
+            if (i == prefixLength) {
+                found[count] = new String(term, 0, length);
+                count++;
+            } else if (i < length && term[i] > prefix.charAt(i)) {
+                /*
+                 * past the terms with the prefix
+                 */
+                break;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Writes this index to {@code file}.
+     *
+     * @param file
+     *            the file to write
+     */
+    public void write(Path file) {
+        this.write(file, PageOutput.files());
+    }
+
+    /**
+     * Same as {@link #write(Path)}, with the index written to {@code output}:
+     * into the archive of an archive output, and with a gzip sibling for a
+     * gzip output.
+     *
+     * @param file
+     *            the file to write
+     * @param output
+     *            where the file goes
+     */
+    public void write(Path file, PageOutput output) {
+        assert file != null : "Violation of: file is not null";
+        assert output != null : "Violation of: output is not null";
+
+        ByteBuffer out = ByteBuffer.allocate(
+                (HEADER_INTS + this.blocks.length) * Integer.BYTES
+                        + this.data.length * Character.BYTES);
+        out.putInt(MAGIC).putInt(VERSION).putInt(this.size)
+                .putInt(this.blocks.length).putInt(this.data.length);
+        for (int block : this.blocks) {
+            out.putInt(block);
+        }
+        out.asCharBuffer().put(this.data);
+        out.clear();
+        output.write(out, file);
+    }
+
+    /**
+     * Reads the index written to {@code file} by {@link #write}.
+     *
+     * @param file
+     *            the file
+     * @return the index
+     * @throws IllegalArgumentException
+     *             if {@code file} is not an index written by {@link #write}
+     */
+    public static PrefixIndex read(Path file) {
+        assert file != null : "Violation of: file is not null";
+
+        ByteBuffer in;
+        try {
+            in = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (in.remaining() < HEADER_INTS * Integer.BYTES
+                || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IllegalArgumentException(
+                    file + " is not a prefix index of version " + VERSION);
+        }
+        int size = in.getInt();
+        int blockCount = in.getInt();
+        int dataLength = in.getInt();
+        if (size < 0 || blockCount < 0 || dataLength < 0
+                || in.remaining() != (long) blockCount * Integer.BYTES
+                        + (long) dataLength * Character.BYTES) {
+            throw new IllegalArgumentException(file + " is truncated");
+        }
+        int[] blocks = new int[blockCount];
+        char[] data = new char[dataLength];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = in.getInt();
+        }
+        in.asCharBuffer().get(data);
+        return new PrefixIndex(size, blocks, data);
+    }
+
+    /**
+     * Returns the file name, within {@link #SHARD_FOLDER}, of the JSON shard
+     * of {@code prefix}: the {@link PageName} of the prefix, as for the page
+     * of a term, followed by {@code .json}.
+     *
+     * @param prefix
+     *            the prefix
+     * @return the file name
+     */
+    public static String shardName(CharSequence prefix) {
+        StringBuilder name = new StringBuilder();
+        PageName.append(name, prefix);
+        return name.append(".json").toString();
+    }
+
+    /**
+     * Appends {@code text} to {@code json} as a JSON string.
+     *
+     * @param json
+     *            the JSON being built
+     * @param text
+     *            the text
+     */
+    private static void appendJsonString(StringBuilder json,
+            CharSequence text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                json.append('\\').append(ch);
+            } else if (ch < ' ') {
+                json.append(String.format("\\u%04x", (int) ch));
+            } else {
+                json.append(ch);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Writes the JSON shard of {@code prefix}.
+     *
+     * @param folder
+     *            the shard folder
+     * @param prefix
+     *            the prefix
+     * @param terms
+     *            the JSON objects of the terms listed, separated by commas
+     * @param complete
+     *            whether the shard lists every term with {@code prefix}
+     * @param kept
+     *            the names of the shards written so far
+     * @param output
+     *            where the shard goes
+     * @updates kept
+     */
+    private static void writeShard(Path folder, String prefix,
+            CharSequence terms, boolean complete, HashSet<String> kept,
+            PageOutput output) {
+        String name = shardName(prefix);
+        PageWriter writer = PageWriter.forThread();
+        appendShard(writer.begin(), prefix, terms, complete);
+        output.write(writer, folder.resolve(name));
+        kept.add(name);
+    }
+
+    /**
+     * Appends the JSON object of {@code term} and its page to {@code json}.
+     *
+     * @param json
+     *            the JSON being built
+     * @param term
+     *            the term
+     */
+    private static void appendTerm(StringBuilder json, String term) {
+        json.append("{\"term\":");
+        appendJsonString(json, term);
+        json.append(",\"page\":");
+        appendJsonString(json, GlossaryFacility.termPageName(term));
+        json.append('}');
+    }
+
+    /**
+     * Appends a JSON shard to {@code json}.
+     *
+     * @param json
+     *            the JSON being built
+     * @param prefix
+     *            the prefix
+     * @param terms
+     *            the JSON objects of the terms listed, separated by commas
+     * @param complete
+     *            whether the shard lists every term with {@code prefix}
+     */
+    private static void appendShard(StringBuilder json, CharSequence prefix,
+            CharSequence terms, boolean complete) {
+        json.append("{\"prefix\":");
+        appendJsonString(json, prefix);
+        json.append(",\"terms\":[").append(terms).append("],\"complete\":")
+                .append(complete).append('}');
+    }
+
+    /**
+     * Returns the JSON shard, in the format of {@link #writeShards}, listing
+     * {@code terms}.
+     *
+     * @param prefix
+     *            the prefix
+     * @param terms
+     *            the terms with {@code prefix}, as returned by
+     *            {@link #complete}
+     * @param complete
+     *            whether {@code terms} are all the terms with
+     *            {@code prefix}
+     * @return the JSON shard
+     */
+    public static String toJson(CharSequence prefix, String[] terms,
+            boolean complete) {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < terms.length; i++) {
+            if (i > 0) {
+                list.append(',');
+            }
+            appendTerm(list, terms[i]);
+        }
+        StringBuilder json = new StringBuilder();
+        appendShard(json, prefix, list, complete);
+        return json.toString();
+    }
+
+    /**
+     * Writes the JSON shards of this index to the folder
+     * {@link #SHARD_FOLDER} of {@code folderName}, and deletes the shards of
+     * prefixes no term has any more. There is a shard for every prefix, of
+     * length 1 to {@code depth}, of a term; the shard of a prefix of length
+     * {@code depth} lists all the terms with that prefix, and the shard of a
+     * shorter prefix the first {@code k} of them. A client looks up the first
+     * {@code depth} characters typed, or fewer, and filters the terms of the
+     * shard with the rest. Each shard reads
+     *
+     * <pre>
+     * {"prefix":"ba","terms":[{"term":"bag","page":"bag.html"}],
+     *  "complete":true}
+     * </pre>
+     *
+     * where {@code page} is relative to the output folder and
+     * {@code complete} tells whether every term with the prefix is listed.
+     *
+     * @param folderName
+     *            the output folder
+     * @param depth
+     *            the length of the longest prefixes with a shard
+     * @param k
+     *            the most terms in the shard of a shorter prefix
+     * @requires depth > 0 and k > 0
+     */
+    public void writeShards(String folderName, int depth, int k) {
+        this.writeShards(folderName, depth, k, PageOutput.files());
+    }
+
+    /**
+     * Same as {@link #writeShards(String, int, int)}, with the shards written
+     * to {@code output}.
+     *
+     * @param folderName
+     *            the output folder
+     * @param depth
+     *            the length of the longest prefixes with a shard
+     * @param k
+     *            the most terms in the shard of a shorter prefix
+     * @param output
+     *            where the shards go
+     * @requires depth > 0 and k > 0
+     */
+    public void writeShards(String folderName, int depth, int k,
+            PageOutput output) {
+        assert folderName != null : "Violation of: folderName is not null";
+        assert depth > 0 : "Violation of: depth > 0";
+        assert k > 0 : "Violation of: k > 0";
+        assert output != null : "Violation of: output is not null";
+
+        Path folder = Paths.get(folderName, SHARD_FOLDER);
+        HashSet<String> kept = new HashSet<>();
+        /*
+         * the terms with a given prefix are consecutive, so there is at most
+         * one shard open per prefix length
+         */
+        String[] prefixes = new String[depth + 1];
+        StringBuilder[] terms = new StringBuilder[depth + 1];
+        int[] listed = new int[depth + 1];
+        int[] total = new int[depth + 1];
+        for (int level = 1; level <= depth; level++) {
+            terms[level] = new StringBuilder();
+        }
+        try {
+            if (!output.isArchive()) {
+                Files.createDirectories(folder);
+            }
+            char[] chars = new char[this.longest];
+            int at = 0;
+            for (int index = 0; index < this.size; index++) {
+                int shared = this.data[at];
+                int rest = this.data[at + 1];
+                System.arraycopy(this.data, at + 2, chars, shared, rest);
+                at += 2 + rest;
+                String term = new String(chars, 0, shared + rest);
+                for (int level = 1; level <= depth; level++) {
+                    String prefix = null;
+                    if (term.length() >= level) {
+                        prefix = term.substring(0, level);
+                    }
+                    if (prefixes[level] != null
+                            && !prefixes[level].equals(prefix)) {
+                        writeShard(folder, prefixes[level], terms[level],
+                                listed[level] == total[level], kept, output);
+                        prefixes[level] = null;
+                    }
+                    if (prefix == null) {
+                        continue;
+                    }
+                    if (prefixes[level] == null) {
+                        prefixes[level] = prefix;
+                        terms[level].setLength(0);
+                        listed[level] = 0;
+                        total[level] = 0;
+                    }
+                    total[level]++;
+                    if (level == depth || listed[level] < k) {
+                        if (listed[level] > 0) {
+                            terms[level].append(',');
+                        }
+                        appendTerm(terms[level], term);
+                        listed[level]++;
+                    }
+                }
+            }
+            for (int level = 1; level <= depth; level++) {
+                if (prefixes[level] != null) {
+                    writeShard(folder, prefixes[level], terms[level],
+                            listed[level] == total[level], kept, output);
+                }
+            }
+
+            if (Files.isDirectory(folder)) {
+                try (DirectoryStream<Path> files = Files
+                        .newDirectoryStream(folder, "*.{json,json.gz}")) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        if (!output.keeps(name,
+                                kept.contains(PageOutput.pageName(name)))) {
+                            Files.delete(file);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import components.set.Set;
+
+/**
+ * Immutable, precompiled set of separator characters, to test characters
+ * against without boxing them. ASCII characters, which are nearly all the
+ * characters of most glossaries, are looked up in a 128-entry table; other
+ * characters in a 64K-bit bitmap, which only exists if the set has a
+ * non-ASCII separator.
+ *
+ * <p>
+ * Sets are cached by their characters, so asking twice for the same
+ * separators returns the same instance, and can be shared between threads.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class SeparatorSet {
+
+    /**
+     * Number of bits in a {@code long}.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * Number of ASCII characters.
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * The sets built so far, by their characters in order.
+     */
+    private static final ConcurrentMap<String, SeparatorSet> CACHE =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The separators the glossary has always used: space, tab and comma.
+     */
+    public static final SeparatorSet DEFAULT = of(GlossaryFacility.SEPARATORS);
+
+    /**
+     * The separators, distinct and in order.
+     */
+    private final String chars;
+
+    /**
+     * Whether each ASCII character is a separator.
+     */
+    private final boolean[] ascii = new boolean[ASCII];
+
+    /**
+     * Bitmap of all the separators, bit {@code c % 64} of word
+     * {@code c / 64} for character {@code c}, or null if every separator is
+     * ASCII.
+     */
+    private final long[] bits;
+
+    /**
+     * Builds the set of the given characters.
+     *
+     * @param chars
+     *            the separators, distinct and in order
+     */
+    private SeparatorSet(String chars) {
+        this.chars = chars;
+        long[] all = null;
+        for (int i = 0; i < chars.length(); i++) {
+            char ch = chars.charAt(i);
+            if (ch < ASCII) {
+                this.ascii[ch] = true;
+            } else {
+                if (all == null) {
+                    all = new long[(Character.MAX_VALUE + 1) / WORD_BITS];
+                }
+                all[ch / WORD_BITS] |= 1L << (ch % WORD_BITS);
+            }
+        }
+        this.bits = all;
+    }
+
+    /**
+     * Returns the set of the characters in {@code separators}.
+     *
+     * @param separators
+     *            the separators; repeated characters count once
+     * @return the set
+     */
+    public static SeparatorSet of(CharSequence separators) {
+        assert separators != null : "Violation of: separators is not null";
+
+        char[] sorted = separators.toString().toCharArray();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct] = sorted[i];
+                distinct++;
+            }
+        }
+        String key = new String(sorted, 0, distinct);
+        SeparatorSet res = CACHE.get(key);
+        if (res == null) {
+            SeparatorSet built = new SeparatorSet(key);
+            res = CACHE.putIfAbsent(key, built);
+            if (res == null) {
+                res = built;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the set of the characters in {@code separators}.
+     *
+     * @param separators
+     *            the separators
+     * @return the set
+     */
+    public static SeparatorSet of(Set<Character> separators) {
+        assert separators != null : "Violation of: separators is not null";
+
+        StringBuilder chars = new StringBuilder(separators.size());
+        for (Character ch : separators) {
+            chars.append(ch.charValue());
+        }
+        return of(chars);
+    }
+
+    /**
+     * Returns the set of the separators of this set and those in
+     * {@code more}.
+     *
+     * @param more
+     *            the separators to add
+     * @return the set
+     */
+    public SeparatorSet with(CharSequence more) {
+        assert more != null : "Violation of: more is not null";
+
+        return of(this.chars + more);
+    }
+
+    /**
+     * Returns whether {@code ch} is a separator.
+     *
+     * @param ch
+     *            the character
+     * @return true if {@code ch} is in this set
+     */
+    public boolean contains(char ch) {
+        if (ch < ASCII) {
+            return this.ascii[ch];
+        }
+        return this.bits != null
+                && (this.bits[ch / WORD_BITS] & (1L << (ch % WORD_BITS))) != 0;
+    }
+
+    /**
+     * Returns the separators of this set.
+     *
+     * @return the separators, distinct and in order
+     */
+    public String chars() {
+        return this.chars;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SeparatorSet
+                && ((SeparatorSet) obj).chars.equals(this.chars);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.chars.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SeparatorSet" + Arrays.toString(this.chars.toCharArray());
+    }
+
+}
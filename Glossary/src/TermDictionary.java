@@ -0,0 +1,362 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact in-memory glossary: every term is interned to an int id, in the
+ * order it is added, and terms and descriptions are kept in two char arenas
+ * instead of one {@code String} (and map node) per entry. Terms are found by
+ * an open-addressing hash table that can be probed with any span of a
+ * {@code CharSequence}, so looking up a word of a description does not need
+ * a {@code String} for it.
+ *
+ * <p>
+ * Iterating a dictionary yields its terms in id order, so a
+ * {@link TermMatcher} built from it gives every term the same id. The total
+ * size of the terms, and of the descriptions, must stay below 2^31 chars.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class TermDictionary implements Iterable<String> {
+
+    /**
+     * Id returned for a term that is not in the dictionary.
+     */
+    public static final int NO_ID = -1;
+
+    /**
+     * Default initial capacity, in terms.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Average number of chars per term and per description the arenas start
+     * with.
+     */
+    private static final int CHARS_PER_ENTRY = 16;
+
+    /**
+     * The terms, back to back.
+     */
+    private char[] terms;
+
+    /**
+     * Start of each term in {@code terms}; entry {@code size} is the end of
+     * the last term.
+     */
+    private int[] termStart;
+
+    /**
+     * The descriptions, back to back.
+     */
+    private char[] descriptions;
+
+    /**
+     * Start of each description in {@code descriptions}; entry {@code size}
+     * is the end of the last description.
+     */
+    private int[] descriptionStart;
+
+    /**
+     * Hash code of each term.
+     */
+    private int[] hashes;
+
+    /**
+     * Open-addressing table of term ids, {@code NO_ID} for empty slots.
+     */
+    private int[] slots;
+
+    /**
+     * Number of terms.
+     */
+    private int size;
+
+    /**
+     * Creates an empty dictionary.
+     */
+    public TermDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty dictionary sized for {@code expectedTerms} terms.
+     *
+     * @param expectedTerms
+     *            the expected number of terms
+     * @requires expectedTerms >= 0
+     */
+    public TermDictionary(int expectedTerms) {
+        assert expectedTerms >= 0 : "Violation of: expectedTerms >= 0";
+
+        int capacity = Math.max(expectedTerms, 1);
+        this.terms = new char[capacity * CHARS_PER_ENTRY];
+        this.descriptions = new char[capacity * CHARS_PER_ENTRY];
+        this.termStart = new int[capacity + 1];
+        this.descriptionStart = new int[capacity + 1];
+        this.hashes = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        Arrays.fill(this.slots, NO_ID);
+    }
+
+    /**
+     * Returns the hash code of {@code text[start, end)}.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the span
+     * @param end
+     *            the end of the span
+     * @return the hash code
+     */
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns whether the term with id {@code id} equals
+     * {@code text[start, end)}.
+     *
+     * @param id
+     *            the term id
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the span
+     * @param end
+     *            the end of the span
+     * @return true if they are equal
+     */
+    private boolean termEquals(int id, CharSequence text, int start,
+            int end) {
+        int from = this.termStart[id];
+        if (this.termStart[id + 1] - from != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (this.terms[from + i - start] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the id of the term {@code text[start, end)}.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the span
+     * @param end
+     *            the end of the span
+     * @return the id, or {@link #NO_ID} if the span is not a term
+     * @requires 0 <= start <= end <= |text|
+     */
+    public int id(CharSequence text, int start, int end) {
+        assert text != null : "Violation of: text is not null";
+        assert 0 <= start && start <= end
+                && end <= text.length() : "Violation of: valid span";
+
+        int h = hash(text, start, end);
+        int mask = this.slots.length - 1;
+        int slot = h & mask;
+        int id = this.slots[slot];
+        while (id != NO_ID) {
+            if (this.hashes[id] == h && this.termEquals(id, text, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+            id = this.slots[slot];
+        }
+        return NO_ID;
+    }
+
+    /**
+     * Returns the id of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return the id, or {@link #NO_ID} if {@code term} is not a term
+     */
+    public int id(CharSequence term) {
+        return this.id(term, 0, term.length());
+    }
+
+    /**
+     * Returns whether {@code term} is in this dictionary.
+     *
+     * @param term
+     *            the term
+     * @return true if {@code term} is a term
+     */
+    public boolean hasKey(CharSequence term) {
+        return this.id(term) != NO_ID;
+    }
+
+    /**
+     * Adds {@code term} with its description.
+     *
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @return the id of {@code term}, which is the number of terms added
+     *         before it
+     * @requires term /= "" and term is not in this
+     */
+    public int add(CharSequence term, CharSequence description) {
+        assert term != null : "Violation of: term is not null";
+        assert description != null : "Violation of: description is not null";
+        assert term.length() > 0 : "Violation of: term /= <>";
+        assert !this.hasKey(term) : "Violation of: term is not in this";
+
+        if (this.size == this.hashes.length) {
+            int capacity = this.size * 2;
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+            this.termStart = Arrays.copyOf(this.termStart, capacity + 1);
+            this.descriptionStart = Arrays.copyOf(this.descriptionStart,
+                    capacity + 1);
+        }
+        if (this.size * 2 >= this.slots.length) {
+            this.rehash(this.slots.length * 2);
+        }
+
+        int id = this.size;
+        this.terms = append(this.terms, this.termStart, id, term);
+        this.descriptions = append(this.descriptions, this.descriptionStart,
+                id, description);
+        int h = hash(term, 0, term.length());
+        this.hashes[id] = h;
+        int mask = this.slots.length - 1;
+        int slot = h & mask;
+        while (this.slots[slot] != NO_ID) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = id;
+        this.size++;
+        return id;
+    }
+
+    /**
+     * Appends {@code text} to an arena as entry {@code id}.
+     *
+     * @param arena
+     *            the arena
+     * @param starts
+     *            the start of each entry in {@code arena}
+     * @param id
+     *            the entry
+     * @param text
+     *            the text to append
+     * @return the arena, grown if needed
+     */
+    private static char[] append(char[] arena, int[] starts, int id,
+            CharSequence text) {
+        int from = starts[id];
+        int to = from + text.length();
+        assert to >= from : "Violation of: arena size < 2^31";
+        char[] res = arena;
+        if (to > res.length) {
+            long capacity = Math.max((long) res.length * 2, to);
+            res = Arrays.copyOf(res,
+                    (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        for (int i = 0; i < text.length(); i++) {
+            res[from + i] = text.charAt(i);
+        }
+        starts[id + 1] = to;
+        return res;
+    }
+
+    /**
+     * Rebuilds the hash table with {@code capacity} slots.
+     *
+     * @param capacity
+     *            the new capacity, a power of two
+     */
+    private void rehash(int capacity) {
+        this.slots = new int[capacity];
+        Arrays.fill(this.slots, NO_ID);
+        int mask = capacity - 1;
+        for (int id = 0; id < this.size; id++) {
+            int slot = this.hashes[id] & mask;
+            while (this.slots[slot] != NO_ID) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = id;
+        }
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the term with id {@code id}.
+     *
+     * @param id
+     *            the id
+     * @return the term
+     * @requires 0 <= id < size
+     */
+    public String term(int id) {
+        assert 0 <= id && id < this.size : "Violation of: valid id";
+        int from = this.termStart[id];
+        return new String(this.terms, from, this.termStart[id + 1] - from);
+    }
+
+    /**
+     * Returns the description of the term with id {@code id}.
+     *
+     * @param id
+     *            the id
+     * @return the description
+     * @requires 0 <= id < size
+     */
+    public String description(int id) {
+        assert 0 <= id && id < this.size : "Violation of: valid id";
+        int from = this.descriptionStart[id];
+        return new String(this.descriptions, from,
+                this.descriptionStart[id + 1] - from);
+    }
+
+    /**
+     * Returns the terms, in id order.
+     *
+     * @return an iterator over the terms
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < TermDictionary.this.size;
+            }
+
+            @Override
+            public String next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String term = TermDictionary.this.term(this.next);
+                this.next++;
+                return term;
+            }
+        };
+    }
+
+}
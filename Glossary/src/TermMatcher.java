@@ -0,0 +1,413 @@
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton over the terms of a glossary, used to find every
+ * term (including multi-word phrases such as "hash map") in a description in
+ * a single pass.
+ *
+ * <p>
+ * A match only counts when it covers whole words: it must start and end on a
+ * non-separator character, be preceded by a separator or the start of the
+ * text, and be followed by a separator or the end of the text. Once built the
+ * matcher is immutable and can be shared between threads.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class TermMatcher {
+
+    /**
+     * Marks an empty slot in the transition table.
+     */
+    private static final long NO_KEY = -1L;
+
+    /**
+     * Initial capacity (in states) of the trie arrays.
+     */
+    private static final int INITIAL_STATES = 64;
+
+    /**
+     * Number of bits used by a {@code char} in a transition key.
+     */
+    private static final int CHAR_BITS = 16;
+
+    /**
+     * The terms, indexed by term id.
+     */
+    private final String[] terms;
+
+    /**
+     * The separators.
+     */
+    private final SeparatorSet separators;
+
+    /**
+     * Transition keys ({@code state << 16 | char}), open addressing.
+     */
+    private long[] edgeKeys;
+
+    /**
+     * Transition targets, parallel to {@code edgeKeys}.
+     */
+    private int[] edgeTargets;
+
+    /**
+     * Number of transitions in the table.
+     */
+    private int edgeCount;
+
+    /**
+     * First child of each state, or 0 if none; used while linking.
+     */
+    private int[] firstChild;
+
+    /**
+     * Next sibling of each state, or 0 if none; used while linking.
+     */
+    private int[] nextSibling;
+
+    /**
+     * Character on the edge into each state.
+     */
+    private char[] label;
+
+    /**
+     * Failure link of each state.
+     */
+    private int[] fail;
+
+    /**
+     * Term id accepted at each state, or -1 if none.
+     */
+    private int[] accept;
+
+    /**
+     * Nearest accepting state reachable through failure links, or 0 if none.
+     */
+    private int[] output;
+
+    /**
+     * Number of states; state 0 is the root.
+     */
+    private int stateCount;
+
+    /**
+     * Builds the automaton for the given terms.
+     *
+     * @param keys
+     *            the terms to match; duplicates and empty terms are ignored
+     * @param separators
+     *            the separators
+     */
+    public TermMatcher(Iterable<String> keys, SeparatorSet separators) {
+        assert keys != null : "Violation of: keys is not null";
+        assert separators != null : "Violation of: separators is not null";
+
+        this.separators = separators;
+        this.label = new char[INITIAL_STATES];
+        this.firstChild = new int[INITIAL_STATES];
+        this.nextSibling = new int[INITIAL_STATES];
+        this.accept = new int[INITIAL_STATES];
+        this.edgeKeys = new long[INITIAL_STATES * 2];
+        this.edgeTargets = new int[INITIAL_STATES * 2];
+        Arrays.fill(this.edgeKeys, NO_KEY);
+        Arrays.fill(this.accept, -1);
+        this.stateCount = 1;
+
+        String[] termList = new String[INITIAL_STATES];
+        int termCount = 0;
+        for (String key : keys) {
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                char ch = key.charAt(i);
+                int next = this.transition(state, ch);
+                if (next < 0) {
+                    next = this.addState(state, ch);
+                }
+                state = next;
+            }
+            if (state != 0 && this.accept[state] < 0) {
+                if (termCount == termList.length) {
+                    termList = Arrays.copyOf(termList, termCount * 2);
+                }
+                this.accept[state] = termCount;
+                termList[termCount] = key;
+                termCount++;
+            }
+        }
+        this.terms = Arrays.copyOf(termList, termCount);
+        this.link();
+        this.firstChild = null;
+        this.nextSibling = null;
+    }
+
+    /**
+     * Returns the target of the transition from {@code state} on {@code ch},
+     * or -1 if there is none.
+     *
+     * @param state
+     *            the source state
+     * @param ch
+     *            the character
+     * @return the target state or -1
+     */
+    private int transition(int state, char ch) {
+        long key = ((long) state << CHAR_BITS) | ch;
+        int mask = this.edgeKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.edgeKeys[slot] != NO_KEY) {
+            if (this.edgeKeys[slot] == key) {
+                return this.edgeTargets[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a new child of {@code parent} reached on {@code ch}.
+     *
+     * @param parent
+     *            the parent state
+     * @param ch
+     *            the character
+     * @return the new state
+     */
+    private int addState(int parent, char ch) {
+        if (this.stateCount == this.label.length) {
+            int capacity = this.stateCount * 2;
+            this.label = Arrays.copyOf(this.label, capacity);
+            this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+            this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+            int oldLength = this.accept.length;
+            this.accept = Arrays.copyOf(this.accept, capacity);
+            Arrays.fill(this.accept, oldLength, capacity, -1);
+        }
+        int state = this.stateCount;
+        this.stateCount++;
+        this.label[state] = ch;
+        this.nextSibling[state] = this.firstChild[parent];
+        this.firstChild[parent] = state;
+
+        if ((this.edgeCount + 1) * 2 > this.edgeKeys.length) {
+            this.rehash(this.edgeKeys.length * 2);
+        }
+        this.putEdge(((long) parent << CHAR_BITS) | ch, state);
+        this.edgeCount++;
+        return state;
+    }
+
+    /**
+     * Stores a transition in the table; the table must have a free slot.
+     *
+     * @param key
+     *            the transition key
+     * @param target
+     *            the target state
+     */
+    private void putEdge(long key, int target) {
+        int mask = this.edgeKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.edgeKeys[slot] != NO_KEY) {
+            slot = (slot + 1) & mask;
+        }
+        this.edgeKeys[slot] = key;
+        this.edgeTargets[slot] = target;
+    }
+
+    /**
+     * Grows the transition table to {@code capacity} slots.
+     *
+     * @param capacity
+     *            the new capacity, a power of two
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = this.edgeKeys;
+        int[] oldTargets = this.edgeTargets;
+        this.edgeKeys = new long[capacity];
+        this.edgeTargets = new int[capacity];
+        Arrays.fill(this.edgeKeys, NO_KEY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NO_KEY) {
+                this.putEdge(oldKeys[i], oldTargets[i]);
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of a transition key.
+     *
+     * @param key
+     *            the key
+     * @return the hash code
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Computes failure and output links breadth-first.
+     */
+    private void link() {
+        this.fail = new int[this.stateCount];
+        this.output = new int[this.stateCount];
+        this.accept = Arrays.copyOf(this.accept, this.stateCount);
+        this.label = Arrays.copyOf(this.label, this.stateCount);
+
+        int[] queue = new int[this.stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int child = this.firstChild[0]; child != 0;
+                    child = this.nextSibling[child]) {
+            queue[tail] = child;
+            tail++;
+        }
+        while (head < tail) {
+            int state = queue[head];
+            head++;
+            for (int child = this.firstChild[state]; child != 0;
+                    child = this.nextSibling[child]) {
+                int f = this.fail[state];
+                int next = this.transition(f, this.label[child]);
+                while (next < 0 && f != 0) {
+                    f = this.fail[f];
+                    next = this.transition(f, this.label[child]);
+                }
+                if (next < 0) {
+                    next = 0;
+                }
+                this.fail[child] = next;
+                if (this.accept[next] >= 0) {
+                    this.output[child] = next;
+                } else {
+                    this.output[child] = this.output[next];
+                }
+                queue[tail] = child;
+                tail++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct terms in this matcher.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.terms.length;
+    }
+
+    /**
+     * Returns the term with the given id.
+     *
+     * @param id
+     *            the term id
+     * @return the term
+     * @requires 0 <= id < size
+     */
+    public String term(int id) {
+        assert 0 <= id && id < this.terms.length : "Violation of: valid id";
+        return this.terms[id];
+    }
+
+    /**
+     * Returns the id of {@code term}, following its characters down the trie.
+     *
+     * @param term
+     *            the term
+     * @return the id of {@code term}, or -1 if it is not a term of this
+     *         matcher
+     */
+    public int id(CharSequence term) {
+        assert term != null : "Violation of: term is not null";
+
+        int state = 0;
+        for (int i = 0; i < term.length() && state >= 0; i++) {
+            state = this.transition(state, term.charAt(i));
+        }
+        if (state < 0) {
+            return -1;
+        }
+        return this.accept[state];
+    }
+
+    /**
+     * Returns the separators this matcher was built with.
+     *
+     * @return the separators
+     */
+    public SeparatorSet separators() {
+        return this.separators;
+    }
+
+    /**
+     * Finds the leftmost-longest, non-overlapping whole-word term occurrences
+     * in {@code text}.
+     *
+     * @param text
+     *            the text to scan
+     * @return an array with one entry per character of {@code text}: the term
+     *         id plus one where a chosen match starts, 0 everywhere else
+     * @ensures <pre>
+     * |matches| = |text|  and
+     * [matches marks the leftmost-longest non-overlapping whole-word
+     *  occurrences of terms in text]
+     * </pre>
+     */
+    public int[] matches(CharSequence text) {
+        assert text != null : "Violation of: text is not null";
+
+        SeparatorSet separators = this.separators;
+        int length = text.length();
+        int[] best = new int[length];
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            int next = this.transition(state, ch);
+            while (next < 0 && state != 0) {
+                state = this.fail[state];
+                next = this.transition(state, ch);
+            }
+            state = Math.max(next, 0);
+
+            int end = i + 1;
+            if (separators.contains(ch) || (end < length
+                    && !separators.contains(text.charAt(end)))) {
+                continue;
+            }
+            int s = state;
+            if (this.accept[s] < 0) {
+                s = this.output[s];
+            }
+            while (s != 0) {
+                int id = this.accept[s];
+                int start = end - this.terms[id].length();
+                if (!separators.contains(text.charAt(start)) && (start == 0
+                        || separators.contains(text.charAt(start - 1)))) {
+                    int current = best[start];
+                    if (current == 0
+                            || this.terms[current - 1].length() < end - start) {
+                        best[start] = id + 1;
+                    }
+                }
+                s = this.output[s];
+            }
+        }
+
+        int position = 0;
+        while (position < length) {
+            if (best[position] != 0) {
+                int end = position + this.terms[best[position] - 1].length();
+                for (int i = position + 1; i < end; i++) {
+                    best[i] = 0;
+                }
+                position = end;
+            } else {
+                position++;
+            }
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,268 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Streaming reader for the glossary input format: a term on one line,
+ * followed by the lines of its description, followed by a blank line (or the
+ * end of the input). The lines of a description are joined without a
+ * separator, as they always have been.
+ *
+ * <p>
+ * Records are read one at a time into a reusable buffer, so the memory used
+ * does not depend on the size of the input. I/O errors are reported as
+ * {@link UncheckedIOException}s. Records may also be taken straight from an
+ * iterator of terms and their descriptions, such as the merged glossary of
+ * {@link GlossaryMerge#records}, with nothing to parse.
+ *
+ * @author Vivian Lu
+ *
+ */
+public final class TermReader implements AutoCloseable {
+
+    /**
+     * Size of the read buffer, in chars.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Initial capacity of the line and description buffers.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The underlying input, or null if the records are taken from
+     * {@code records}.
+     */
+    private final Reader input;
+
+    /**
+     * The terms and their descriptions, or null if the records are read from
+     * {@code input}.
+     */
+    private final Iterator<Map.Entry<String, String>> records;
+
+    /**
+     * The read buffer.
+     */
+    private final char[] buffer;
+
+    /**
+     * Index of the next unread char in {@code buffer}.
+     */
+    private int position;
+
+    /**
+     * Number of valid chars in {@code buffer}.
+     */
+    private int limit;
+
+    /**
+     * Whether a '\r' was the last char consumed, so a following '\n' belongs
+     * to the same line break.
+     */
+    private boolean afterCarriageReturn;
+
+    /**
+     * The current line.
+     */
+    private final StringBuilder line = new StringBuilder(INITIAL_CAPACITY);
+
+    /**
+     * The description of the current record.
+     */
+    private final StringBuilder description = new StringBuilder(
+            INITIAL_CAPACITY);
+
+    /**
+     * The term of the current record, or null before the first record.
+     */
+    private String term;
+
+    /**
+     * Opens a reader on the given file, decoded as UTF-8.
+     *
+     * @param fileName
+     *            the name of the file
+     */
+    public TermReader(String fileName) {
+        assert fileName != null : "Violation of: fileName is not null";
+        this.records = null;
+        this.buffer = new char[BUFFER_SIZE];
+        try {
+            this.input = new InputStreamReader(new FileInputStream(fileName),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a reader on the given input. Closing this reader closes
+     * {@code input}.
+     *
+     * @param input
+     *            the input
+     */
+    public TermReader(Reader input) {
+        assert input != null : "Violation of: input is not null";
+        this.input = input;
+        this.records = null;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a reader whose records are the terms of {@code records} with
+     * their descriptions, in order.
+     *
+     * @param records
+     *            the terms and their descriptions
+     */
+    public TermReader(Iterator<Map.Entry<String, String>> records) {
+        assert records != null : "Violation of: records is not null";
+        this.input = null;
+        this.records = records;
+        this.buffer = new char[0];
+    }
+
+    /**
+     * Reads the next line into {@code line}, without its line terminator.
+     *
+     * @return false if the input was already exhausted
+     */
+    private boolean readLine() {
+        this.line.setLength(0);
+        boolean any = false;
+        while (true) {
+            if (this.position == this.limit && !this.fill()) {
+                return any;
+            }
+            if (this.afterCarriageReturn) {
+                this.afterCarriageReturn = false;
+                if (this.buffer[this.position] == '\n') {
+                    this.position++;
+                    continue;
+                }
+            }
+            any = true;
+            int start = this.position;
+            int i = start;
+            while (i < this.limit && this.buffer[i] != '\n'
+                    && this.buffer[i] != '\r') {
+                i++;
+            }
+            this.line.append(this.buffer, start, i - start);
+            if (i < this.limit) {
+                this.afterCarriageReturn = this.buffer[i] == '\r';
+                this.position = i + 1;
+                return true;
+            }
+            this.position = i;
+        }
+    }
+
+    /**
+     * Refills the read buffer.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() {
+        try {
+            int n = this.input.read(this.buffer);
+            while (n == 0) {
+                n = this.input.read(this.buffer);
+            }
+            if (n < 0) {
+                return false;
+            }
+            this.position = 0;
+            this.limit = n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Advances to the next record. Blank lines before a term are skipped.
+     *
+     * @return true if there is a next record, false at the end of the input
+     */
+    public boolean next() {
+        this.term = null;
+        this.description.setLength(0);
+        if (this.records != null) {
+            if (!this.records.hasNext()) {
+                return false;
+            }
+            Map.Entry<String, String> entry = this.records.next();
+            this.term = entry.getKey();
+            this.description.append(entry.getValue());
+            return true;
+        }
+        boolean found = this.readLine();
+        while (found && this.line.length() == 0) {
+            found = this.readLine();
+        }
+        if (!found) {
+            return false;
+        }
+        this.term = this.line.toString();
+        while (this.readLine() && this.line.length() > 0) {
+            this.description.append(this.line);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the term of the current record.
+     *
+     * @return the term
+     * @requires [the last call to next returned true]
+     */
+    public String term() {
+        assert this.term != null : "Violation of: there is a current record";
+        return this.term;
+    }
+
+    /**
+     * Returns the description of the current record.
+     *
+     * @return the description
+     * @requires [the last call to next returned true]
+     */
+    public String description() {
+        assert this.term != null : "Violation of: there is a current record";
+        return this.description.toString();
+    }
+
+    /**
+     * Returns the description of the current record without copying it. The
+     * sequence is only valid until the next call to {@code next}.
+     *
+     * @return the description
+     * @requires [the last call to next returned true]
+     */
+    public CharSequence descriptionSequence() {
+        assert this.term != null : "Violation of: there is a current record";
+        return this.description;
+    }
+
+    @Override
+    public void close() {
+        if (this.input == null) {
+            return;
+        }
+        try {
+            this.input.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
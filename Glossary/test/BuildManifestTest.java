@@ -0,0 +1,211 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class BuildManifestTest {
+
+    /**
+     * Returns a queue of the given terms.
+     *
+     * @param terms
+     *            the terms
+     * @return the queue
+     */
+    private static Queue<String> keys(String... terms) {
+        Queue<String> keys = new Queue1L<>();
+        for (String term : terms) {
+            keys.enqueue(term);
+        }
+        return keys;
+    }
+
+    /**
+     * boundary case to test :a missing manifest reads as empty.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_read_1() throws IOException {
+        String folder = Files.createTempDirectory("manifest").toString();
+
+        BuildManifest manifest = BuildManifest.read(folder);
+
+        assertFalse(manifest.isCurrent("bag", 0, 0));
+        assertTrue(manifest.sameKeys(new BuildManifest()));
+    }
+
+    /**
+     * routine case to test :a written manifest reads back the same.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_read_2() throws IOException {
+        String folder = Files.createTempDirectory("manifest").toString();
+        BuildManifest written = new BuildManifest(keys("bag", "hash map"),
+                PageOptions.DEFAULT);
+        long bag = BuildManifest.contentHash("bag", "holds things");
+        long hashMap = BuildManifest.contentHash("hash map", "a bag");
+        written.record("bag", bag, 0);
+        written.record("hash map", hashMap, -1);
+        written.write(folder);
+
+        BuildManifest manifest = BuildManifest.read(folder);
+
+        assertTrue(manifest.sameKeys(new BuildManifest(
+                keys("hash map", "bag"), PageOptions.DEFAULT)));
+        assertTrue(manifest.isCurrent("bag", bag, 0));
+        assertTrue(manifest.isCurrent("hash map", hashMap, -1));
+        assertEquals(-1, manifest.linksHash("hash map"));
+    }
+
+    /**
+     * challenge case to test :a manifest of another format reads as empty.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_read_3() throws IOException {
+        String folder = Files.createTempDirectory("manifest").toString();
+        Files.write(Paths.get(folder, BuildManifest.FILE_NAME),
+                "something else\n1\n0\t0\tbag\n"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        BuildManifest manifest = BuildManifest.read(folder);
+
+        assertFalse(manifest.sameContent("bag", 0));
+    }
+
+    /**
+     * routine case to test :the name of the output of the pages reads back.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_read_4() throws IOException {
+        String folder = Files.createTempDirectory("manifest").toString();
+        new BuildManifest(keys("bag"),
+                PageOptions.DEFAULT.withOutput(PageOutput.gzip()))
+                        .write(folder);
+
+        BuildManifest manifest = BuildManifest.read(folder);
+
+        assertEquals("gzip", manifest.output());
+        assertEquals("",
+                new BuildManifest(keys("bag"), PageOptions.DEFAULT).output());
+    }
+
+    /**
+     * routine case to test :the hash of the templates of the pages reads
+     * back.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_read_5() throws IOException {
+        String folder = Files.createTempDirectory("manifest").toString();
+        PageOptions options = PageOptions.DEFAULT.withTemplates(
+                PageTemplate.termPage("<title>{{term}}</title>"),
+                PageTemplate.INDEX_PAGE);
+        long templates = options.templatesHash();
+        new BuildManifest(keys("bag"), options).write(folder);
+
+        BuildManifest manifest = BuildManifest.read(folder);
+
+        assertEquals(templates, manifest.templates());
+        assertFalse(templates == new BuildManifest(keys("bag"),
+                PageOptions.DEFAULT).templates());
+    }
+
+    /**
+     * routine case to test :content and links hashes tell changes apart.
+     */
+    @Test
+    public void test_contentHash_1() {
+        assertEquals(BuildManifest.contentHash("bag", "holds things"),
+                BuildManifest.contentHash("bag", "holds things"));
+        assertFalse(BuildManifest.contentHash("bag",
+                "holds things") == BuildManifest.contentHash("bag",
+                        "holds thing"));
+        assertFalse(BuildManifest.contentHash("bag",
+                "holds things") == BuildManifest.contentHash("bags",
+                        "holds things"));
+    }
+
+    /**
+     * routine case to test :the terms that mention a term change its content
+     * hash, unless there are none.
+     */
+    @Test
+    public void test_contentHash_2() {
+        long plain = BuildManifest.contentHash("bag", "holds things");
+
+        assertEquals(plain, BuildManifest.contentHash("bag", "holds things",
+                new String[] {}));
+        assertFalse(plain == BuildManifest.contentHash("bag", "holds things",
+                new String[] { "book" }));
+        assertFalse(BuildManifest.contentHash("bag", "holds things",
+                new String[] { "book", "pen" }) == BuildManifest.contentHash(
+                        "bag", "holds things", new String[] { "pen", "book" }));
+    }
+
+    /**
+     * routine case to test :the same terms in another index order are not the
+     * same keys.
+     */
+    @Test
+    public void test_sameKeys_1() {
+        PageOptions french = PageOptions.DEFAULT
+                .withCollation(new CollationOrder(Locale.FRENCH));
+        BuildManifest plain = new BuildManifest(keys("bag", "book"),
+                PageOptions.DEFAULT);
+
+        assertTrue(plain.sameKeys(new BuildManifest(keys("book", "bag"),
+                PageOptions.DEFAULT)));
+        assertFalse(plain.sameKeys(
+                new BuildManifest(keys("bag", "book"), french)));
+        assertTrue(new BuildManifest(keys("bag"), french)
+                .sameKeys(new BuildManifest(keys("bag"), french)));
+    }
+
+    /**
+     * routine case to test :terms missing from the current build are stale.
+     */
+    @Test
+    public void test_staleTerms_1() {
+        BuildManifest previous = new BuildManifest(keys("bag", "book"),
+                PageOptions.DEFAULT);
+        previous.record("bag", 1, 0);
+        previous.record("book", 2, 0);
+        BuildManifest current = new BuildManifest(keys("bag"),
+                PageOptions.DEFAULT);
+        current.record("bag", 1, 0);
+
+        Queue<String> stale = previous.staleTerms(current);
+
+        assertEquals(keys("book"), stale);
+        assertFalse(previous.sameKeys(current));
+    }
+
+}
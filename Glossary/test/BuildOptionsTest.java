@@ -0,0 +1,109 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class BuildOptionsTest {
+
+    /**
+     * boundary case to test :no options build plain pages.
+     */
+    @Test
+    public void test_parse_1() {
+        BuildOptions build = BuildOptions.parse(new String[0]);
+
+        assertNull(build.input());
+        assertNull(build.output());
+        assertEquals(-1, build.port());
+        assertFalse(build.incremental());
+        assertFalse(build.gzip());
+        assertNull(build.archive());
+        assertEquals(0, build.sortRun());
+        assertNull(build.separators());
+        assertNull(build.textOnlyOption());
+        assertSame(GlossaryMerge.Duplicates.FIRST, build.duplicates());
+        assertSame(SeparatorSet.DEFAULT, build.pages().separators());
+        assertFalse(build.pages().isIndexSharded());
+    }
+
+    /**
+     * routine case to test :switches and values of a build.
+     */
+    @Test
+    public void test_parse_2() {
+        BuildOptions build = BuildOptions.parse(new String[] {
+            "--input=terms.txt", "--output=site", "--watch", "--backlinks",
+            "--sort-memory=1000", "--index-page-size=50", "--locale=fr",
+            "--separators=.", "--duplicates=last" });
+
+        assertEquals("terms.txt", build.input());
+        assertEquals("site", build.output());
+        assertTrue(build.watch());
+        assertTrue(build.incremental());
+        assertTrue(build.backlinks());
+        assertEquals("--backlinks", build.textOnlyOption());
+        assertEquals(1000, build.sortRun());
+        assertEquals(50, build.pages().indexPageSize());
+        assertEquals("fr", build.pages().orderName());
+        assertTrue(build.separators().contains('.'));
+        assertSame(GlossaryMerge.Duplicates.LAST, build.duplicates());
+    }
+
+    /**
+     * routine case to test :the port to serve the pages on.
+     */
+    @Test
+    public void test_parse_3() {
+        assertEquals(8080,
+                BuildOptions.parse(new String[] { "--serve=8080" }).port());
+    }
+
+    /**
+     * challenge case to test :an unknown option is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_4() {
+        BuildOptions.parse(new String[] { "--gzipp" });
+    }
+
+    /**
+     * challenge case to test :a port that is not a number is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_5() {
+        BuildOptions.parse(new String[] { "--serve=x" });
+    }
+
+    /**
+     * challenge case to test :a switch given a value is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_6() {
+        BuildOptions.parse(new String[] { "--gzip=yes" });
+    }
+
+    /**
+     * challenge case to test :an option missing its value is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_7() {
+        BuildOptions.parse(new String[] { "--output" });
+    }
+
+    /**
+     * boundary case to test :a negative page size is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_8() {
+        BuildOptions.parse(new String[] { "--index-page-size=-1" });
+    }
+
+}
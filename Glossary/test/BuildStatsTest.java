@@ -0,0 +1,129 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class BuildStatsTest {
+
+    /**
+     * routine case to test :counters add up over a build.
+     */
+    @Test
+    public void test_endBuild_1() {
+        BuildStats stats = new BuildStats();
+
+        stats.startBuild();
+        stats.setTerms(3);
+        stats.addDescription(10, 2);
+        stats.addDescription(5, 1);
+        stats.addFile(100, 0);
+        stats.addFile(20, 0);
+        stats.endBuild();
+
+        assertEquals(1, stats.getBuilds());
+        assertEquals(3, stats.getTerms());
+        assertEquals(15, stats.getDescriptionChars());
+        assertEquals(3, stats.getLinks());
+        assertEquals(2, stats.getFilesWritten());
+        assertEquals(120, stats.getBytesWritten());
+    }
+
+    /**
+     * boundary case to test :a new build starts from zero.
+     */
+    @Test
+    public void test_startBuild_1() {
+        BuildStats stats = new BuildStats();
+        stats.startBuild();
+        stats.setTerms(3);
+        stats.addDescription(10, 2);
+        stats.addFile(100, 0);
+        stats.endBuild();
+
+        stats.startBuild();
+        stats.endBuild();
+
+        assertEquals(2, stats.getBuilds());
+        assertEquals(0, stats.getTerms());
+        assertEquals(0, stats.getLinks());
+        assertEquals(0, stats.getBytesWritten());
+        assertEquals(Long.valueOf(0),
+                stats.getStageMillis().get(BuildStats.Stage.SORT.label()));
+    }
+
+    /**
+     * routine case to test :a timed stage is reported under its name.
+     *
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void test_time_1() throws InterruptedException {
+        final long pause = 20;
+        BuildStats stats = new BuildStats();
+        stats.startBuild();
+
+        BuildStats.Timer sort = stats.time(BuildStats.Stage.SORT);
+        Thread.sleep(pause);
+        sort.close();
+        stats.endBuild();
+
+        assertTrue(stats.getStageMillis()
+                .get(BuildStats.Stage.SORT.label()) >= pause);
+        assertEquals(Long.valueOf(0),
+                stats.getStageMillis().get(BuildStats.Stage.PAGES.label()));
+        assertTrue(stats.getBuildMillis() >= pause);
+        assertTrue(stats.summary().contains("sort:"));
+    }
+
+    /**
+     * routine case to test :page outputs count the files and bytes written
+     * in their own statistics only.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_addFile_1() throws IOException {
+        Path file = Files.createTempFile("page", ".html");
+        BuildStats stats = new BuildStats();
+        PageWriter writer = new PageWriter();
+
+        writer.begin().append("<html>");
+        PageOutput.gzip(stats).write(writer, file);
+        PageOutput.files().write(writer, file);
+
+        assertEquals(2, stats.getFilesWritten());
+        assertTrue(stats.getBytesWritten() > "<html>".length());
+    }
+
+    /**
+     * boundary case to test :the statistics that record nothing stay empty.
+     */
+    @Test
+    public void test_none_1() {
+        BuildStats.NONE.startBuild();
+        BuildStats.NONE.addFile(1, 1);
+        BuildStats.NONE.addDescription(2, 1);
+        BuildStats.NONE.setTerms(3);
+        BuildStats.NONE.time(BuildStats.Stage.SORT).close();
+        BuildStats.NONE.endBuild();
+
+        assertEquals(0, BuildStats.NONE.getFilesWritten());
+        assertEquals(0, BuildStats.NONE.getLinks());
+        assertEquals(0, BuildStats.NONE.getTerms());
+        assertEquals(0L, (long) BuildStats.NONE.getStageMillis()
+                .get(BuildStats.Stage.SORT.label()));
+        assertEquals(0, BuildStats.NONE.getBuilds());
+    }
+
+}
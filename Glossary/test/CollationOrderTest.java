@@ -0,0 +1,64 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class CollationOrderTest {
+
+    /**
+     * routine case to test :case and accents do not decide the order before
+     * the letters do.
+     */
+    @Test
+    public void test_compare_1() {
+        CollationOrder order = new CollationOrder(Locale.ENGLISH);
+
+        assertTrue(order.compare("apple", "Zebra") < 0);
+        assertTrue(order.compare("\u00e9t\u00e9", "ever") < 0);
+        assertTrue(order.compare("Zebra", "apple") > 0);
+        assertEquals(0, order.compare("bag", "bag"));
+        assertEquals("en", order.toString());
+    }
+
+    /**
+     * routine case to test :sorting on collation keys gives the order of
+     * compare.
+     */
+    @Test
+    public void test_sort_1() {
+        CollationOrder order = new CollationOrder(Locale.FRENCH);
+        String[] terms = { "Zebra", "\u00e9t\u00e9", "apple", "ete", "Apple",
+                "zoo", "\u00c9t\u00e9" };
+        String[] expected = terms.clone();
+        Arrays.sort(expected, order);
+
+        order.sort(terms, 0, terms.length, false);
+
+        assertArrayEquals(expected, terms);
+        assertEquals("apple", terms[0]);
+        assertEquals("zoo", terms[terms.length - 1]);
+    }
+
+    /**
+     * boundary case to test :only the given range is sorted, in parallel.
+     */
+    @Test
+    public void test_sort_2() {
+        CollationOrder order = new CollationOrder(Locale.ENGLISH);
+        String[] terms = { "z", "b", "A", "a", "y" };
+
+        order.sort(terms, 1, 4, true);
+
+        assertArrayEquals(new String[] { "z", "a", "A", "b", "y" }, terms);
+    }
+
+}
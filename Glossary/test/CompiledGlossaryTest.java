@@ -0,0 +1,168 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class CompiledGlossaryTest {
+
+    /**
+     * Compiles the given term/description pairs into a temporary file.
+     *
+     * @param pairs
+     *            terms and descriptions, alternating
+     * @return the compiled glossary
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    private static CompiledGlossary compile(String... pairs)
+            throws IOException {
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < pairs.length; i += 2) {
+            dictionary.add(pairs[i], pairs[i + 1]);
+        }
+        Set<Character> separators = new Set1L<>();
+        GlossaryFacility.generateElements(" \t,", separators);
+        Path file = Files.createTempFile("glossary", ".bin");
+        CompiledGlossary.write(dictionary, SeparatorSet.of(separators), file);
+        assertTrue(CompiledGlossary.isCompiled(file));
+        return CompiledGlossary.open(file);
+    }
+
+    /**
+     * boundary case to test :empty glossary.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void test_open_1() throws IOException {
+        CompiledGlossary glossary = compile();
+
+        assertEquals(0, glossary.size());
+        assertEquals(-1, glossary.find("bag"));
+    }
+
+    /**
+     * routine case to test :entries are sorted and found by term.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void test_open_2() throws IOException {
+        CompiledGlossary glossary = compile("pen", "writes", "bag",
+                "holds a pen", "book", "");
+
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("bag");
+        keys.enqueue("book");
+        keys.enqueue("pen");
+        assertEquals(keys, glossary.keys());
+        assertEquals(0, glossary.find("bag"));
+        assertEquals(2, glossary.find("pen"));
+        assertEquals(-1, glossary.find("pe"));
+        assertEquals(-1, glossary.find("pens"));
+        assertEquals("holds a pen", glossary.description(0));
+        assertEquals("", glossary.description(1));
+    }
+
+    /**
+     * challenge case to test :precomputed links, including a multi-word term.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void test_links_1() throws IOException {
+        CompiledGlossary glossary = compile("hash map", "maps a key",
+                "key", "finds a hash map entry, or a key");
+
+        int key = glossary.find("key");
+        final int first = "finds a ".length();
+        final int second = "finds a hash map entry, or a ".length();
+        assertEquals(2, glossary.linkCount(key));
+        assertEquals(first, glossary.linkStart(key, 0));
+        assertEquals("hash map".length(), glossary.linkLength(key, 0));
+        assertEquals(glossary.find("hash map"), glossary.linkTarget(key, 0));
+        assertEquals(second, glossary.linkStart(key, 1));
+        assertEquals(key, glossary.linkTarget(key, 1));
+        assertEquals(1, glossary.linkCount(glossary.find("hash map")));
+    }
+
+    /**
+     * routine case to test :a text file is not a compiled glossary.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void test_isCompiled_1() throws IOException {
+        Path file = Files.createTempFile("glossary", ".txt");
+        Files.write(file,
+                "bag\nholds things\n".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(CompiledGlossary.isCompiled(file));
+    }
+
+    /**
+     * routine case to test :the separators are kept with the links.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void test_separators_1() throws IOException {
+        CompiledGlossary glossary = compile("bag", "holds things");
+
+        assertEquals(SeparatorSet.of(" \t,"), glossary.separators());
+    }
+
+    /**
+     * challenge case to test :a file of another format is refused.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_open_3() throws IOException {
+        Path file = Files.createTempFile("glossary", ".bin");
+        Files.write(file, "bag\nholds things\n".getBytes(
+                StandardCharsets.UTF_8));
+
+        CompiledGlossary.open(file);
+    }
+
+    /**
+     * challenge case to test :a file of another version is refused.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_open_4() throws IOException {
+        final byte[] version1 = { 0x47, 0x4C, 0x53, 0x59, 0, 0, 0, 1, 0, 0,
+                0, 0 };
+        Path file = Files.createTempFile("glossary", ".bin");
+        Files.write(file, version1);
+
+        assertTrue(CompiledGlossary.isCompiled(file));
+        CompiledGlossary.open(file);
+    }
+
+}
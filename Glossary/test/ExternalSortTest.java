@@ -0,0 +1,178 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class ExternalSortTest {
+
+    /**
+     * Returns the keys of {@code sort}, in the order it streams them.
+     *
+     * @param sort
+     *            the sort
+     * @return the keys
+     */
+    private static List<String> keys(ExternalSort sort) {
+        List<String> keys = new ArrayList<>();
+        for (String key : sort) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * routine case to test :keys that fit in memory are sorted without
+     * spilling.
+     */
+    @Test
+    public void test_iterator_1() {
+        try (ExternalSort sort = new ExternalSort(Comparator.naturalOrder(),
+                10)) {
+            sort.add("pen");
+            sort.add("bag");
+            sort.add("book");
+
+            assertEquals(Arrays.asList("bag", "book", "pen"), keys(sort));
+            assertEquals(0, sort.runCount());
+            assertEquals(3, sort.size());
+        }
+    }
+
+    /**
+     * routine case to test :spilled runs and buffered keys are merged, and
+     * can be streamed more than once.
+     */
+    @Test
+    public void test_iterator_2() {
+        try (ExternalSort sort = new ExternalSort(Comparator.naturalOrder(),
+                2)) {
+            for (String key : Arrays.asList("pen", "bag", "\u00e9t\u00e9",
+                    "book", "", "ink", "bag")) {
+                sort.add(key);
+            }
+
+            List<String> expected = Arrays.asList("", "bag", "bag", "book",
+                    "ink", "pen", "\u00e9t\u00e9");
+            assertEquals(3, sort.runCount());
+            assertEquals(expected, keys(sort));
+            assertEquals(expected, keys(sort));
+        }
+    }
+
+    /**
+     * boundary case to test :no keys.
+     */
+    @Test
+    public void test_iterator_3() {
+        try (ExternalSort sort = new ExternalSort(Comparator.naturalOrder(),
+                1)) {
+            assertEquals(new ArrayList<String>(), keys(sort));
+            assertEquals(0, sort.size());
+        }
+    }
+
+    /**
+     * challenge case to test :more runs than are merged at once, with keys
+     * the order ranks equal kept in the order they were added.
+     */
+    @Test
+    public void test_iterator_4() {
+        Comparator<String> byLength = (a, b) -> Integer.compare(a.length(),
+                b.length());
+        Random random = new Random(1);
+        List<String> added = new ArrayList<>();
+        try (ExternalSort sort = new ExternalSort(byLength, 3)) {
+            for (int i = 0; i < 1000; i++) {
+                String key = "k".repeat(random.nextInt(10)) + i;
+                added.add(key);
+                sort.add(key);
+            }
+            List<String> expected = new ArrayList<>(added);
+            expected.sort(byLength);
+
+            assertEquals(expected, keys(sort));
+            assertTrue(sort.runCount() < ExternalSort.FAN_IN);
+        }
+    }
+
+    /**
+     * routine case to test :runs sorted on collation keys merge in the order
+     * of the locale.
+     */
+    @Test
+    public void test_iterator_5() {
+        CollationOrder order = new CollationOrder(Locale.ENGLISH);
+        try (ExternalSort sort = new ExternalSort(order, 2)) {
+            for (String key : Arrays.asList("Zebra", "apple", "\u00e9t\u00e9",
+                    "Apple", "ever")) {
+                sort.add(key);
+            }
+
+            assertEquals(Arrays.asList("apple", "Apple", "\u00e9t\u00e9",
+                    "ever", "Zebra"), keys(sort));
+        }
+    }
+
+    /**
+     * challenge case to test :runs are merged by level, so a merged run is
+     * not merged again until its level is full, and the merge stays stable.
+     */
+    @Test
+    public void test_iterator_6() {
+        Comparator<String> byLength = (a, b) -> Integer.compare(a.length(),
+                b.length());
+        List<String> added = new ArrayList<>();
+        try (ExternalSort sort = new ExternalSort(byLength, 1)) {
+            for (int i = 0; i < 2 * ExternalSort.FAN_IN; i++) {
+                String key = "k".repeat(i % 7) + i;
+                added.add(key);
+                sort.add(key);
+            }
+            List<String> expected = new ArrayList<>(added);
+            expected.sort(byLength);
+
+            /*
+             * the first FAN_IN runs were merged into one run of level 1, and
+             * the FAN_IN - 1 runs spilled since are still on level 0
+             */
+            assertEquals(ExternalSort.FAN_IN, sort.runCount());
+            assertEquals(expected, keys(sort));
+        }
+    }
+
+    /**
+     * routine case to test :collation keys spilled with the keys merge, over
+     * more than one level, in the order of the locale.
+     */
+    @Test
+    public void test_iterator_7() {
+        CollationOrder order = new CollationOrder(Locale.FRENCH);
+        String[] words = { "\u00e9t\u00e9", "ete", "Et\u00e9", "apple",
+                "Apple", "zebra", "\u00c9cole", "ecole", "b" };
+        List<String> added = new ArrayList<>();
+        try (ExternalSort sort = new ExternalSort(order, 2)) {
+            for (int i = 0; i < 3 * ExternalSort.FAN_IN; i++) {
+                String key = words[i % words.length];
+                added.add(key);
+                sort.add(key);
+            }
+            List<String> expected = new ArrayList<>(added);
+            expected.sort(order);
+
+            assertEquals(expected, keys(sort));
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class GlossaryMergeTest {
+
+    /**
+     * Writes {@code text} to the file {@code name} of {@code folder}.
+     *
+     * @param folder
+     *            the folder
+     * @param name
+     *            the name of the file
+     * @param text
+     *            the text of the file
+     * @return the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static Path write(Path folder, String name, String text)
+            throws IOException {
+        Path file = folder.resolve(name);
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Returns three glossary text files that all define "bag".
+     *
+     * @return the files, in order
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    private static List<Path> files() throws IOException {
+        Path folder = Files.createTempDirectory("merge");
+        return Arrays.asList(
+                write(folder, "a.txt", "bag\nholds things\n\nbook\npages\n"),
+                write(folder, "b.txt", "bag\na sack\n"),
+                write(folder, "c.txt", "pen\nwrites\n\nbag\na pouch\n"));
+    }
+
+    /**
+     * routine case to test :the last description of a term wins, with any
+     * number of threads.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_of_1() throws IOException {
+        List<Path> files = files();
+
+        for (int threads = 1; threads <= 4; threads++) {
+            GlossaryMerge merge = GlossaryMerge.of(files,
+                    GlossaryMerge.Duplicates.LAST, threads);
+
+            assertEquals(3, merge.size());
+            assertEquals("a pouch", merge.description("bag"));
+            assertEquals("pages", merge.description("book"));
+            assertEquals(0, merge.duplicates().size());
+        }
+    }
+
+    /**
+     * routine case to test :the descriptions of a term are joined in file
+     * order.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_of_2() throws IOException {
+        GlossaryMerge merge = GlossaryMerge.of(files(),
+                GlossaryMerge.Duplicates.CONCATENATE, 2);
+
+        assertEquals("holds things a sack a pouch", merge.description("bag"));
+        assertEquals("writes", merge.description("pen"));
+    }
+
+    /**
+     * challenge case to test :a term defined twice is reported with the
+     * first two files that define it.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_of_3() throws IOException {
+        List<Path> files = files();
+
+        GlossaryMerge merge = GlossaryMerge.of(files,
+                GlossaryMerge.Duplicates.ERROR, 3);
+
+        assertEquals(1, merge.duplicates().size());
+        assertEquals(files.get(0) + ", " + files.get(1),
+                merge.duplicates().value("bag"));
+        assertEquals("holds things", merge.description("bag"));
+    }
+
+    /**
+     * challenge case to test :a term defined three times is reported with
+     * the first two files that define it, however the files are split
+     * between the threads.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_of_5() throws IOException {
+        List<Path> files = files();
+
+        for (int threads = 1; threads <= 4; threads++) {
+            GlossaryMerge merge = GlossaryMerge.of(files,
+                    GlossaryMerge.Duplicates.ERROR, threads);
+
+            assertEquals(files.get(0) + ", " + files.get(1),
+                    merge.duplicates().value("bag"));
+        }
+    }
+
+    /**
+     * routine case to test :the first description of a term wins, as in a
+     * single glossary text file.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_of_4() throws IOException {
+        GlossaryMerge merge = GlossaryMerge.of(files(),
+                GlossaryMerge.Duplicates.FIRST, 2);
+
+        assertEquals(3, merge.size());
+        assertEquals("holds things", merge.description("bag"));
+        assertEquals(0, merge.duplicates().size());
+    }
+
+    /**
+     * Returns the records of {@code merge}, a term, its description and a
+     * blank line for each.
+     *
+     * @param merge
+     *            the merged glossary
+     * @return the records, as a glossary text file
+     */
+    private static String records(GlossaryMerge merge) {
+        StringBuilder text = new StringBuilder();
+        try (TermReader records = merge.records()) {
+            while (records.next()) {
+                text.append(records.term()).append('\n')
+                        .append(records.description()).append("\n\n");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * boundary case to test :a term without a description keeps its empty
+     * description, and the records can be read again.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_records_1() throws IOException {
+        Path folder = Files.createTempDirectory("merge");
+        GlossaryMerge merge = GlossaryMerge.of(
+                Arrays.asList(write(folder, "a.txt", "bag\n\n\nbook\npages\n")),
+                GlossaryMerge.Duplicates.LAST, 2);
+
+        assertEquals("bag\n\n\nbook\npages\n\n", records(merge));
+        assertEquals("bag\n\n\nbook\npages\n\n", records(merge));
+    }
+
+    /**
+     * challenge case to test :the records of the merged glossary are in the
+     * order the terms were first defined, with any number of threads.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_records_2() throws IOException {
+        List<Path> files = files();
+
+        for (int threads = 1; threads <= 4; threads++) {
+            GlossaryMerge merge = GlossaryMerge.of(files,
+                    GlossaryMerge.Duplicates.LAST, threads);
+
+            assertEquals("bag\na pouch\n\nbook\npages\n\npen\nwrites\n\n",
+                    records(merge));
+        }
+    }
+
+    /**
+     * routine case to test :a folder and a glob name their files in order.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void test_sources_1() throws IOException {
+        Path folder = Files.createTempDirectory("merge");
+        Path b = write(folder, "b.txt", "bag\na sack\n");
+        Path a = write(folder, "a.txt", "bag\nholds things\n");
+        Path notes = write(folder, "notes.md", "not a glossary\n");
+        write(folder, ".hidden", "bag\nhidden\n");
+
+        assertTrue(GlossaryMerge.isBatch(folder.toString()));
+        assertTrue(GlossaryMerge.isBatch(folder + "/*.txt"));
+        assertFalse(GlossaryMerge.isBatch(a.toString()));
+        assertEquals(Arrays.asList(a, b, notes),
+                GlossaryMerge.sources(folder.toString()));
+        assertEquals(Arrays.asList(a, b),
+                GlossaryMerge.sources(folder + "/*.txt"));
+    }
+
+}
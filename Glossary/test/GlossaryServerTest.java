@@ -0,0 +1,345 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class GlossaryServerTest {
+
+    /**
+     * Longest time to wait for a changed glossary to be served, in
+     * milliseconds.
+     */
+    private static final long RELOAD_MILLIS = 10_000;
+
+    /**
+     * Time between two requests while waiting for a changed glossary, in
+     * milliseconds.
+     */
+    private static final long POLL_MILLIS = 50;
+
+    /**
+     * Writes a glossary text file.
+     *
+     * @param text
+     *            the contents
+     * @return the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static Path glossary(String text) throws IOException {
+        Path file = Files.createTempFile("glossary", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Starts a server for {@code file} on a free loopback port.
+     *
+     * @param file
+     *            the glossary text file
+     * @param cacheBytes
+     *            bound of the page cache, in bytes
+     * @return the server
+     */
+    private static GlossaryServer start(Path file, long cacheBytes) {
+        return new GlossaryServer(file, PageOptions.DEFAULT,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2,
+                cacheBytes);
+    }
+
+    /**
+     * Requests {@code path} from {@code server}.
+     *
+     * @param server
+     *            the server
+     * @param path
+     *            the path, already URL-encoded
+     * @return the status code, a newline, and the body
+     * @throws IOException
+     *             if the request fails
+     */
+    private static String get(GlossaryServer server, String path)
+            throws IOException {
+        URL url = new URL("http://localhost:" + server.port() + path);
+        HttpURLConnection connection = (HttpURLConnection) url
+                .openConnection();
+        try {
+            int status = connection.getResponseCode();
+            InputStream body;
+            if (status < 400) {
+                body = connection.getInputStream();
+            } else {
+                body = connection.getErrorStream();
+            }
+            try (InputStream in = body) {
+                return status + "\n"
+                        + new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Requests {@code path} from {@code server} until the answer contains
+     * {@code text}, for at most {@link #RELOAD_MILLIS}, since a changed
+     * glossary is loaded in the background.
+     *
+     * @param server
+     *            the server
+     * @param path
+     *            the path, already URL-encoded
+     * @param text
+     *            the text to wait for
+     * @return the last status code, a newline, and the body
+     * @throws IOException
+     *             if a request fails
+     */
+    private static String getEventually(GlossaryServer server, String path,
+            String text) throws IOException {
+        long deadline = System.currentTimeMillis() + RELOAD_MILLIS;
+        String res = get(server, path);
+        while (!res.contains(text) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return res;
+            }
+            res = get(server, path);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the page of a term as the facility renders it.
+     *
+     * @param term
+     *            the term
+     * @param description
+     *            the description of {@code term}
+     * @param terms
+     *            the glossary terms
+     * @return the page
+     */
+    private static String termPage(String term, String description,
+            String... terms) {
+        StringBuilder page = new StringBuilder();
+        GlossaryFacility.appendTermPage(page, term, description,
+                new TermMatcher(Arrays.asList(terms), SeparatorSet.DEFAULT));
+        return page.toString();
+    }
+
+    /**
+     * routine case to test :the index links every term in order.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_1() throws IOException {
+        Path file = glossary("map\na bag\n\nbag\nholds things\n");
+        try (GlossaryServer server = start(file, 1 << 20)) {
+            String index = get(server, "/index.html");
+
+            assertTrue(index.startsWith("200\n<html>"));
+            assertTrue(index.indexOf("bag.html") < index.indexOf("map.html"));
+            assertEquals(index, get(server, "/"));
+        }
+    }
+
+    /**
+     * routine case to test :a term page is the page the facility writes.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_2() throws IOException {
+        Path file = glossary("hash map\na bag\n\nbag\nholds things\n");
+        try (GlossaryServer server = start(file, 1 << 20)) {
+            assertEquals(
+                    "200\n" + termPage("hash map", "a bag", "hash map",
+                            "bag"),
+                    get(server, "/hash-20map.html"));
+            assertTrue(server.cachedBytes() > 0);
+        }
+    }
+
+    /**
+     * boundary case to test :unknown paths are not found.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_3() throws IOException {
+        Path file = glossary("bag\nholds things\n");
+        try (GlossaryServer server = start(file, 1 << 20)) {
+            assertEquals("404\nNot found", get(server, "/map.html"));
+            assertEquals("404\nNot found", get(server, "/.html"));
+            assertEquals("404\nNot found", get(server, "/bag"));
+        }
+    }
+
+    /**
+     * boundary case to test :with no room in the cache pages are still
+     * served.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_4() throws IOException {
+        Path file = glossary("bag\nholds things\n");
+        try (GlossaryServer server = start(file, 0)) {
+            assertEquals("200\n" + termPage("bag", "holds things", "bag"),
+                    get(server, "/bag.html"));
+            assertEquals(get(server, "/bag.html"), get(server, "/bag.html"));
+            assertEquals(0, server.cachedBytes());
+        }
+    }
+
+    /**
+     * challenge case to test :the cache evicts pages to stay in its bound.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_6() throws IOException {
+        Path file = glossary("bag\nholds things\n\nmap\na bag\n");
+        long onePage = termPage("bag", "holds things", "bag", "map")
+                .length();
+        try (GlossaryServer server = start(file, onePage + 10)) {
+            get(server, "/bag.html");
+            assertEquals(onePage, server.cachedBytes());
+            get(server, "/map.html");
+            get(server, "/bag.html");
+
+            assertTrue(server.cachedBytes() <= onePage + 10);
+            assertEquals(onePage, server.cachedBytes());
+        }
+    }
+
+    /**
+     * challenge case to test :a change to the glossary file is served.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_5() throws IOException {
+        Path file = glossary("bag\nholds things\n");
+        try (GlossaryServer server = start(file, 1 << 20)) {
+            get(server, "/bag.html");
+            Files.write(file, "bag\nholds a map\n\nmap\na bag\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(
+                    Files.getLastModifiedTime(file).toMillis() + 2000));
+
+            assertEquals(
+                    "200\n" + termPage("bag", "holds a map", "bag", "map"),
+                    getEventually(server, "/bag.html", "map.html"));
+            assertTrue(get(server, "/index.html").contains("map.html"));
+        }
+    }
+
+    /**
+     * routine case to test :completions of a prefix, as JSON.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_7() throws IOException {
+        Path file = glossary("bag\nholds things\n\nbat\nflies\n\n"
+                + "book\npages\n\nhash map\na bag\n");
+        try (GlossaryServer server = start(file, 1 << 20)) {
+            assertEquals("200\n{\"prefix\":\"ba\",\"terms\":["
+                    + "{\"term\":\"bag\",\"page\":\"bag.html\"},"
+                    + "{\"term\":\"bat\",\"page\":\"bat.html\"}],"
+                    + "\"complete\":true}", get(server, "/complete?prefix=ba"));
+            assertEquals("200\n{\"prefix\":\"b\",\"terms\":["
+                    + "{\"term\":\"bag\",\"page\":\"bag.html\"}],"
+                    + "\"complete\":false}",
+                    get(server, "/complete?prefix=b&k=1"));
+            assertTrue(get(server, "/complete?prefix=hash%20")
+                    .contains("\"hash-20map.html\""));
+            assertEquals("200\n{\"prefix\":\"z\",\"terms\":[],"
+                    + "\"complete\":true}", get(server, "/complete?prefix=z"));
+        }
+    }
+
+    /**
+     * challenge case to test :a glossary file that cannot be loaded leaves
+     * the last glossary loaded served until it can.
+     *
+     * @throws IOException
+     *             if the request fails
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void test_get_8() throws IOException, InterruptedException {
+        Path file = glossary("bag\nholds things\n");
+        try (GlossaryServer server = start(file, 1 << 20)) {
+            Files.delete(file);
+            Thread.sleep(GlossaryWatcher.DEFAULT_DEBOUNCE_MILLIS * 4);
+
+            assertEquals("200\n" + termPage("bag", "holds things", "bag"),
+                    get(server, "/bag.html"));
+
+            Files.write(file,
+                    "map\na bag\n".getBytes(StandardCharsets.UTF_8));
+
+            assertTrue(getEventually(server, "/index.html", "map.html")
+                    .contains("map.html"));
+        }
+    }
+
+    /**
+     * routine case to test :the pages are rendered with the templates and
+     * in the order of the page options.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    @Test
+    public void test_get_9() throws IOException {
+        Path file = glossary("fig\na fruit\n\n\u00e9clair\na cake\n");
+        PageOptions pages = PageOptions.DEFAULT
+                .withCollation(new CollationOrder(Locale.FRENCH))
+                .withTemplates(PageTemplate.termPage("<p>{{term}}</p>"),
+                        PageTemplate.INDEX_PAGE);
+        try (GlossaryServer server = new GlossaryServer(file, pages,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2,
+                1 << 20)) {
+            String index = get(server, "/index.html");
+
+            assertTrue(index.indexOf("clair</a>") < index.indexOf("fig</a>"));
+            assertEquals("200\n<p>fig</p>", get(server, "/fig.html"));
+            assertFalse(get(server, "/fig.html").contains("fruit"));
+        }
+    }
+
+}
@@ -1,514 +1,1003 @@
-import static org.junit.Assert.assertEquals;
-
-import java.util.Comparator;
-
-import org.junit.Test;
-
-import components.map.Map;
-import components.map.Map1L;
-import components.queue.Queue;
-import components.queue.Queue1L;
-import components.set.Set;
-import components.set.Set1L;
-import components.simplereader.SimpleReader;
-import components.simplereader.SimpleReader1L;
-import components.simplewriter.SimpleWriter;
-import components.simplewriter.SimpleWriter1L;
-
-/**
- *
- * @author Vivian Lu
- *
- */
-public class GlossaryTest {
-
-    /**
-     * Override the compare method in Comparator so that {@code String}s can be
-     * sorted in non-decreasing lexicographic order.
-     *
-     * @author Vivian
-     *
-     */
-    private static class StringLT implements Comparator<String> {
-        @Override
-        public int compare(String o1, String o2) {
-            return o1.compareTo(o2);
-        }
-    }
-
-    /**
-     * boundary case to test.
-     */
-    @Test
-    public void test_generateElements_1() {
-        /*
-         * set up variables and call method under test
-         */
-        String s = "a";
-        Set<Character> set = new Set1L<>();
-
-        GlossaryFacility.generateElements(s, set);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        Set<Character> res = set.newInstance();
-        res.add('a');
-        assertEquals(res, set);
-
-    }
-
-    /**
-     * routine case to test.
-     */
-    @Test
-    public void test_generateElements_2() {
-        /*
-         * set up variables and call method under test
-         */
-        String s = " \t, ";
-        Set<Character> set = new Set1L<>();
-
-        GlossaryFacility.generateElements(s, set);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        Set<Character> res = set.newInstance();
-        res.add(' ');
-        res.add('\t');
-        res.add(',');
-
-        assertEquals(res, set);
-    }
-
-    /**
-     * challenge case to test so that make sure this Set contains no duplicates.
-     */
-    @Test
-    public void test_generateElements_3() {
-        /*
-         * set up variables and call method under test
-         */
-        String s = "abccccccccd";
-        Set<Character> set = new Set1L<>();
-
-        GlossaryFacility.generateElements(s, set);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        Set<Character> res = set.newInstance();
-        res.add('a');
-        res.add('b');
-        res.add('c');
-        res.add('d');
-        assertEquals(res, set);
-    }
-
-    /**
-     * boundary case to test,position starts at zero,get a word.
-     */
-    @Test
-    public void test_nextWordOrSeparator_1() {
-        /*
-         * set up variables and call method under test
-         */
-
-        String text = "a    cd";
-        int position = 0;
-        Set<Character> separators = new Set1L<>();
-        separators.add(' ');
-        separators.add('\t');
-        separators.add(',');
-
-        String string = GlossaryFacility.nextWordOrSeparator(text, position,
-                separators);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        String res = "a";
-        assertEquals(res, string);
-    }
-
-    /**
-     * boundary case to test,position starts at zero,get a separator.
-     */
-    @Test
-    public void test_nextWordOrSeparator_2() {
-        /*
-         * set up variables and call method under test
-         */
-
-        String text = " a,nn    cd";
-        int position = 0;
-
-        String s = " \t, ";
-        Set<Character> set = new Set1L<>();
-
-        GlossaryFacility.generateElements(s, set);
-
-        Set<Character> separators = new Set1L<>();
-
-        separators.add(' ');
-        separators.add('\t');
-        separators.add(',');
-
-        String string = GlossaryFacility.nextWordOrSeparator(text, position,
-                separators);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        String res = " ";
-        assertEquals(res, string);
-    }
-
-    /**
-     * routine case to test,position is greater than 0.
-     */
-    @Test
-    public void test_nextWordOrSeparator_3() {
-        /*
-         * set up variables and call method under test
-         */
-
-        String text = "a,nn    cd";
-        int position = 1;
-        Set<Character> separators = new Set1L<>();
-        separators.add(' ');
-        separators.add('\t');
-        separators.add(',');
-
-        String string = GlossaryFacility.nextWordOrSeparator(text, position,
-                separators);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        String res = ",";
-        assertEquals(res, string);
-    }
-
-    /**
-     * challenge case to test,get separators in a row.
-     */
-    @Test
-    public void test_nextWordOrSeparator_4() {
-        /*
-         * set up variables and call method under test
-         */
-
-        String text = "a,nn    ,cd";
-        final int constantFour = 4;
-        int position = constantFour;
-        Set<Character> separators = new Set1L<>();
-        separators.add(' ');
-        separators.add('\t');
-        separators.add(',');
-
-        String string = GlossaryFacility.nextWordOrSeparator(text, position,
-                separators);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        String res = "    ,";
-        assertEquals(res, string);
-    }
-
-    /**
-     * boundary case to test,just one element in q.
-     */
-    @Test
-    public void test_removeMin_1() {
-        /*
-         * set up variables and call method under test
-         */
-
-        Queue<String> q = new Queue1L<>();
-        q.enqueue("v");
-        Comparator<String> order = new StringLT();
-
-        String min = GlossaryFacility.removeMin(q, order);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        String res = "v";
-        assertEquals(res, min);
-    }
-
-    /**
-     * routine case to test.
-     */
-    @Test
-    public void test_removeMin_2() {
-        /*
-         * set up variables and call method under test
-         */
-
-        Queue<String> q = new Queue1L<>();
-        q.enqueue("v");
-        q.enqueue("apple");
-        q.enqueue("bench");
-
-        Comparator<String> order = new StringLT();
-
-        String min = GlossaryFacility.removeMin(q, order);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        String res = "apple";
-        assertEquals(res, min);
-    }
-
-    /**
-     * challenge case to test,when some strings have the same prefix.
-     */
-    @Test
-    public void test_removeMin_3() {
-        /*
-         * set up variables and call method under test
-         */
-
-        Queue<String> q = new Queue1L<>();
-        q.enqueue("hello");
-        q.enqueue("apa");
-        q.enqueue("paper");
-        q.enqueue("app");
-
-        Comparator<String> order = new StringLT();
-
-        String min = GlossaryFacility.removeMin(q, order);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        String res = "apa";
-        assertEquals(res, min);
-
-    }
-
-    /**
-     * boundary case to test.
-     */
-    @Test
-    public void test_sortQueue_1() {
-        /*
-         * set up variables and call method under test
-         */
-
-        Comparator<String> order = new StringLT();
-        Queue<String> q = new Queue1L<>();
-        q.enqueue("ha");
-
-        GlossaryFacility.sortQueue(q, order);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        Queue<String> res = new Queue1L<>();
-        res.enqueue("ha");
-
-        assertEquals(res, q);
-    }
-
-    /**
-     * routine case to test.
-     */
-    @Test
-    public void test_sortQueue_2() {
-        /*
-         * set up variables and call method under test
-         */
-
-        Comparator<String> order = new StringLT();
-        Queue<String> q = new Queue1L<>();
-        q.enqueue("ha");
-        q.enqueue("d");
-        q.enqueue("paper");
-        q.enqueue("app");
-
-        GlossaryFacility.sortQueue(q, order);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        Queue<String> res = new Queue1L<>();
-        res.enqueue("app");
-        res.enqueue("d");
-        res.enqueue("ha");
-        res.enqueue("paper");
-
-        assertEquals(res, q);
-    }
-
-    /**
-     * challenge case to test,when some strings have same prefix in q.
-     */
-    @Test
-    public void test_sortQueue_3() {
-        /*
-         * set up variables and call method under test
-         */
-        Comparator<String> order = new StringLT();
-        Queue<String> q = new Queue1L<>();
-        q.enqueue("ha");
-        q.enqueue("app");
-        q.enqueue("paper");
-        q.enqueue("apa");
-
-        GlossaryFacility.sortQueue(q, order);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-        Queue<String> res = new Queue1L<>();
-        res.enqueue("apa");
-        res.enqueue("app");
-        res.enqueue("ha");
-        res.enqueue("paper");
-
-        assertEquals(res, q);
-    }
-
-    /**
-     * boundary case to test :no link at all.
-     */
-    @Test
-    public void test_printDescription_1() {
-        /*
-         * set up variables and call method under test
-         */
-        SimpleWriter text = new SimpleWriter1L("result.txt");
-        String description = "book";
-        Set<Character> separators = new Set1L<>();
-        separators.add(' ');
-        separators.add('\t');
-        separators.add(',');
-
-        Map<String, String> map = new Map1L<>();
-        map.add("bag", "school");
-
-        GlossaryFacility.printDescription(text, description, separators, map);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-
-        SimpleWriter res = new SimpleWriter1L("expect.txt");
-        res.println("<blockquote>");
-        res.print(description);
-        res.println("</blockquote>");
-
-        SimpleReader r1 = new SimpleReader1L("result.txt");
-        SimpleReader r2 = new SimpleReader1L("expect.txt");
-
-        String actual = "";
-        String expected = "";
-        while (!r1.atEOS() && !r2.atEOS()) {
-            actual += r1.nextLine();
-            expected += r2.nextLine();
-        }
-
-        assertEquals(expected, actual);
-        r1.close();
-        r2.close();
-        res.close();
-    }
-
-    /**
-     * routine case to test :one link.
-     */
-    @Test
-    public void test_printDescription_2() {
-        /*
-         * set up variables and call method under test
-         */
-        SimpleWriter text = new SimpleWriter1L("result.txt");
-        String description = "bag has book";
-        Set<Character> separators = new Set1L<>();
-        separators.add(' ');
-        separators.add('\t');
-        separators.add(',');
-
-        Map<String, String> map = new Map1L<>();
-        map.add("bag", "school");
-
-        GlossaryFacility.printDescription(text, description, separators, map);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-
-        SimpleWriter res = new SimpleWriter1L("expect.txt");
-        res.println("<blockquote>");
-        res.print("<a href=\"bag.html\">bag</a> has book");
-        res.println("</blockquote>");
-
-        SimpleReader r1 = new SimpleReader1L("result.txt");
-        SimpleReader r2 = new SimpleReader1L("expect.txt");
-
-        String actual = "";
-        String expected = "";
-        while (!r1.atEOS() && !r2.atEOS()) {
-            actual += r1.nextLine();
-            expected += r2.nextLine();
-        }
-
-        assertEquals(expected, actual);
-        r1.close();
-        r2.close();
-        res.close();
-    }
-
-    /**
-     * routine case to test :multiple links.
-     */
-    @Test
-    public void test_printDescription_3() {
-        /*
-         * set up variables and call method under test
-         */
-        SimpleWriter text = new SimpleWriter1L("result.txt");
-        String description = "bag has book";
-        Set<Character> separators = new Set1L<>();
-        separators.add(' ');
-        separators.add('\t');
-        separators.add(',');
-
-        Map<String, String> map = new Map1L<>();
-        map.add("bag", "school");
-        map.add("book", "school");
-
-        GlossaryFacility.printDescription(text, description, separators, map);
-
-        /*
-         * Assert that values of variables match expectation
-         */
-
-        SimpleWriter res = new SimpleWriter1L("expect.txt");
-        res.println("<blockquote>");
-        res.print(
-                "<a href=\"bag.html\">bag</a> has <a href=\"book.html\">book</a>");
-        res.println("</blockquote>");
-
-        SimpleReader r1 = new SimpleReader1L("result.txt");
-        SimpleReader r2 = new SimpleReader1L("expect.txt");
-
-        String actual = "";
-        String expected = "";
-        while (!r1.atEOS() && !r2.atEOS()) {
-            actual += r1.nextLine();
-            expected += r2.nextLine();
-        }
-
-        assertEquals(expected, actual);
-        r1.close();
-        r2.close();
-        res.close();
-    }
-}
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class GlossaryTest {
+
+    /**
+     * Override the compare method in Comparator so that {@code String}s can be
+     * sorted in non-decreasing lexicographic order.
+     *
+     * @author Vivian
+     *
+     */
+    private static class StringLT implements Comparator<String> {
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * boundary case to test.
+     */
+    @Test
+    public void test_generateElements_1() {
+        /*
+         * set up variables and call method under test
+         */
+        String s = "a";
+        Set<Character> set = new Set1L<>();
+
+        GlossaryFacility.generateElements(s, set);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        Set<Character> res = set.newInstance();
+        res.add('a');
+        assertEquals(res, set);
+
+    }
+
+    /**
+     * routine case to test.
+     */
+    @Test
+    public void test_generateElements_2() {
+        /*
+         * set up variables and call method under test
+         */
+        String s = " \t, ";
+        Set<Character> set = new Set1L<>();
+
+        GlossaryFacility.generateElements(s, set);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        Set<Character> res = set.newInstance();
+        res.add(' ');
+        res.add('\t');
+        res.add(',');
+
+        assertEquals(res, set);
+    }
+
+    /**
+     * challenge case to test so that make sure this Set contains no duplicates.
+     */
+    @Test
+    public void test_generateElements_3() {
+        /*
+         * set up variables and call method under test
+         */
+        String s = "abccccccccd";
+        Set<Character> set = new Set1L<>();
+
+        GlossaryFacility.generateElements(s, set);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        Set<Character> res = set.newInstance();
+        res.add('a');
+        res.add('b');
+        res.add('c');
+        res.add('d');
+        assertEquals(res, set);
+    }
+
+    /**
+     * boundary case to test,position starts at zero,get a word.
+     */
+    @Test
+    public void test_nextWordOrSeparator_1() {
+        /*
+         * set up variables and call method under test
+         */
+
+        String text = "a    cd";
+        int position = 0;
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        String string = GlossaryFacility.nextWordOrSeparator(text, position,
+                separators);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        String res = "a";
+        assertEquals(res, string);
+    }
+
+    /**
+     * boundary case to test,position starts at zero,get a separator.
+     */
+    @Test
+    public void test_nextWordOrSeparator_2() {
+        /*
+         * set up variables and call method under test
+         */
+
+        String text = " a,nn    cd";
+        int position = 0;
+
+        String s = " \t, ";
+        Set<Character> set = new Set1L<>();
+
+        GlossaryFacility.generateElements(s, set);
+
+        Set<Character> separators = new Set1L<>();
+
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        String string = GlossaryFacility.nextWordOrSeparator(text, position,
+                separators);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        String res = " ";
+        assertEquals(res, string);
+    }
+
+    /**
+     * routine case to test,position is greater than 0.
+     */
+    @Test
+    public void test_nextWordOrSeparator_3() {
+        /*
+         * set up variables and call method under test
+         */
+
+        String text = "a,nn    cd";
+        int position = 1;
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        String string = GlossaryFacility.nextWordOrSeparator(text, position,
+                separators);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        String res = ",";
+        assertEquals(res, string);
+    }
+
+    /**
+     * challenge case to test,get separators in a row.
+     */
+    @Test
+    public void test_nextWordOrSeparator_4() {
+        /*
+         * set up variables and call method under test
+         */
+
+        String text = "a,nn    ,cd";
+        final int constantFour = 4;
+        int position = constantFour;
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        String string = GlossaryFacility.nextWordOrSeparator(text, position,
+                separators);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        String res = "    ,";
+        assertEquals(res, string);
+    }
+
+    /**
+     * routine case to test,end of a word in the middle of the text.
+     */
+    @Test
+    public void test_nextWordOrSeparatorEnd_1() {
+        /*
+         * set up variables and call method under test
+         */
+        String text = "a,nn    ,cd";
+        Set<Character> separators = new Set1L<>();
+        GlossaryFacility.generateElements(" \t,", separators);
+        SeparatorSet set = SeparatorSet.of(separators);
+
+        int end = GlossaryFacility.nextWordOrSeparatorEnd(text, 2, set);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        final int expected = 4;
+        assertEquals(expected, end);
+    }
+
+    /**
+     * challenge case to test,separators run to the end of the text.
+     */
+    @Test
+    public void test_nextWordOrSeparatorEnd_2() {
+        /*
+         * set up variables and call method under test
+         */
+        String text = "cd , \t";
+        Set<Character> separators = new Set1L<>();
+        GlossaryFacility.generateElements(" \t,", separators);
+        SeparatorSet set = SeparatorSet.of(separators);
+
+        int end = GlossaryFacility.nextWordOrSeparatorEnd(text, 2, set);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(text.length(), end);
+    }
+
+    /**
+     * boundary case to test,just one element in q.
+     */
+    @Test
+    public void test_removeMin_1() {
+        /*
+         * set up variables and call method under test
+         */
+
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("v");
+        Comparator<String> order = new StringLT();
+
+        String min = GlossaryFacility.removeMin(q, order);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        String res = "v";
+        assertEquals(res, min);
+    }
+
+    /**
+     * routine case to test.
+     */
+    @Test
+    public void test_removeMin_2() {
+        /*
+         * set up variables and call method under test
+         */
+
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("v");
+        q.enqueue("apple");
+        q.enqueue("bench");
+
+        Comparator<String> order = new StringLT();
+
+        String min = GlossaryFacility.removeMin(q, order);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        String res = "apple";
+        assertEquals(res, min);
+    }
+
+    /**
+     * challenge case to test,when some strings have the same prefix.
+     */
+    @Test
+    public void test_removeMin_3() {
+        /*
+         * set up variables and call method under test
+         */
+
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("hello");
+        q.enqueue("apa");
+        q.enqueue("paper");
+        q.enqueue("app");
+
+        Comparator<String> order = new StringLT();
+
+        String min = GlossaryFacility.removeMin(q, order);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        String res = "apa";
+        assertEquals(res, min);
+
+    }
+
+    /**
+     * boundary case to test.
+     */
+    @Test
+    public void test_sortQueue_1() {
+        /*
+         * set up variables and call method under test
+         */
+
+        Comparator<String> order = new StringLT();
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("ha");
+
+        GlossaryFacility.sortQueue(q, order);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        Queue<String> res = new Queue1L<>();
+        res.enqueue("ha");
+
+        assertEquals(res, q);
+    }
+
+    /**
+     * routine case to test.
+     */
+    @Test
+    public void test_sortQueue_2() {
+        /*
+         * set up variables and call method under test
+         */
+
+        Comparator<String> order = new StringLT();
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("ha");
+        q.enqueue("d");
+        q.enqueue("paper");
+        q.enqueue("app");
+
+        GlossaryFacility.sortQueue(q, order);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        Queue<String> res = new Queue1L<>();
+        res.enqueue("app");
+        res.enqueue("d");
+        res.enqueue("ha");
+        res.enqueue("paper");
+
+        assertEquals(res, q);
+    }
+
+    /**
+     * challenge case to test,when some strings have same prefix in q.
+     */
+    @Test
+    public void test_sortQueue_3() {
+        /*
+         * set up variables and call method under test
+         */
+        Comparator<String> order = new StringLT();
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("ha");
+        q.enqueue("app");
+        q.enqueue("paper");
+        q.enqueue("apa");
+
+        GlossaryFacility.sortQueue(q, order);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        Queue<String> res = new Queue1L<>();
+        res.enqueue("apa");
+        res.enqueue("app");
+        res.enqueue("ha");
+        res.enqueue("paper");
+
+        assertEquals(res, q);
+    }
+
+    /**
+     * boundary case to test,empty q and duplicate entries.
+     */
+    @Test
+    public void test_sortQueue_4() {
+        /*
+         * set up variables and call method under test
+         */
+        Comparator<String> order = new StringLT();
+        Queue<String> empty = new Queue1L<>();
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("b");
+        q.enqueue("a");
+        q.enqueue("b");
+        q.enqueue("a");
+
+        GlossaryFacility.sortQueue(empty, order);
+        GlossaryFacility.sortQueue(q, order);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        Queue<String> res = new Queue1L<>();
+        res.enqueue("a");
+        res.enqueue("a");
+        res.enqueue("b");
+        res.enqueue("b");
+
+        assertEquals(new Queue1L<String>(), empty);
+        assertEquals(res, q);
+    }
+
+    /**
+     * challenge case to test,parallel mode on a q large enough to be split.
+     */
+    @Test
+    public void test_sortQueue_5() {
+        /*
+         * set up variables and call method under test
+         */
+        Comparator<String> order = new StringLT();
+        final int size = GlossaryFacility.PARALLEL_SORT_THRESHOLD * 2;
+        final int step = 7919;
+        Queue<String> q = new Queue1L<>();
+        for (int i = 0; i < size; i++) {
+            q.enqueue("term" + (i * step) % size);
+        }
+
+        GlossaryFacility.sortQueue(q, order, true);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(size, q.length());
+        String previous = q.dequeue();
+        while (q.length() > 0) {
+            String next = q.dequeue();
+            assertTrue(order.compare(previous, next) <= 0);
+            previous = next;
+        }
+    }
+
+    /**
+     * boundary case to test :no link at all.
+     */
+    @Test
+    public void test_printDescription_1() {
+        /*
+         * set up variables and call method under test
+         */
+        SimpleWriter text = new SimpleWriter1L("result.txt");
+        String description = "book";
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        Map<String, String> map = new Map1L<>();
+        map.add("bag", "school");
+
+        GlossaryFacility.printDescription(text, description, separators, map);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+
+        SimpleWriter res = new SimpleWriter1L("expect.txt");
+        res.println("<blockquote>");
+        res.print(description);
+        res.println("</blockquote>");
+
+        SimpleReader r1 = new SimpleReader1L("result.txt");
+        SimpleReader r2 = new SimpleReader1L("expect.txt");
+
+        String actual = "";
+        String expected = "";
+        while (!r1.atEOS() && !r2.atEOS()) {
+            actual += r1.nextLine();
+            expected += r2.nextLine();
+        }
+
+        assertEquals(expected, actual);
+        r1.close();
+        r2.close();
+        res.close();
+    }
+
+    /**
+     * routine case to test :one link.
+     */
+    @Test
+    public void test_printDescription_2() {
+        /*
+         * set up variables and call method under test
+         */
+        SimpleWriter text = new SimpleWriter1L("result.txt");
+        String description = "bag has book";
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        Map<String, String> map = new Map1L<>();
+        map.add("bag", "school");
+
+        GlossaryFacility.printDescription(text, description, separators, map);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+
+        SimpleWriter res = new SimpleWriter1L("expect.txt");
+        res.println("<blockquote>");
+        res.print("<a href=\"bag.html\">bag</a> has book");
+        res.println("</blockquote>");
+
+        SimpleReader r1 = new SimpleReader1L("result.txt");
+        SimpleReader r2 = new SimpleReader1L("expect.txt");
+
+        String actual = "";
+        String expected = "";
+        while (!r1.atEOS() && !r2.atEOS()) {
+            actual += r1.nextLine();
+            expected += r2.nextLine();
+        }
+
+        assertEquals(expected, actual);
+        r1.close();
+        r2.close();
+        res.close();
+    }
+
+    /**
+     * routine case to test :multiple links.
+     */
+    @Test
+    public void test_printDescription_3() {
+        /*
+         * set up variables and call method under test
+         */
+        SimpleWriter text = new SimpleWriter1L("result.txt");
+        String description = "bag has book";
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        Map<String, String> map = new Map1L<>();
+        map.add("bag", "school");
+        map.add("book", "school");
+
+        GlossaryFacility.printDescription(text, description, separators, map);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+
+        SimpleWriter res = new SimpleWriter1L("expect.txt");
+        res.println("<blockquote>");
+        res.print(
+                "<a href=\"bag.html\">bag</a> has <a href=\"book.html\">book</a>");
+        res.println("</blockquote>");
+
+        SimpleReader r1 = new SimpleReader1L("result.txt");
+        SimpleReader r2 = new SimpleReader1L("expect.txt");
+
+        String actual = "";
+        String expected = "";
+        while (!r1.atEOS() && !r2.atEOS()) {
+            actual += r1.nextLine();
+            expected += r2.nextLine();
+        }
+
+        assertEquals(expected, actual);
+        r1.close();
+        r2.close();
+        res.close();
+    }
+
+    /**
+     * challenge case to test :multi-word term and overlapping single words.
+     */
+    @Test
+    public void test_printDescription_4() {
+        /*
+         * set up variables and call method under test
+         */
+        SimpleWriter text = new SimpleWriter1L("result.txt");
+        String description = "a hash map, hash";
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('\t');
+        separators.add(',');
+
+        Map<String, String> map = new Map1L<>();
+        map.add("hash", "mix");
+        map.add("hash map", "table");
+
+        GlossaryFacility.printDescription(text, description, separators, map);
+        text.close();
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        SimpleReader r1 = new SimpleReader1L("result.txt");
+        String actual = "";
+        while (!r1.atEOS()) {
+            actual += r1.nextLine();
+        }
+        r1.close();
+
+        assertEquals("<blockquote>a <a href=\"hash-20map.html\">hash map</a>, "
+                + "<a href=\"hash.html\">hash</a></blockquote>", actual);
+    }
+
+    /**
+     * routine case to test :every page is written and closed.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_generateTermPages_1() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        Map<String, String> map = new Map1L<>();
+        map.add("bag", "holds a book");
+        map.add("book", "read it");
+        map.add("pen", "writes in a book");
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("bag");
+        keys.enqueue("book");
+        keys.enqueue("pen");
+        Set<Character> separators = new Set1L<>();
+        GlossaryFacility.generateElements(" \t,", separators);
+        TermMatcher matcher = new TermMatcher(keys,
+                SeparatorSet.of(separators));
+
+        Map<String, String> failures = GlossaryFacility
+                .generateTermPages(map, folder, matcher, 2);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        for (String key : keys) {
+            SimpleReader page = new SimpleReader1L(
+                    folder + "/" + key + ".html");
+            String actual = "";
+            while (!page.atEOS()) {
+                actual += page.nextLine();
+            }
+            page.close();
+            assertTrue(actual.contains("<title>" + key + "</title>"));
+            assertTrue(actual.endsWith("</body></html>"));
+        }
+    }
+
+    /**
+     * routine case to test :with a full-text index, each page ends with the
+     * terms that mention its term.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_generateChangedTermPages_1() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        Path file = Paths.get(folder, "terms.txt");
+        Files.write(file, Arrays.asList("bag", "holds a book", "", "book",
+                "read it", "", "pen", "writes in a book", ""));
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("bag");
+        keys.enqueue("book");
+        keys.enqueue("pen");
+        TermMatcher matcher = new TermMatcher(keys, SeparatorSet.DEFAULT);
+        LinkGraph graph;
+        try (TermReader records = new TermReader(file.toString())) {
+            graph = LinkGraph.of(records, matcher);
+        }
+        PageOptions options = PageOptions.DEFAULT.withBacklinks(graph)
+                .withThreads(2);
+
+        Map<String, String> failures;
+        try (TermReader records = new TermReader(file.toString())) {
+            failures = GlossaryFacility.generateChangedTermPages(records,
+                    folder, matcher, options, new BuildManifest(),
+                    new BuildManifest(keys, options));
+        }
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        assertTrue(contents(folder + "/book.html")
+                .contains("</blockquote><p>Referenced by: "
+                        + "<a href=\"bag.html\">bag</a>, "
+                        + "<a href=\"pen.html\">pen</a></p>"));
+        assertFalse(contents(folder + "/bag.html").contains("Referenced by"));
+    }
+
+    /**
+     * challenge case to test :a term mentioned only inside a longer term
+     * that is linked instead is not referenced by the description.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_generateChangedTermPages_3() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        Path file = Paths.get(folder, "terms.txt");
+        Files.write(file, Arrays.asList("big data", "a lot of it", "", "data",
+                "facts", "", "hadoop", "stores big data", ""));
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("big data");
+        keys.enqueue("data");
+        keys.enqueue("hadoop");
+        TermMatcher matcher = new TermMatcher(keys, SeparatorSet.DEFAULT);
+        LinkGraph graph;
+        try (TermReader records = new TermReader(file.toString())) {
+            graph = LinkGraph.of(records, matcher);
+        }
+        PageOptions options = PageOptions.DEFAULT.withBacklinks(graph)
+                .withThreads(1);
+
+        Map<String, String> failures;
+        try (TermReader records = new TermReader(file.toString())) {
+            failures = GlossaryFacility.generateChangedTermPages(records,
+                    folder, matcher, options, new BuildManifest(),
+                    new BuildManifest(keys, options));
+        }
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        assertTrue(contents(
+                folder + "/" + GlossaryFacility.termPageName("big data"))
+                .contains("<a href=\"hadoop.html\">hadoop</a>"));
+        assertFalse(contents(folder + "/data.html").contains("Referenced by"));
+    }
+
+    /**
+     * challenge case to test :a term defined twice gets one page, with its
+     * first description.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_generateChangedTermPages_2() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        Path file = Paths.get(folder, "terms.txt");
+        Files.write(file, Arrays.asList("bag", "holds a book", "", "book",
+                "read it", "", "bag", "a sack", ""));
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("bag");
+        keys.enqueue("book");
+        TermMatcher matcher = new TermMatcher(keys, SeparatorSet.DEFAULT);
+        PageOptions options = PageOptions.DEFAULT.withThreads(1);
+        BuildManifest current = new BuildManifest(keys, options);
+
+        Map<String, String> failures;
+        try (TermReader records = new TermReader(file.toString())) {
+            failures = GlossaryFacility.generateChangedTermPages(records,
+                    folder, matcher, options, new BuildManifest(), current);
+        }
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        String bag = contents(folder + "/bag.html");
+        assertTrue(bag.contains("holds a"));
+        assertFalse(bag.contains("a sack"));
+        assertTrue(current.isCurrent("bag",
+                BuildManifest.contentHash("bag", "holds a book"),
+                BuildManifest.linksHash(matcher.matches("holds a book"),
+                        matcher)));
+    }
+
+    /**
+     * Returns the contents of a file, one string per line.
+     *
+     * @param file
+     *            the file
+     * @return the contents, with the line separators removed
+     */
+    private static String contents(String file) {
+        SimpleReader page = new SimpleReader1L(file);
+        String actual = "";
+        while (!page.atEOS()) {
+            actual += page.nextLine();
+        }
+        page.close();
+        return actual;
+    }
+
+    /**
+     * routine case to test :writeIndexShards by leading letter.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_writeIndexShards_1() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("Zoo");
+        keys.enqueue("bag");
+        keys.enqueue("book");
+        keys.enqueue("pen");
+
+        Map<String, String> failures = GlossaryFacility.writeIndexShards(keys,
+                folder, PageOptions.DEFAULT.withIndexShards(true, 0)
+                        .withThreads(2));
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        String index = contents(folder + "/index.html");
+        assertTrue(index.contains("<a href = \"index/_z.html\">Z</a> (1)"));
+        assertTrue(index.indexOf("index/b.html\">b</a> (2)") < index
+                .indexOf("index/p.html\">p</a> (1)"));
+        String b = contents(folder + "/index/b.html");
+        assertTrue(b.contains("<li><a href = \"../bag.html\">bag</a></li>"
+                + "<li><a href = \"../book.html\">book</a></li>    </ul>"));
+        assertTrue(contents(folder + "/index/p.html").contains("../pen.html"));
+    }
+
+    /**
+     * challenge case to test :writeIndexShards by page size deletes the
+     * shards of a larger index.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_writeIndexShards_2() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("bag");
+        keys.enqueue("book");
+        keys.enqueue("pen");
+        PageOptions options = PageOptions.DEFAULT.withIndexShards(false, 1)
+                .withThreads(2);
+        GlossaryFacility.writeIndexShards(keys, folder, options);
+        keys.dequeue();
+
+        Map<String, String> failures = GlossaryFacility.writeIndexShards(keys,
+                folder, options);
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        String index = contents(folder + "/index.html");
+        assertTrue(index.contains("\"index/1.html\">book - book</a> (1)"));
+        assertTrue(index.contains("\"index/2.html\">pen - pen</a> (1)"));
+        assertTrue(contents(folder + "/index/2.html").contains("../pen.html"));
+        assertFalse(Files.exists(Paths.get(folder, "index", "3.html")));
+    }
+
+    /**
+     * challenge case to test :writeIndexShards by leading letter in the order
+     * of a locale puts the terms that differ in case in one shard.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_writeIndexShards_3() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        CollationOrder english = new CollationOrder(Locale.ENGLISH);
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("Banana");
+        keys.enqueue("apple");
+        keys.enqueue("bar");
+        keys.enqueue("Apple");
+        keys.enqueue("banana");
+        GlossaryFacility.sortQueue(keys, english);
+
+        Map<String, String> failures = GlossaryFacility.writeIndexShards(keys,
+                folder, PageOptions.DEFAULT.withCollation(english)
+                        .withIndexShards(true, 0).withThreads(2));
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        String index = contents(folder + "/index.html");
+        assertTrue(index.contains("\"index/a.html\">a</a> (2)"));
+        assertTrue(index.contains("\"index/b.html\">b</a> (3)"));
+        assertFalse(index.contains("u4"));
+        String b = contents(folder + "/index/b.html");
+        assertTrue(b.contains("../banana.html"));
+        assertTrue(b.contains("../bar.html"));
+    }
+
+    /**
+     * boundary case to test :writeIndexShards by leading letter never writes
+     * two shards of a letter that comes back under the same name.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be created
+     */
+    @Test
+    public void test_writeIndexShards_4() throws IOException {
+        /*
+         * set up variables and call method under test
+         */
+        String folder = Files.createTempDirectory("glossary").toString();
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("bag");
+        keys.enqueue("\u00c0 la carte");
+        keys.enqueue("Book");
+
+        Map<String, String> failures = GlossaryFacility.writeIndexShards(keys,
+                folder, PageOptions.DEFAULT
+                        .withCollation(new CollationOrder(Locale.FRENCH))
+                        .withIndexShards(true, 0).withThreads(1));
+
+        /*
+         * Assert that values of variables match expectation
+         */
+        assertEquals(0, failures.size());
+        String index = contents(folder + "/index.html");
+        assertTrue(index.contains("\"index/b.html\">b</a> (1)"));
+        assertTrue(index.contains("\"index/a.html\">a</a> (1)"));
+        assertTrue(index.contains("\"index/b-2.html\">b: Book - Book</a>"));
+        assertTrue(contents(folder + "/index/b.html").contains("../bag.html"));
+    }
+}
@@ -0,0 +1,138 @@
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class GlossaryWatcherTest {
+
+    /**
+     * Debounce delay of the watchers under test, in milliseconds.
+     */
+    private static final long DEBOUNCE = 50;
+
+    /**
+     * Longest wait for a change that is expected, in milliseconds.
+     */
+    private static final long EXPECTED = 10000;
+
+    /**
+     * Wait for a change that is not expected, in milliseconds.
+     */
+    private static final long UNEXPECTED = 300;
+
+    /**
+     * Writes {@code text} to {@code file}.
+     *
+     * @param file
+     *            the file
+     * @param text
+     *            the contents
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static void write(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * boundary case to test :no change times out.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_awaitChange_1() throws IOException {
+        Path file = Files.createTempDirectory("watch").resolve("terms.txt");
+        write(file, "bag\nholds things\n");
+        try (GlossaryWatcher watcher = new GlossaryWatcher(file, DEBOUNCE)) {
+            assertFalse(watcher.awaitChange(UNEXPECTED));
+        }
+    }
+
+    /**
+     * routine case to test :a write to the file is a change, and a burst of
+     * writes is one change.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_awaitChange_2() throws IOException {
+        Path file = Files.createTempDirectory("watch").resolve("terms.txt");
+        write(file, "bag\nholds things\n");
+        try (GlossaryWatcher watcher = new GlossaryWatcher(file, DEBOUNCE)) {
+            write(file, "bag\nholds a book\n");
+            write(file, "bag\nholds a pen\n");
+
+            assertTrue(watcher.awaitChange(EXPECTED));
+            assertFalse(watcher.awaitChange(UNEXPECTED));
+        }
+    }
+
+    /**
+     * routine case to test :other files in the folder are not changes.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_awaitChange_3() throws IOException {
+        Path folder = Files.createTempDirectory("watch");
+        Path file = folder.resolve("terms.txt");
+        write(file, "bag\nholds things\n");
+        try (GlossaryWatcher watcher = new GlossaryWatcher(file, DEBOUNCE)) {
+            write(folder.resolve("bag.html"), "<html></html>");
+
+            assertFalse(watcher.awaitChange(UNEXPECTED));
+        }
+    }
+
+    /**
+     * challenge case to test :replacing the file by a rename is a change.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_awaitChange_4() throws IOException {
+        Path folder = Files.createTempDirectory("watch");
+        Path file = folder.resolve("terms.txt");
+        write(file, "bag\nholds things\n");
+        try (GlossaryWatcher watcher = new GlossaryWatcher(file, DEBOUNCE)) {
+            Path saved = folder.resolve("terms.txt.tmp");
+            write(saved, "bag\nholds a book\n");
+            Files.move(saved, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            assertTrue(watcher.awaitChange(EXPECTED));
+        }
+    }
+
+    /**
+     * boundary case to test :a closed watcher reports no change.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_awaitChange_5() throws IOException {
+        Path file = Files.createTempDirectory("watch").resolve("terms.txt");
+        write(file, "bag\nholds things\n");
+        GlossaryWatcher watcher = new GlossaryWatcher(file, DEBOUNCE);
+        watcher.close();
+
+        assertFalse(watcher.awaitChange(EXPECTED));
+    }
+
+}
@@ -0,0 +1,40 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class HtmlTest {
+
+    /**
+     * routine case to test :every markup character is replaced, the other
+     * characters are kept.
+     */
+    @Test
+    public void test_appendEscaped_1() {
+        StringBuilder page = new StringBuilder("<p>");
+
+        Html.appendEscaped(page, "a <b> & \"c\" 'd' \u00E9");
+
+        assertEquals("<p>a &lt;b&gt; &amp; &quot;c&quot; &#39;d&#39; \u00E9",
+                page.toString());
+    }
+
+    /**
+     * boundary case to test :only the range is appended, and markup at both
+     * ends of it is escaped.
+     */
+    @Test
+    public void test_appendEscaped_2() {
+        StringBuilder page = new StringBuilder();
+
+        Html.appendEscaped(page, "x<a&b>y", 1, 6);
+        Html.appendEscaped(page, "x<a&b>y", 3, 3);
+
+        assertEquals("&lt;a&amp;b&gt;", page.toString());
+    }
+
+}
@@ -0,0 +1,129 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class InvertedIndexTest {
+
+    /**
+     * Returns an index of a small glossary.
+     *
+     * @return the index
+     */
+    private static InvertedIndex sample() {
+        InvertedIndex index = new InvertedIndex(SeparatorSet.DEFAULT);
+        index.add("bag", "a bag holds a book");
+        index.add("book", "a book, in a bag or on a shelf");
+        index.add("hash map", "a map, keyed by hash");
+        index.add("map", "a hash map or a tree map");
+        return index;
+    }
+
+    /**
+     * routine case to test :the terms that mention a single word.
+     */
+    @Test
+    public void test_mentions_1() {
+        InvertedIndex index = sample();
+
+        assertArrayEquals(new int[] { 0, 1 }, index.mentions("bag"));
+        assertArrayEquals(new int[] { 2, 3 }, index.mentions("map"));
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, index.mentions("a"));
+        assertEquals(4, index.size());
+        assertEquals("hash map", index.term(2));
+    }
+
+    /**
+     * routine case to test :several words must be next to each other and in
+     * the same order, across separators.
+     */
+    @Test
+    public void test_mentions_2() {
+        InvertedIndex index = sample();
+
+        assertArrayEquals(new int[] { 3 }, index.mentions("hash map"));
+        assertArrayEquals(new int[] { 3 }, index.mentions("hash,\tmap"));
+        assertArrayEquals(new int[] {}, index.mentions("map hash"));
+        assertArrayEquals(new int[] { 1 }, index.mentions("book in"));
+    }
+
+    /**
+     * boundary case to test :words that are not in the index, and no words.
+     */
+    @Test
+    public void test_mentions_3() {
+        InvertedIndex index = sample();
+
+        assertArrayEquals(new int[] {}, index.mentions("tree bag"));
+        assertArrayEquals(new int[] {}, index.mentions("Bag"));
+        assertArrayEquals(new int[] {}, index.mentions(" , "));
+        assertArrayEquals(new int[] {}, index.mentions(""));
+    }
+
+    /**
+     * challenge case to test :positions and term ids past one varint byte.
+     */
+    @Test
+    public void test_mentions_4() {
+        InvertedIndex index = new InvertedIndex(SeparatorSet.DEFAULT);
+        StringBuilder filler = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            filler.append("w").append(i).append(' ');
+        }
+        for (int i = 0; i < 200; i++) {
+            index.add("t" + i, filler + "last word");
+        }
+        index.add("t200", "word last");
+
+        int[] all = new int[200];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        assertArrayEquals(all, index.mentions("w299 last word"));
+        assertArrayEquals(new int[] { 200 }, index.mentions("word last"));
+        assertEquals(302, index.wordCount());
+    }
+
+    /**
+     * routine case to test :terms that mention all or any of several words.
+     */
+    @Test
+    public void test_mentionsAll_1() {
+        InvertedIndex index = sample();
+
+        assertArrayEquals(new int[] { 0, 1 },
+                index.mentionsAll("bag", "book"));
+        assertArrayEquals(new int[] { 3 }, index.mentionsAll("tree", "map"));
+        assertArrayEquals(new int[] {}, index.mentionsAll("shelf", "map"));
+        assertArrayEquals(new int[] {}, index.mentionsAll());
+        assertArrayEquals(new int[] { 1, 2, 3 },
+                index.mentionsAny("shelf", "map", "missing"));
+        assertArrayEquals(new int[] {}, index.mentionsAny());
+    }
+
+    /**
+     * routine case to test :the other terms that mention a term, without
+     * duplicates and in order.
+     */
+    @Test
+    public void test_referencedBy_1() {
+        InvertedIndex index = sample();
+        index.add("bag", "a bag again");
+
+        assertArrayEquals(new String[] { "book" }, index.referencedBy("bag"));
+        assertArrayEquals(new String[] { "bag" }, index.referencedBy("book"));
+        assertArrayEquals(new String[] { "map" },
+                index.referencedBy("hash map"));
+        assertArrayEquals(new String[] { "hash map" },
+                index.referencedBy("map"));
+        assertArrayEquals(new String[] {}, index.referencedBy("shelf tree"));
+        assertArrayEquals(new String[] { "bag", "book" },
+                index.terms(new int[] { 1, 4, 0 }));
+    }
+
+}
@@ -0,0 +1,173 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class LinkGraphTest {
+
+    /**
+     * Returns the graph of a glossary text.
+     *
+     * @param text
+     *            the glossary text
+     * @param terms
+     *            the terms, in order
+     * @return the graph
+     */
+    private static LinkGraph graph(String text, String... terms) {
+        TermMatcher matcher = new TermMatcher(Arrays.asList(terms),
+                SeparatorSet.DEFAULT);
+        try (TermReader records = new TermReader(new StringReader(text))) {
+            return LinkGraph.of(records, matcher);
+        }
+    }
+
+    /**
+     * A glossary with the cycle bag, book, pen, the two-term cycle ink, nib,
+     * and the orphan shelf that links into the first cycle.
+     */
+    private static final String SAMPLE = "bag\nholds a book\n\n"
+            + "book\nread it with a pen, or put it in a bag\n\n"
+            + "ink\nfills a nib\n\n" + "nib\nwrites with ink\n\n"
+            + "pen\nwrites in a book, a book, and a bag\n\n"
+            + "shelf\nholds a bag\n";
+
+    /**
+     * routine case to test :links in both directions, each once and never to
+     * the term itself.
+     */
+    @Test
+    public void test_of_1() {
+        LinkGraph graph = graph(SAMPLE + "\nself\nlinks to self\n", "bag",
+                "book", "ink", "nib", "pen", "self", "shelf");
+
+        assertEquals(7, graph.size());
+        assertEquals(8, graph.linkCount());
+        assertArrayEquals(new String[] { "book", "bag" },
+                graph.linksFrom("pen"));
+        assertArrayEquals(new String[] {}, graph.linksFrom("self"));
+        assertArrayEquals(new String[] { "book", "pen", "shelf" },
+                graph.referencedBy("bag"));
+        assertArrayEquals(new String[] {}, graph.referencedBy("missing"));
+    }
+
+    /**
+     * challenge case to test :a term defined twice links only from its first
+     * description.
+     */
+    @Test
+    public void test_of_2() {
+        LinkGraph graph = graph("bag\nholds a book\n\nbook\nread it\n\n"
+                + "bag\nholds a pen\n\npen\nwrites\n", "bag", "book", "pen");
+
+        assertEquals(1, graph.linkCount());
+        assertArrayEquals(new String[] { "book" }, graph.linksFrom("bag"));
+        assertArrayEquals(new String[] {}, graph.referencedBy("pen"));
+    }
+
+    /**
+     * challenge case to test :the terms that link to a term come in the
+     * order of their ids, whatever the order of their records.
+     */
+    @Test
+    public void test_of_3() {
+        LinkGraph graph = graph("c\nsee a here\n\nb\nsee a and c\n\n"
+                + "a\nsee b\n", "a", "b", "c");
+
+        assertEquals(4, graph.linkCount());
+        assertArrayEquals(new String[] { "b", "c" }, graph.referencedBy("a"));
+        assertArrayEquals(new String[] { "c" }, graph.seeAlso("a"));
+        assertArrayEquals(new String[] {}, graph.seeAlso("b"));
+        assertArrayEquals(new String[] { "b" }, graph.seeAlso("c"));
+    }
+
+    /**
+     * routine case to test :orphan terms, and terms linked to but without a
+     * description.
+     */
+    @Test
+    public void test_orphans_1() {
+        LinkGraph graph = graph(SAMPLE + "\nstub\n\nlid\ncovers a stub\n",
+                "bag", "book", "ink", "lid", "nib", "pen", "shelf", "stub");
+
+        assertArrayEquals(new String[] { "lid", "shelf" }, graph.orphans());
+        assertArrayEquals(new String[] { "stub" }, graph.undefined());
+    }
+
+    /**
+     * routine case to test :cycles of links, and the terms to see also.
+     */
+    @Test
+    public void test_cycles_1() {
+        LinkGraph graph = graph(SAMPLE, "bag", "book", "ink", "nib", "pen",
+                "shelf");
+
+        String[][] cycles = graph.cycles();
+        assertEquals(2, cycles.length);
+        assertArrayEquals(new String[] { "bag", "book", "pen" }, cycles[0]);
+        assertArrayEquals(new String[] { "ink", "nib" }, cycles[1]);
+        assertArrayEquals(new String[] { "pen" }, graph.seeAlso("bag"));
+        assertArrayEquals(new String[] {}, graph.seeAlso("book"));
+        assertArrayEquals(new String[] {}, graph.seeAlso("ink"));
+        assertArrayEquals(new String[] {}, graph.seeAlso("shelf"));
+    }
+
+    /**
+     * challenge case to test :a chain of links much deeper than the call
+     * stack could recurse into.
+     */
+    @Test
+    public void test_cycles_2() {
+        final int n = 100000;
+        String[] terms = new String[n];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            terms[i] = String.format("t%06d", i);
+        }
+        for (int i = 0; i < n; i++) {
+            text.append(terms[i]).append('\n')
+                    .append(terms[(i + 1) % n]).append("\n\n");
+        }
+
+        LinkGraph graph = graph(text.toString(), terms);
+
+        assertEquals(n, graph.linkCount());
+        assertEquals(1, graph.cycles().length);
+        assertEquals(n, graph.cycles()[0].length);
+        assertArrayEquals(new String[] {}, graph.orphans());
+    }
+
+    /**
+     * routine case to test :the report lists every finding.
+     *
+     * @throws IOException
+     *             if the report cannot be read
+     */
+    @Test
+    public void test_writeReport_1() throws IOException {
+        LinkGraph graph = graph(SAMPLE, "bag", "book", "ink", "nib", "pen",
+                "shelf");
+        Path file = Files.createTempFile("glossary", ".txt");
+
+        graph.writeReport(file);
+
+        assertEquals(
+                Arrays.asList("terms: 6", "links: 8", "orphans: 1", "  shelf",
+                        "undefined: 0", "cycles: 2", "  bag, book, pen",
+                        "  ink, nib"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,120 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class PageNameTest {
+
+    /**
+     * routine case to test :lowercase letters and digits are kept, and
+     * everything else is encoded.
+     */
+    @Test
+    public void test_of_1() {
+        assertEquals("bag2", PageName.of("bag2"));
+        assertEquals("hash-20map", PageName.of("hash map"));
+        assertEquals("_hash_map", PageName.of("HashMap"));
+        assertEquals("a-2fb-3cc-3e", PageName.of("a/b<c>"));
+        assertEquals("caf-c3-a9", PageName.of("caf\u00E9"));
+        assertEquals("-f0-9f-98-80", PageName.of("\uD83D\uDE00"));
+        assertEquals("-2e.", PageName.of(".."));
+        assertEquals("a.b", PageName.of("a.b"));
+        assertEquals("-", PageName.of(""));
+    }
+
+    /**
+     * challenge case to test :terms that differ only in case, or in
+     * characters that look like an encoding, have distinct names even on a
+     * case-insensitive file system.
+     */
+    @Test
+    public void test_of_2() {
+        String[] terms = { "bag", "Bag", "BAG", "_bag", "-20", " ", "-", "_",
+            "", "a b", "a-20b", "a_b", "aB", "\u00E9", "\u00C9", "~" };
+        Set<String> names = new HashSet<>();
+        for (String term : terms) {
+            String name = PageName.of(term);
+            assertTrue(name, names.add(name.toLowerCase(Locale.ROOT)));
+            assertEquals(term, PageName.term(name));
+        }
+    }
+
+    /**
+     * boundary case to test :a name too long is cut and ends with a hash of
+     * the whole term.
+     */
+    @Test
+    public void test_of_3() {
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < PageName.MAX_LENGTH; i++) {
+            term.append("\u00E9");
+        }
+        String first = PageName.of(term + "a");
+        String second = PageName.of(term + "b");
+
+        assertTrue(first.length() <= PageName.MAX_LENGTH);
+        assertTrue(PageName.isHashed(first));
+        assertFalse(first.equals(second));
+        assertNull(PageName.term(first));
+        assertFalse(PageName.isHashed(PageName.of(term.substring(0, 20))));
+    }
+
+    /**
+     * challenge case to test :device names Windows reserves are escaped,
+     * whatever follows their first dot, and still decode.
+     */
+    @Test
+    public void test_of_4() {
+        assertEquals("co-6e", PageName.of("con"));
+        assertEquals("nu-6c.txt", PageName.of("nul.txt"));
+        assertEquals("com-31", PageName.of("com1"));
+        assertEquals("lpt-39.a.b", PageName.of("lpt9.a.b"));
+        assertEquals("cons", PageName.of("cons"));
+        assertEquals("com", PageName.of("com"));
+        assertEquals("comx", PageName.of("comx"));
+        assertEquals("_con", PageName.of("Con"));
+        assertEquals("con", PageName.term("co-6e"));
+        assertEquals("com1", PageName.term("com-31"));
+        assertNull(PageName.term("con"));
+    }
+
+    /**
+     * challenge case to test :names that no term has do not decode.
+     */
+    @Test
+    public void test_term_1() {
+        assertNull(PageName.term("-61"));
+        assertNull(PageName.term("_1"));
+        assertNull(PageName.term("-zz"));
+        assertNull(PageName.term("-c3"));
+        assertNull(PageName.term("Bag"));
+        assertNull(PageName.term(".bag"));
+    }
+
+    /**
+     * routine case to test :the page of a term is named after it in links
+     * and files alike.
+     */
+    @Test
+    public void test_append_1() {
+        StringBuilder link = new StringBuilder("<a href=\"");
+
+        PageName.append(link, "Hash map");
+
+        assertEquals("<a href=\"_hash-20map", link.toString());
+        assertEquals("_hash-20map.html",
+                GlossaryFacility.termPageName("Hash map"));
+    }
+
+}
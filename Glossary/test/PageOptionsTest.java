@@ -0,0 +1,74 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class PageOptionsTest {
+
+    /**
+     * routine case to test :the default settings write plain pages to files.
+     */
+    @Test
+    public void test_DEFAULT_1() {
+        PageOptions options = PageOptions.DEFAULT;
+
+        assertSame(PageOutput.files(), options.output());
+        assertSame(PageTemplate.TERM_PAGE, options.termTemplate());
+        assertSame(PageTemplate.INDEX_SHARD, options.shardTemplate());
+        assertSame(SeparatorSet.DEFAULT, options.separators());
+        assertNull(options.collation());
+        assertEquals("", options.orderName());
+        assertNull(options.backlinks());
+        assertNull(options.graph());
+        assertFalse(options.isIndexSharded());
+        assertTrue(options.threads() > 0);
+    }
+
+    /**
+     * routine case to test :each with method changes one setting and leaves
+     * the original settings alone.
+     */
+    @Test
+    public void test_with_1() {
+        PageOptions options = PageOptions.DEFAULT
+                .withCollation(new CollationOrder(Locale.FRENCH))
+                .withIndexShards(false, 10).withThreads(3);
+
+        assertEquals("fr", options.orderName());
+        assertTrue(options.isIndexSharded());
+        assertFalse(options.indexByLetter());
+        assertEquals(10, options.indexPageSize());
+        assertEquals(3, options.threads());
+        assertSame(PageOutput.files(), options.output());
+        assertNull(PageOptions.DEFAULT.collation());
+        assertEquals(0, PageOptions.DEFAULT.indexPageSize());
+    }
+
+    /**
+     * boundary case to test :a custom index template also renders the
+     * shards of the index, and changes the hash of the templates.
+     */
+    @Test
+    public void test_withTemplates_1() {
+        PageTemplate index = PageTemplate
+                .indexPage("<ul>{{terms}}</ul>{{home}}{{label}}");
+        PageOptions options = PageOptions.DEFAULT
+                .withTemplates(PageTemplate.TERM_PAGE, index);
+
+        assertSame(index, options.indexTemplate());
+        assertSame(index, options.shardTemplate());
+        assertFalse(options.templatesHash() == PageOptions.DEFAULT
+                .templatesHash());
+    }
+
+}
@@ -0,0 +1,162 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class PageOutputTest {
+
+    /**
+     * Returns the contents of a stream.
+     *
+     * @param in
+     *            the stream
+     * @return the contents, decoded as UTF-8
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    private static String contents(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * routine case to test :a page and its gzip sibling hold the same page.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_write_1() throws IOException {
+        Path folder = Files.createTempDirectory("output");
+        Path file = folder.resolve("bag.html");
+        ByteBuffer tail = ByteBuffer
+                .wrap("</html>".getBytes(StandardCharsets.UTF_8));
+        PageOutput output = PageOutput.gzip();
+        PageWriter writer = new PageWriter();
+
+        writer.begin().append("<html>caf\u00E9");
+        output.encode(writer, tail);
+        output.write(writer, file, tail);
+
+        assertTrue(output.exists(file));
+        assertEquals("<html>caf\u00E9</html>",
+                contents(Files.newInputStream(file)));
+        assertEquals("<html>caf\u00E9</html>", contents(new GZIPInputStream(
+                Files.newInputStream(PageOutput.gzipSibling(file)))));
+    }
+
+    /**
+     * challenge case to test :pages written into an archive read back as
+     * entries named after their path in the output folder.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_write_2() throws IOException {
+        Path folder = Files.createTempDirectory("output");
+        Path archive = folder.resolve("site.zip");
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            large.append(i % 13 == 0 ? '\u2192' : (char) ('a' + i % 26));
+        }
+        PageWriter writer = new PageWriter();
+
+        try (PageOutput output = PageOutput.archive(archive, folder)) {
+            writer.begin().append("<p>bag</p>");
+            output.write(writer, folder.resolve("bag.html"));
+            writer.begin().append(large);
+            output.write(writer, folder.resolve("index/b.html"));
+            assertFalse(output.exists(folder.resolve("bag.html")));
+        }
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(2, zip.size());
+            ZipEntry bag = zip.getEntry("bag.html");
+            assertEquals("<p>bag</p>", contents(zip.getInputStream(bag)));
+            assertEquals(large.toString(), contents(
+                    zip.getInputStream(zip.getEntry("index/b.html"))));
+        }
+        assertFalse(Files.exists(folder.resolve("bag.html")));
+    }
+
+    /**
+     * routine case to test :bytes written as a file get its gzip sibling.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_write_3() throws IOException {
+        Path file = Files.createTempDirectory("output").resolve("report.txt");
+        ByteBuffer bytes = ByteBuffer
+                .wrap("terms: 2\n".getBytes(StandardCharsets.UTF_8));
+
+        PageOutput.gzip().write(bytes, file);
+
+        assertEquals(0, bytes.position());
+        assertEquals("terms: 2\n", contents(Files.newInputStream(file)));
+        assertEquals("terms: 2\n", contents(new GZIPInputStream(
+                Files.newInputStream(PageOutput.gzipSibling(file)))));
+    }
+
+    /**
+     * challenge case to test :bytes written into an archive, next to a page,
+     * read back as an entry and leave the output folder as it was.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_write_4() throws IOException {
+        Path folder = Files.createTempDirectory("output");
+        Path archive = folder.resolve("site.zip");
+        PageWriter writer = new PageWriter();
+
+        try (PageOutput output = PageOutput.archive(archive, folder)) {
+            writer.begin().append("<p>bag</p>");
+            output.write(writer, folder.resolve("bag.html"));
+            output.write(ByteBuffer.wrap(new byte[0]),
+                    folder.resolve("empty.txt"));
+        }
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(2, zip.size());
+            assertEquals("", contents(
+                    zip.getInputStream(zip.getEntry("empty.txt"))));
+        }
+        assertFalse(Files.exists(folder.resolve("empty.txt")));
+    }
+
+    /**
+     * routine case to test :gzip siblings are kept with their page only by
+     * the output that writes them.
+     */
+    @Test
+    public void test_keeps_1() {
+        assertEquals("a.html", PageOutput.pageName("a.html.gz"));
+        assertEquals("a.html", PageOutput.pageName("a.html"));
+        assertTrue(PageOutput.files().keeps("a.html", true));
+        assertFalse(PageOutput.files().keeps("a.html.gz", true));
+        assertTrue(PageOutput.gzip().keeps("a.html.gz", true));
+        assertFalse(PageOutput.gzip().keeps("a.html.gz", false));
+    }
+
+}
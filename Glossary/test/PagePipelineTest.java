@@ -0,0 +1,96 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import components.map.Map;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class PagePipelineTest {
+
+    /**
+     * Returns the contents of a file.
+     *
+     * @param file
+     *            the file
+     * @return the contents, decoded as UTF-8
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static String contents(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * routine case to test :every page is written followed by its trailer.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_submit_1() throws IOException {
+        Path folder = Files.createTempDirectory("pipeline");
+        ByteBuffer tail = ByteBuffer
+                .wrap("</p>".getBytes(StandardCharsets.UTF_8))
+                .asReadOnlyBuffer();
+        Map<String, String> failures;
+
+        try (PagePipeline pipeline = new PagePipeline(2)) {
+            for (int i = 0; i < 100; i++) {
+                String text = "page " + i;
+                pipeline.submit(text, folder.resolve(i + ".html"),
+                        page -> page.append("<p>").append(text), tail);
+            }
+            failures = pipeline.finish();
+        }
+
+        assertEquals(0, failures.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("<p>page " + i + "</p>",
+                    contents(folder.resolve(i + ".html")));
+        }
+    }
+
+    /**
+     * challenge case to test :pages that cannot be rendered or written are
+     * reported and do not stop the others.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_submit_2() throws IOException {
+        Path folder = Files.createTempDirectory("pipeline");
+        Map<String, String> failures;
+
+        try (PagePipeline pipeline = new PagePipeline(1)) {
+            pipeline.submit("a", folder.resolve("a.html"),
+                    page -> page.append("a"));
+            pipeline.submit("b", folder.resolve("b.html"), page -> {
+                throw new IllegalStateException("no page");
+            });
+            pipeline.submit("c", folder.resolve("missing/c.html"),
+                    page -> page.append("c"));
+            pipeline.submit("d", folder.resolve("d.html"),
+                    page -> page.append("d"));
+            failures = pipeline.finish();
+        }
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.value("b").contains("no page"));
+        assertTrue(failures.hasKey("c"));
+        assertEquals("a", contents(folder.resolve("a.html")));
+        assertEquals("d", contents(folder.resolve("d.html")));
+    }
+
+}
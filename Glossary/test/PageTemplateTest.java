@@ -0,0 +1,130 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class PageTemplateTest {
+
+    /**
+     * Renders {@code template}, filling every slot with its name in brackets.
+     *
+     * @param template
+     *            the template
+     * @return the page, up to its tail
+     */
+    private static String head(PageTemplate template) {
+        StringBuilder page = new StringBuilder();
+        template.renderHead(page,
+                (p, slot) -> p.append('[').append(slot).append(']'));
+        return page.toString();
+    }
+
+    /**
+     * Returns the tail of {@code template} as text.
+     *
+     * @param template
+     *            the template
+     * @return the tail
+     */
+    private static String tail(PageTemplate template) {
+        ByteBuffer tail = template.tail().duplicate();
+        byte[] bytes = new byte[tail.remaining()];
+        tail.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * routine case to test :the segments and slots render in order, and the
+     * text after the last slot is the tail.
+     */
+    @Test
+    public void test_renderHead_1() {
+        PageTemplate template = PageTemplate.termPage(
+                "<h1>{{term}}</h1>{{ description }}<a href=\"{{home}}\">"
+                        + "\u2190</a></html>");
+
+        assertEquals("<h1>[TERM]</h1>[DESCRIPTION]<a href=\"[HOME]",
+                head(template));
+        assertEquals("\">\u2190</a></html>", tail(template));
+    }
+
+    /**
+     * boundary case to test :a template without slots is all tail.
+     */
+    @Test
+    public void test_renderHead_2() {
+        PageTemplate template = PageTemplate.indexPage("<p>{ not a slot }</p>");
+
+        assertEquals("", head(template));
+        assertEquals("<p>{ not a slot }</p>", tail(template));
+    }
+
+    /**
+     * routine case to test :the whole page is the head followed by the tail.
+     */
+    @Test
+    public void test_render_1() {
+        PageTemplate template = PageTemplate
+                .indexPage("<ul>{{terms}}</ul><p>{{label}}</p>");
+        StringBuilder page = new StringBuilder();
+
+        template.render(page, (p, slot) -> {
+            if (slot == PageTemplate.Slot.TERMS) {
+                p.append("<li>bag</li>");
+            }
+        });
+
+        assertEquals("<ul><li>bag</li></ul><p></p>", page.toString());
+    }
+
+    /**
+     * challenge case to test :a slot of index pages is not a slot of term
+     * pages.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_termPage_1() {
+        PageTemplate.termPage("<ul>{{terms}}</ul>");
+    }
+
+    /**
+     * challenge case to test :a slot that is not closed is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_termPage_2() {
+        PageTemplate.termPage("<title>{{term</title>");
+    }
+
+    /**
+     * routine case to test :a template read from a file has the hash of its
+     * text, which tells templates apart.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_read_1() throws IOException {
+        Path file = Files.createTempFile("template", ".html");
+        String text = "<title>{{term}}</title>{{description}}";
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+        PageTemplate template = PageTemplate.read(file, true);
+
+        assertEquals("<title>[TERM]</title>[DESCRIPTION]", head(template));
+        assertEquals(PageTemplate.termPage(text).hash(), template.hash());
+        assertFalse(template.hash() == PageTemplate.TERM_PAGE.hash());
+        assertFalse(PageTemplate.hash(template, PageTemplate.INDEX_PAGE)
+                == PageTemplate.hash(PageTemplate.INDEX_PAGE, template));
+    }
+
+}
@@ -0,0 +1,139 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class PageWriterTest {
+
+    /**
+     * Returns the contents of a file.
+     *
+     * @param file
+     *            the file
+     * @return the contents, decoded as UTF-8
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static String contents(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * boundary case to test :an empty page writes an empty file.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_writeTo_1() throws IOException {
+        Path file = Files.createTempFile("page", ".html");
+        PageWriter writer = new PageWriter();
+
+        writer.begin();
+        writer.writeTo(file);
+
+        assertEquals("", contents(file));
+    }
+
+    /**
+     * routine case to test :a page replaces the file and is encoded as UTF-8.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_writeTo_2() throws IOException {
+        Path file = Files.createTempFile("page", ".html");
+        Files.write(file, "an older and much longer page".getBytes(
+                StandardCharsets.UTF_8));
+        PageWriter writer = new PageWriter();
+
+        writer.begin().append("<b>caf\u00E9 \u2192 \uD83D\uDCD6</b>");
+        writer.writeTo(file);
+
+        assertEquals("<b>caf\u00E9 \u2192 \uD83D\uDCD6</b>", contents(file));
+    }
+
+    /**
+     * routine case to test :the trailer follows the page and stays unread.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_writeTo_3() throws IOException {
+        Path file = Files.createTempFile("page", ".html");
+        ByteBuffer trailer = ByteBuffer
+                .wrap("</html>".getBytes(StandardCharsets.UTF_8));
+        PageWriter writer = new PageWriter();
+
+        writer.begin().append("<html>");
+        writer.writeTo(file, trailer);
+
+        assertEquals("<html></html>", contents(file));
+        assertEquals(0, trailer.position());
+    }
+
+    /**
+     * challenge case to test :a page much larger than the buffers, after a
+     * smaller one, is written whole.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_writeTo_4() throws IOException {
+        Path file = Files.createTempFile("page", ".html");
+        PageWriter writer = new PageWriter();
+        writer.begin().append("small");
+        writer.writeTo(file);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            expected.append(i % 7 == 0 ? '\u00E9' : 'a');
+        }
+
+        writer.begin().append(expected);
+        writer.writeTo(file);
+
+        assertEquals(expected.toString(), contents(file));
+    }
+
+    /**
+     * routine case to test :a closed page writer still compresses pages.
+     */
+    @Test
+    public void test_close_1() {
+        PageWriter writer = new PageWriter();
+        writer.begin().append("bag");
+        writer.encode();
+        writer.deflate(ByteBuffer.allocate(0));
+        int deflated = writer.deflated().remaining();
+
+        writer.close();
+        writer.deflate(ByteBuffer.allocate(0));
+
+        assertEquals(deflated, writer.deflated().remaining());
+        assertEquals("bag".length(), writer.inflatedLength());
+        writer.close();
+    }
+
+    /**
+     * routine case to test :each thread reuses its own page writer.
+     */
+    @Test
+    public void test_forThread_1() {
+        assertSame(PageWriter.forThread(), PageWriter.forThread());
+    }
+
+}
@@ -0,0 +1,228 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class PrefixIndexTest {
+
+    /**
+     * Returns the terms "t000" to "t(n-1)", in order.
+     *
+     * @param n
+     *            the number of terms
+     * @return the terms
+     */
+    private static List<String> numbered(int n) {
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            terms.add(String.format("t%03d", i));
+        }
+        return terms;
+    }
+
+    /**
+     * routine case to test :the terms with a prefix, in order.
+     */
+    @Test
+    public void test_complete_1() {
+        PrefixIndex index = PrefixIndex.of(
+                Arrays.asList("bag", "bat", "book", "hash", "hash map"));
+
+        assertArrayEquals(new String[] { "bag", "bat" },
+                index.complete("ba", 10));
+        assertArrayEquals(new String[] { "hash", "hash map" },
+                index.complete("hash", 10));
+        assertArrayEquals(new String[] { "bag", "bat", "book" },
+                index.complete("b", 10));
+        assertEquals(5, index.size());
+    }
+
+    /**
+     * boundary case to test :no terms, no prefix and no match.
+     */
+    @Test
+    public void test_complete_2() {
+        PrefixIndex empty = PrefixIndex.of(new ArrayList<>());
+        PrefixIndex index = PrefixIndex.of(Arrays.asList("bag", "bat"));
+
+        assertEquals(0, empty.complete("b", 10).length);
+        assertArrayEquals(new String[] { "bag", "bat" },
+                index.complete("", 10));
+        assertEquals(0, index.complete("c", 10).length);
+        assertEquals(0, index.complete("a", 10).length);
+        assertEquals(0, index.complete("bags", 10).length);
+        assertEquals(0, index.complete("ba", 0).length);
+    }
+
+    /**
+     * challenge case to test :matches across blocks, limited to k.
+     */
+    @Test
+    public void test_complete_3() {
+        final int n = 100;
+        PrefixIndex index = PrefixIndex.of(numbered(n));
+
+        assertArrayEquals(numbered(n).subList(10, 20).toArray(),
+                index.complete("t01", 100));
+        assertArrayEquals(numbered(n).subList(30, 33).toArray(),
+                index.complete("t03", 3));
+        assertArrayEquals(new String[] { "t099" },
+                index.complete("t099", 100));
+        assertEquals(n, index.complete("t", 1000).length);
+    }
+
+    /**
+     * routine case to test :an index written and read back answers the same.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void test_write_1() throws IOException {
+        Path file = Files.createTempFile("prefix", ".bin");
+        PrefixIndex index = PrefixIndex.of(numbered(50));
+
+        index.write(file);
+        PrefixIndex read = PrefixIndex.read(file);
+
+        assertEquals(50, read.size());
+        assertArrayEquals(index.complete("t02", 100),
+                read.complete("t02", 100));
+    }
+
+    /**
+     * challenge case to test :an index written to an archive output is an
+     * entry of the archive, and not a file of the output folder.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_write_2() throws IOException {
+        Path folder = Files.createTempDirectory("output");
+        Path archive = folder.resolve("site.zip");
+        Path file = folder.resolve(PrefixIndex.FILE_NAME);
+        PrefixIndex index = PrefixIndex.of(numbered(50));
+
+        try (PageOutput output = PageOutput.archive(archive, folder)) {
+            index.write(file, output);
+        }
+
+        assertFalse(Files.exists(file));
+        Path copy = Files.createTempFile("prefix", ".bin");
+        try (ZipFile zip = new ZipFile(archive.toFile());
+                InputStream in = zip.getInputStream(
+                        zip.getEntry(PrefixIndex.FILE_NAME))) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        PrefixIndex read = PrefixIndex.read(copy);
+        assertEquals(50, read.size());
+        assertArrayEquals(index.complete("t02", 100),
+                read.complete("t02", 100));
+    }
+
+    /**
+     * challenge case to test :a file that is not an index is refused, with
+     * or without assertions.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_read_1() throws IOException {
+        Path file = Files.createTempFile("prefix", ".bin");
+        Files.write(file, "not an index, just text".getBytes(
+                StandardCharsets.UTF_8));
+
+        PrefixIndex.read(file);
+    }
+
+    /**
+     * boundary case to test :a truncated index is refused.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_read_2() throws IOException {
+        Path file = Files.createTempFile("prefix", ".bin");
+        PrefixIndex.of(numbered(50)).write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        PrefixIndex.read(file);
+    }
+
+    /**
+     * routine case to test :a shard per prefix, complete at full depth and
+     * cut at k above it.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_writeShards_1() throws IOException {
+        Path folder = Files.createTempDirectory("shards");
+        PrefixIndex index = PrefixIndex
+                .of(Arrays.asList("Bag", "bag", "bat", "book", "c"));
+
+        index.writeShards(folder.toString(), 2, 2);
+
+        Path shards = folder.resolve(PrefixIndex.SHARD_FOLDER);
+        String b = new String(Files.readAllBytes(shards.resolve("b.json")),
+                StandardCharsets.UTF_8);
+        assertEquals("{\"prefix\":\"b\",\"terms\":["
+                + "{\"term\":\"bag\",\"page\":\"bag.html\"},"
+                + "{\"term\":\"bat\",\"page\":\"bat.html\"}],"
+                + "\"complete\":false}", b);
+        String ba = new String(Files.readAllBytes(shards.resolve("ba.json")),
+                StandardCharsets.UTF_8);
+        assertTrue(ba.endsWith("\"complete\":true}"));
+        assertTrue(Files.exists(shards.resolve("_ba.json")));
+        assertTrue(Files.exists(shards.resolve("bo.json")));
+        assertTrue(Files.exists(shards.resolve("c.json")));
+        assertEquals(6, shards.toFile().list().length);
+    }
+
+    /**
+     * boundary case to test :shards of prefixes no term has any more are
+     * deleted.
+     *
+     * @throws IOException
+     *             if the temporary folder cannot be used
+     */
+    @Test
+    public void test_writeShards_2() throws IOException {
+        Path folder = Files.createTempDirectory("shards");
+        PrefixIndex.of(Arrays.asList("bag", "cat")).writeShards(
+                folder.toString(), PrefixIndex.DEFAULT_DEPTH,
+                PrefixIndex.DEFAULT_SUGGESTIONS);
+
+        PrefixIndex.of(Arrays.asList("bag")).writeShards(folder.toString(),
+                PrefixIndex.DEFAULT_DEPTH, PrefixIndex.DEFAULT_SUGGESTIONS);
+
+        Path shards = folder.resolve(PrefixIndex.SHARD_FOLDER);
+        assertTrue(Files.exists(shards.resolve("ba.json")));
+        assertFalse(Files.exists(shards.resolve("c.json")));
+        assertFalse(Files.exists(shards.resolve("ca.json")));
+    }
+
+}
@@ -0,0 +1,109 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class SeparatorSetTest {
+
+    /**
+     * routine case to test :the default separators are space, tab and comma.
+     */
+    @Test
+    public void test_contains_1() {
+        SeparatorSet separators = SeparatorSet.DEFAULT;
+
+        assertTrue(separators.contains(' '));
+        assertTrue(separators.contains('\t'));
+        assertTrue(separators.contains(','));
+        assertFalse(separators.contains('a'));
+        assertFalse(separators.contains('.'));
+        assertFalse(separators.contains('\u00e9'));
+    }
+
+    /**
+     * challenge case to test :separators above ASCII and at the ends of the
+     * character range.
+     */
+    @Test
+    public void test_contains_2() {
+        SeparatorSet separators = SeparatorSet
+                .of("\u0000?@\u007f\u0080\u3000\uffff");
+
+        assertTrue(separators.contains('\u0000'));
+        assertTrue(separators.contains('?'));
+        assertTrue(separators.contains('@'));
+        assertTrue(separators.contains('\u007f'));
+        assertTrue(separators.contains('\u0080'));
+        assertTrue(separators.contains('\u3000'));
+        assertTrue(separators.contains('\uffff'));
+        assertFalse(separators.contains('\u0001'));
+        assertFalse(separators.contains('A'));
+        assertFalse(separators.contains('\u00c0'));
+        assertFalse(separators.contains('\ufffe'));
+    }
+
+    /**
+     * routine case to test :the same characters give the same set, whatever
+     * their order or repetitions.
+     */
+    @Test
+    public void test_of_1() {
+        SeparatorSet separators = SeparatorSet.of(",\t ,");
+
+        assertSame(SeparatorSet.DEFAULT, separators);
+        assertEquals("\t ,", separators.chars());
+    }
+
+    /**
+     * routine case to test :sets built from a {@code Set} and from a string
+     * are the same.
+     */
+    @Test
+    public void test_of_2() {
+        Set<Character> chars = new Set1L<>();
+        GlossaryFacility.generateElements(" ; ", chars);
+
+        SeparatorSet fromSet = SeparatorSet.of(chars);
+        SeparatorSet fromString = SeparatorSet.of("; ");
+
+        assertSame(fromSet, fromString);
+        assertEquals(" ;", fromSet.chars());
+    }
+
+    /**
+     * boundary case to test :no separators.
+     */
+    @Test
+    public void test_of_3() {
+        SeparatorSet separators = SeparatorSet.of("");
+
+        assertEquals("", separators.chars());
+        assertFalse(separators.contains(' '));
+        assertFalse(separators.contains('\u3000'));
+    }
+
+    /**
+     * routine case to test :punctuation added to the default separators.
+     */
+    @Test
+    public void test_with_1() {
+        SeparatorSet separators = SeparatorSet.DEFAULT.with(".;:()");
+
+        assertTrue(separators.contains(' '));
+        assertTrue(separators.contains('.'));
+        assertTrue(separators.contains('('));
+        assertFalse(SeparatorSet.DEFAULT.contains('.'));
+        assertEquals(separators, SeparatorSet.of(" \t,.;:()"));
+    }
+
+}
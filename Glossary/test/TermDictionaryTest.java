@@ -0,0 +1,108 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class TermDictionaryTest {
+
+    /**
+     * boundary case to test :empty dictionary.
+     */
+    @Test
+    public void test_id_1() {
+        TermDictionary dictionary = new TermDictionary(0);
+
+        assertEquals(0, dictionary.size());
+        assertEquals(TermDictionary.NO_ID, dictionary.id("bag"));
+        assertFalse(dictionary.iterator().hasNext());
+    }
+
+    /**
+     * routine case to test :ids follow insertion order.
+     */
+    @Test
+    public void test_add_1() {
+        TermDictionary dictionary = new TermDictionary();
+
+        int bag = dictionary.add("bag", "holds things");
+        int book = dictionary.add("book", "");
+
+        assertEquals(0, bag);
+        assertEquals(1, book);
+        assertEquals("bag", dictionary.term(bag));
+        assertEquals("holds things", dictionary.description(bag));
+        assertEquals("", dictionary.description(book));
+        assertTrue(dictionary.hasKey("book"));
+    }
+
+    /**
+     * routine case to test :looking up a span of a longer text.
+     */
+    @Test
+    public void test_id_2() {
+        TermDictionary dictionary = new TermDictionary();
+        dictionary.add("bag", "holds things");
+        dictionary.add("hash map", "a table");
+        String text = "a hash map in a bag";
+
+        final int hashStart = 2;
+        final int hashEnd = 10;
+        final int bagStart = 16;
+        assertEquals(1, dictionary.id(text, hashStart, hashEnd));
+        assertEquals(0, dictionary.id(text, bagStart, text.length()));
+        assertEquals(TermDictionary.NO_ID,
+                dictionary.id(text, hashStart, hashEnd - 1));
+        assertEquals(TermDictionary.NO_ID, dictionary.id(text, 0, 0));
+    }
+
+    /**
+     * challenge case to test :many terms force the table and arenas to grow.
+     */
+    @Test
+    public void test_add_2() {
+        final int count = 10_000;
+        TermDictionary dictionary = new TermDictionary(1);
+        for (int i = 0; i < count; i++) {
+            dictionary.add("term" + i, "description of " + i);
+        }
+
+        assertEquals(count, dictionary.size());
+        for (int i = 0; i < count; i++) {
+            int id = dictionary.id("term" + i);
+            assertEquals(i, id);
+            assertEquals("description of " + i, dictionary.description(id));
+        }
+        int i = 0;
+        for (String term : dictionary) {
+            assertEquals("term" + i, term);
+            i++;
+        }
+        assertEquals(count, i);
+    }
+
+    /**
+     * routine case to test :reading records keeps the first of duplicates.
+     */
+    @Test
+    public void test_readGlossary_1() {
+        TermReader records = new TermReader(new StringReader(
+                "bag\nholds things\n\nbook\nread it\n\nbag\nagain\n"));
+
+        TermDictionary dictionary = GlossaryFacility.readGlossary(records);
+        records.close();
+
+        assertEquals(2, dictionary.size());
+        assertEquals("holds things",
+                dictionary.description(dictionary.id("bag")));
+        assertEquals("read it", dictionary.description(dictionary.id("book")));
+    }
+
+}
@@ -0,0 +1,140 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class TermMatcherTest {
+
+    /**
+     * Builds a matcher for the given terms with separators " \t,".
+     *
+     * @param terms
+     *            the terms
+     * @return the matcher
+     */
+    private static TermMatcher matcher(String... terms) {
+        Queue<String> keys = new Queue1L<>();
+        for (String term : terms) {
+            keys.enqueue(term);
+        }
+        Set<Character> separators = new Set1L<>();
+        GlossaryFacility.generateElements(" \t,", separators);
+        return new TermMatcher(keys, SeparatorSet.of(separators));
+    }
+
+    /**
+     * Renders the matches in {@code text} as "[term]" for checking.
+     *
+     * @param m
+     *            the matcher
+     * @param text
+     *            the text
+     * @return the text with every match bracketed
+     */
+    private static String bracket(TermMatcher m, String text) {
+        int[] matches = m.matches(text);
+        StringBuilder res = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            if (matches[i] != 0) {
+                String term = m.term(matches[i] - 1);
+                res.append('[').append(term).append(']');
+                i += term.length();
+            } else {
+                res.append(text.charAt(i));
+                i++;
+            }
+        }
+        return res.toString();
+    }
+
+    /**
+     * boundary case to test :no terms at all.
+     */
+    @Test
+    public void test_matches_1() {
+        TermMatcher m = matcher();
+
+        assertEquals(0, m.size());
+        assertEquals("a b", bracket(m, "a b"));
+    }
+
+    /**
+     * routine case to test :only whole words match.
+     */
+    @Test
+    public void test_matches_2() {
+        TermMatcher m = matcher("bag", "a");
+
+        assertEquals("[bag] has [a] baggage, [bag]",
+                bracket(m, "bag has a baggage, bag"));
+    }
+
+    /**
+     * routine case to test :multi-word term.
+     */
+    @Test
+    public void test_matches_3() {
+        TermMatcher m = matcher("regular expression", "hash map");
+
+        assertEquals("a [regular expression] in a [hash map],",
+                bracket(m, "a regular expression in a hash map,"));
+    }
+
+    /**
+     * challenge case to test :longest match wins over shorter terms.
+     */
+    @Test
+    public void test_matches_4() {
+        TermMatcher m = matcher("hash", "map", "hash map", "map key");
+
+        assertEquals("[hash map] key, [map key]",
+                bracket(m, "hash map key, map key"));
+    }
+
+    /**
+     * challenge case to test :overlapping terms are resolved leftmost first.
+     */
+    @Test
+    public void test_matches_5() {
+        TermMatcher m = matcher("a b", "b c");
+
+        assertEquals("[a b] c", bracket(m, "a b c"));
+        assertEquals("x [b c]", bracket(m, "x b c"));
+    }
+
+    /**
+     * challenge case to test :a failed phrase falls back to a shorter term.
+     */
+    @Test
+    public void test_matches_6() {
+        TermMatcher m = matcher("hash map table", "map");
+
+        assertEquals("hash [map] tab", bracket(m, "hash map tab"));
+    }
+
+    /**
+     * routine case to test :terms map to their ids, prefixes and other text
+     * to -1.
+     */
+    @Test
+    public void test_id_1() {
+        TermMatcher m = matcher("bag", "hash map", "bag");
+
+        assertEquals(0, m.id("bag"));
+        assertEquals(1, m.id("hash map"));
+        assertEquals(-1, m.id("hash"));
+        assertEquals(-1, m.id("bags"));
+        assertEquals(-1, m.id(""));
+    }
+
+}
@@ -0,0 +1,85 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Vivian Lu
+ *
+ */
+public class TermReaderTest {
+
+    /**
+     * boundary case to test :empty input.
+     */
+    @Test
+    public void test_next_1() {
+        TermReader reader = new TermReader(new StringReader(""));
+
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    /**
+     * routine case to test :two records, the last without a blank line.
+     */
+    @Test
+    public void test_next_2() {
+        TermReader reader = new TermReader(
+                new StringReader("bag\nholds things\n\nbook\nread it\n"));
+
+        assertTrue(reader.next());
+        assertEquals("bag", reader.term());
+        assertEquals("holds things", reader.description());
+        assertTrue(reader.next());
+        assertEquals("book", reader.term());
+        assertEquals("read it", reader.description());
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    /**
+     * challenge case to test :multi-line descriptions, CRLF line breaks and
+     * repeated blank lines.
+     */
+    @Test
+    public void test_next_3() {
+        TermReader reader = new TermReader(new StringReader(
+                "glossary\r\na list,\r\nnear the end\r\n\r\n\r\nbook\r\n"
+                        + "a printed\r\nwork"));
+
+        assertTrue(reader.next());
+        assertEquals("glossary", reader.term());
+        assertEquals("a list,near the end", reader.description());
+        assertTrue(reader.next());
+        assertEquals("book", reader.term());
+        assertEquals("a printedwork", reader.description());
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    /**
+     * challenge case to test :a description longer than the read buffer.
+     */
+    @Test
+    public void test_next_4() {
+        final int length = 200_000;
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            description.append((char) ('a' + i % 26));
+        }
+        TermReader reader = new TermReader(
+                new StringReader("long\n" + description + "\n"));
+
+        assertTrue(reader.next());
+        assertEquals("long", reader.term());
+        assertEquals(description.toString(), reader.description());
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+}